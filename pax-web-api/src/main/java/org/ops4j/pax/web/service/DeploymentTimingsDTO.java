@@ -0,0 +1,48 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service;
+
+import java.util.Map;
+
+/**
+ * Durations of deployment phases of single context, as returned by {@link WebContainer#getDeploymentTimings()}.
+ * Durations are in microseconds.
+ */
+public class DeploymentTimingsDTO {
+
+	public long bundleId;
+
+	public String bundleSymbolicName;
+
+	public String contextName;
+
+	/**
+	 * Time (in milliseconds since the epoch) the deployment started.
+	 */
+	public long startTime;
+
+	/**
+	 * Phase name (e.g. {@code parse}, {@code tldScan}, {@code contextStart}) to its duration, in the order phases
+	 * started. Phases may be nested, so the durations don't add up to {@link #total}.
+	 */
+	public Map<String, Long> phases;
+
+	/**
+	 * Time from the start of the deployment to the end of its last phase.
+	 */
+	public long total;
+
+}
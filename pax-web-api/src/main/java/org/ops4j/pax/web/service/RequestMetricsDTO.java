@@ -0,0 +1,54 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service;
+
+/**
+ * Request statistics of single servlet within single context, as returned by
+ * {@link WebContainer#getRequestMetrics()}. Latencies are in microseconds.
+ */
+public class RequestMetricsDTO {
+
+	public String contextName;
+
+	/**
+	 * Name of the servlet or {@code null} for requests not mapped to any servlet.
+	 */
+	public String servletName;
+
+	public long requestCount;
+
+	public long activeRequests;
+
+	public long bytesIn;
+
+	public long bytesOut;
+
+	/**
+	 * Number of responses with 1xx, 2xx, 3xx, 4xx and 5xx status.
+	 */
+	public long[] statusClassCounts;
+
+	public long latencyMean;
+
+	public long latency50thPercentile;
+
+	public long latency90thPercentile;
+
+	public long latency99thPercentile;
+
+	public long latencyMax;
+
+}
@@ -643,9 +643,50 @@ public interface WebContainer extends HttpService {
 	RequestInfoDTO calculateRequestInfoDTO(String path, Iterator<WhiteboardElement> iterator);
 
 	RuntimeDTO createWhiteboardRuntimeDTO(Iterator<WhiteboardElement> iterator);
+
+	/**
+	 * Returns a counter which changes each time information used by {@link #createWhiteboardRuntimeDTO(Iterator)}
+	 * and {@link #calculateRequestInfoDTO(String, Iterator)} (registered contexts, servlets and filters) changes.
+	 * DTOs created for given change count may be cached until the count changes.
+	 *
+	 * @return current change count of runtime information
+	 */
+	long getRuntimeChangeCount();
+
+	/**
+	 * Registers a listener called each time {@link #getRuntimeChangeCount()} changes, so callers caching DTOs
+	 * don't have to poll the count. The listener is called synchronously by the thread changing the runtime, so
+	 * it should only mark cached information as stale.
+	 *
+	 * @param listener listener to call on each change
+	 */
+	void addRuntimeChangeListener(Runnable listener);
+
+	/**
+	 * Removes a listener registered with {@link #addRuntimeChangeListener(Runnable)}.
+	 *
+	 * @param listener listener to remove
+	 */
+	void removeRuntimeChangeListener(Runnable listener);
 	
 	WebContainerDTO getWebcontainerDTO();
 
+	/**
+	 * Returns request statistics (request count, active requests, transferred bytes, status classes and
+	 * latency percentiles) of each servlet of each context, recorded since the server was started.
+	 *
+	 * @return request metrics sorted by context and servlet name
+	 */
+	List<RequestMetricsDTO> getRequestMetrics();
+
+	/**
+	 * Returns durations of deployment phases (descriptor parsing, annotation and TLD scanning, container
+	 * initializers, context start) of each deployed context - web application bundles and whiteboard contexts.
+	 *
+	 * @return deployment timings in the order the deployments started
+	 */
+	List<DeploymentTimingsDTO> getDeploymentTimings();
+
 	void setSessionCookieConfig(String domain, String name, Boolean httpOnly, Boolean secure, String path, Integer maxAge, HttpContext httpContext);
 
 }
@@ -111,6 +111,19 @@ public interface WebContainerConstants {
 	String PROPERTY_CIPHERSUITES_INCLUDED = PID + ".ssl.ciphersuites.included";
 	String PROPERTY_CIPHERSUITES_EXCLUDED = PID + ".ssl.ciphersuites.excluded";
 	String PROPERTY_SSL_RENEGOTIATION_ALLOWED = PID + ".ssl.renegotiationAllowed";
+	/**
+	 * Maximum number of cached TLS sessions, 0 for no limit
+	 */
+	String PROPERTY_SSL_SESSION_CACHE_SIZE = PID + ".ssl.session.cacheSize";
+	/**
+	 * Timeout (in seconds) of cached TLS sessions, 0 for no limit
+	 */
+	String PROPERTY_SSL_SESSION_TIMEOUT = PID + ".ssl.session.timeout";
+	/**
+	 * Interval (in milliseconds) of checking the keystore and truststore files for changes. Changed
+	 * certificates are used for new connections without restarting the connectors. 0 disables the check
+	 */
+	String PROPERTY_SSL_RELOAD_INTERVAL = PID + ".ssl.reloadInterval";
 
 	String PROPERTY_SESSION_TIMEOUT = PID + ".session.timeout";
 	String PROPERTY_SESSION_COOKIE = PID + ".session.cookie";
@@ -123,10 +136,59 @@ public interface WebContainerConstants {
 	String PROPERTY_SESSION_COOKIE_MAX_AGE = PID + ".session.cookie.maxAge";
 	String PROPERTY_SESSION_LAZY_LOAD = PID + ".session.lazyload";
 	String PROPERTY_SESSION_STORE_DIRECTORY = PID + ".session.storedirectory";
+	/**
+	 * Maximum number of sessions kept in memory when sessions are persisted, -1 for no limit
+	 */
+	String PROPERTY_SESSION_MAX_ACTIVE = PID + ".session.maxActive";
+	/**
+	 * Minimum idle time (in seconds) before a persisted session may be swapped out to the store
+	 */
+	String PROPERTY_SESSION_MIN_IDLE_SWAP = PID + ".session.minIdleSwap";
+	/**
+	 * Idle time (in seconds) after which a persisted session is swapped out to the store
+	 */
+	String PROPERTY_SESSION_MAX_IDLE_SWAP = PID + ".session.maxIdleSwap";
+	/**
+	 * Idle time (in seconds) after which a persisted session is backed up to the store
+	 */
+	String PROPERTY_SESSION_MAX_IDLE_BACKUP = PID + ".session.maxIdleBackup";
+	/**
+	 * Whether persisted sessions are written to the store asynchronously
+	 */
+	String PROPERTY_SESSION_STORE_ASYNC = PID + ".session.storeAsync";
 
 	String PROPERTY_TEMP_DIR = "javax.servlet.context.tempdir";
 
+	/**
+	 * Directory where uploaded files are spooled, used when servlet's multipart configuration has no location
+	 */
+	String PROPERTY_MULTIPART_LOCATION = PID + ".multipart.location";
+	/**
+	 * Maximum size (in bytes) of uploaded file, used when servlet's multipart configuration has no limit
+	 */
+	String PROPERTY_MULTIPART_MAX_FILE_SIZE = PID + ".multipart.maxFileSize";
+	/**
+	 * Maximum size (in bytes) of multipart request, used when servlet's multipart configuration has no limit.
+	 * Requests with bigger {@code Content-Length} are rejected with 413 before the body is read
+	 */
+	String PROPERTY_MULTIPART_MAX_REQUEST_SIZE = PID + ".multipart.maxRequestSize";
+	/**
+	 * Size (in bytes) after which uploaded file is written to disk, used when servlet's multipart configuration
+	 * has no threshold
+	 */
+	String PROPERTY_MULTIPART_FILE_SIZE_THRESHOLD = PID + ".multipart.fileSizeThreshold";
+
 	String PROPERTY_LISTENING_ADDRESSES = PID + ".listening.addresses";
+	/**
+	 * Path of Unix domain socket on which HTTP requests are accepted in addition to TCP connectors, e.g. for
+	 * a reverse proxy or sidecar running on the same host. Supported only by Jetty
+	 */
+	String PROPERTY_LISTENING_UNIX_SOCKET = PID + ".listening.unixSocket";
+	/**
+	 * Name of the Unix domain socket connector, so contexts can be bound to it using {@code @name} virtual host
+	 * (or {@code Web-Connectors} header)
+	 */
+	String PROPERTY_LISTENING_UNIX_SOCKET_CONNECTOR_NAME = PID + ".listening.unixSocket.connectorName";
 
 	String PROPERTY_LOG_NCSA_ENABLED = "org.ops4j.pax.web.log.ncsa.enabled";
 	String PROPERTY_LOG_NCSA_FORMAT = "org.ops4j.pax.web.log.ncsa.format";
@@ -152,6 +214,96 @@ public interface WebContainerConstants {
 	String PROPERTY_IDLE_TIMEOUT = "org.ops4j.pax.web.server.idleTimeout";
 	String PROPERTY_CONNECTOR_IDLE_TIMEOUT = "org.ops4j.pax.web.server.connector.idleTimeout";
 	String PROPERTY_SHOW_STACKS = "org.ops4j.pax.web.server.showStacks";
+	/**
+	 * Time (in milliseconds) given to in-flight requests (including async ones) to complete when a context is
+	 * undeployed or the server is stopped. New requests get 503 with {@code Retry-After} during that time.
+	 * 0 (default) stops contexts immediately
+	 */
+	String PROPERTY_GRACEFUL_SHUTDOWN_TIMEOUT = "org.ops4j.pax.web.server.gracefulShutdownTimeout";
+
+	/**
+	 * Enables adaptive admission control - each context gets a concurrency limit lowered when requests wait
+	 * longer than {@link #PROPERTY_ADMISSION_TARGET_DELAY} for a whole {@link #PROPERTY_ADMISSION_INTERVAL} and
+	 * raised again when they don't. Requests above the limit get 503 with {@code Retry-After}.
+	 * Defaults to {@code false}
+	 */
+	String PROPERTY_ADMISSION_ENABLED = "org.ops4j.pax.web.server.admission.enabled";
+	/**
+	 * Acceptable time (in milliseconds) between receiving a request and dispatching it to a context.
+	 * Defaults to 50
+	 */
+	String PROPERTY_ADMISSION_TARGET_DELAY = "org.ops4j.pax.web.server.admission.targetDelay";
+	/**
+	 * Time (in milliseconds) after which the concurrency limit is adjusted. Defaults to 500
+	 */
+	String PROPERTY_ADMISSION_INTERVAL = "org.ops4j.pax.web.server.admission.interval";
+	/**
+	 * Lowest concurrency limit of a context. Defaults to 4
+	 */
+	String PROPERTY_ADMISSION_MIN_CONCURRENCY = "org.ops4j.pax.web.server.admission.minConcurrency";
+	/**
+	 * Highest (and initial) concurrency limit of a context. Defaults to 200
+	 */
+	String PROPERTY_ADMISSION_MAX_CONCURRENCY = "org.ops4j.pax.web.server.admission.maxConcurrency";
+	/**
+	 * Comma-separated request paths (e.g. health checks or management consoles) which are never rejected.
+	 * Each path matches itself and all paths below it
+	 */
+	String PROPERTY_ADMISSION_EXEMPT_PATHS = "org.ops4j.pax.web.server.admission.exemptPaths";
+	/**
+	 * Value (in seconds) of {@code Retry-After} header of rejected requests. Defaults to 1
+	 */
+	String PROPERTY_ADMISSION_RETRY_AFTER = "org.ops4j.pax.web.server.admission.retryAfter";
+
+	/**
+	 * Enables server-side caching of responses (honoring {@code Cache-Control}, {@code Vary} and {@code ETag}
+	 * set by the servlet). Used as context parameter (whole context) or as whiteboard servlet service property
+	 * (single servlet). Defaults to {@code false}
+	 */
+	String RESPONSE_CACHE_ENABLED = "org.ops4j.pax.web.responseCache.enabled";
+	/**
+	 * Maximum total size (in bytes) of responses cached for a context or servlet. Defaults to 16MB
+	 */
+	String RESPONSE_CACHE_MAX_SIZE = "org.ops4j.pax.web.responseCache.maxSize";
+	/**
+	 * Maximum size (in bytes) of single cached response. Larger responses are streamed and not cached.
+	 * Defaults to 1MB
+	 */
+	String RESPONSE_CACHE_MAX_ENTRY_SIZE = "org.ops4j.pax.web.responseCache.maxEntrySize";
+	/**
+	 * Whether cached responses are kept in direct (off-heap) memory. Defaults to {@code false}
+	 */
+	String RESPONSE_CACHE_DIRECT = "org.ops4j.pax.web.responseCache.direct";
+
+	/**
+	 * Enables per-client rate limiting of requests (429 with {@code Retry-After} when exceeded). Used as context
+	 * parameter (single context) or framework property (all whiteboard contexts, unless disabled by context
+	 * parameter). Defaults to {@code false}
+	 */
+	String RATE_LIMIT_ENABLED = "org.ops4j.pax.web.rateLimit.enabled";
+	/**
+	 * Number of requests a client may send within {@link #RATE_LIMIT_PERIOD} - also the size of allowed burst.
+	 * Defaults to 100
+	 */
+	String RATE_LIMIT_REQUESTS = "org.ops4j.pax.web.rateLimit.requests";
+	/**
+	 * Time (in milliseconds) in which {@link #RATE_LIMIT_REQUESTS} are allowed. Defaults to 1000
+	 */
+	String RATE_LIMIT_PERIOD = "org.ops4j.pax.web.rateLimit.period";
+	/**
+	 * What identifies a client: {@code ip} (default) or {@code principal} (remote user set by
+	 * {@code HttpContext.handleSecurity()}, IP address for anonymous requests)
+	 */
+	String RATE_LIMIT_KEY = "org.ops4j.pax.web.rateLimit.key";
+	/**
+	 * Comma-separated addresses of proxies trusted to send {@code X-Forwarded-For}. The header is ignored
+	 * for requests from other addresses
+	 */
+	String RATE_LIMIT_TRUSTED_PROXIES = "org.ops4j.pax.web.rateLimit.trustedProxies";
+	/**
+	 * Maximum number of clients tracked by single context. Defaults to 10000
+	 */
+	String RATE_LIMIT_MAX_CLIENTS = "org.ops4j.pax.web.rateLimit.maxClients";
 
 	/**
 	 * Servlet context attribute containing the bundle context of the bundle
@@ -93,4 +93,14 @@ public interface ServletMapping {
 	 */
 	MultipartConfigElement getMultipartConfig();
 
+	/**
+	 * Getter.
+	 *
+	 * @return whether responses of this servlet are cached on server side, {@code null} if not specified
+	 * (see {@link org.ops4j.pax.web.service.WebContainerConstants#RESPONSE_CACHE_ENABLED})
+	 */
+	default Boolean getResponseCacheEnabled() {
+		return null;
+	}
+
 }
\ No newline at end of file
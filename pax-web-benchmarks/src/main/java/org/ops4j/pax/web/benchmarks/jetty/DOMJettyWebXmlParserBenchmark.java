@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.benchmarks.jetty;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ops4j.pax.web.service.jetty.internal.util.DOMJettyWebXmlParser;
+
+/**
+ * Parses a {@code jetty-web.xml} (as found in WABs configuring their Jetty context) into a
+ * {@link ServletContextHandler}, the way each deployment of a WAB does. The descriptor uses all the ways
+ * {@link DOMJettyWebXmlParser} finds members: exact and primitive setters, values converted with a constructor
+ * or from array to collection, getters and calls with arguments.
+ *
+ * The members are resolved only once per class and value type, so after the first iteration the parsing
+ * is dominated by DOM handling and the configured setters themselves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DOMJettyWebXmlParserBenchmark {
+
+	private static final String JETTY_WEB_XML = "<Configure class=\"org.eclipse.jetty.servlet.ServletContextHandler\">\n"
+			+ "  <Set name=\"contextPath\">/benchmark</Set>\n"
+			+ "  <Set name=\"displayName\">Benchmark</Set>\n"
+			+ "  <Set name=\"maxFormContentSize\">400000</Set>\n"
+			+ "  <Set name=\"maxFormKeys\" type=\"int\">2000</Set>\n"
+			+ "  <Set name=\"allowNullPathInfo\">true</Set>\n"
+			+ "  <Set name=\"virtualHosts\">\n"
+			+ "    <Array type=\"java.lang.String\">\n"
+			+ "      <Item>localhost</Item>\n"
+			+ "      <Item>127.0.0.1</Item>\n"
+			+ "    </Array>\n"
+			+ "  </Set>\n"
+			+ "  <Set name=\"welcomeFiles\">\n"
+			+ "    <Array type=\"java.lang.String\">\n"
+			+ "      <Item>index.html</Item>\n"
+			+ "      <Item>index.jsp</Item>\n"
+			+ "    </Array>\n"
+			+ "  </Set>\n"
+			+ "  <Call name=\"setInitParameter\">\n"
+			+ "    <Arg>org.eclipse.jetty.servlet.Default.dirAllowed</Arg>\n"
+			+ "    <Arg>false</Arg>\n"
+			+ "  </Call>\n"
+			+ "  <Call name=\"setAttribute\">\n"
+			+ "    <Arg>org.eclipse.jetty.server.webapp.ContainerIncludeJarPattern</Arg>\n"
+			+ "    <Arg>.*/[^/]*taglibs.*\\.jar$</Arg>\n"
+			+ "  </Call>\n"
+			+ "  <Get name=\"sessionHandler\">\n"
+			+ "    <Set name=\"maxInactiveInterval\">1800</Set>\n"
+			+ "    <Set name=\"httpOnly\" type=\"boolean\">true</Set>\n"
+			+ "    <Set name=\"sessionCookie\">BENCHMARKSESSIONID</Set>\n"
+			+ "  </Get>\n"
+			+ "  <Get name=\"mimeTypes\">\n"
+			+ "    <Call name=\"addMimeMapping\">\n"
+			+ "      <Arg>webmanifest</Arg>\n"
+			+ "      <Arg>application/manifest+json</Arg>\n"
+			+ "    </Call>\n"
+			+ "  </Get>\n"
+			+ "  <Set name=\"errorHandler\">\n"
+			+ "    <New class=\"org.eclipse.jetty.servlet.ErrorPageErrorHandler\">\n"
+			+ "      <Call name=\"addErrorPage\">\n"
+			+ "        <Arg type=\"int\">500</Arg>\n"
+			+ "        <Arg type=\"int\">599</Arg>\n"
+			+ "        <Arg>/error.html</Arg>\n"
+			+ "      </Call>\n"
+			+ "      <Set name=\"showStacks\">false</Set>\n"
+			+ "    </New>\n"
+			+ "  </Set>\n"
+			+ "</Configure>";
+
+	private byte[] descriptor;
+	private ServletContextHandler context;
+
+	@Setup
+	public void setup() {
+		descriptor = JETTY_WEB_XML.getBytes(StandardCharsets.UTF_8);
+		context = new ServletContextHandler(ServletContextHandler.SESSIONS);
+		parse();
+		if (!"/benchmark".equals(context.getContextPath()) || context.getErrorHandler() == null) {
+			throw new IllegalStateException("jetty-web.xml wasn't fully applied");
+		}
+	}
+
+	@Benchmark
+	public Object parse() {
+		new DOMJettyWebXmlParser().parse(context, new ByteArrayInputStream(descriptor));
+		return context;
+	}
+
+}
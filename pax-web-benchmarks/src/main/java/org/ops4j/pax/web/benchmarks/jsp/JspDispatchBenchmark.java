@@ -0,0 +1,191 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.benchmarks.jsp;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ops4j.pax.swissbox.core.ContextClassLoaderUtils;
+import org.ops4j.pax.web.jsp.InstanceManager;
+
+/**
+ * Compares the per-request overhead of JSP dispatch and tag handler lifecycle before and after
+ * switching {@link org.ops4j.pax.web.jsp.JspServletWrapper} to inline TCCL handling and
+ * {@link InstanceManager} to {@link ClassValue}-based annotation cache.
+ *
+ * The "legacy" methods reproduce the previous implementation: a {@link Callable} passed to
+ * {@link ContextClassLoaderUtils#doWithClassLoader} and a {@link WeakHashMap} guarded by a global monitor
+ * with {@code setAccessible()} toggled for each {@code @PreDestroy} invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class JspDispatchBenchmark {
+
+	private ClassLoader jasperClassLoader;
+	private InstanceManager instanceManager;
+	private final LegacyAnnotationCache legacyCache = new LegacyAnnotationCache();
+
+	@Setup
+	public void setup() {
+		jasperClassLoader = new URLClassLoader(new URL[0], JspDispatchBenchmark.class.getClassLoader());
+		instanceManager = new InstanceManager();
+	}
+
+	@Benchmark
+	public void legacyDispatch(final Blackhole bh) throws Exception {
+		ContextClassLoaderUtils.doWithClassLoader(jasperClassLoader, new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				bh.consume(Thread.currentThread().getContextClassLoader());
+				return null;
+			}
+		});
+	}
+
+	@Benchmark
+	public void inlineDispatch(Blackhole bh) {
+		final Thread thread = Thread.currentThread();
+		final ClassLoader previous = thread.getContextClassLoader();
+		thread.setContextClassLoader(jasperClassLoader);
+		try {
+			bh.consume(thread.getContextClassLoader());
+		} finally {
+			thread.setContextClassLoader(previous);
+		}
+	}
+
+	@Benchmark
+	public Object legacyTagLifecycle() throws Exception {
+		SampleTag tag = new SampleTag();
+		legacyCache.populate(tag.getClass());
+		legacyCache.preDestroy(tag, tag.getClass());
+		return tag;
+	}
+
+	@Benchmark
+	public Object classValueTagLifecycle() throws Exception {
+		SampleTag tag = new SampleTag();
+		instanceManager.newInstance(tag);
+		instanceManager.destroyInstance(tag);
+		return tag;
+	}
+
+	public static class BaseTag {
+		private boolean released;
+
+		@PreDestroy
+		protected void release() {
+			released = true;
+		}
+	}
+
+	public static class SampleTag extends BaseTag {
+		private int counter;
+
+		@PreDestroy
+		private void cleanup() {
+			counter++;
+		}
+	}
+
+	/**
+	 * Annotation cache as implemented before - only {@code @PreDestroy} handling is reproduced.
+	 */
+	private static class LegacyAnnotationCache {
+
+		private final Map<Class<?>, List<String>> annotationCache = new WeakHashMap<>();
+
+		void populate(Class<?> clazz) {
+			while (clazz != null) {
+				List<String> annotations;
+				synchronized (annotationCache) {
+					annotations = annotationCache.get(clazz);
+				}
+				if (annotations == null) {
+					annotations = new ArrayList<>();
+					for (Method method : clazz.getDeclaredMethods()) {
+						if (method.isAnnotationPresent(PreDestroy.class)) {
+							annotations.add(method.getName());
+						}
+					}
+					if (annotations.isEmpty()) {
+						annotations = Collections.emptyList();
+					}
+					synchronized (annotationCache) {
+						annotationCache.put(clazz, annotations);
+					}
+				}
+				clazz = clazz.getSuperclass();
+			}
+		}
+
+		void preDestroy(Object instance, Class<?> clazz) throws IllegalAccessException, InvocationTargetException {
+			Class<?> superClass = clazz.getSuperclass();
+			if (superClass != Object.class) {
+				preDestroy(instance, superClass);
+			}
+			List<String> annotations;
+			synchronized (annotationCache) {
+				annotations = annotationCache.get(clazz);
+			}
+			if (annotations == null) {
+				return;
+			}
+			for (String name : annotations) {
+				Method preDestroy;
+				try {
+					preDestroy = clazz.getDeclaredMethod(name);
+				} catch (NoSuchMethodException e) {
+					continue;
+				}
+				synchronized (preDestroy) {
+					boolean accessibility = preDestroy.isAccessible();
+					preDestroy.setAccessible(true);
+					preDestroy.invoke(instance);
+					preDestroy.setAccessible(accessibility);
+				}
+			}
+		}
+	}
+
+}
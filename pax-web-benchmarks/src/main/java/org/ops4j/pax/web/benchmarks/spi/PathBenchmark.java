@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.benchmarks.spi;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ops4j.pax.web.service.spi.util.Path;
+
+/**
+ * Normalizes resource paths with {@link Path#normalizeResourcePath(String)}, which is called for every
+ * resource lookup of WAB and whiteboard contexts. Most of the paths are already normalized, only some of them
+ * contain repeated slashes or surrounding whitespace.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class PathBenchmark {
+
+	private static final String[] PATHS = {
+			"/index.html",
+			"/css/style.css",
+			"/WEB-INF/web.xml",
+			"/js/vendor/jquery/jquery-3.4.1.min.js",
+			"/images/logo.png",
+			"//static//images//background.jpg",
+			"  /META-INF/resources/webjars/bootstrap/4.3.1/css/bootstrap.min.css ",
+			"/",
+	};
+
+	@Benchmark
+	public String normalizeResourcePath(Counter counter) {
+		return Path.normalizeResourcePath(PATHS[counter.next(PATHS.length)]);
+	}
+
+	/**
+	 * Per-thread position in the paths.
+	 */
+	@State(Scope.Thread)
+	public static class Counter {
+
+		private int counter;
+
+		int next(int length) {
+			counter = (counter + 1) % length;
+			return counter;
+		}
+
+	}
+
+}
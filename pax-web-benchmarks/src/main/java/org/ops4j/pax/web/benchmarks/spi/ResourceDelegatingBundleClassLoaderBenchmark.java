@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.benchmarks.spi;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ops4j.pax.web.benchmarks.support.InMemoryBundle;
+import org.ops4j.pax.web.service.spi.util.ResourceDelegatingBundleClassLoader;
+import org.osgi.framework.Bundle;
+
+/**
+ * Finds resources with {@link ResourceDelegatingBundleClassLoader}, which is the class loader of contexts
+ * spanning several bundles. Each resource is available only in one (random) bundle, "found" lookups go through
+ * more resources than fit into the class loader's cache, "missing" lookups ask every bundle for resources which
+ * are not there.
+ *
+ * Single thread only - lookups in the cache ({@code LRUMap}) reorder entries without synchronization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class ResourceDelegatingBundleClassLoaderBenchmark {
+
+	private static final int RESOURCES = 500;
+
+	@Param({ "1", "5", "20" })
+	public int bundles;
+
+	private Loader loader;
+	private String[] resources;
+	private String[] missing;
+
+	@Setup
+	public void setup() {
+		List<Bundle> delegates = new ArrayList<>();
+		for (int b = 0; b < bundles; b++) {
+			delegates.add(new InMemoryBundle("bundle" + b));
+		}
+		resources = new String[RESOURCES];
+		missing = new String[RESOURCES];
+		for (int i = 0; i < RESOURCES; i++) {
+			resources[i] = "META-INF/resources/page" + i + ".html";
+			missing[i] = "META-INF/resources/missing" + i + ".html";
+			((InMemoryBundle) delegates.get((i * 31) % bundles)).entry(resources[i], "<html/>");
+		}
+		loader = new Loader(delegates);
+	}
+
+	@Benchmark
+	public URL found(Counter counter) {
+		return loader.findResource(resources[counter.next(RESOURCES)]);
+	}
+
+	@Benchmark
+	public URL missing(Counter counter) {
+		return loader.findResource(missing[counter.next(RESOURCES)]);
+	}
+
+	/**
+	 * Per-thread position in the resource names.
+	 */
+	@State(Scope.Thread)
+	public static class Counter {
+
+		private int counter;
+
+		int next(int length) {
+			counter = (counter + 1) % length;
+			return counter;
+		}
+
+	}
+
+	/**
+	 * Makes {@link ResourceDelegatingBundleClassLoader#findResource(String)} callable directly, without
+	 * parent delegation of {@link ClassLoader#getResource(String)}.
+	 */
+	private static class Loader extends ResourceDelegatingBundleClassLoader {
+
+		Loader(List<Bundle> bundles) {
+			super(bundles);
+		}
+
+		@Override
+		protected URL findResource(String name) {
+			return super.findResource(name);
+		}
+
+	}
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.benchmarks.spi;
+
+import java.util.Hashtable;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.Filter;
+import javax.servlet.GenericServlet;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ops4j.pax.web.benchmarks.support.Fakes;
+import org.ops4j.pax.web.benchmarks.support.InMemoryBundle;
+import org.ops4j.pax.web.service.WebContainerConstants;
+import org.ops4j.pax.web.service.WebContainerContext;
+import org.ops4j.pax.web.service.spi.model.ContextModel;
+import org.ops4j.pax.web.service.spi.model.FilterModel;
+import org.ops4j.pax.web.service.spi.model.ServerModel;
+import org.ops4j.pax.web.service.spi.model.ServletModel;
+
+/**
+ * Matches request paths to contexts in {@link ServerModel}. Aliases are spread over several named contexts
+ * (like WABs with servlets registered under {@code /<context>/<alias>}) and each context also has a filter
+ * mapped to a path without servlet.
+ *
+ * "servlet" requests hit a registered alias (with extra path segments), "filter" requests reach
+ * filter matching after servlet matching failed and "miss" requests match nothing - the last two
+ * walk through all filter patterns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ServerModelBenchmark {
+
+	private static final int CONTEXTS = 10;
+
+	@Param({ "10", "100", "1000" })
+	public int aliases;
+
+	private ServerModel serverModel;
+	private String[] servletPaths;
+	private String[] filterPaths;
+	private String[] missPaths;
+
+	@Setup
+	public void setup() throws Exception {
+		serverModel = new ServerModel();
+		ContextModel[] contexts = new ContextModel[CONTEXTS];
+		for (int c = 0; c < CONTEXTS; c++) {
+			Hashtable<String, String> contextParams = new Hashtable<>();
+			contextParams.put(WebContainerConstants.CONTEXT_NAME, "context" + c);
+			contexts[c] = new ContextModel(Fakes.nullObject(WebContainerContext.class),
+					new InMemoryBundle("context" + c), getClass().getClassLoader(), false);
+			contexts[c].setContextParams(contextParams);
+			serverModel.addFilterModel(new FilterModel(contexts[c], Fakes.nullObject(Filter.class),
+					new String[] { "/filtered/*" }, null, null, false));
+		}
+		servletPaths = new String[aliases];
+		filterPaths = new String[CONTEXTS];
+		missPaths = new String[CONTEXTS];
+		for (int i = 0; i < aliases; i++) {
+			ContextModel context = contexts[i % CONTEXTS];
+			serverModel.addServletModel(new ServletModel(context, new NoopServlet(), "/servlet" + i,
+					null, null, false));
+			servletPaths[i] = "/" + context.getContextName() + "/servlet" + i + "/some/path/info.html";
+		}
+		for (int c = 0; c < CONTEXTS; c++) {
+			filterPaths[c] = "/context" + c + "/filtered/resource.css";
+			missPaths[c] = "/context" + c + "/not/registered/anywhere";
+		}
+	}
+
+	@Benchmark
+	public ContextModel servlet(Counter counter) {
+		return serverModel.matchPathToContext(servletPaths[counter.next(servletPaths.length)]);
+	}
+
+	@Benchmark
+	public ContextModel filter(Counter counter) {
+		return serverModel.matchPathToContext(filterPaths[counter.next(filterPaths.length)]);
+	}
+
+	@Benchmark
+	public ContextModel miss(Counter counter) {
+		return serverModel.matchPathToContext(missPaths[counter.next(missPaths.length)]);
+	}
+
+	/**
+	 * Per-thread position in the request paths.
+	 */
+	@State(Scope.Thread)
+	public static class Counter {
+
+		private int counter;
+
+		int next(int length) {
+			counter = (counter + 1) % length;
+			return counter;
+		}
+
+	}
+
+	private static class NoopServlet extends GenericServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void service(ServletRequest req, ServletResponse res) {
+		}
+
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.benchmarks.support;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Null objects for interfaces which benchmarked code only passes around or queries for optional data
+ * ({@code HttpContext}, {@code BundleContext}, {@code Filter}, ...).
+ */
+public final class Fakes {
+
+	private Fakes() {
+	}
+
+	/**
+	 * Creates an implementation of given interface where every method returns "nothing" - {@code false},
+	 * {@code 0}, empty array or collection, or {@code null}. Instances are equal only to themselves.
+	 *
+	 * @param type interface to implement
+	 * @return null object
+	 */
+	public static <T> T nullObject(Class<T> type) {
+		return proxy(type, (proxy, method, args) -> defaultValue(method.getReturnType()));
+	}
+
+	/**
+	 * Creates an implementation of given interface with {@link Object} methods based on identity.
+	 *
+	 * @param type interface to implement
+	 * @param handler handler of all other methods
+	 * @return proxy
+	 */
+	static <T> T proxy(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(Fakes.class.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> {
+					if (method.getDeclaringClass() == Object.class) {
+						switch (method.getName()) {
+							case "equals":
+								return proxy == args[0];
+							case "hashCode":
+								return System.identityHashCode(proxy);
+							default:
+								return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+						}
+					}
+					return handler.invoke(proxy, method, args);
+				}));
+	}
+
+	static Object defaultValue(Class<?> type) {
+		if (type == boolean.class) {
+			return Boolean.FALSE;
+		} else if (type == char.class) {
+			return '\0';
+		} else if (type == byte.class) {
+			return (byte) 0;
+		} else if (type == short.class) {
+			return (short) 0;
+		} else if (type == int.class) {
+			return 0;
+		} else if (type == long.class) {
+			return 0L;
+		} else if (type == float.class) {
+			return 0f;
+		} else if (type == double.class) {
+			return 0d;
+		} else if (type.isArray()) {
+			return Array.newInstance(type.getComponentType(), 0);
+		} else if (type == List.class || type == Collection.class) {
+			return Collections.emptyList();
+		} else if (type == Set.class) {
+			return Collections.emptySet();
+		} else if (type == Map.class) {
+			return Collections.emptyMap();
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,436 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.benchmarks.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.Version;
+import org.osgi.framework.wiring.BundleCapability;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+
+/**
+ * <p>{@link Bundle} with entries kept in memory, so benchmarks of code which reads bundle content run
+ * without OSGi framework and without touching the file system.</p>
+ *
+ * <p>Entries are served as {@code bundleentry:} URLs (like in Felix/Equinox) backed by the in-memory content.
+ * {@link BundleWiring} adapter lists the entries, exposes them through a class loader and reports bundles
+ * added with {@link #requires(Bundle...)} as required wires. Classes are loaded by the class loader of
+ * the benchmarks, unless different one is set with {@link #classLoader(ClassLoader)}.</p>
+ */
+public class InMemoryBundle implements Bundle {
+
+	private static final AtomicLong IDS = new AtomicLong(1L);
+
+	private final long id = IDS.getAndIncrement();
+	private final String symbolicName;
+	private final Map<String, byte[]> entries = new TreeMap<>();
+	private final Hashtable<String, String> headers = new Hashtable<>();
+	private final List<Bundle> required = new ArrayList<>();
+	private ClassLoader classLoader = InMemoryBundle.class.getClassLoader();
+
+	private final URLStreamHandler handler = new EntryHandler();
+	private final ClassLoader entryClassLoader = new EntryClassLoader();
+	private final BundleContext bundleContext = Fakes.nullObject(BundleContext.class);
+	private final BundleWiring wiring = Fakes.proxy(BundleWiring.class, (proxy, method, args) -> {
+		switch (method.getName()) {
+			case "getBundle":
+				return InMemoryBundle.this;
+			case "getClassLoader":
+				return entryClassLoader;
+			case "getRequiredWires":
+				return requiredWires();
+			case "listResources":
+				return listEntries((String) args[0], (String) args[1],
+						((Integer) args[2] & BundleWiring.LISTRESOURCES_RECURSE) != 0);
+			default:
+				return Fakes.defaultValue(method.getReturnType());
+		}
+	});
+
+	public InMemoryBundle(String symbolicName) {
+		this.symbolicName = symbolicName;
+		headers.put("Bundle-SymbolicName", symbolicName);
+		headers.put("Bundle-Version", "1.0.0");
+	}
+
+	/**
+	 * Creates a bundle with entries read from class path of the benchmarks. Missing resources are skipped.
+	 *
+	 * @param symbolicName symbolic name of the bundle
+	 * @param root class path location of bundle root
+	 * @param names names of entries relative to {@code root}
+	 * @return new bundle
+	 */
+	public static InMemoryBundle fromClassPath(String symbolicName, String root, String... names) throws IOException {
+		InMemoryBundle bundle = new InMemoryBundle(symbolicName);
+		for (String name : names) {
+			try (InputStream is = InMemoryBundle.class.getClassLoader().getResourceAsStream(root + "/" + name)) {
+				if (is == null) {
+					continue;
+				}
+				ByteArrayOutputStream content = new ByteArrayOutputStream();
+				byte[] buffer = new byte[4096];
+				int read;
+				while ((read = is.read(buffer)) > 0) {
+					content.write(buffer, 0, read);
+				}
+				bundle.entry(name, content.toByteArray());
+			}
+		}
+		return bundle;
+	}
+
+	public InMemoryBundle entry(String path, byte[] content) {
+		entries.put(strip(path), content);
+		return this;
+	}
+
+	public InMemoryBundle entry(String path, String content) {
+		return entry(path, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public InMemoryBundle header(String name, String value) {
+		headers.put(name, value);
+		return this;
+	}
+
+	public InMemoryBundle requires(Bundle... bundles) {
+		Collections.addAll(required, bundles);
+		return this;
+	}
+
+	/**
+	 * Sets class loader used by {@link #loadClass(String)} - e.g. to hide Servlet API, so the bundle doesn't
+	 * look like it could contain annotated servlets.
+	 *
+	 * @param classLoader class loader of bundle classes
+	 * @return this bundle
+	 */
+	public InMemoryBundle classLoader(ClassLoader classLoader) {
+		this.classLoader = classLoader;
+		return this;
+	}
+
+	@Override
+	public URL getEntry(String path) {
+		String name = strip(path);
+		return entries.containsKey(name) ? url(name) : null;
+	}
+
+	@Override
+	public URL getResource(String name) {
+		return getEntry(name);
+	}
+
+	@Override
+	public Enumeration<URL> getResources(String name) throws IOException {
+		URL url = getResource(name);
+		return url == null ? null : Collections.enumeration(Collections.singletonList(url));
+	}
+
+	@Override
+	public Enumeration<URL> findEntries(String path, String filePattern, boolean recurse) {
+		List<URL> urls = new ArrayList<>();
+		for (String name : listEntries(path, filePattern, recurse)) {
+			urls.add(url(name));
+		}
+		return urls.isEmpty() ? null : Collections.enumeration(urls);
+	}
+
+	@Override
+	public Enumeration<String> getEntryPaths(String path) {
+		List<String> paths = new ArrayList<>();
+		String prefix = prefix(path);
+		for (String name : entries.keySet()) {
+			if (name.startsWith(prefix)) {
+				int slash = name.indexOf('/', prefix.length());
+				String child = slash < 0 ? name : name.substring(0, slash + 1);
+				if (!paths.contains(child)) {
+					paths.add(child);
+				}
+			}
+		}
+		return paths.isEmpty() ? null : Collections.enumeration(paths);
+	}
+
+	@Override
+	public Class<?> loadClass(String name) throws ClassNotFoundException {
+		return Class.forName(name, false, classLoader);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <A> A adapt(Class<A> type) {
+		if (type == BundleWiring.class) {
+			return (A) wiring;
+		}
+		return null;
+	}
+
+	@Override
+	public BundleContext getBundleContext() {
+		return bundleContext;
+	}
+
+	@Override
+	public Dictionary<String, String> getHeaders() {
+		return headers;
+	}
+
+	@Override
+	public Dictionary<String, String> getHeaders(String locale) {
+		return headers;
+	}
+
+	@Override
+	public int getState() {
+		return ACTIVE;
+	}
+
+	@Override
+	public long getBundleId() {
+		return id;
+	}
+
+	@Override
+	public String getSymbolicName() {
+		return symbolicName;
+	}
+
+	@Override
+	public Version getVersion() {
+		return Version.parseVersion(headers.get("Bundle-Version"));
+	}
+
+	@Override
+	public String getLocation() {
+		return "memory:" + symbolicName;
+	}
+
+	@Override
+	public long getLastModified() {
+		return 0L;
+	}
+
+	@Override
+	public void start(int options) {
+	}
+
+	@Override
+	public void start() {
+	}
+
+	@Override
+	public void stop(int options) {
+	}
+
+	@Override
+	public void stop() {
+	}
+
+	@Override
+	public void update(InputStream input) {
+	}
+
+	@Override
+	public void update() {
+	}
+
+	@Override
+	public void uninstall() {
+	}
+
+	@Override
+	public ServiceReference<?>[] getRegisteredServices() {
+		return null;
+	}
+
+	@Override
+	public ServiceReference<?>[] getServicesInUse() {
+		return null;
+	}
+
+	@Override
+	public boolean hasPermission(Object permission) {
+		return true;
+	}
+
+	@Override
+	public Map<X509Certificate, List<X509Certificate>> getSignerCertificates(int signersType) {
+		return Collections.emptyMap();
+	}
+
+	@Override
+	public File getDataFile(String filename) {
+		return null;
+	}
+
+	@Override
+	public int compareTo(Bundle other) {
+		return Long.compare(id, other.getBundleId());
+	}
+
+	@Override
+	public String toString() {
+		return symbolicName + " [" + id + "]";
+	}
+
+	private List<BundleWire> requiredWires() {
+		List<BundleWire> wires = new ArrayList<>();
+		for (Bundle bundle : required) {
+			BundleRevision revision = Fakes.proxy(BundleRevision.class, (proxy, method, args) ->
+					"getBundle".equals(method.getName()) ? bundle : Fakes.defaultValue(method.getReturnType()));
+			BundleCapability capability = Fakes.proxy(BundleCapability.class, (proxy, method, args) ->
+					"getRevision".equals(method.getName()) ? revision : Fakes.defaultValue(method.getReturnType()));
+			wires.add(Fakes.proxy(BundleWire.class, (proxy, method, args) ->
+					"getCapability".equals(method.getName()) ? capability : Fakes.defaultValue(method.getReturnType())));
+		}
+		return wires;
+	}
+
+	private Collection<String> listEntries(String path, String filePattern, boolean recurse) {
+		Pattern pattern = glob(filePattern == null ? "*" : filePattern);
+		String prefix = prefix(path);
+		List<String> names = new ArrayList<>();
+		for (String name : entries.keySet()) {
+			if (!name.startsWith(prefix) || (!recurse && name.indexOf('/', prefix.length()) >= 0)) {
+				continue;
+			}
+			if (pattern.matcher(name.substring(name.lastIndexOf('/') + 1)).matches()) {
+				names.add(name);
+			}
+		}
+		return names;
+	}
+
+	private URL url(String name) {
+		try {
+			return new URL("bundleentry", id + ".fwk0", -1, "/" + name, handler);
+		} catch (MalformedURLException e) {
+			throw new IllegalStateException(e.getMessage(), e);
+		}
+	}
+
+	private static Pattern glob(String filePattern) {
+		StringBuilder regex = new StringBuilder();
+		for (String part : filePattern.split("\\*", -1)) {
+			if (regex.length() > 0) {
+				regex.append(".*");
+			}
+			if (!part.isEmpty()) {
+				regex.append(Pattern.quote(part));
+			}
+		}
+		return Pattern.compile(regex.toString());
+	}
+
+	private static String prefix(String path) {
+		String directory = strip(path);
+		return directory.isEmpty() ? "" : directory + "/";
+	}
+
+	private static String strip(String path) {
+		String result = path == null ? "" : path.trim();
+		while (result.startsWith("/")) {
+			result = result.substring(1);
+		}
+		while (result.endsWith("/")) {
+			result = result.substring(0, result.length() - 1);
+		}
+		return result;
+	}
+
+	/**
+	 * Handler of entry URLs - never resolves the "host" part, which is bundle identifier.
+	 */
+	private class EntryHandler extends URLStreamHandler {
+
+		@Override
+		protected URLConnection openConnection(URL url) {
+			return new URLConnection(url) {
+				@Override
+				public void connect() {
+				}
+
+				@Override
+				public InputStream getInputStream() throws IOException {
+					byte[] content = entries.get(strip(url.getPath()));
+					if (content == null) {
+						throw new FileNotFoundException(url.toString());
+					}
+					return new ByteArrayInputStream(content);
+				}
+			};
+		}
+
+		@Override
+		protected InetAddress getHostAddress(URL url) {
+			return null;
+		}
+
+	}
+
+	/**
+	 * Class loader of {@link BundleWiring} - sees only the entries, without parent delegation for resources.
+	 */
+	private class EntryClassLoader extends ClassLoader {
+
+		EntryClassLoader() {
+			super(null);
+		}
+
+		@Override
+		protected URL findResource(String name) {
+			return InMemoryBundle.this.getEntry(name);
+		}
+
+		@Override
+		protected Enumeration<URL> findResources(String name) throws IOException {
+			Enumeration<URL> urls = InMemoryBundle.this.getResources(name);
+			return urls == null ? Collections.emptyEnumeration() : urls;
+		}
+
+	}
+
+}
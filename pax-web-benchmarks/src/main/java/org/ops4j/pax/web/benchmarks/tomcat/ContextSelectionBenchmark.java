@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.benchmarks.tomcat;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.core.StandardHost;
+import org.apache.catalina.core.StandardWrapper;
+import org.apache.catalina.mapper.Mapper;
+import org.apache.catalina.mapper.MappingData;
+import org.apache.catalina.mapper.WrapperMappingInfo;
+import org.apache.tomcat.util.buf.MessageBytes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ops4j.pax.web.service.tomcat.internal.ContextSelectionHostValve;
+
+/**
+ * Compares selection of root context version by {@link ContextSelectionHostValve} with and without
+ * remembering the selected context. Each of the root contexts (all with empty path, as created for
+ * each {@code HttpContext} of the OSGi HTTP service) has single servlet and requests are spread over all
+ * servlets.
+ *
+ * The "legacy" method reproduces the previous implementation which maps the URI against every
+ * context version until one of them has a wrapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ContextSelectionBenchmark {
+
+	private static final String HOST = "localhost";
+
+	@Param({ "1", "10", "100" })
+	public int contexts;
+
+	private Mapper mapper;
+	private ContextSelectionHostValve valve;
+
+	@Setup
+	public void setup() {
+		mapper = new Mapper();
+		StandardHost host = new StandardHost();
+		host.setName(HOST);
+		mapper.addHost(HOST, new String[0], host);
+		mapper.setDefaultHostName(HOST);
+		for (int i = 0; i < contexts; i++) {
+			StandardContext context = new StandardContext();
+			context.setName("context" + i);
+			context.setPath("");
+			StandardWrapper wrapper = new StandardWrapper();
+			wrapper.setName("servlet" + i);
+			mapper.addContextVersion(HOST, host, "", Integer.toString(i), context, new String[0], null,
+					Collections.singletonList(new WrapperMappingInfo("/servlet" + i + "/*", wrapper, false, false)));
+		}
+		valve = new ContextSelectionHostValve(null, mapper);
+	}
+
+	@Benchmark
+	public Object legacySelection(Request request) throws IOException {
+		MappingData md = request.next(mapper);
+		if (md.contexts != null && md.contexts.length > 1 && md.wrapper == null) {
+			for (int i = 0; md.wrapper == null && i < md.contexts.length; i++) {
+				md.context = md.contexts[i];
+				mapper.map(md.context, request.uri, md);
+			}
+		}
+		return md.wrapper;
+	}
+
+	@Benchmark
+	public Object cachedSelection(Request request) throws IOException {
+		MappingData md = request.next(mapper);
+		if (md.contexts != null && md.contexts.length > 1 && md.wrapper == null) {
+			valve.selectContext(request.uri, md);
+		}
+		return md.wrapper;
+	}
+
+	/**
+	 * Per-thread request state - like in Tomcat, {@link MappingData} is recycled between requests.
+	 */
+	@State(Scope.Thread)
+	public static class Request {
+
+		private final MappingData mappingData = new MappingData();
+		private final MessageBytes host = MessageBytes.newInstance();
+		private MessageBytes[] uris;
+		private MessageBytes uri;
+		private int counter;
+
+		@Setup
+		public void setup(ContextSelectionBenchmark benchmark) {
+			host.setString(HOST);
+			uris = new MessageBytes[benchmark.contexts];
+			for (int i = 0; i < uris.length; i++) {
+				uris[i] = MessageBytes.newInstance();
+				uris[i].setString("/servlet" + i + "/resource");
+			}
+		}
+
+		MappingData next(Mapper mapper) throws IOException {
+			uri = uris[counter++ % uris.length];
+			mappingData.recycle();
+			mapper.map(host, uri, null, mappingData);
+			return mappingData;
+		}
+	}
+
+}
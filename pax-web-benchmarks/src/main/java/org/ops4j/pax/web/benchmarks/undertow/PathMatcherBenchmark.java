@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.benchmarks.undertow;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ops4j.pax.web.service.undertow.internal.PathMatcher;
+
+/**
+ * Selects context handler in Undertow with {@link PathMatcher#match(String)}. Prefixes have one or two
+ * segments (like context paths of WABs and of whiteboard contexts) and requests have several more segments,
+ * so the matcher has to strip the path a few times before it finds the prefix. "root" requests don't match any
+ * prefix and fall back to the default handler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class PathMatcherBenchmark {
+
+	@Param({ "1", "10", "100" })
+	public int prefixes;
+
+	private PathMatcher<String> matcher;
+	private String[] paths;
+	private String[] rootPaths;
+
+	@Setup
+	public void setup() {
+		matcher = new PathMatcher<>("root");
+		paths = new String[prefixes];
+		rootPaths = new String[prefixes];
+		for (int i = 0; i < prefixes; i++) {
+			String prefix = i % 2 == 0 ? "/app" + i : "/apps/app" + i;
+			matcher.addPrefixPath(prefix, "context" + i);
+			paths[i] = prefix + "/servlet/some/path/info.html";
+			rootPaths[i] = "/static" + i + "/css/style.css";
+		}
+	}
+
+	@Benchmark
+	public Object prefix(Counter counter) {
+		return matcher.match(paths[counter.next(paths.length)]).getValue();
+	}
+
+	@Benchmark
+	public Object root(Counter counter) {
+		return matcher.match(rootPaths[counter.next(rootPaths.length)]).getValue();
+	}
+
+	/**
+	 * Per-thread position in the request paths.
+	 */
+	@State(Scope.Thread)
+	public static class Counter {
+
+		private int counter;
+
+		int next(int length) {
+			counter = (counter + 1) % length;
+			return counter;
+		}
+
+	}
+
+}
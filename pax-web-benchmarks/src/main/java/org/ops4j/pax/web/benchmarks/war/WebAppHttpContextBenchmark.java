@@ -0,0 +1,135 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.benchmarks.war;
+
+import java.lang.reflect.Constructor;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ops4j.pax.web.benchmarks.support.Fakes;
+import org.ops4j.pax.web.benchmarks.support.InMemoryBundle;
+import org.ops4j.pax.web.extender.war.internal.model.WebAppMimeMapping;
+import org.osgi.framework.Bundle;
+import org.osgi.service.http.HttpContext;
+
+/**
+ * Looks up resources of a WAB with {@code WebAppHttpContext.getResource()}. The WAB has static resources
+ * under {@code Webapp-Root} and requires a library bundle with {@code META-INF/resources}.
+ *
+ * "cached" lookups use single context, so after the first pass all the results (including misses) come from
+ * its resource cache. "uncached" lookups use new context for each call and go through the whole search -
+ * bundle entry, bundles in class space and bundle class path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class WebAppHttpContextBenchmark {
+
+	private static final int RESOURCES = 100;
+
+	private Constructor<?> constructor;
+	private HttpContext delegate;
+	private Bundle bundle;
+	private HttpContext context;
+
+	private String[] entries;
+	private String[] libraryResources;
+	private String[] missing;
+
+	@Setup
+	public void setup() throws Exception {
+		InMemoryBundle library = new InMemoryBundle("library");
+		InMemoryBundle wab = new InMemoryBundle("wab").requires(library);
+		entries = new String[RESOURCES];
+		libraryResources = new String[RESOURCES];
+		missing = new String[RESOURCES];
+		for (int i = 0; i < RESOURCES; i++) {
+			entries[i] = "/css/style" + i + ".css";
+			libraryResources[i] = "/webjars/lib/" + i + "/lib.js";
+			missing[i] = "/images/missing" + i + ".png";
+			wab.entry("/web" + entries[i], "body {}");
+			library.entry("META-INF/resources/web" + libraryResources[i], "var x;");
+		}
+		bundle = wab;
+		delegate = Fakes.nullObject(HttpContext.class);
+
+		// the context is package private - it's created by the WAR extender only
+		constructor = Class.forName("org.ops4j.pax.web.extender.war.internal.WebAppHttpContext")
+				.getDeclaredConstructor(HttpContext.class, String.class, Bundle.class, WebAppMimeMapping[].class);
+		constructor.setAccessible(true);
+		context = newContext();
+	}
+
+	@Benchmark
+	public URL cachedEntry(Counter counter) {
+		return context.getResource(entries[counter.next(RESOURCES)]);
+	}
+
+	@Benchmark
+	public URL cachedMissing(Counter counter) {
+		return context.getResource(missing[counter.next(RESOURCES)]);
+	}
+
+	@Benchmark
+	public URL uncachedEntry(Counter counter) throws Exception {
+		return newContext().getResource(entries[counter.next(RESOURCES)]);
+	}
+
+	@Benchmark
+	public URL uncachedLibraryResource(Counter counter) throws Exception {
+		return newContext().getResource(libraryResources[counter.next(RESOURCES)]);
+	}
+
+	@Benchmark
+	public URL uncachedMissing(Counter counter) throws Exception {
+		return newContext().getResource(missing[counter.next(RESOURCES)]);
+	}
+
+	private HttpContext newContext() throws Exception {
+		return (HttpContext) constructor.newInstance(delegate, "/web", bundle, new WebAppMimeMapping[0]);
+	}
+
+	/**
+	 * Per-thread position in the resource names.
+	 */
+	@State(Scope.Thread)
+	public static class Counter {
+
+		private int counter;
+
+		int next(int length) {
+			counter = (counter + 1) % length;
+			return counter;
+		}
+
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.benchmarks.war;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ops4j.pax.web.benchmarks.support.InMemoryBundle;
+import org.ops4j.pax.web.extender.war.internal.model.WebApp;
+import org.ops4j.pax.web.extender.war.internal.parser.WebAppParser;
+
+/**
+ * Parses WABs with {@link WebAppParser} - the descriptors are copied from the {@code samples} (see
+ * {@code pom.xml}) into in-memory bundles.
+ *
+ * The bundles can't load Servlet API classes, so the annotation scan (which needs {@code PackageAdmin}) is
+ * skipped and the benchmark measures descriptor parsing, service loader and TLD/web fragment lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class WebAppParserBenchmark {
+
+	private static final String[] DESCRIPTORS = {
+			"WEB-INF/web.xml",
+			"WEB-INF/jetty-web.xml",
+			"WEB-INF/faces-config.xml",
+			"WEB-INF/helloworld-servlet.xml"
+	};
+
+	@Param({ "war", "war-formauth", "war-jetty-web", "war-jsf", "war-spring" })
+	public String sample;
+
+	private InMemoryBundle bundle;
+	private WebAppParser parser;
+
+	@Setup
+	public void setup() throws Exception {
+		bundle = InMemoryBundle.fromClassPath(sample, "samples/" + sample, DESCRIPTORS)
+				.header("Webapp-Context", "/" + sample)
+				.classLoader(null);
+		if (bundle.getEntry("WEB-INF/web.xml") == null) {
+			throw new IllegalStateException("No web.xml for sample " + sample);
+		}
+		parser = new WebAppParser(null);
+	}
+
+	@Benchmark
+	public WebApp parse() throws Exception {
+		WebApp webApp = new WebApp();
+		parser.parse(bundle, webApp);
+		return webApp;
+	}
+
+}
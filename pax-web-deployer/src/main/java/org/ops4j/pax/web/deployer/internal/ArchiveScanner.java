@@ -0,0 +1,332 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.deployer.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * <p>Finds out whether an archive is a WAR (has {@code WEB-INF/web.xml}) which is not an OSGi bundle (has no
+ * {@code Bundle-SymbolicName} and {@code Bundle-Version} headers) without opening it as {@link JarFile}.</p>
+ *
+ * <p>Only the end of central directory record, the headers of central directory (up to both interesting
+ * entries) and the main section of the manifest are read. Archives this scanner doesn't understand (spanned or
+ * prefixed archives, encrypted or unusual manifest) are reported as {@code null}, so the caller can fall back
+ * to {@link JarFile}.</p>
+ */
+final class ArchiveScanner {
+
+	/**
+	 * What the archive is, as far as {@link WarDeployer} is concerned.
+	 */
+	enum Type {
+		/** WAR which should be transformed to bundle */
+		WAR,
+		/** WAR which already is a bundle */
+		BUNDLE,
+		/** archive without {@code WEB-INF/web.xml} */
+		ARCHIVE
+	}
+
+	static final String WEB_XML = "WEB-INF/web.xml";
+
+	private static final int EOCD_SIGNATURE = 0x06054b50;
+	private static final int EOCD_SIZE = 22;
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int ZIP64_LOCATOR_SIZE = 20;
+	private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+	private static final int ZIP64_EOCD_SIZE = 56;
+	private static final int CEN_SIGNATURE = 0x02014b50;
+	private static final int CEN_SIZE = 46;
+	private static final int LOC_SIGNATURE = 0x04034b50;
+	private static final int LOC_SIZE = 30;
+
+	private static final int MAX_COMMENT = 0xFFFF;
+	private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+	/**
+	 * Manifests with main section (or whole manifest, if shorter) bigger than this are left to {@link JarFile}.
+	 */
+	private static final int MAX_MANIFEST = 1024 * 1024;
+
+	private static final byte[] WEB_XML_NAME = WEB_XML.getBytes(StandardCharsets.UTF_8);
+	private static final byte[] MANIFEST_NAME = JarFile.MANIFEST_NAME.getBytes(StandardCharsets.UTF_8);
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(8192).order(ByteOrder.LITTLE_ENDIAN);
+	private long bufferStart = -1L;
+
+	private ArchiveScanner(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Reads the type of the archive opened as given channel.
+	 *
+	 * @return the type or {@code null} if this scanner can't tell
+	 * @throws IOException if the archive can't be read or it's not a ZIP archive at all
+	 */
+	static Type scan(FileChannel channel) throws IOException {
+		return new ArchiveScanner(channel).scan();
+	}
+
+	/**
+	 * @return {@link Type#BUNDLE} if the manifest has both OSGi headers, {@link Type#WAR} otherwise
+	 */
+	static Type type(Manifest manifest) {
+		if (manifest != null
+				&& manifest.getMainAttributes().getValue(new Attributes.Name("Bundle-SymbolicName")) != null
+				&& manifest.getMainAttributes().getValue(new Attributes.Name("Bundle-Version")) != null) {
+			return Type.BUNDLE;
+		}
+		return Type.WAR;
+	}
+
+	private Type scan() throws IOException {
+		long size = channel.size();
+		long eocd = findEndOfCentralDirectory(size);
+		if (eocd < 0L) {
+			throw new IOException("Not a ZIP archive");
+		}
+		ByteBuffer record = read(eocd, EOCD_SIZE);
+		int start = record.position();
+		long entries = record.getShort(start + 10) & 0xFFFF;
+		long cenSize = record.getInt(start + 12) & 0xFFFFFFFFL;
+		long cenOffset = record.getInt(start + 16) & 0xFFFFFFFFL;
+		if (entries == 0xFFFF || cenSize == ZIP64_MAGIC || cenOffset == ZIP64_MAGIC) {
+			if (eocd < ZIP64_LOCATOR_SIZE) {
+				return null;
+			}
+			ByteBuffer locator = read(eocd - ZIP64_LOCATOR_SIZE, ZIP64_LOCATOR_SIZE);
+			if (locator.getInt(locator.position()) != ZIP64_LOCATOR_SIGNATURE) {
+				return null;
+			}
+			long zip64Eocd = locator.getLong(locator.position() + 8);
+			if (zip64Eocd < 0L || zip64Eocd + ZIP64_EOCD_SIZE > size) {
+				return null;
+			}
+			ByteBuffer zip64 = read(zip64Eocd, ZIP64_EOCD_SIZE);
+			start = zip64.position();
+			if (zip64.getInt(start) != ZIP64_EOCD_SIGNATURE) {
+				return null;
+			}
+			entries = zip64.getLong(start + 32);
+			cenSize = zip64.getLong(start + 40);
+			cenOffset = zip64.getLong(start + 48);
+		}
+		long cenEnd = cenOffset + cenSize;
+		if (cenOffset < 0L || cenEnd > eocd || cenEnd < cenOffset) {
+			// prefixed (e.g. self-extracting) or broken archive
+			return null;
+		}
+
+		boolean webXml = false;
+		long manifest = -1L;
+		long position = cenOffset;
+		for (long i = 0; i < entries && position + CEN_SIZE <= cenEnd && (!webXml || manifest < 0L); i++) {
+			ByteBuffer header = read(position, CEN_SIZE);
+			start = header.position();
+			if (header.getInt(start) != CEN_SIGNATURE) {
+				return null;
+			}
+			int nameLength = header.getShort(start + 28) & 0xFFFF;
+			int extraLength = header.getShort(start + 30) & 0xFFFF;
+			int commentLength = header.getShort(start + 32) & 0xFFFF;
+			if (nameLength == WEB_XML_NAME.length && !webXml) {
+				webXml = nameEquals(position + CEN_SIZE, WEB_XML_NAME, false);
+			} else if (nameLength == MANIFEST_NAME.length && manifest < 0L
+					&& nameEquals(position + CEN_SIZE, MANIFEST_NAME, true)) {
+				manifest = position;
+			}
+			position += CEN_SIZE + nameLength + extraLength + commentLength;
+		}
+
+		if (!webXml) {
+			return Type.ARCHIVE;
+		}
+		if (manifest < 0L) {
+			return Type.WAR;
+		}
+		Manifest mf = readManifest(manifest);
+		return mf == null ? null : type(mf);
+	}
+
+	/**
+	 * Searches for end of central directory record backwards, skipping archive comment of up to 64kB.
+	 */
+	private long findEndOfCentralDirectory(long size) throws IOException {
+		if (size < EOCD_SIZE) {
+			return -1L;
+		}
+		int length = (int) Math.min(size, EOCD_SIZE + MAX_COMMENT);
+		ByteBuffer tail = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		readFully(tail, size - length);
+		for (int i = length - EOCD_SIZE; i >= 0; i--) {
+			if (tail.getInt(i) == EOCD_SIGNATURE
+					&& i + EOCD_SIZE + (tail.getShort(i + 20) & 0xFFFF) == length) {
+				return size - length + i;
+			}
+		}
+		return -1L;
+	}
+
+	private boolean nameEquals(long position, byte[] name, boolean ignoreCase) throws IOException {
+		ByteBuffer bytes = read(position, name.length);
+		int start = bytes.position();
+		for (int i = 0; i < name.length; i++) {
+			byte b = bytes.get(start + i);
+			if (b != name[i] && !(ignoreCase && Character.toUpperCase((char) b) == name[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the main section of the manifest described by central directory header at given position.
+	 *
+	 * @return the manifest or {@code null} if it can't be read by this scanner
+	 */
+	private Manifest readManifest(long cenPosition) throws IOException {
+		ByteBuffer header = read(cenPosition, CEN_SIZE);
+		int start = header.position();
+		int flags = header.getShort(start + 8) & 0xFFFF;
+		int method = header.getShort(start + 10) & 0xFFFF;
+		long compressedSize = header.getInt(start + 20) & 0xFFFFFFFFL;
+		long localOffset = header.getInt(start + 42) & 0xFFFFFFFFL;
+		if ((flags & 1) != 0 || (method != 0 && method != 8)
+				|| compressedSize == ZIP64_MAGIC || localOffset == ZIP64_MAGIC) {
+			return null;
+		}
+		ByteBuffer local = read(localOffset, LOC_SIZE);
+		start = local.position();
+		if (local.getInt(start) != LOC_SIGNATURE) {
+			return null;
+		}
+		long position = localOffset + LOC_SIZE + (local.getShort(start + 26) & 0xFFFF)
+				+ (local.getShort(start + 28) & 0xFFFF);
+		long end = position + compressedSize;
+
+		byte[] content = new byte[4096];
+		int count = 0;
+		int mainSection = -1;
+		boolean lineEnd = false;
+		boolean done = false;
+		Inflater inflater = method == 8 ? new Inflater(true) : null;
+		byte[] chunk = new byte[4096];
+		try {
+			while (mainSection < 0 && !done) {
+				if (count == content.length) {
+					if (count >= MAX_MANIFEST) {
+						return null;
+					}
+					content = Arrays.copyOf(content, count * 2);
+				}
+				int scanned = count;
+				if (inflater == null) {
+					int length = (int) Math.min(content.length - count, end - position);
+					readFully(ByteBuffer.wrap(content, count, length), position);
+					position += length;
+					count += length;
+					done = position >= end;
+				} else {
+					if (inflater.needsInput()) {
+						if (position >= end) {
+							return null;
+						}
+						int length = (int) Math.min(chunk.length, end - position);
+						readFully(ByteBuffer.wrap(chunk, 0, length), position);
+						position += length;
+						inflater.setInput(chunk, 0, length);
+					}
+					count += inflater.inflate(content, count, content.length - count);
+					done = inflater.finished();
+					if (!done && count == scanned && !inflater.needsInput()) {
+						// preset dictionary or something else unexpected
+						return null;
+					}
+				}
+				// the main section ends with an empty line
+				for (int i = scanned; i < count && mainSection < 0; i++) {
+					byte b = content[i];
+					if (b == '\n' && i > 0 && content[i - 1] == '\r') {
+						continue;
+					}
+					if (b == '\r' || b == '\n') {
+						if (lineEnd) {
+							mainSection = i + 1;
+						}
+						lineEnd = true;
+					} else {
+						lineEnd = false;
+					}
+				}
+			}
+			return new Manifest(new ByteArrayInputStream(content, 0, mainSection < 0 ? count : mainSection));
+		} catch (DataFormatException e) {
+			return null;
+		} finally {
+			if (inflater != null) {
+				inflater.end();
+			}
+		}
+	}
+
+	/**
+	 * @return buffer positioned at given position of the archive, with at least {@code length} bytes remaining
+	 */
+	private ByteBuffer read(long position, int length) throws IOException {
+		if (bufferStart < 0L || position < bufferStart || position + length > bufferStart + buffer.limit()) {
+			buffer.clear();
+			bufferStart = position;
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, position + buffer.position()) < 0) {
+					break;
+				}
+			}
+			buffer.flip();
+			if (buffer.limit() < length) {
+				bufferStart = -1L;
+				throw new EOFException("Unexpected end of archive");
+			}
+		}
+		buffer.position((int) (position - bufferStart));
+		return buffer;
+	}
+
+	private void readFully(ByteBuffer target, long position) throws IOException {
+		long p = position;
+		while (target.hasRemaining()) {
+			int read = channel.read(target, p);
+			if (read < 0) {
+				throw new EOFException("Unexpected end of archive");
+			}
+			p += read;
+		}
+	}
+
+}
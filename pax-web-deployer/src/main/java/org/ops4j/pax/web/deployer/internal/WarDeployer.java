@@ -21,10 +21,12 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.jar.Attributes;
-import java.util.jar.JarEntry;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarFile;
-import java.util.jar.Manifest;
 
 import org.apache.felix.fileinstall.ArtifactUrlTransformer;
 import org.osgi.service.component.annotations.Component;
@@ -49,56 +51,47 @@ public class WarDeployer implements ArtifactUrlTransformer {
 	 */
 	private static final String PATH_SEPERATOR = "/";
 
+	/**
+	 * Maximal number of remembered archives - when reached, all are forgotten.
+	 */
+	private static final int MAX_ARCHIVES = 10000;
+
+	/**
+	 * Types of archives by canonical path, valid until size or last modification time of the archive changes.
+	 */
+	private final ConcurrentMap<String, Archive> archives = new ConcurrentHashMap<>();
+
+	/**
+	 * Number of times an archive was opened, for tests.
+	 */
+	private final AtomicInteger archiveOpens = new AtomicInteger();
+
 	public boolean canHandle(final File artifact) {
-		JarFile jar = null;
-		try {
-			// the file needs to either end with .war
-			// or with .war.jar (_jar upped_ by DirectoryWatcher)
-			if (!artifact.getName().endsWith(".war") && !artifact.getName().endsWith(".war.jar")) {
-				return false;
-			}
+		// the file needs to either end with .war
+		// or with .war.jar (_jar upped_ by DirectoryWatcher)
+		if (!artifact.getName().endsWith(".war") && !artifact.getName().endsWith(".war.jar")) {
+			return false;
+		}
+		// exploded WARs are not handled
+		if (!artifact.isFile()) {
+			return false;
+		}
 
-			jar = new JarFile(artifact);
-			JarEntry entry = jar.getJarEntry("WEB-INF/web.xml");
-			// Only handle WAR artifacts
-			if (entry == null) {
-				if (LOG.isDebugEnabled()) {
-					LOG.debug("No war file do not handle artifact:"
-							+ artifact.getName());
-				}
-				return false;
-			}
-			// Only handle non OSGi bundles
-			Manifest m = jar.getManifest();
-			if (m != null
-					&& m.getMainAttributes().getValue(
-					new Attributes.Name("Bundle-SymbolicName")) != null
-					&& m.getMainAttributes().getValue(
-					new Attributes.Name("Bundle-Version")) != null) {
-				if (LOG.isDebugEnabled()) {
+		ArchiveScanner.Type type = archiveType(artifact);
+		// Only handle WAR artifacts
+		if (type != ArchiveScanner.Type.WAR) {
+			if (LOG.isDebugEnabled()) {
+				if (type == ArchiveScanner.Type.BUNDLE) {
 					LOG.debug("This artifact has OSGi Manifest Header skipping: "
 							+ artifact.getName());
+				} else {
+					LOG.debug("No war file do not handle artifact:"
+							+ artifact.getName());
 				}
-				return false;
-			}
-			//CHECKSTYLE:OFF
-		} catch (Exception e) {
-			if (LOG.isTraceEnabled()) {
-				LOG.trace("Can't handle file " + artifact.getName(), e);
 			}
 			return false;
-		} finally {
-			if (jar != null) {
-				try {
-					jar.close();
-				} catch (IOException ignore) {
-					if (LOG.isDebugEnabled()) {
-						LOG.debug("failed to close war file", ignore);
-					}
-				}
-			}
 		}
-		//CHECKSTYLE:ON
+
 		try {
 			new URL("webbundle", null, artifact.toURI().toURL()
 					.toExternalForm());
@@ -112,6 +105,69 @@ public class WarDeployer implements ArtifactUrlTransformer {
 		return true;
 	}
 
+	/**
+	 * Returns type of given archive, remembered for the same canonical path, size and last modification time.
+	 *
+	 * @return the type of the archive or {@code null} if it can't be read (e.g. it's still being copied)
+	 */
+	ArchiveScanner.Type archiveType(final File artifact) {
+		String path;
+		try {
+			path = artifact.getCanonicalPath();
+		} catch (IOException e) {
+			path = artifact.getAbsolutePath();
+		}
+		long size = artifact.length();
+		long lastModified = artifact.lastModified();
+		Archive archive = archives.get(path);
+		if (archive != null && archive.size == size && archive.lastModified == lastModified) {
+			return archive.type;
+		}
+
+		ArchiveScanner.Type type = scan(artifact);
+		if (type != null) {
+			if (archives.size() >= MAX_ARCHIVES) {
+				archives.clear();
+			}
+			archives.put(path, new Archive(size, lastModified, type));
+		}
+		return type;
+	}
+
+	private ArchiveScanner.Type scan(final File artifact) {
+		archiveOpens.incrementAndGet();
+		try (FileChannel channel = FileChannel.open(artifact.toPath(), StandardOpenOption.READ)) {
+			ArchiveScanner.Type type = ArchiveScanner.scan(channel);
+			if (type != null) {
+				return type;
+			}
+		} catch (IOException e) {
+			if (LOG.isTraceEnabled()) {
+				LOG.trace("Can't scan file " + artifact.getName(), e);
+			}
+		}
+
+		// fallback for archives not understood by the scanner
+		archiveOpens.incrementAndGet();
+		try (JarFile jar = new JarFile(artifact)) {
+			if (jar.getJarEntry(ArchiveScanner.WEB_XML) == null) {
+				return ArchiveScanner.Type.ARCHIVE;
+			}
+			return ArchiveScanner.type(jar.getManifest());
+			//CHECKSTYLE:OFF
+		} catch (Exception e) {
+			if (LOG.isTraceEnabled()) {
+				LOG.trace("Can't handle file " + artifact.getName(), e);
+			}
+			return null;
+		}
+		//CHECKSTYLE:ON
+	}
+
+	int getArchiveOpens() {
+		return archiveOpens.get();
+	}
+
 	public URL transform(final URL artifact) throws Exception {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("Transforming artifact with URL: " + artifact);
@@ -159,4 +215,18 @@ public class WarDeployer implements ArtifactUrlTransformer {
 		return new URL("webbundle", null, artifact.toExternalForm());
 	}
 
+	private static final class Archive {
+
+		private final long size;
+		private final long lastModified;
+		private final ArchiveScanner.Type type;
+
+		private Archive(long size, long lastModified, ArchiveScanner.Type type) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.type = type;
+		}
+
+	}
+
 }
@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.deployer.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WarDeployerTest {
+
+	private File dir;
+
+	@Before
+	public void createDirectory() {
+		dir = new File("target/war-deployer-" + System.nanoTime());
+		assertTrue(dir.mkdirs());
+	}
+
+	@After
+	public void deleteDirectory() {
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		dir.delete();
+	}
+
+	@Test
+	public void archivesAreRecognizedWithoutJarFile() throws IOException {
+		StringBuilder longManifest = new StringBuilder("Manifest-Version: 1.0\n");
+		for (int i = 0; i < 1000; i++) {
+			longManifest.append("X-Header-").append(i).append(": value").append(i).append("\n");
+		}
+		longManifest.append("Bundle-SymbolicName: long\nBundle-Version: 1.0.0\n\nName: WEB-INF/web.xml\nX: y\n");
+
+		File war = archive("plain.war", "Manifest-Version: 1.0\nCreated-By: test\n", true, null, "WEB-INF/web.xml");
+		File noManifest = archive("no-manifest.war", null, true, null, "WEB-INF/web.xml", "index.html");
+		File bundle = archive("bundle.war",
+				"Manifest-Version: 1.0\nBundle-SymbolicName: bundle\nBundle-Version: 1.0.0\n", true, null,
+				"WEB-INF/web.xml");
+		File storedBundle = archive("stored-bundle.war.jar",
+				"Manifest-Version: 1.0\r\nBundle-SymbolicName: bundle\r\nBundle-Version: 1.0.0\r\n\r\n", false,
+				"archive comment", "WEB-INF/web.xml");
+		File longBundle = archive("long-bundle.war", longManifest.toString(), true, null, "WEB-INF/web.xml");
+		File jar = archive("jar.war", "Manifest-Version: 1.0\n", true, null, "org/example/Example.class");
+		File broken = new File(dir, "broken.war");
+		try (OutputStream out = new FileOutputStream(broken)) {
+			out.write("not a zip".getBytes(StandardCharsets.UTF_8));
+		}
+
+		WarDeployer deployer = new WarDeployer();
+		assertEquals(ArchiveScanner.Type.WAR, deployer.archiveType(war));
+		assertEquals(ArchiveScanner.Type.WAR, deployer.archiveType(noManifest));
+		assertEquals(ArchiveScanner.Type.BUNDLE, deployer.archiveType(bundle));
+		assertEquals(ArchiveScanner.Type.BUNDLE, deployer.archiveType(storedBundle));
+		assertEquals(ArchiveScanner.Type.BUNDLE, deployer.archiveType(longBundle));
+		assertEquals(ArchiveScanner.Type.ARCHIVE, deployer.archiveType(jar));
+		// one open for each archive
+		assertEquals(6, deployer.getArchiveOpens());
+
+		// the scanner gives up and JarFile can't open it either
+		assertNull(deployer.archiveType(broken));
+		assertEquals(8, deployer.getArchiveOpens());
+	}
+
+	@Test
+	public void resultsAreCachedUntilArchiveChanges() throws IOException {
+		File war = archive("app.war", null, true, null, "WEB-INF/web.xml");
+		File jar = archive("lib.war", null, true, null, "lib.txt");
+		File bundle = archive("bundle.war",
+				"Manifest-Version: 1.0\nBundle-SymbolicName: bundle\nBundle-Version: 1.0.0\n", true, null,
+				"WEB-INF/web.xml");
+		File other = archive("lib.jar", null, true, null, "WEB-INF/web.xml");
+		File exploded = new File(dir, "exploded.war");
+		assertTrue(exploded.mkdir());
+
+		WarDeployer deployer = new WarDeployer();
+		for (int scan = 0; scan < 5; scan++) {
+			assertEquals(ArchiveScanner.Type.WAR, deployer.archiveType(war));
+			assertFalse(deployer.canHandle(jar));
+			assertFalse(deployer.canHandle(bundle));
+			assertFalse(deployer.canHandle(other));
+			assertFalse(deployer.canHandle(exploded));
+		}
+		assertEquals(3, deployer.getArchiveOpens());
+
+		// the same path, different content
+		assertTrue(jar.delete());
+		archive("lib.war", null, true, null, "WEB-INF/web.xml", "WEB-INF/lib/lib.jar");
+		assertEquals(ArchiveScanner.Type.WAR, deployer.archiveType(jar));
+		assertEquals(4, deployer.getArchiveOpens());
+
+		assertTrue(war.setLastModified(war.lastModified() - 10000L));
+		assertEquals(ArchiveScanner.Type.WAR, deployer.archiveType(war));
+		assertEquals(ArchiveScanner.Type.WAR, deployer.archiveType(war));
+		assertEquals(5, deployer.getArchiveOpens());
+	}
+
+	/**
+	 * Creates archive with given manifest (deflated or stored) and empty entries.
+	 */
+	private File archive(String name, String manifest, boolean deflate, String comment, String... entries)
+			throws IOException {
+		File file = new File(dir, name);
+		try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+			if (manifest != null) {
+				byte[] bytes = manifest.getBytes(StandardCharsets.UTF_8);
+				ZipEntry entry = new ZipEntry("META-INF/MANIFEST.MF");
+				if (!deflate) {
+					CRC32 crc = new CRC32();
+					crc.update(bytes);
+					entry.setMethod(ZipEntry.STORED);
+					entry.setSize(bytes.length);
+					entry.setCrc(crc.getValue());
+				}
+				zip.putNextEntry(entry);
+				zip.write(bytes);
+				zip.closeEntry();
+			}
+			for (String entry : entries) {
+				zip.putNextEntry(new ZipEntry(entry));
+				zip.write(new byte[1024]);
+				zip.closeEntry();
+			}
+			if (comment != null) {
+				zip.setComment(comment);
+			}
+		}
+		return file;
+	}
+
+}
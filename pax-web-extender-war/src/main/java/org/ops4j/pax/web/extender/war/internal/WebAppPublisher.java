@@ -29,6 +29,7 @@ import org.ops4j.pax.web.extender.war.internal.util.WebContainerUtils;
 import org.ops4j.pax.web.service.WebAppDependencyHolder;
 import org.ops4j.pax.web.service.WebContainer;
 import org.ops4j.pax.web.service.spi.WebEvent;
+import org.ops4j.pax.web.service.spi.timing.DeploymentTimings;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Filter;
 import org.osgi.framework.InvalidSyntaxException;
@@ -224,11 +225,14 @@ class WebAppPublisher {
 						"Registering web application [{}] from http service [{}]",
 						webApp, webAppHttpService);
 				try {
-					if (WebContainerUtils.webContainerAvailable(webAppHttpService)) {
-						webApp.accept(new RegisterWebAppVisitorWC(
-								webAppDependencyHolder));
-					} else {
-						webApp.accept(new RegisterWebAppVisitorHS(webAppHttpService));
+					// registration also starts the context (container initializers, listeners, ...)
+					try (DeploymentTimings.Phase phase = DeploymentTimings.start(webApp.getDeploymentTimings(), "register")) {
+						if (WebContainerUtils.webContainerAvailable(webAppHttpService)) {
+							webApp.accept(new RegisterWebAppVisitorWC(
+									webAppDependencyHolder));
+						} else {
+							webApp.accept(new RegisterWebAppVisitorHS(webAppHttpService));
+						}
 					}
 
 					webApp.setDeploymentState(WebEvent.DEPLOYED);
@@ -17,22 +17,22 @@
  */
 package org.ops4j.pax.web.extender.war.internal;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.ops4j.lang.NullArgumentException;
@@ -40,6 +40,8 @@ import org.ops4j.pax.web.extender.war.internal.model.WebApp;
 import org.ops4j.pax.web.service.spi.WebEvent;
 import org.ops4j.pax.web.service.spi.WebEvent.WebTopic;
 import org.ops4j.pax.web.service.spi.WebListener;
+import org.ops4j.pax.web.service.spi.timing.DeploymentTimings;
+import org.ops4j.pax.web.service.spi.util.ListenerQueue;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Filter;
@@ -60,6 +62,18 @@ import org.slf4j.LoggerFactory;
  */
 public class WebEventDispatcher implements WebListener {
 
+	private static final int LISTENER_POOL_SIZE = 3;
+
+	/**
+	 * Maximal number of events waiting for delivery to single listener.
+	 */
+	private static final int QUEUE_CAPACITY = 1024;
+
+	/**
+	 * Listener not returning from single call within this time is removed.
+	 */
+	private static final long LISTENER_TIMEOUT = TimeUnit.SECONDS.toMillis(60L);
+
 	/**
 	 * Logger.
 	 */
@@ -67,11 +81,23 @@ public class WebEventDispatcher implements WebListener {
 			.getLogger(WebEventDispatcher.class);
 
 	private final Bundle bundle;
+	/**
+	 * Posts events to {@link EventAdmin} and interrupts {@link WebListener}s which time out.
+	 */
 	private final ScheduledExecutorService executors;
+	/**
+	 * Pool shared by queues of {@link WebListener}s.
+	 */
+	private final ExecutorService listenerExecutors;
 	private final ServiceTracker<EventAdmin, EventAdmin> eventAdminTracker;
 	private final ServiceTracker<LogService, LogService> logServiceTracker;
 	private final ServiceTracker<WebListener, WebListener> webListenerTracker;
-	private final Set<WebListener> listeners = new CopyOnWriteArraySet<>();
+	/**
+	 * Each listener has own queue, so slow listener doesn't delay events for other listeners. The map is used
+	 * as a monitor when registering new listener and when queuing an event, so each listener gets each
+	 * event exactly once - either replayed from {@link #states} or queued.
+	 */
+	private final ConcurrentMap<WebListener, ListenerQueue<WebEvent>> listeners = new ConcurrentHashMap<>();
 	private final Map<Long, WebEvent> states = new ConcurrentHashMap<>();
 
 	public WebEventDispatcher(final BundleContext bundleContext) throws InvalidSyntaxException {
@@ -93,6 +119,19 @@ public class WebEventDispatcher implements WebListener {
 						return t;
 					}
 				});
+		this.listenerExecutors = Executors.newFixedThreadPool(LISTENER_POOL_SIZE,
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					public Thread newThread(Runnable r) {
+						final Thread t = Executors.defaultThreadFactory()
+								.newThread(r);
+						t.setName("WebListenerExecutor" + ": "
+								+ count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				});
 
 		// Use filter so that the package can be optional
 		Filter filterEvent = bundleContext.createFilter("(objectClass=org.osgi.service.event.EventAdmin)");
@@ -112,10 +151,17 @@ public class WebEventDispatcher implements WebListener {
 							ServiceReference<WebListener> reference) {
 						WebListener listener = bundleContext
 								.getService(reference);
-
-						synchronized (listeners) {
-							sendInitialEvents(listener);
-							listeners.add(listener);
+						if (listener != null) {
+							ListenerQueue<WebEvent> queue = new ListenerQueue<>(
+									listener.getClass().getName(), listener::webEvent,
+									listenerExecutors, executors, LISTENER_TIMEOUT, QUEUE_CAPACITY,
+									() -> removeListener(listener));
+							queue.registerMBean(ManagementFactory.getPlatformMBeanServer(),
+									WebEventDispatcher.class.getSimpleName());
+							synchronized (listeners) {
+								listeners.put(listener, queue);
+								queue.start(initialEvents());
+							}
 						}
 
 						return listener;
@@ -131,7 +177,7 @@ public class WebEventDispatcher implements WebListener {
 					public void removedService(
 							ServiceReference<WebListener> reference,
 							WebListener service) {
-						listeners.remove(service);
+						removeListener(service);
 						bundleContext.ungetService(reference);
 					}
 				});
@@ -139,8 +185,15 @@ public class WebEventDispatcher implements WebListener {
 	}
 
 	void destroy() {
-		executors.shutdown();
+		// listeners first - executors still time out their calls
+		listenerExecutors.shutdown();
 		// wait for the queued tasks to execute
+		try {
+			listenerExecutors.awaitTermination(60, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			// ignore
+		}
+		executors.shutdown();
 		try {
 			executors.awaitTermination(60, TimeUnit.SECONDS);
 		} catch (InterruptedException e) {
@@ -152,15 +205,29 @@ public class WebEventDispatcher implements WebListener {
 		logServiceTracker.close();
 	}
 
-	private void sendInitialEvents(WebListener listener) {
-		for (Map.Entry<Long, WebEvent> entry : states.entrySet()) {
-			try {
-				callListener(listener, new WebEvent(entry.getValue(), true));
-			} catch (RejectedExecutionException ree) {
-				LOG.warn("Executor shut down", ree);
-				break;
-			}
+	private List<WebEvent> initialEvents() {
+		List<WebEvent> initialEvents = new ArrayList<>();
+		for (WebEvent event : states.values()) {
+			initialEvents.add(new WebEvent(event, true));
 		}
+		return initialEvents;
+	}
+
+	private void removeListener(WebListener listener) {
+		ListenerQueue<WebEvent> queue = listeners.remove(listener);
+		if (queue != null) {
+			queue.close();
+		}
+	}
+
+	/**
+	 * Returns event queues of all current listeners - with their depth and drop counters. The same counters
+	 * are available in JMX as {@link org.ops4j.pax.web.service.spi.util.ListenerQueueMXBean}s.
+	 *
+	 * @return queues of current listeners
+	 */
+	public Collection<ListenerQueue<WebEvent>> getListenerQueues() {
+		return Collections.unmodifiableCollection(listeners.values());
 	}
 
 	public void removeWebApp(WebApp webApp) {
@@ -182,9 +249,10 @@ public class WebEventDispatcher implements WebListener {
 	}
 
 	public void webEvent(WebApp webApp, int type, HttpService httpService) {
+		DeploymentTimings timings = webApp.getDeploymentTimings();
 		webEvent(new WebEvent(type, "/" + webApp.getContextName(),
 				webApp.getBundle(), bundle, httpService,
-				webApp.getHttpContext()));
+				webApp.getHttpContext(), timings == null ? null : timings.getPhases()));
 	}
 
 	/*
@@ -202,8 +270,10 @@ public class WebEventDispatcher implements WebListener {
 		}
 
 		synchronized (listeners) {
-			callListeners(webEvent);
 			states.put(webEvent.getBundleId(), webEvent);
+			for (ListenerQueue<WebEvent> queue : listeners.values()) {
+				queue.offer(webEvent);
+			}
 		}
 
 		final String topic;
@@ -279,6 +349,12 @@ public class WebEventDispatcher implements WebListener {
 								webEvent.getCollisionIds());
 					}
 
+					if (webEvent.getDeploymentTimings() != null) {
+						// durations in microseconds, e.g. "timing.tldScan"
+						webEvent.getDeploymentTimings().forEach((phase, duration) ->
+								properties.put("timing." + phase, duration));
+					}
+
 					Event event = new Event(topic, properties);
 					EventAdmin adminService = getEventAdmin();
 					if (adminService != null) {
@@ -320,36 +396,4 @@ public class WebEventDispatcher implements WebListener {
 		return logServiceTracker.getService();
 	}
 
-	private void callListeners(WebEvent webEvent) {
-		for (WebListener listener : listeners) {
-			try {
-				callListener(listener, webEvent);
-			} catch (RejectedExecutionException ree) {
-				LOG.warn("Executor shut down", ree);
-				break;
-			}
-		}
-	}
-
-	private void callListener(final WebListener listener, final WebEvent event) {
-		try {
-			executors.invokeAny(Collections
-					.<Callable<Void>>singleton(new Callable<Void>() {
-						public Void call() throws Exception {
-							listener.webEvent(event);
-							return null;
-						}
-					}), 60L, TimeUnit.SECONDS);
-		} catch (InterruptedException ie) {
-			LOG.warn("Thread interrupted", ie);
-			Thread.currentThread().interrupt();
-		} catch (TimeoutException te) {
-			LOG.warn("Listener timed out, will be ignored", te);
-			listeners.remove(listener);
-		} catch (ExecutionException ee) {
-			LOG.warn("Listener caused an exception, will be ignored", ee);
-			listeners.remove(listener);
-		}
-	}
-
 }
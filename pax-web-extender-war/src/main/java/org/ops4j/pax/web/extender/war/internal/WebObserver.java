@@ -40,6 +40,7 @@ import org.ops4j.pax.web.extender.war.internal.parser.WebAppParser;
 import org.ops4j.pax.web.extender.war.internal.util.ManifestUtil;
 import org.ops4j.pax.web.service.spi.WarManager;
 import org.ops4j.pax.web.service.spi.WebEvent;
+import org.ops4j.pax.web.service.spi.timing.DeploymentTimings;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
@@ -147,9 +148,12 @@ public class WebObserver implements WarManager {
 		webApp.setDeploymentState(WebEvent.UNDEPLOYED);
 		webApp.setBundle(bundle);
 		webApp.setContextName(contextName);
+		webApp.setDeploymentTimings(DeploymentTimings.begin(bundle, contextName));
 		try {
 			eventDispatcher.webEvent(webApp, WebEvent.DEPLOYING);
-			parser.parse(bundle, webApp);
+			try (DeploymentTimings.Phase phase = webApp.getDeploymentTimings().start("parse")) {
+				parser.parse(bundle, webApp);
+			}
 
 			String requireCapabilityHeader = ManifestUtil.getHeader(bundle,
 					"Require-Capability");
@@ -193,6 +197,7 @@ public class WebObserver implements WarManager {
 					dependencyManager.removeWebApp(webApp);
 					undeploy(webApp);
 					eventDispatcher.removeWebApp(webApp);
+					DeploymentTimings.remove(bundle, webApp.getContextName());
 				}
 			};
 			//CHECKSTYLE:OFF
@@ -33,6 +33,7 @@ import javax.servlet.DispatcherType;
 
 import org.ops4j.lang.NullArgumentException;
 import org.ops4j.pax.web.extender.war.internal.WebAppVisitor;
+import org.ops4j.pax.web.service.spi.timing.DeploymentTimings;
 import org.osgi.framework.Bundle;
 import org.osgi.service.http.HttpContext;
 
@@ -161,6 +162,8 @@ public class WebApp {
 
 	private WebAppJspConfig jspConfigDescriptor;
 
+	private DeploymentTimings deploymentTimings;
+
 
 	/**
 	 * Creates a new web app.
@@ -807,4 +810,15 @@ public class WebApp {
 		return sessionCookieConfig;
 	}
 
+	public void setDeploymentTimings(DeploymentTimings deploymentTimings) {
+		this.deploymentTimings = deploymentTimings;
+	}
+
+	/**
+	 * @return timings of current deployment, may be {@code null}
+	 */
+	public DeploymentTimings getDeploymentTimings() {
+		return deploymentTimings;
+	}
+
 }
@@ -71,6 +71,7 @@ import org.ops4j.pax.web.extender.war.internal.model.WebAppServletMapping;
 import org.ops4j.pax.web.extender.war.internal.model.WebAppTagLib;
 import org.ops4j.pax.web.extender.war.internal.util.ManifestUtil;
 import org.ops4j.pax.web.service.spi.model.ErrorPageModel;
+import org.ops4j.pax.web.service.spi.timing.DeploymentTimings;
 import org.ops4j.pax.web.utils.ClassPathUtil;
 import org.ops4j.spi.SafeServiceLoader;
 import org.osgi.framework.Bundle;
@@ -145,29 +146,38 @@ public class WebAppParser {
 		// Find web xml
 		Enumeration<URL> entries = bundle.findEntries(rootPath + "WEB-INF", "web.xml", false);
 		URL webXmlURL = (entries != null && entries.hasMoreElements()) ? entries.nextElement() : null;
+		DeploymentTimings timings = webApp.getDeploymentTimings();
 		if (webXmlURL != null) {
-			WebAppType webAppType = parseWebXml(webXmlURL);
-			// web-app attributes
-			majorVersion = scanMajorVersion(webAppType);
-			if (webAppType != null) {
-				if (webAppType.isMetadataComplete() != null) {
-					webApp.setMetaDataComplete(webAppType.isMetadataComplete());
+			try (DeploymentTimings.Phase phase = DeploymentTimings.start(timings, "webXml")) {
+				WebAppType webAppType = parseWebXml(webXmlURL);
+				// web-app attributes
+				majorVersion = scanMajorVersion(webAppType);
+				if (webAppType != null) {
+					if (webAppType.isMetadataComplete() != null) {
+						webApp.setMetaDataComplete(webAppType.isMetadataComplete());
+					}
+					LOG.debug("metadata-complete is: {}", webAppType.isMetadataComplete());
 				}
-				LOG.debug("metadata-complete is: {}", webAppType.isMetadataComplete());
+				// web-app elements
+				parseApp(webAppType, webApp);
 			}
-			// web-app elements
-			parseApp(webAppType, webApp);
 		}
 		// Scan annotations
 		if (!webApp.getMetaDataComplete() && majorVersion != null && majorVersion >= 3) {
 			// Scan servlet container-initializer
-			servletContainerInitializerScan(bundle, webApp, majorVersion);
+			try (DeploymentTimings.Phase phase = DeploymentTimings.start(timings, "servletContainerInitializerScan")) {
+				servletContainerInitializerScan(bundle, webApp, majorVersion);
+			}
 			if (TRUE.equals(canSeeClass(bundle, WebServlet.class))) {
-				servletAnnotationScan(bundle, webApp);
+				try (DeploymentTimings.Phase phase = DeploymentTimings.start(timings, "annotationScan")) {
+					servletAnnotationScan(bundle, webApp);
+				}
 			}
 		}
 		// Scan tlds
-		tldScan(bundle, webApp);
+		try (DeploymentTimings.Phase phase = DeploymentTimings.start(timings, "tldScan")) {
+			tldScan(bundle, webApp);
+		}
 		// Look for jetty web xml
 		URL jettyWebXmlURL = null;
 		Enumeration<URL> enums = bundle.findEntries(rootPath + "WEB-INF", "*web*.xml", false);
@@ -183,7 +193,10 @@ public class WebAppParser {
 		}
 
 		// Look for attached web-fragments
-		List<URL> webFragments = scanWebFragments(bundle, webApp);
+		List<URL> webFragments;
+		try (DeploymentTimings.Phase phase = DeploymentTimings.start(timings, "webFragmentScan")) {
+			webFragments = scanWebFragments(bundle, webApp);
+		}
 
 		webApp.setWebXmlURL(webXmlURL);
 		webApp.setJettyWebXmlURL(jettyWebXmlURL);
@@ -80,4 +80,20 @@ public interface ExtenderConstants {
 	 */
 	String WEBSOCKET = "websocket";
 
+	/**
+	 * Framework/system property with the settle window (in milliseconds) for grouping whiteboard
+	 * registrations. Web elements of the same context arriving within this window (or before their bundle
+	 * finishes starting) are registered in single {@code WebContainer.begin()}/{@code WebContainer.end()}
+	 * transaction, so the underlying context isn't restarted for each element. Defaults to
+	 * {@link #DEFAULT_REGISTRATION_SETTLE_TIME} (grouping disabled, each element is registered immediately
+	 * within the registering thread). Grouping is opt-in, as with a positive window registrations become
+	 * asynchronous - a registered service is not yet reachable when {@code registerService()} returns.
+	 */
+	String PROPERTY_REGISTRATION_SETTLE_TIME = "org.ops4j.pax.web.whiteboard.settleTime";
+
+	/**
+	 * Default settle window (in milliseconds) for grouping whiteboard registrations - 0, grouping is disabled.
+	 */
+	long DEFAULT_REGISTRATION_SETTLE_TIME = 0L;
+
 }
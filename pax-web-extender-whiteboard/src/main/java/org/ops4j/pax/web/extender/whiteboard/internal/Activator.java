@@ -21,10 +21,13 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EventListener;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import javax.servlet.Filter;
 import javax.servlet.Servlet;
 
+import org.ops4j.pax.web.extender.whiteboard.ExtenderConstants;
 import org.ops4j.pax.web.extender.whiteboard.internal.element.ErrorPageWebElement;
 import org.ops4j.pax.web.extender.whiteboard.internal.element.FilterMappingWebElement;
 import org.ops4j.pax.web.extender.whiteboard.internal.element.FilterWebElement;
@@ -65,6 +68,8 @@ import org.ops4j.pax.web.service.whiteboard.ServletMapping;
 import org.ops4j.pax.web.service.whiteboard.WelcomeFileMapping;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
 import org.osgi.service.http.HttpContext;
 import org.osgi.service.http.context.ServletContextHelper;
 import org.osgi.util.tracker.ServiceTracker;
@@ -92,11 +97,38 @@ public class Activator implements BundleActivator {
 
     private ExtendedHttpServiceRuntime httpServiceRuntime;
 
+	/**
+	 * Scheduler for grouped registrations (unless grouping is disabled with zero settle window).
+	 */
+	private ScheduledExecutorService registrationScheduler;
+
+	/**
+	 * Listener registering pending web elements as soon as their bundle is started.
+	 */
+	private BundleListener bundleStartedListener;
+
 	@Override
 	public void start(final BundleContext bundleContext) throws Exception {
 		httpServiceRuntime = new ExtendedHttpServiceRuntime(bundleContext);
 		httpServiceRuntime.start();
-		extenderContext = new ExtenderContext(httpServiceRuntime);
+		long settleTime = getSettleTime(bundleContext);
+		if (settleTime > 0) {
+			LOG.info("Whiteboard registrations will be grouped using {}ms settle window", settleTime);
+			registrationScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "paxweb-whiteboard-registration");
+				thread.setDaemon(true);
+				return thread;
+			});
+			extenderContext = new ExtenderContext(httpServiceRuntime, registrationScheduler, settleTime);
+			bundleStartedListener = event -> {
+				if (event.getType() == BundleEvent.STARTED) {
+					extenderContext.flushPendingWebElements(event.getBundle());
+				}
+			};
+			bundleContext.addBundleListener(bundleStartedListener);
+		} else {
+			extenderContext = new ExtenderContext(httpServiceRuntime);
+		}
 		trackers = new ArrayList<>();
 
 		trackHttpContexts(bundleContext, httpServiceRuntime);
@@ -124,16 +156,39 @@ public class Activator implements BundleActivator {
 
 	@Override
 	public void stop(final BundleContext bundleContext) throws Exception {
+		if (bundleStartedListener != null) {
+			bundleContext.removeBundleListener(bundleStartedListener);
+			bundleStartedListener = null;
+		}
 		List<ServiceTracker<?, ?>> serviceTrackers = new ArrayList<>(this.trackers);
 		Collections.reverse(serviceTrackers);
 		for (ServiceTracker<?, ?> tracker : serviceTrackers) {
 			tracker.close();
 		}
 		this.trackers = null;
+		if (registrationScheduler != null) {
+			registrationScheduler.shutdownNow();
+			registrationScheduler = null;
+		}
 		httpServiceRuntime.stop();
 		LOG.debug("Pax Web Extender stopped");
 	}
 
+	private long getSettleTime(final BundleContext bundleContext) {
+		String settleTime = bundleContext.getProperty(ExtenderConstants.PROPERTY_REGISTRATION_SETTLE_TIME);
+		if (settleTime == null || "".equals(settleTime.trim())) {
+			return ExtenderConstants.DEFAULT_REGISTRATION_SETTLE_TIME;
+		}
+		try {
+			return Long.parseLong(settleTime.trim());
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value of {}: {}. Using default settle window of {}ms.",
+					ExtenderConstants.PROPERTY_REGISTRATION_SETTLE_TIME, settleTime,
+					ExtenderConstants.DEFAULT_REGISTRATION_SETTLE_TIME);
+			return ExtenderConstants.DEFAULT_REGISTRATION_SETTLE_TIME;
+		}
+	}
+
 	/**
 	 * Track http contexts.
 	 *
@@ -17,16 +17,20 @@
 package org.ops4j.pax.web.extender.whiteboard.internal;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.ops4j.pax.web.extender.whiteboard.internal.element.WebElement;
+import org.ops4j.pax.web.extender.whiteboard.internal.util.DtoUtils;
 import org.ops4j.pax.web.extender.whiteboard.internal.util.WebContainerUtils;
 import org.ops4j.pax.web.extender.whiteboard.internal.util.tracker.ReplaceableService;
 import org.ops4j.pax.web.extender.whiteboard.internal.util.tracker.ReplaceableServiceListener;
@@ -43,12 +47,42 @@ import org.osgi.service.http.runtime.dto.RuntimeDTO;
 
 public class ExtendedHttpServiceRuntime implements HttpServiceRuntime, ReplaceableServiceListener<HttpService> {
 
+    /**
+     * Service property with change count (R7 {@code Constants.SERVICE_CHANGECOUNT})
+     */
+    static final String SERVICE_CHANGECOUNT = "service.changecount";
+
+    /**
+     * Maximum number of cached {@link RequestInfoDTO}s per snapshot
+     */
+    private static final int MAX_CACHED_REQUEST_INFOS = 256;
+
     private final BundleContext bundleContext;
     /**
      * ConcurrentHashMap.KeySet is used because {@link WebApplication#registerWebElement(WebElement)} and
      * {@link WebApplication#unregisterWebElement(WebElement)} only uses a read-lock
      */
     private Set<WhiteboardElement> whiteboardElements = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Incremented on each change of {@link #whiteboardElements} or active http service
+     */
+    private final AtomicLong changeCount = new AtomicLong();
+
+    /**
+     * Incremented by {@link #containerListener} each time the active web container reports a runtime change
+     */
+    private final AtomicLong containerChangeCount = new AtomicLong();
+
+    /**
+     * Registered in active web container, so DTO reads don't have to ask the container for its change count
+     */
+    private final Runnable containerListener = containerChangeCount::incrementAndGet;
+
+    /**
+     * DTOs for current state - replaced when either this runtime or the web container reports a change
+     */
+    private volatile Snapshot snapshot;
     
     /**
      * Http service tracker
@@ -68,7 +102,12 @@ public class ExtendedHttpServiceRuntime implements HttpServiceRuntime, Replaceab
     /**
      * RuntimeService as OSGi service
      */
-    private ServiceRegistration<HttpServiceRuntime> serviceRuntimeService;
+    private volatile ServiceRegistration<HttpServiceRuntime> serviceRuntimeService;
+
+    /**
+     * Properties of {@link #serviceRuntimeService} without change count
+     */
+    private volatile Dictionary<String, Object> serviceRuntimeProperties;
 
     ExtendedHttpServiceRuntime(BundleContext bundleContext) {
         this.bundleContext = bundleContext;
@@ -78,12 +117,63 @@ public class ExtendedHttpServiceRuntime implements HttpServiceRuntime, Replaceab
 
     @Override
     public RuntimeDTO getRuntimeDTO() {
-        return webContainer.createWhiteboardRuntimeDTO(whiteboardElements.iterator());
+        Snapshot current = currentSnapshot();
+        RuntimeDTO runtimeDTO = current.runtimeDTO;
+        if (runtimeDTO == null) {
+            runtimeDTO = current.webContainer.createWhiteboardRuntimeDTO(whiteboardElements.iterator());
+            current.runtimeDTO = runtimeDTO;
+        }
+        return DtoUtils.copy(runtimeDTO);
     }
 
     @Override
     public RequestInfoDTO calculateRequestInfoDTO(String path) {
-        return webContainer.calculateRequestInfoDTO(path, whiteboardElements.iterator());
+        Snapshot current = currentSnapshot();
+        if (path == null) {
+            return current.webContainer.calculateRequestInfoDTO(path, whiteboardElements.iterator());
+        }
+        RequestInfoDTO requestInfoDTO = current.requestInfoDTOs.get(path);
+        if (requestInfoDTO == null) {
+            requestInfoDTO = current.webContainer.calculateRequestInfoDTO(path, whiteboardElements.iterator());
+            if (requestInfoDTO != null && current.requestInfoDTOs.size() < MAX_CACHED_REQUEST_INFOS) {
+                current.requestInfoDTOs.putIfAbsent(path, requestInfoDTO);
+            }
+        }
+        return DtoUtils.copy(requestInfoDTO);
+    }
+
+    /**
+     * Returns the change count of this runtime. It changes with each registration or unregistration of
+     * whiteboard element and is published as {@code service.changecount} property of the
+     * {@link HttpServiceRuntime} service.
+     *
+     * @return current change count
+     */
+    public long getChangeCount() {
+        return changeCount.get();
+    }
+
+    /**
+     * Returns DTO snapshot valid for current state, creating new (empty) one if something has changed.
+     * Change counts are read before DTOs are created, so a change happening while creating DTOs only
+     * causes another refresh. Both counts are local - the container pushes its changes to
+     * {@link #containerListener}.
+     */
+    private Snapshot currentSnapshot() {
+        WebContainer container = webContainer;
+        if (container == null) {
+            throw new IllegalStateException("No WebContainer available");
+        }
+        long localChangeCount = changeCount.get();
+        long containerCount = containerChangeCount.get();
+        Snapshot current = snapshot;
+        if (current == null || current.webContainer != container
+                || current.localChangeCount != localChangeCount
+                || current.containerChangeCount != containerCount) {
+            current = new Snapshot(container, localChangeCount, containerCount);
+            snapshot = current;
+        }
+        return current;
     }
 
     /**
@@ -92,7 +182,9 @@ public class ExtendedHttpServiceRuntime implements HttpServiceRuntime, Replaceab
      * @param element the whiteboard-element to add.
      */
     public void addWhiteboardElement(WhiteboardElement element) {
-        whiteboardElements.add(element);
+        if (whiteboardElements.add(element)) {
+            changed();
+        }
     }
 
     /**
@@ -101,7 +193,22 @@ public class ExtendedHttpServiceRuntime implements HttpServiceRuntime, Replaceab
      * @param element the whiteboard-element to remove.
      */
     public void removeWhiteboardElement(WhiteboardElement element) {
-        whiteboardElements.remove(element);
+        if (whiteboardElements.remove(element)) {
+            changed();
+        }
+    }
+
+    private void changed() {
+        long count = changeCount.incrementAndGet();
+        ServiceRegistration<HttpServiceRuntime> registration = serviceRuntimeService;
+        Dictionary<String, Object> properties = serviceRuntimeProperties;
+        if (registration != null && properties != null) {
+            try {
+                registration.setProperties(withChangeCount(properties, count));
+            } catch (IllegalStateException ignored) {
+                // unregistered in the meantime
+            }
+        }
     }
 
     @Override
@@ -112,7 +219,15 @@ public class ExtendedHttpServiceRuntime implements HttpServiceRuntime, Replaceab
         httpServiceLock.writeLock().lock();
         try {
             unregisterService();
+            if (webContainer != null) {
+                webContainer.removeRuntimeChangeListener(containerListener);
+            }
             webContainer = (WebContainer)newService;
+            if (webContainer != null) {
+                webContainer.addRuntimeChangeListener(containerListener);
+            }
+            snapshot = null;
+            changeCount.incrementAndGet();
             registerService((WebContainer)newService, serviceProperties);
         } finally {
             httpServiceLock.writeLock().unlock();
@@ -140,8 +255,19 @@ public class ExtendedHttpServiceRuntime implements HttpServiceRuntime, Replaceab
         
         props.put(HttpServiceRuntimeConstants.HTTP_SERVICE_ENDPOINT, endpointString);
         props.put(HttpServiceRuntimeConstants.HTTP_SERVICE_ID, idList);
-        
-        serviceRuntimeService = bundleContext.registerService(HttpServiceRuntime.class, this, props);
+        serviceRuntimeProperties = props;
+
+        serviceRuntimeService = bundleContext.registerService(HttpServiceRuntime.class, this,
+                withChangeCount(props, changeCount.get()));
+    }
+
+    private static Dictionary<String, Object> withChangeCount(Dictionary<String, Object> properties, long count) {
+        Dictionary<String, Object> props = new Hashtable<>();
+        for (String key : Collections.list(properties.keys())) {
+            props.put(key, properties.get(key));
+        }
+        props.put(SERVICE_CHANGECOUNT, count);
+        return props;
     }
 
     private void unregisterService() {
@@ -149,6 +275,7 @@ public class ExtendedHttpServiceRuntime implements HttpServiceRuntime, Replaceab
             serviceRuntimeService.unregister();
             serviceRuntimeService = null;
         }
+        serviceRuntimeProperties = null;
     }
     
     public void start() {
@@ -160,5 +287,23 @@ public class ExtendedHttpServiceRuntime implements HttpServiceRuntime, Replaceab
         httpServiceTracker.stop();
     }
 
-    
+    /**
+     * DTOs created for given change counts. {@link RuntimeDTO} is created lazily and reused by all readers
+     * until next change, {@link RequestInfoDTO}s are cached by path. Cached DTOs are never exposed - readers
+     * get copies.
+     */
+    private static final class Snapshot {
+        private final WebContainer webContainer;
+        private final long localChangeCount;
+        private final long containerChangeCount;
+        private volatile RuntimeDTO runtimeDTO;
+        private final ConcurrentMap<String, RequestInfoDTO> requestInfoDTOs = new ConcurrentHashMap<>();
+
+        Snapshot(WebContainer webContainer, long localChangeCount, long containerChangeCount) {
+            this.webContainer = webContainer;
+            this.localChangeCount = localChangeCount;
+            this.containerChangeCount = containerChangeCount;
+        }
+    }
+
 }
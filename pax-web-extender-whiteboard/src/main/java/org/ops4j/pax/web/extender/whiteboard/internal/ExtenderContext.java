@@ -18,6 +18,7 @@
 package org.ops4j.pax.web.extender.whiteboard.internal;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.osgi.framework.Bundle;
 import org.slf4j.Logger;
@@ -39,10 +40,21 @@ public class ExtenderContext {
 
 	private final ExtendedHttpServiceRuntime httpServiceRuntime;
 
+	private final ScheduledExecutorService scheduler;
+
+	private final long settleTime;
+
 	public ExtenderContext(ExtendedHttpServiceRuntime httpServiceRuntime) {
+		this(httpServiceRuntime, null, 0L);
+	}
+
+	public ExtenderContext(ExtendedHttpServiceRuntime httpServiceRuntime, ScheduledExecutorService scheduler,
+			long settleTime) {
 		webApplications = new ConcurrentHashMap<>();
 		sharedWebApplicationCounter = new ConcurrentHashMap<>();
 		this.httpServiceRuntime = httpServiceRuntime;
+		this.scheduler = scheduler;
+		this.settleTime = settleTime;
 	}
 
 	public WebApplication getWebApplication(final Bundle bundle,
@@ -58,7 +70,8 @@ public class ExtenderContext {
 		WebApplication webApplication = webApplications.get(contextKey);
 		LOG.debug("WebApplicaton: {}", webApplication);
 		if (webApplication == null) {
-			webApplication = new WebApplication(bundle, httpContextId, sharedHttpContext, httpServiceRuntime);
+			webApplication = new WebApplication(bundle, httpContextId, sharedHttpContext, httpServiceRuntime,
+					scheduler, settleTime);
 			// PAXWEB-681 - webApplication and existing webApplication might not be the same.
 			WebApplication existingWebApplication = webApplications.putIfAbsent(contextKey, webApplication);
 			if (existingWebApplication == null) {
@@ -102,6 +115,20 @@ public class ExtenderContext {
 		LOG.debug("WebApplication stoped");
 	}
 
+	/**
+	 * Registers pending (grouped) web elements of all web applications of given bundle without waiting
+	 * for the settle window to pass.
+	 *
+	 * @param bundle bundle that has just started
+	 */
+	public void flushPendingWebElements(final Bundle bundle) {
+		for (WebApplication webApplication : webApplications.values()) {
+			if (bundle.equals(webApplication.getBundle())) {
+				webApplication.flushPendingWebElements();
+			}
+		}
+	}
+
 	public Integer getSharedWebApplicationCounter(WebApplication webApplication) {
 		return sharedWebApplicationCounter.get(webApplication);
 	}
@@ -21,13 +21,20 @@ package org.ops4j.pax.web.extender.whiteboard.internal;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
@@ -47,6 +54,8 @@ import org.ops4j.pax.web.extender.whiteboard.internal.util.DictionaryUtils;
 import org.ops4j.pax.web.extender.whiteboard.internal.util.WebContainerUtils;
 import org.ops4j.pax.web.extender.whiteboard.internal.util.tracker.ReplaceableService;
 import org.ops4j.pax.web.extender.whiteboard.internal.util.tracker.ReplaceableServiceListener;
+import org.ops4j.pax.web.extender.whiteboard.runtime.RateLimitFilter;
+import org.ops4j.pax.web.extender.whiteboard.runtime.ResponseCacheFilter;
 import org.ops4j.pax.web.service.WebContainer;
 import org.ops4j.pax.web.service.WebContainerConstants;
 import org.ops4j.pax.web.service.WebContainerContext;
@@ -80,6 +89,24 @@ public class WebApplication implements ReplaceableServiceListener<HttpService> {
 	 * List of web elements that makes up this context.
 	 */
 	private final List<WebElement> webElements;
+	/**
+	 * Web elements waiting for settle window to pass before being registered together.
+	 */
+	private final List<WebElement> pendingWebElements;
+
+	/**
+	 * Scheduler used to register pending web elements after settle window.
+	 */
+	private final ScheduledExecutorService scheduler;
+	/**
+	 * Settle window (in milliseconds) for grouping registrations. If not positive, each web element is
+	 * registered immediately.
+	 */
+	private final long settleTime;
+	/**
+	 * Scheduled registration of pending web elements.
+	 */
+	private ScheduledFuture<?> pendingFlush;
 
 	/**
 	 * Http service lock.
@@ -113,18 +140,45 @@ public class WebApplication implements ReplaceableServiceListener<HttpService> {
 	 */
 	private ServletContextHelper servletContextHelper;
 
+	/**
+	 * Filter caching responses of whole context, if enabled by context parameter.
+	 */
+	private ResponseCacheFilter responseCacheFilter;
+
+	/**
+	 * Filter limiting request rate of clients, if enabled by context parameter or framework property.
+	 */
+	private RateLimitFilter rateLimitFilter;
+
 	/**
 	 * Constructor.
 	 */
 	public WebApplication(Bundle bundle, String httpContextId, Boolean sharedHttpContext,
 						  ExtendedHttpServiceRuntime httpServiceRuntime) {
+		this(bundle, httpContextId, sharedHttpContext, httpServiceRuntime, null, 0L);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param scheduler scheduler for grouped registrations
+	 * @param settleTime settle window in milliseconds - web elements arriving within this window are
+	 *                   registered within single {@link WebContainer#begin(HttpContext)}/
+	 *                   {@link WebContainer#end(HttpContext)} transaction
+	 */
+	public WebApplication(Bundle bundle, String httpContextId, Boolean sharedHttpContext,
+						  ExtendedHttpServiceRuntime httpServiceRuntime,
+						  ScheduledExecutorService scheduler, long settleTime) {
 		this.bundle = bundle;
 		this.httpContextId = httpContextId;
 		this.sharedHttpContext = sharedHttpContext;
 		this.webElements = new CopyOnWriteArrayList<>();
+		this.pendingWebElements = new CopyOnWriteArrayList<>();
 		this.httpServiceLock = new ReentrantReadWriteLock();
 		this.httpServiceTracker = new ReplaceableService<>(bundle.getBundleContext(), HttpService.class, this);
 		this.httpServiceRuntime = httpServiceRuntime;
+		this.scheduler = scheduler;
+		this.settleTime = settleTime;
 	}
 
 	public Bundle getBundle() {
@@ -144,63 +198,128 @@ public class WebApplication implements ReplaceableServiceListener<HttpService> {
 	}
 
 	public void stop() {
+		httpServiceLock.writeLock().lock();
+		try {
+			if (pendingFlush != null) {
+				pendingFlush.cancel(false);
+				pendingFlush = null;
+			}
+			pendingWebElements.clear();
+		} finally {
+			httpServiceLock.writeLock().unlock();
+		}
 		httpServiceTracker.stop();
 	}
 
 	public void addWebElement(final WebElement webElement) {
 		NullArgumentException.validateNotNull(webElement, "Registerer");
-		// FIX for PAXWEB-485 changing order of registration.
+		if (settleTime <= 0 || scheduler == null) {
+			httpServiceLock.writeLock().lock();
+			try {
+				addWebElements(Collections.singletonList(webElement));
+			} finally {
+				httpServiceLock.writeLock().unlock();
+			}
+			return;
+		}
+		// group registrations arriving together, so the context is modified in single transaction
 		httpServiceLock.writeLock().lock();
 		try {
-			//check if servlets and such are already registered while this is a ServletContextListener
-			if (webElement instanceof ListenerWebElement) {
-				LOG.debug("registering a ListenerWebElement");
-				List<WebElement> stoppableElements = webElements.stream()
+			pendingWebElements.add(webElement);
+			if (pendingFlush == null) {
+				pendingFlush = scheduler.schedule(this::flushPendingWebElements, settleTime, TimeUnit.MILLISECONDS);
+			}
+		} finally {
+			httpServiceLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Registers all web elements waiting for the settle window to pass. Called when the window passes or
+	 * when the bundle of this web application has started.
+	 */
+	public void flushPendingWebElements() {
+		httpServiceLock.writeLock().lock();
+		try {
+			if (pendingFlush != null) {
+				pendingFlush.cancel(false);
+				pendingFlush = null;
+			}
+			if (pendingWebElements.isEmpty()) {
+				return;
+			}
+			List<WebElement> group = new ArrayList<>(pendingWebElements);
+			pendingWebElements.clear();
+			LOG.debug("registering group of {} web elements", group.size());
+			addWebElements(group);
+		} finally {
+			httpServiceLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Registers group of web elements within single {@link WebContainer#begin(HttpContext)}/
+	 * {@link WebContainer#end(HttpContext)} transaction. Has to be called with write lock held.
+	 * Transaction is used only for not yet populated, not shared contexts - running contexts are modified
+	 * the same way as without grouping.
+	 *
+	 * @param group web elements to register
+	 */
+	private void addWebElements(final List<WebElement> group) {
+		boolean transaction = group.size() > 1 && webElements.isEmpty() && canUseTransaction();
+		if (transaction) {
+			webContainer.begin(httpContext);
+		}
+		try {
+			// FIX for PAXWEB-485 changing order of registration.
+			List<WebElement> reregistered;
+			if (group.stream().anyMatch(elem -> elem instanceof ListenerWebElement)) {
+				//check if servlets and such are already registered while this is a ServletContextListener
+				reregistered = webElements.stream()
 						.filter(element -> !(element instanceof ListenerWebElement))
 						.filter(element -> !(element instanceof ResourceWebElement))
 						.collect(Collectors.toList());
-				stoppableElements.forEach(element -> {
-					LOG.debug("unregistering element {}", element);
-					unregisterWebElement(element);
-				});
-				LOG.debug("registering weblement:{}", webElement);
-				registerWebElement(webElement);
-				//first register all ServletWebElements
-				LOG.debug("registering servlet elements again");
-				stoppableElements.stream().filter(elem -> (elem instanceof ServletWebElement)).forEach(this::registerWebElement);
-				//second register all filters
-				LOG.debug("registering filters again");
-				stoppableElements.stream().filter(elem -> (elem instanceof FilterWebElement)).forEach(this::registerWebElement);
-				//the leftovers ...
-				LOG.debug("registering the others");
-				stoppableElements.stream().filter(elem -> !(elem instanceof ServletWebElement || elem instanceof FilterWebElement)).forEach(this::registerWebElement);
-			} else if (webElement instanceof ServletWebElement) {
-				//find all previous registered filters deregister those and go again
-				List<WebElement> filterWebElements = webElements.stream().filter(elem -> (elem instanceof FilterWebElement)).collect(Collectors.toList());
-				LOG.debug("de-registering {} servlet filters", filterWebElements.size());
-				filterWebElements.forEach(this::unregisterWebElement);
-
-				List<WebElement> welcomeFileMappings = webElements.stream().filter(elem -> (elem instanceof WelcomeFileWebElement)).collect(Collectors.toList());
-				LOG.debug("de-registering {} welcomefilemappings", welcomeFileMappings.size());
-				welcomeFileMappings.forEach(this::unregisterWebElement);
-				
-				LOG.debug("registering weblement:{}", webElement);
-				registerWebElement(webElement);
-				
-				LOG.debug("registering filters again");
-				filterWebElements.forEach(this::registerWebElement);
-				LOG.debug("filters registerd again");
-				
-				LOG.debug("registering welcomefiles again");
-				welcomeFileMappings.forEach(this::registerWebElement);
-				LOG.debug("registered welcomeFiles again");
+			} else if (group.stream().anyMatch(elem -> elem instanceof ServletWebElement)) {
+				//find welcome files and filters mapped by servlet name, deregister those and go again - filters
+				//mapped by URL patterns stay where they are, the filter chain keeps their order by ranking
+				reregistered = webElements.stream()
+						.filter(elem -> elem instanceof WelcomeFileWebElement
+								|| (elem instanceof FilterWebElement && isMappedByServletName((FilterWebElement<?>) elem)))
+						.collect(Collectors.toList());
 			} else {
-				LOG.debug("registering weblement:{}", webElement);
-				registerWebElement(webElement);
+				reregistered = Collections.emptyList();
 			}
+			LOG.debug("de-registering {} web elements", reregistered.size());
+			reregistered.forEach(this::unregisterWebElement);
+
+			List<WebElement> elements = new ArrayList<>(group.size() + reregistered.size());
+			elements.addAll(group);
+			elements.addAll(reregistered);
+			//first register all listeners
+			LOG.debug("registering listeners");
+			elements.stream().filter(elem -> (elem instanceof ListenerWebElement)).forEach(this::registerWebElement);
+			//then all ServletWebElements
+			LOG.debug("registering servlet elements");
+			elements.stream().filter(elem -> (elem instanceof ServletWebElement)).forEach(this::registerWebElement);
+			//then all filters
+			LOG.debug("registering filters");
+			elements.stream().filter(elem -> (elem instanceof FilterWebElement)).forEach(this::registerWebElement);
+			//the leftovers ...
+			LOG.debug("registering the others");
+			elements.stream().filter(elem -> !(elem instanceof ListenerWebElement
+					|| elem instanceof ServletWebElement || elem instanceof FilterWebElement))
+					.forEach(this::registerWebElement);
 		} finally {
-			webElements.add(webElement);
-			httpServiceLock.writeLock().unlock();
+			webElements.addAll(group);
+			if (transaction) {
+				//CHECKSTYLE:OFF
+				try {
+					webContainer.end(httpContext);
+				} catch (Exception e) {
+					LOG.error("Problem finishing registration of " + group.size() + " web elements", e);
+				}
+				//CHECKSTYLE:ON
+			}
 		}
 	}
 
@@ -209,8 +328,12 @@ public class WebApplication implements ReplaceableServiceListener<HttpService> {
 		NullArgumentException.validateNotNull(webElement, "Registerer");
 		httpServiceLock.readLock().lock();
 		try {
+			if (pendingWebElements.remove(webElement)) {
+				// never registered
+				return webElements.isEmpty() && pendingWebElements.isEmpty();
+			}
 			webElements.remove(webElement);
-			empty = webElements.isEmpty();
+			empty = webElements.isEmpty() && pendingWebElements.isEmpty();
 			unregisterWebElement(webElement);
 		} finally {
 			httpServiceRuntime.removeWhiteboardElement(webElement);
@@ -264,6 +387,7 @@ public class WebApplication implements ReplaceableServiceListener<HttpService> {
 	private void registerHttpContext() {
 		if (httpContextMapping != null && webContainer != null) {
 			getHttpContext();
+			boolean responseCacheEnabled = false;
 			if (WebContainerUtils.isWebContainer(webContainer)) {
 				final Map<String, String> contextparams = new HashMap<>();
 				if (httpContextMapping.getPath() != null) {
@@ -280,11 +404,39 @@ public class WebApplication implements ReplaceableServiceListener<HttpService> {
 				}
 				webContainer.setContextParam(
 						DictionaryUtils.adapt(contextparams), httpContext);
+				if (isRateLimitEnabled(contextparams.get(WebContainerConstants.RATE_LIMIT_ENABLED))) {
+					// registered first, so rejected requests don't reach other filters
+					rateLimitFilter = new RateLimitFilter();
+					webContainer.registerFilter(rateLimitFilter, new String[] { "/*" }, null, null, true,
+							httpContext);
+				}
+				responseCacheEnabled = Boolean.parseBoolean(contextparams.get(WebContainerConstants.RESPONSE_CACHE_ENABLED));
 			}
 			registerWebElements();
+			if (responseCacheEnabled) {
+				// configured by the context params - registered after and ranked behind other filters, so
+				// security and authentication filters run first
+				Dictionary<String, String> initParams = new Hashtable<>();
+				initParams.put(WebContainerConstants.FILTER_RANKING, Integer.toString(ResponseCacheFilter.RANKING));
+				responseCacheFilter = new ResponseCacheFilter();
+				webContainer.registerFilter(responseCacheFilter, new String[] { "/*" }, null, initParams, true,
+						httpContext);
+			}
 		}
 	}
 
+	/**
+	 * Rate limiting is enabled by context parameter, or for all contexts by framework property (unless the
+	 * context parameter disables it).
+	 */
+	private boolean isRateLimitEnabled(String contextParam) {
+		if (contextParam != null) {
+			return Boolean.parseBoolean(contextParam);
+		}
+		return bundle.getBundleContext() != null
+				&& Boolean.parseBoolean(bundle.getBundleContext().getProperty(WebContainerConstants.RATE_LIMIT_ENABLED));
+	}
+
 	private void getHttpContext() {
 		httpContext = httpContextMapping.getHttpContext();
 		if (httpContext == null) {
@@ -368,8 +520,24 @@ public class WebApplication implements ReplaceableServiceListener<HttpService> {
 		httpServiceLock.readLock().lock();
 		try {
 			if (webContainer != null && httpContext != null) {
-				for (WebElement registerer : webElements) {
-					registerWebElement(registerer);
+				boolean transaction = webElements.size() > 1 && canUseTransaction();
+				if (transaction) {
+					webContainer.begin(httpContext);
+				}
+				try {
+					for (WebElement registerer : webElements) {
+						registerWebElement(registerer);
+					}
+				} finally {
+					if (transaction) {
+						//CHECKSTYLE:OFF
+						try {
+							webContainer.end(httpContext);
+						} catch (Exception e) {
+							LOG.error("Problem finishing registration of " + webElements.size() + " web elements", e);
+						}
+						//CHECKSTYLE:ON
+					}
 				}
 			}
 		} finally {
@@ -377,6 +545,15 @@ public class WebApplication implements ReplaceableServiceListener<HttpService> {
 		}
 	}
 
+	private static boolean isMappedByServletName(FilterWebElement<?> filter) {
+		String[] servletNames = filter.getFilterMapping().getServletNames();
+		return servletNames != null && servletNames.length > 0;
+	}
+
+	private boolean canUseTransaction() {
+		return settleTime > 0 && scheduler != null && webContainer != null && httpContext != null && !Boolean.TRUE.equals(sharedHttpContext);
+	}
+
 	private List<String> convertToList(String elementListAsString) {
 		List<String> elementList = new LinkedList<>();
 		if (elementListAsString != null) {
@@ -406,8 +583,16 @@ public class WebApplication implements ReplaceableServiceListener<HttpService> {
 		try {
 			if (webContainer != null && httpContext != null) {
 				webElements.forEach(this::unregisterWebElement);
+				if (responseCacheFilter != null) {
+					webContainer.unregisterFilter(responseCacheFilter);
+				}
+				if (rateLimitFilter != null) {
+					webContainer.unregisterFilter(rateLimitFilter);
+				}
 			}
 		} finally {
+			responseCacheFilter = null;
+			rateLimitFilter = null;
 			webElements.forEach(httpServiceRuntime::removeWhiteboardElement);
 			httpServiceLock.readLock().unlock();
 		}
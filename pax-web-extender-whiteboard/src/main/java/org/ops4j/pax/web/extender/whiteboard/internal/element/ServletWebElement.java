@@ -20,14 +20,18 @@ package org.ops4j.pax.web.extender.whiteboard.internal.element;
 
 import java.util.Collection;
 import java.util.Dictionary;
+import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 
 import javax.servlet.Servlet;
 
 import org.ops4j.lang.NullArgumentException;
 import org.ops4j.pax.web.extender.whiteboard.internal.util.DictionaryUtils;
 import org.ops4j.pax.web.extender.whiteboard.runtime.DefaultErrorPageMapping;
+import org.ops4j.pax.web.extender.whiteboard.runtime.ResponseCacheFilter;
 import org.ops4j.pax.web.service.WebContainer;
+import org.ops4j.pax.web.service.WebContainerConstants;
 import org.ops4j.pax.web.service.whiteboard.ErrorPageMapping;
 import org.ops4j.pax.web.service.whiteboard.ServletMapping;
 import org.ops4j.pax.web.service.whiteboard.WhiteboardServlet;
@@ -48,8 +52,14 @@ public class ServletWebElement<T extends Servlet> extends WebElement<T> implemen
 
 	private static final Logger LOG = LoggerFactory.getLogger(ServletWebElement.class);
 
+	private static final String RESPONSE_CACHE_PREFIX = "org.ops4j.pax.web.responseCache.";
+
 	private ServletMapping servletMapping;
 	private List<DefaultErrorPageMapping> errorMappings;
+	/**
+	 * Filter caching responses of this servlet, if enabled in servlet mapping.
+	 */
+	private ResponseCacheFilter responseCacheFilter;
 
 	/**
 	 * Constructs a new ServletWebElement.
@@ -110,6 +120,9 @@ public class ServletWebElement<T extends Servlet> extends WebElement<T> implemen
 						httpContext);
 				// ((WebContainer) httpService).end(httpContext);
 		}
+		if (Boolean.TRUE.equals(servletMapping.getResponseCacheEnabled())) {
+			registerResponseCache(webContainer, httpContext);
+		}
 		//special handling for OSGi R6 registration of Servlet as ErrorHandler
 		if (errorMappings != null) {
 			for (DefaultErrorPageMapping errorPageMapping : errorMappings) {
@@ -120,9 +133,40 @@ public class ServletWebElement<T extends Servlet> extends WebElement<T> implemen
 		}
 	}
 
+	/**
+	 * Registers {@link ResponseCacheFilter} mapped to this servlet only. Cache configuration is taken from
+	 * servlet init parameters ({@code org.ops4j.pax.web.responseCache.*}) or context parameters.
+	 */
+	private void registerResponseCache(final WebContainer webContainer, final HttpContext httpContext) {
+		Dictionary<String, String> cacheParams = new Hashtable<>();
+		if (servletMapping.getInitParams() != null) {
+			for (Map.Entry<String, String> param : servletMapping.getInitParams().entrySet()) {
+				if (param.getKey().startsWith(RESPONSE_CACHE_PREFIX) && param.getValue() != null) {
+					cacheParams.put(param.getKey(), param.getValue());
+				}
+			}
+		}
+		String[] servletNames = null;
+		String[] urlPatterns = servletMapping.getUrlPatterns();
+		if (servletMapping.getServletName() != null) {
+			servletNames = new String[] { servletMapping.getServletName() };
+			urlPatterns = null;
+		} else if (servletMapping.getAlias() != null) {
+			String alias = servletMapping.getAlias();
+			urlPatterns = new String[] { alias, "/".equals(alias) ? "/*" : alias + "/*" };
+		}
+		cacheParams.put(WebContainerConstants.FILTER_RANKING, Integer.toString(ResponseCacheFilter.RANKING));
+		responseCacheFilter = new ResponseCacheFilter();
+		webContainer.registerFilter(responseCacheFilter, urlPatterns, servletNames, cacheParams, true, httpContext);
+	}
+
 	@Override
 	public void unregister(final WebContainer webContainer,
 						   final HttpContext httpContext) {
+		if (responseCacheFilter != null) {
+			webContainer.unregisterFilter(responseCacheFilter);
+			responseCacheFilter = null;
+		}
 		if (servletMapping.getAlias() != null) {
 			webContainer.unregister(servletMapping.getAlias());
 		} else {
@@ -220,6 +220,8 @@ public class ServletTracker<T extends Servlet> extends AbstractTracker<T, Servle
 		mapping.setInitParams(initParams);
 		mapping.setLoadOnStartup(loadOnStartup);
 		mapping.setAsyncSupported(asyncSupported);
+		mapping.setResponseCacheEnabled(ServicePropertiesUtils.getBooleanProperty(serviceReference,
+				WebContainerConstants.RESPONSE_CACHE_ENABLED));
 
 		List<DefaultErrorPageMapping> errorMappings = new ArrayList<>();
 
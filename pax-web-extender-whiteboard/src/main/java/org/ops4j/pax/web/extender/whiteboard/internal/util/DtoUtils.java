@@ -0,0 +1,122 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.extender.whiteboard.internal.util;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.osgi.dto.DTO;
+
+/**
+ * Utilities related to {@link DTO}s. DTOs are mutable by design, so cached instances are never returned
+ * directly - callers get deep copies.
+ */
+public class DtoUtils {
+
+	/**
+	 * Public instance fields of DTO classes
+	 */
+	private static final ClassValue<Field[]> FIELDS = new ClassValue<Field[]>() {
+		@Override
+		protected Field[] computeValue(Class<?> type) {
+			List<Field> fields = new ArrayList<>();
+			for (Field field : type.getFields()) {
+				int modifiers = field.getModifiers();
+				if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+					fields.add(field);
+				}
+			}
+			return fields.toArray(new Field[0]);
+		}
+	};
+
+	/**
+	 * Utility class constructor.
+	 */
+	private DtoUtils() {
+		// utility class
+	}
+
+	/**
+	 * Creates a deep copy of given DTO. Nested DTOs, arrays, maps and collections are copied, other values
+	 * (strings, primitive wrappers, attribute values) are shared.
+	 *
+	 * @param dto DTO to copy
+	 * @param <T> type of DTO
+	 * @return independent copy of the DTO or {@code null}
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T extends DTO> T copy(T dto) {
+		return (T) copyValue(dto);
+	}
+
+	private static Object copyValue(Object value) {
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof DTO) {
+			return copyDto((DTO) value);
+		}
+		Class<?> type = value.getClass();
+		if (type.isArray()) {
+			int length = Array.getLength(value);
+			if (type.getComponentType().isPrimitive()) {
+				Object copy = Array.newInstance(type.getComponentType(), length);
+				System.arraycopy(value, 0, copy, 0, length);
+				return copy;
+			}
+			Object[] copy = (Object[]) Array.newInstance(type.getComponentType(), length);
+			for (int i = 0; i < length; i++) {
+				copy[i] = copyValue(((Object[]) value)[i]);
+			}
+			return copy;
+		}
+		if (value instanceof Map) {
+			Map<Object, Object> copy = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				copy.put(entry.getKey(), copyValue(entry.getValue()));
+			}
+			return copy;
+		}
+		if (value instanceof Collection) {
+			List<Object> copy = new ArrayList<>(((Collection<?>) value).size());
+			for (Object element : (Collection<?>) value) {
+				copy.add(copyValue(element));
+			}
+			return copy;
+		}
+		return value;
+	}
+
+	private static DTO copyDto(DTO dto) {
+		try {
+			DTO copy = dto.getClass().newInstance();
+			for (Field field : FIELDS.get(dto.getClass())) {
+				field.set(copy, copyValue(field.get(dto)));
+			}
+			return copy;
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new IllegalStateException("Can't copy " + dto.getClass().getName() + ": " + e.getMessage(), e);
+		}
+	}
+
+}
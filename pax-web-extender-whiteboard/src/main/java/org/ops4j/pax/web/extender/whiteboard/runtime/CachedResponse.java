@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.extender.whiteboard.runtime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Response stored in {@link ResponseCache} - headers and body of {@code 200} response together with its
+ * freshness. Body is kept in read-only {@link ByteBuffer} (heap or direct), instances are never modified
+ * (except the revalidation flag), revalidated response is stored as new instance sharing the body.
+ */
+class CachedResponse {
+
+	/** Context relative path of the request, used to invalidate responses of unregistered servlets */
+	private final String path;
+	private final String contentType;
+	/** Header name/value pairs as set by the servlet */
+	private final List<String[]> headers;
+	private final String etag;
+	private final ByteBuffer body;
+	/** Time (in ms) until which the response is fresh */
+	private final long freshUntil;
+	/** Time (in ms) until which stale response may be served while it's revalidated */
+	private final long staleUntil;
+	private final long weight;
+
+	/** Set by the single request which revalidates stale response */
+	private final AtomicBoolean revalidating = new AtomicBoolean();
+
+	CachedResponse(String path, String contentType, List<String[]> headers, String etag, ByteBuffer body,
+			long freshUntil, long staleUntil) {
+		this.path = path;
+		this.contentType = contentType;
+		this.headers = headers;
+		this.etag = etag;
+		this.body = body.asReadOnlyBuffer();
+		this.freshUntil = freshUntil;
+		this.staleUntil = staleUntil;
+		long headersSize = contentType == null ? 0 : contentType.length();
+		for (String[] header : headers) {
+			headersSize += header[0].length() + header[1].length();
+		}
+		this.weight = body.capacity() + 2 * headersSize + 128;
+	}
+
+	/**
+	 * Creates copy of this response (sharing the body) with new headers and freshness - used after successful
+	 * conditional revalidation.
+	 */
+	CachedResponse revalidated(List<String[]> headers, long freshUntil, long staleUntil) {
+		return new CachedResponse(path, contentType, headers, etag, body, freshUntil, staleUntil);
+	}
+
+	String getPath() {
+		return path;
+	}
+
+	String getEtag() {
+		return etag;
+	}
+
+	List<String[]> getHeaders() {
+		return headers;
+	}
+
+	int getContentLength() {
+		return body.capacity();
+	}
+
+	/**
+	 * @return approximate memory used by this response
+	 */
+	long getWeight() {
+		return weight;
+	}
+
+	boolean isFresh(long now) {
+		return now < freshUntil;
+	}
+
+	boolean isUsableStale(long now) {
+		return now < staleUntil;
+	}
+
+	/**
+	 * @return {@code true} if calling request should revalidate this (stale) response, {@code false} if other
+	 * request is already doing it
+	 */
+	boolean startRevalidation() {
+		return revalidating.compareAndSet(false, true);
+	}
+
+	void revalidationFailed() {
+		revalidating.set(false);
+	}
+
+	/**
+	 * Writes cached status, headers and (optionally) body to given response.
+	 */
+	void writeTo(HttpServletResponse response, boolean includeBody) throws IOException {
+		response.setStatus(HttpServletResponse.SC_OK);
+		writeHeadersTo(response);
+		if (contentType != null) {
+			response.setContentType(contentType);
+		}
+		response.setContentLength(body.capacity());
+		if (includeBody) {
+			WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+			ByteBuffer content = body.duplicate();
+			content.rewind();
+			while (content.hasRemaining()) {
+				channel.write(content);
+			}
+		}
+	}
+
+	/**
+	 * Writes cached headers only (for {@code 304} responses).
+	 */
+	void writeHeadersTo(HttpServletResponse response) {
+		Set<String> written = new HashSet<>();
+		for (String[] header : headers) {
+			if (written.add(header[0].toLowerCase(Locale.ENGLISH))) {
+				response.setHeader(header[0], header[1]);
+			} else {
+				response.addHeader(header[0], header[1]);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,314 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.extender.whiteboard.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * <p>Response wrapper used by {@link ResponseCacheFilter} to capture the body written by the servlet.</p>
+ *
+ * <p>Status and headers go to the wrapped response directly (it's not committed while the body is captured),
+ * only {@code Content-Length} is held back. The body is buffered up to given limit - when the limit is
+ * exceeded (or the response is flushed by an async/non-blocking servlet), the buffer is written to the wrapped
+ * response and the rest of the body streams through, so large responses are never held in memory.</p>
+ */
+class CapturingResponseWrapper extends HttpServletResponseWrapper {
+
+	private static final String CONTENT_LENGTH = "Content-Length";
+
+	private final int limit;
+	private ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+	private boolean streaming;
+
+	private int status = SC_OK;
+	private long contentLength = -1L;
+
+	private CapturingOutputStream outputStream;
+	private PrintWriter writer;
+
+	CapturingResponseWrapper(HttpServletResponse response, int limit) {
+		super(response);
+		this.limit = limit;
+	}
+
+	/**
+	 * @return {@code true} if whole body was captured (and nothing was sent to the client yet)
+	 */
+	boolean isCaptured() {
+		return !streaming;
+	}
+
+	byte[] getBody() {
+		return buffer.toByteArray();
+	}
+
+	@Override
+	public int getStatus() {
+		return status;
+	}
+
+	@Override
+	public void setStatus(int sc) {
+		status = sc;
+		super.setStatus(sc);
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public void setStatus(int sc, String sm) {
+		status = sc;
+		super.setStatus(sc, sm);
+	}
+
+	@Override
+	public void sendError(int sc) throws IOException {
+		status = sc;
+		discard();
+		super.sendError(sc);
+	}
+
+	@Override
+	public void sendError(int sc, String msg) throws IOException {
+		status = sc;
+		discard();
+		super.sendError(sc, msg);
+	}
+
+	@Override
+	public void sendRedirect(String location) throws IOException {
+		status = SC_FOUND;
+		discard();
+		super.sendRedirect(location);
+	}
+
+	@Override
+	public void setContentLength(int len) {
+		setContentLengthLong(len);
+	}
+
+	@Override
+	public void setContentLengthLong(long len) {
+		if (streaming) {
+			super.setContentLengthLong(len);
+		} else {
+			contentLength = len;
+		}
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		if (!streaming && CONTENT_LENGTH.equalsIgnoreCase(name)) {
+			contentLength = value == null ? -1L : Long.parseLong(value.trim());
+		} else {
+			super.setHeader(name, value);
+		}
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+		if (!streaming && CONTENT_LENGTH.equalsIgnoreCase(name)) {
+			contentLength = Long.parseLong(value.trim());
+		} else {
+			super.addHeader(name, value);
+		}
+	}
+
+	@Override
+	public void setIntHeader(String name, int value) {
+		if (!streaming && CONTENT_LENGTH.equalsIgnoreCase(name)) {
+			contentLength = value;
+		} else {
+			super.setIntHeader(name, value);
+		}
+	}
+
+	@Override
+	public void addIntHeader(String name, int value) {
+		if (!streaming && CONTENT_LENGTH.equalsIgnoreCase(name)) {
+			contentLength = value;
+		} else {
+			super.addIntHeader(name, value);
+		}
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (writer != null) {
+			throw new IllegalStateException("getWriter() has already been called");
+		}
+		if (outputStream == null) {
+			outputStream = new CapturingOutputStream();
+		}
+		return outputStream;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (outputStream != null && writer == null) {
+			throw new IllegalStateException("getOutputStream() has already been called");
+		}
+		if (writer == null) {
+			outputStream = new CapturingOutputStream();
+			writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+		}
+		return writer;
+	}
+
+	@Override
+	public void flushBuffer() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+		if (streaming) {
+			super.flushBuffer();
+		}
+	}
+
+	@Override
+	public boolean isCommitted() {
+		return streaming && super.isCommitted();
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		status = SC_OK;
+		contentLength = -1L;
+		if (!streaming) {
+			buffer.reset();
+		}
+	}
+
+	@Override
+	public void resetBuffer() {
+		super.resetBuffer();
+		if (!streaming) {
+			buffer.reset();
+		}
+	}
+
+	/**
+	 * Flushes the writer, so all the body written by the servlet is available.
+	 */
+	void finish() {
+		if (writer != null) {
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Sends captured body (and held back {@code Content-Length}) to the wrapped response. Following writes go
+	 * directly to the wrapped response.
+	 */
+	synchronized void startStreaming() throws IOException {
+		finish();
+		switchToStreaming();
+	}
+
+	private synchronized void switchToStreaming() throws IOException {
+		if (streaming) {
+			return;
+		}
+		streaming = true;
+		if (contentLength >= 0L) {
+			super.setContentLengthLong(contentLength);
+		}
+		if (buffer.size() > 0) {
+			buffer.writeTo(super.getOutputStream());
+		}
+		buffer = null;
+	}
+
+	/**
+	 * Drops captured body - used when the servlet sends an error or redirect, which resets the response.
+	 */
+	private void discard() {
+		streaming = true;
+		buffer = null;
+	}
+
+	private class CapturingOutputStream extends ServletOutputStream {
+
+		private ServletOutputStream target() throws IOException {
+			return CapturingResponseWrapper.super.getOutputStream();
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			synchronized (CapturingResponseWrapper.this) {
+				if (!streaming && buffer.size() + 1 > limit) {
+					switchToStreaming();
+				}
+				if (streaming) {
+					target().write(b);
+				} else {
+					buffer.write(b);
+				}
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			synchronized (CapturingResponseWrapper.this) {
+				if (!streaming && buffer.size() + len > limit) {
+					switchToStreaming();
+				}
+				if (streaming) {
+					target().write(b, off, len);
+				} else {
+					buffer.write(b, off, len);
+				}
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (streaming) {
+				target().flush();
+			}
+		}
+
+		@Override
+		public boolean isReady() {
+			try {
+				return !streaming || target().isReady();
+			} catch (IOException e) {
+				return false;
+			}
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			// non-blocking writes can't be captured
+			try {
+				startStreaming();
+				target().setWriteListener(writeListener);
+			} catch (IOException e) {
+				throw new IllegalStateException(e.getMessage(), e);
+			}
+		}
+
+	}
+
+}
@@ -66,6 +66,8 @@ public class DefaultServletMapping implements ServletMapping {
 
 	private MultipartConfigElement multipartConfig;
 
+	private Boolean responseCacheEnabled;
+
 	private String[] errorPageParams;
 
 	/**
@@ -206,6 +208,21 @@ public class DefaultServletMapping implements ServletMapping {
 		this.multipartConfig = multipartConfig;
 	}
 
+	/**
+	 * @see ServletMapping#getResponseCacheEnabled()
+	 */
+	@Override
+	public Boolean getResponseCacheEnabled() {
+		return responseCacheEnabled;
+	}
+
+	/**
+	 * @param responseCacheEnabled whether responses of the servlet are cached
+	 */
+	public void setResponseCacheEnabled(Boolean responseCacheEnabled) {
+		this.responseCacheEnabled = responseCacheEnabled;
+	}
+
 	@Override
 	public String toString() {
 		return this.getClass().getSimpleName() +
@@ -0,0 +1,215 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.extender.whiteboard.runtime;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.ops4j.pax.web.service.WebContainerConstants;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.http.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Filter limiting the rate of requests of each client with a token bucket. Requests over the limit get
+ * {@code 429 Too Many Requests} with {@code Retry-After}. It works on filter level, so it behaves the same in
+ * every container. May be registered as any other whiteboard filter, or enabled using
+ * {@link WebContainerConstants#RATE_LIMIT_ENABLED} context parameter (single context) or framework property
+ * (all whiteboard contexts).</p>
+ *
+ * <p>Client is identified by ({@link WebContainerConstants#RATE_LIMIT_KEY}):<ul>
+ *     <li>{@code ip} - remote address, or the last address in {@code X-Forwarded-For} not belonging to
+ *     {@link WebContainerConstants#RATE_LIMIT_TRUSTED_PROXIES trusted proxy} when the request comes from one</li>
+ *     <li>{@code principal} - remote user authenticated by {@link HttpContext#handleSecurity}, address for
+ *     anonymous requests</li>
+ * </ul></p>
+ *
+ * <p>Configuration is read from filter init parameters, then from context parameters and then from framework
+ * properties (when the servlet context provides {@link WebContainerConstants#BUNDLE_CONTEXT_ATTRIBUTE bundle
+ * context}): {@link WebContainerConstants#RATE_LIMIT_REQUESTS}, {@link WebContainerConstants#RATE_LIMIT_PERIOD},
+ * {@link WebContainerConstants#RATE_LIMIT_KEY}, {@link WebContainerConstants#RATE_LIMIT_TRUSTED_PROXIES} and
+ * {@link WebContainerConstants#RATE_LIMIT_MAX_CLIENTS}.</p>
+ */
+public class RateLimitFilter implements Filter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(RateLimitFilter.class);
+
+	public static final int DEFAULT_REQUESTS = 100;
+	public static final long DEFAULT_PERIOD = 1000L;
+	public static final int DEFAULT_MAX_CLIENTS = 10000;
+
+	public static final String KEY_IP = "ip";
+	public static final String KEY_PRINCIPAL = "principal";
+
+	private static final int SC_TOO_MANY_REQUESTS = 429;
+
+	/**
+	 * Request attribute marking requests already counted - e.g. by a filter of other bundle sharing the same
+	 * context, or on forward.
+	 */
+	private static final String COUNTED = RateLimitFilter.class.getName() + ".counted";
+
+	private volatile TokenBuckets buckets;
+	private boolean byPrincipal;
+	private Set<String> trustedProxies = Collections.emptySet();
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+		int requests = (int) longParameter(filterConfig, WebContainerConstants.RATE_LIMIT_REQUESTS, DEFAULT_REQUESTS);
+		long period = longParameter(filterConfig, WebContainerConstants.RATE_LIMIT_PERIOD, DEFAULT_PERIOD);
+		int maxClients = (int) longParameter(filterConfig, WebContainerConstants.RATE_LIMIT_MAX_CLIENTS,
+				DEFAULT_MAX_CLIENTS);
+		String key = parameter(filterConfig, WebContainerConstants.RATE_LIMIT_KEY);
+		byPrincipal = key != null && KEY_PRINCIPAL.equalsIgnoreCase(key.trim());
+		if (key != null && !byPrincipal && !KEY_IP.equalsIgnoreCase(key.trim())) {
+			LOG.warn("Invalid value of {}: {}, using {}", WebContainerConstants.RATE_LIMIT_KEY, key, KEY_IP);
+		}
+		trustedProxies = addresses(parameter(filterConfig, WebContainerConstants.RATE_LIMIT_TRUSTED_PROXIES));
+		buckets = new TokenBuckets(Math.max(1, requests), TimeUnit.MILLISECONDS.toNanos(Math.max(1L, period)),
+				maxClients, System.nanoTime());
+		LOG.debug("Rate limit {} initialized ({} requests per {}ms by {})", filterConfig.getFilterName(), requests,
+				period, byPrincipal ? KEY_PRINCIPAL : KEY_IP);
+	}
+
+	@Override
+	public void destroy() {
+		buckets = null;
+	}
+
+	@Override
+	public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+			throws IOException, ServletException {
+		TokenBuckets buckets = this.buckets;
+		if (buckets == null || !(req instanceof HttpServletRequest) || !(res instanceof HttpServletResponse)
+				|| req.getAttribute(COUNTED) != null) {
+			chain.doFilter(req, res);
+			return;
+		}
+		HttpServletRequest request = (HttpServletRequest) req;
+		request.setAttribute(COUNTED, Boolean.TRUE);
+		long wait = buckets.acquire(clientKey(request), System.nanoTime());
+		if (wait > 0L) {
+			HttpServletResponse response = (HttpServletResponse) res;
+			response.setStatus(SC_TOO_MANY_REQUESTS);
+			response.setHeader("Retry-After", Long.toString(Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(
+					wait + TimeUnit.SECONDS.toNanos(1L) - 1L))));
+			response.setContentLength(0);
+			return;
+		}
+		chain.doFilter(req, res);
+	}
+
+	/**
+	 * @return key of the bucket of client sending given request
+	 */
+	String clientKey(HttpServletRequest request) {
+		if (byPrincipal) {
+			String user = request.getRemoteUser();
+			if (user == null && request.getAttribute(HttpContext.REMOTE_USER) != null) {
+				user = request.getAttribute(HttpContext.REMOTE_USER).toString();
+			}
+			if (user != null) {
+				return "user:" + user;
+			}
+		}
+		return clientAddress(request, trustedProxies);
+	}
+
+	/**
+	 * Finds address of the client. {@code X-Forwarded-For} is used only when the request comes from trusted
+	 * proxy - it's read from the right, and the first address not belonging to trusted proxy is the client (the
+	 * addresses on the left could be sent by the client itself).
+	 */
+	static String clientAddress(HttpServletRequest request, Set<String> trustedProxies) {
+		String address = request.getRemoteAddr();
+		if (!trustedProxies.contains(address)) {
+			return address;
+		}
+		List<String> forwarded = new ArrayList<>();
+		for (Enumeration<String> headers = request.getHeaders("X-Forwarded-For");
+				headers != null && headers.hasMoreElements(); ) {
+			for (String hop : headers.nextElement().split(",")) {
+				if (!hop.trim().isEmpty()) {
+					forwarded.add(hop.trim());
+				}
+			}
+		}
+		for (int i = forwarded.size() - 1; i >= 0; i--) {
+			address = forwarded.get(i);
+			if (!trustedProxies.contains(address)) {
+				break;
+			}
+		}
+		return address;
+	}
+
+	static Set<String> addresses(String value) {
+		if (value == null || value.trim().isEmpty()) {
+			return Collections.emptySet();
+		}
+		Set<String> addresses = new HashSet<>();
+		for (String address : value.split(",")) {
+			if (!address.trim().isEmpty()) {
+				addresses.add(address.trim());
+			}
+		}
+		return addresses;
+	}
+
+	private static String parameter(FilterConfig filterConfig, String name) {
+		String value = filterConfig.getInitParameter(name);
+		ServletContext servletContext = filterConfig.getServletContext();
+		if (value == null && servletContext != null) {
+			value = servletContext.getInitParameter(name);
+			Object bundleContext = servletContext.getAttribute(WebContainerConstants.BUNDLE_CONTEXT_ATTRIBUTE);
+			if (value == null && bundleContext instanceof BundleContext) {
+				value = ((BundleContext) bundleContext).getProperty(name);
+			}
+		}
+		return value;
+	}
+
+	private static long longParameter(FilterConfig filterConfig, String name, long defaultValue) {
+		String value = parameter(filterConfig, name);
+		if (value == null || "".equals(value.trim())) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value of {}: {}, using {}", name, value, defaultValue);
+			return defaultValue;
+		}
+	}
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.extender.whiteboard.runtime;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Predicate;
+
+/**
+ * <p>Bounded store of {@link CachedResponse cached responses} used by {@link ResponseCacheFilter}.</p>
+ *
+ * <p>Responses are kept in LRU order and evicted when their total {@link CachedResponse#getWeight() weight}
+ * exceeds the maximum size. Bodies are allocated on heap or in direct memory (direct buffers are released by
+ * GC after eviction, so the limit bounds reachable memory only).</p>
+ *
+ * <p>Besides the responses, the cache remembers {@code Vary} header names of each resource and coordinates
+ * concurrent fetches - only one request per key goes to the servlet, other requests wait for its result
+ * (see {@link #claim(String)}).</p>
+ */
+class ResponseCache {
+
+	/** Maximum number of remembered {@code Vary} header lists */
+	private static final int MAX_VARY_ENTRIES = 4096;
+
+	private final long maxSize;
+	private final boolean direct;
+
+	/** Guarded by {@code this} */
+	private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(64, 0.75f, true);
+	/** Guarded by {@code this} */
+	private long size;
+
+	/** Names of request headers by which responses for given resource vary. Guarded by {@code this} */
+	private final Map<String, List<String>> varyHeaders = new LinkedHashMap<String, List<String>>(64, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+			return size() > MAX_VARY_ENTRIES;
+		}
+	};
+
+	/** Fetches in progress (keyed by variant key) */
+	private final ConcurrentHashMap<String, CountDownLatch> fetches = new ConcurrentHashMap<>();
+
+	ResponseCache(long maxSize, boolean direct) {
+		this.maxSize = maxSize;
+		this.direct = direct;
+	}
+
+	/**
+	 * Copies response body into a buffer of the kind used by this cache.
+	 */
+	ByteBuffer allocate(byte[] body, int length) {
+		if (!direct) {
+			byte[] copy = new byte[length];
+			System.arraycopy(body, 0, copy, 0, length);
+			return ByteBuffer.wrap(copy);
+		}
+		ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+		buffer.put(body, 0, length);
+		buffer.flip();
+		return buffer;
+	}
+
+	synchronized CachedResponse get(String key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Stores a response, evicting least recently used ones when needed. Responses larger than the whole cache
+	 * are not stored.
+	 *
+	 * @return {@code true} if the response was stored
+	 */
+	synchronized boolean put(String key, CachedResponse response) {
+		if (response.getWeight() > maxSize) {
+			return false;
+		}
+		CachedResponse previous = entries.put(key, response);
+		if (previous != null) {
+			size -= previous.getWeight();
+		}
+		size += response.getWeight();
+		Iterator<CachedResponse> lru = entries.values().iterator();
+		while (size > maxSize && lru.hasNext()) {
+			CachedResponse eldest = lru.next();
+			if (eldest != response) {
+				size -= eldest.getWeight();
+				lru.remove();
+			}
+		}
+		return true;
+	}
+
+	synchronized void remove(String key) {
+		CachedResponse previous = entries.remove(key);
+		if (previous != null) {
+			size -= previous.getWeight();
+		}
+	}
+
+	/**
+	 * Removes all responses matching given condition.
+	 *
+	 * @return number of removed responses
+	 */
+	synchronized int invalidate(Predicate<CachedResponse> condition) {
+		int removed = 0;
+		for (Iterator<CachedResponse> it = entries.values().iterator(); it.hasNext(); ) {
+			CachedResponse response = it.next();
+			if (condition.test(response)) {
+				size -= response.getWeight();
+				it.remove();
+				removed++;
+			}
+		}
+		return removed;
+	}
+
+	synchronized void clear() {
+		entries.clear();
+		varyHeaders.clear();
+		size = 0L;
+	}
+
+	/**
+	 * @return names of request headers by which responses for given resource vary (empty if not known yet)
+	 */
+	synchronized List<String> getVaryHeaders(String resourceKey) {
+		List<String> names = varyHeaders.get(resourceKey);
+		return names == null ? Collections.emptyList() : names;
+	}
+
+	synchronized void setVaryHeaders(String resourceKey, List<String> names) {
+		if (names.isEmpty()) {
+			varyHeaders.remove(resourceKey);
+		} else {
+			varyHeaders.put(resourceKey, names);
+		}
+	}
+
+	/**
+	 * Makes the caller responsible for fetching given key from the servlet, unless other request already
+	 * does it.
+	 *
+	 * @return {@code null} if the caller has to fetch the response and call {@link #release(String)} when
+	 * done, otherwise a latch released when the other request finishes
+	 */
+	CountDownLatch claim(String key) {
+		return fetches.putIfAbsent(key, new CountDownLatch(1));
+	}
+
+	/**
+	 * Finishes fetch started by successful {@link #claim(String)}, waking up waiting requests.
+	 */
+	void release(String key) {
+		CountDownLatch latch = fetches.remove(key);
+		if (latch != null) {
+			latch.countDown();
+		}
+	}
+
+	synchronized long getSize() {
+		return size;
+	}
+
+	synchronized int getCount() {
+		return entries.size();
+	}
+
+}
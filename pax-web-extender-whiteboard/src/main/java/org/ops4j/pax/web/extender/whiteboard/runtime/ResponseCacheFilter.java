@@ -0,0 +1,642 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.extender.whiteboard.runtime;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import org.ops4j.pax.web.service.WebContainerConstants;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Filter caching {@code GET} responses of the servlets it's mapped to. It works on filter level, so it
+ * behaves the same in every container. May be registered as any other whiteboard filter, or enabled using
+ * {@link WebContainerConstants#RESPONSE_CACHE_ENABLED} context parameter (whole context) or servlet service
+ * property (single servlet).</p>
+ *
+ * <p>Only responses the servlet marks as cacheable are stored:<ul>
+ *     <li>status {@code 200} with {@code Cache-Control: max-age} (or {@code s-maxage}) and without
+ *     {@code no-store}, {@code no-cache}, {@code private} or {@code Set-Cookie}</li>
+ *     <li>{@code Vary} selects the variant by request headers ({@code Vary: *} disables caching)</li>
+ *     <li>{@code ETag} is used to answer {@code If-None-Match} requests with {@code 304} and to revalidate
+ *     stale responses conditionally</li>
+ *     <li>{@code stale-while-revalidate} lets stale response be served while single request revalidates it</li>
+ * </ul>
+ * Requests with {@code Authorization} or {@code Range} headers are never served from the cache. Concurrent
+ * requests for missing or expired response are coalesced - only one of them calls the servlet.</p>
+ *
+ * <p>Configuration is read from filter init parameters, then from context parameters:
+ * {@link WebContainerConstants#RESPONSE_CACHE_MAX_SIZE},
+ * {@link WebContainerConstants#RESPONSE_CACHE_MAX_ENTRY_SIZE} and
+ * {@link WebContainerConstants#RESPONSE_CACHE_DIRECT}.</p>
+ *
+ * <p>When the servlet context provides {@link WebContainerConstants#BUNDLE_CONTEXT_ATTRIBUTE bundle context},
+ * the filter registers a {@link org.ops4j.pax.web.service.spi.ServletListener} and drops responses of servlets
+ * of its context as soon as they're unregistered.</p>
+ */
+public class ResponseCacheFilter implements Filter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ResponseCacheFilter.class);
+
+	public static final long DEFAULT_MAX_SIZE = 16L * 1024L * 1024L;
+	public static final long DEFAULT_MAX_ENTRY_SIZE = 1024L * 1024L;
+
+	/**
+	 * {@link WebContainerConstants#FILTER_RANKING} of the filter when enabled by context parameter or servlet
+	 * property - the filter comes after all other filters, so cached responses are never served to requests
+	 * rejected by security or authentication filters.
+	 */
+	public static final int RANKING = Integer.MAX_VALUE;
+
+	/**
+	 * Time (in milliseconds) a request waits for another request fetching the same response.
+	 */
+	private static final long FETCH_WAIT_TIMEOUT = 10000L;
+
+	/**
+	 * Response headers which are not stored - hop-by-hop ones, ones set for each response separately and ones
+	 * handled explicitly.
+	 */
+	private static final Set<String> UNCACHED_HEADERS = new HashSet<>(Arrays.asList(
+			"connection", "keep-alive", "transfer-encoding", "te", "trailer", "upgrade", "proxy-authenticate",
+			"content-length", "content-type", "date", "set-cookie"));
+
+	private static final boolean SERVLET_EVENTS_AVAILABLE = servletEventsAvailable();
+
+	private volatile ResponseCache cache;
+	private int maxEntrySize;
+	private ServiceRegistration<?> listenerRegistration;
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+		long maxSize = longParameter(filterConfig, WebContainerConstants.RESPONSE_CACHE_MAX_SIZE, DEFAULT_MAX_SIZE);
+		maxEntrySize = (int) Math.min(Math.min(Integer.MAX_VALUE, maxSize),
+				longParameter(filterConfig, WebContainerConstants.RESPONSE_CACHE_MAX_ENTRY_SIZE, DEFAULT_MAX_ENTRY_SIZE));
+		boolean direct = Boolean.parseBoolean(parameter(filterConfig, WebContainerConstants.RESPONSE_CACHE_DIRECT));
+		cache = new ResponseCache(maxSize, direct);
+
+		Object bundleContext = filterConfig.getServletContext().getAttribute(WebContainerConstants.BUNDLE_CONTEXT_ATTRIBUTE);
+		if (bundleContext instanceof BundleContext && SERVLET_EVENTS_AVAILABLE) {
+			listenerRegistration = ServletEventInvalidator.register((BundleContext) bundleContext, this,
+					filterConfig.getServletContext().getServletContextName());
+		}
+		LOG.debug("Response cache {} initialized (max size: {}, max entry size: {}, direct: {})",
+				filterConfig.getFilterName(), maxSize, maxEntrySize, direct);
+	}
+
+	@Override
+	public void destroy() {
+		if (listenerRegistration != null) {
+			try {
+				listenerRegistration.unregister();
+			} catch (IllegalStateException ignore) {
+				// bundle already stopped
+			}
+			listenerRegistration = null;
+		}
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Removes cached responses of requests matching any of given servlet url patterns (or aliases turned into
+	 * {@code <alias>/*} patterns).
+	 *
+	 * @param urlPatterns servlet url patterns
+	 * @return number of removed responses
+	 */
+	public int invalidate(String... urlPatterns) {
+		ResponseCache current = cache;
+		if (current == null || urlPatterns == null || urlPatterns.length == 0) {
+			return 0;
+		}
+		return current.invalidate(response -> {
+			for (String pattern : urlPatterns) {
+				if (matches(response.getPath(), pattern)) {
+					return true;
+				}
+			}
+			return false;
+		});
+	}
+
+	/**
+	 * Removes all cached responses.
+	 */
+	public void invalidateAll() {
+		ResponseCache current = cache;
+		if (current != null) {
+			current.clear();
+		}
+	}
+
+	@Override
+	public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
+			throws IOException, ServletException {
+		ResponseCache cache = this.cache;
+		if (cache == null || !(req instanceof HttpServletRequest) || !(res instanceof HttpServletResponse)) {
+			chain.doFilter(req, res);
+			return;
+		}
+		HttpServletRequest request = (HttpServletRequest) req;
+		HttpServletResponse response = (HttpServletResponse) res;
+		boolean head = "HEAD".equals(request.getMethod());
+		if (!(head || "GET".equals(request.getMethod())) || !isCacheable(request)) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		String resourceKey = resourceKey(request);
+		String key = variantKey(resourceKey, cache.getVaryHeaders(resourceKey), request);
+		CacheControl requestCacheControl = CacheControl.parse(request.getHeaders("Cache-Control"));
+		boolean reload = requestCacheControl.noCache || hasToken(request.getHeaders("Pragma"), "no-cache");
+
+		CachedResponse cached = reload ? null : cache.get(key);
+		long now = System.currentTimeMillis();
+		if (cached != null && cached.isFresh(now)) {
+			serve(request, response, cached, head);
+			return;
+		}
+		if (head) {
+			// no body to cache
+			chain.doFilter(request, response);
+			return;
+		}
+
+		if (cached != null && cached.isUsableStale(now)) {
+			if (!cached.startRevalidation()) {
+				// stale-while-revalidate - other request is already revalidating the response
+				serve(request, response, cached, false);
+				return;
+			}
+			boolean revalidated = false;
+			try {
+				revalidated = fetch(cache, request, response, chain, resourceKey, key, cached);
+			} finally {
+				if (!revalidated) {
+					cached.revalidationFailed();
+				}
+			}
+			return;
+		}
+
+		CountDownLatch fetching = cache.claim(key);
+		if (fetching == null) {
+			try {
+				fetch(cache, request, response, chain, resourceKey, key, cached);
+			} finally {
+				cache.release(key);
+			}
+			return;
+		}
+		if (!reload) {
+			// coalesce with the request already fetching this response
+			try {
+				if (fetching.await(FETCH_WAIT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+					cached = cache.get(variantKey(resourceKey, cache.getVaryHeaders(resourceKey), request));
+					if (cached != null && cached.isFresh(System.currentTimeMillis())) {
+						serve(request, response, cached, false);
+						return;
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ServletException("Interrupted while waiting for cached response", e);
+			}
+		}
+		fetch(cache, request, response, chain, resourceKey, key, null);
+	}
+
+	/**
+	 * Calls the servlet and stores its response if it's cacheable. When stale response with {@code ETag} is
+	 * given, the request to the servlet is made conditional.
+	 *
+	 * @return {@code true} if response was stored (or stale response was successfully revalidated)
+	 */
+	private boolean fetch(ResponseCache cache, HttpServletRequest request, HttpServletResponse response,
+			FilterChain chain, String resourceKey, String key, CachedResponse stale)
+			throws IOException, ServletException {
+		boolean conditional = stale != null && stale.getEtag() != null;
+		CapturingResponseWrapper capture = new CapturingResponseWrapper(response, maxEntrySize);
+		chain.doFilter(conditional ? new ConditionalRequest(request, stale.getEtag()) : request, capture);
+
+		if (request.isAsyncStarted()) {
+			// response will be completed later, not by this thread
+			capture.startStreaming();
+			return false;
+		}
+		capture.finish();
+		if (!capture.isCaptured()) {
+			// too large, error or redirect - already sent
+			return false;
+		}
+
+		long now = System.currentTimeMillis();
+		int status = capture.getStatus();
+		CacheControl cacheControl = CacheControl.parse(response.getHeaders("Cache-Control"));
+
+		if (conditional && status == HttpServletResponse.SC_NOT_MODIFIED) {
+			CachedResponse current = stale;
+			boolean stored = false;
+			if (cacheControl.isStorable()) {
+				current = stale.revalidated(mergeHeaders(stale.getHeaders(), storedHeaders(response)),
+						now + cacheControl.freshness() * 1000L,
+						now + (cacheControl.freshness() + cacheControl.staleWhileRevalidate) * 1000L);
+				stored = cache.put(key, current);
+			}
+			serve(request, response, current, false);
+			return stored;
+		}
+
+		byte[] body = capture.getBody();
+		List<String> vary = tokens(response.getHeaders("Vary"));
+		boolean stored = false;
+		if (status == HttpServletResponse.SC_OK && cacheControl.isStorable() && !vary.contains("*")
+				&& !response.containsHeader("Set-Cookie")) {
+			CachedResponse fetched = new CachedResponse(path(request), response.getContentType(),
+					storedHeaders(response), response.getHeader("ETag"), cache.allocate(body, body.length),
+					now + cacheControl.freshness() * 1000L,
+					now + (cacheControl.freshness() + cacheControl.staleWhileRevalidate) * 1000L);
+			cache.setVaryHeaders(resourceKey, vary);
+			String fetchedKey = variantKey(resourceKey, vary, request);
+			stored = cache.put(fetchedKey, fetched);
+			if (!fetchedKey.equals(key)) {
+				cache.remove(key);
+			}
+		} else if (stale != null) {
+			cache.remove(key);
+		}
+		if (status != HttpServletResponse.SC_NOT_MODIFIED && status != HttpServletResponse.SC_NO_CONTENT) {
+			capture.setContentLengthLong(body.length);
+		}
+		capture.startStreaming();
+		return stored;
+	}
+
+	private void serve(HttpServletRequest request, HttpServletResponse response, CachedResponse cached,
+			boolean head) throws IOException {
+		String etag = cached.getEtag();
+		if (etag != null && request.getHeader("If-None-Match") != null
+				&& etagMatches(request.getHeaders("If-None-Match"), etag)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			cached.writeHeadersTo(response);
+			return;
+		}
+		cached.writeTo(response, !head);
+	}
+
+	private static boolean isCacheable(HttpServletRequest request) {
+		return request.getDispatcherType() == DispatcherType.REQUEST
+				&& request.getHeader("Authorization") == null
+				&& request.getHeader("Range") == null
+				&& !CacheControl.parse(request.getHeaders("Cache-Control")).noStore;
+	}
+
+	static String resourceKey(HttpServletRequest request) {
+		StringBuilder key = new StringBuilder(128);
+		key.append(request.getScheme()).append("://").append(request.getServerName()).append(':')
+				.append(request.getServerPort()).append(request.getRequestURI());
+		if (request.getQueryString() != null) {
+			key.append('?').append(request.getQueryString());
+		}
+		return key.toString();
+	}
+
+	static String variantKey(String resourceKey, List<String> varyHeaders, HttpServletRequest request) {
+		if (varyHeaders.isEmpty()) {
+			return resourceKey;
+		}
+		StringBuilder key = new StringBuilder(resourceKey);
+		for (String name : varyHeaders) {
+			key.append('\n').append(name).append(':');
+			Enumeration<String> values = request.getHeaders(name);
+			boolean first = true;
+			while (values != null && values.hasMoreElements()) {
+				if (!first) {
+					key.append(',');
+				}
+				key.append(values.nextElement());
+				first = false;
+			}
+		}
+		return key.toString();
+	}
+
+	/**
+	 * @return context relative path of the request - servlet path and path info
+	 */
+	private static String path(HttpServletRequest request) {
+		String pathInfo = request.getPathInfo();
+		return pathInfo == null ? request.getServletPath() : request.getServletPath() + pathInfo;
+	}
+
+	/**
+	 * Checks whether context relative path is handled by a servlet mapped to given url pattern.
+	 */
+	static boolean matches(String path, String pattern) {
+		if (path == null || pattern == null) {
+			return false;
+		}
+		if ("".equals(pattern) || "/".equals(pattern) || "/*".equals(pattern)) {
+			return true;
+		}
+		if (pattern.endsWith("/*")) {
+			String prefix = pattern.substring(0, pattern.length() - 2);
+			return path.equals(prefix) || path.startsWith(prefix + "/");
+		}
+		if (pattern.startsWith("*.")) {
+			return path.endsWith(pattern.substring(1));
+		}
+		return path.equals(pattern);
+	}
+
+	private static List<String[]> storedHeaders(HttpServletResponse response) {
+		List<String[]> headers = new ArrayList<>();
+		for (String name : new LinkedHashSet<>(response.getHeaderNames())) {
+			if (UNCACHED_HEADERS.contains(name.toLowerCase(Locale.ENGLISH))) {
+				continue;
+			}
+			for (String value : response.getHeaders(name)) {
+				headers.add(new String[] { name, value });
+			}
+		}
+		return headers;
+	}
+
+	/**
+	 * Updates stored headers with headers of {@code 304} response.
+	 */
+	private static List<String[]> mergeHeaders(List<String[]> stored, List<String[]> updated) {
+		Set<String> names = new HashSet<>();
+		for (String[] header : updated) {
+			names.add(header[0].toLowerCase(Locale.ENGLISH));
+		}
+		List<String[]> merged = new ArrayList<>(updated);
+		for (String[] header : stored) {
+			if (!names.contains(header[0].toLowerCase(Locale.ENGLISH))) {
+				merged.add(header);
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * Weak comparison of {@code If-None-Match} entity tags with given {@code ETag}.
+	 */
+	static boolean etagMatches(Enumeration<String> ifNoneMatch, String etag) {
+		String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+		while (ifNoneMatch.hasMoreElements()) {
+			for (String candidate : ifNoneMatch.nextElement().split(",")) {
+				candidate = candidate.trim();
+				if ("*".equals(candidate)) {
+					return true;
+				}
+				if (candidate.startsWith("W/")) {
+					candidate = candidate.substring(2);
+				}
+				if (candidate.equals(opaque)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasToken(Enumeration<String> values, String token) {
+		return tokens(values).contains(token);
+	}
+
+	/**
+	 * Splits comma separated header values into lower case tokens.
+	 */
+	static List<String> tokens(Enumeration<String> values) {
+		return values == null ? Collections.emptyList() : tokens(Collections.list(values));
+	}
+
+	static List<String> tokens(Collection<String> values) {
+		List<String> tokens = new ArrayList<>();
+		if (values == null) {
+			return tokens;
+		}
+		for (String value : values) {
+			if (value == null) {
+				continue;
+			}
+			for (String token : value.split(",")) {
+				token = token.trim().toLowerCase(Locale.ENGLISH);
+				if (!token.isEmpty() && !tokens.contains(token)) {
+					tokens.add(token);
+				}
+			}
+		}
+		return tokens;
+	}
+
+	private static String parameter(FilterConfig filterConfig, String name) {
+		String value = filterConfig.getInitParameter(name);
+		if (value == null && filterConfig.getServletContext() != null) {
+			value = filterConfig.getServletContext().getInitParameter(name);
+		}
+		return value;
+	}
+
+	private static long longParameter(FilterConfig filterConfig, String name, long defaultValue) {
+		String value = parameter(filterConfig, name);
+		if (value == null || "".equals(value.trim())) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value of {}: {}, using {}", name, value, defaultValue);
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * pax-web-spi is an optional import - checks whether {@code ServletListener} can be loaded without linking
+	 * {@link ServletEventInvalidator}.
+	 */
+	private static boolean servletEventsAvailable() {
+		try {
+			Class.forName("org.ops4j.pax.web.service.spi.ServletListener", false,
+					ResponseCacheFilter.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException | LinkageError ignore) {
+			return false;
+		}
+	}
+
+	/**
+	 * Parsed {@code Cache-Control} header.
+	 */
+	static class CacheControl {
+
+		boolean noStore;
+		boolean noCache;
+		boolean isPrivate;
+		long maxAge = -1L;
+		long sMaxAge = -1L;
+		long staleWhileRevalidate;
+
+		static CacheControl parse(Enumeration<String> values) {
+			return parse(values == null ? Collections.<String>emptyList() : Collections.list(values));
+		}
+
+		static CacheControl parse(Collection<String> values) {
+			CacheControl cacheControl = new CacheControl();
+			for (String directive : tokens(values)) {
+				int eq = directive.indexOf('=');
+				String name = eq < 0 ? directive : directive.substring(0, eq).trim();
+				String value = eq < 0 ? null : directive.substring(eq + 1).trim().replace("\"", "");
+				switch (name) {
+					case "no-store":
+						cacheControl.noStore = true;
+						break;
+					case "no-cache":
+						cacheControl.noCache = true;
+						break;
+					case "private":
+						cacheControl.isPrivate = true;
+						break;
+					case "max-age":
+						cacheControl.maxAge = seconds(value);
+						break;
+					case "s-maxage":
+						cacheControl.sMaxAge = seconds(value);
+						break;
+					case "stale-while-revalidate":
+						cacheControl.staleWhileRevalidate = Math.max(0L, seconds(value));
+						break;
+					default:
+						break;
+				}
+			}
+			return cacheControl;
+		}
+
+		/**
+		 * @return whether shared cache may store the response
+		 */
+		boolean isStorable() {
+			return !noStore && !noCache && !isPrivate && freshness() >= 0L
+					&& (freshness() > 0L || staleWhileRevalidate > 0L);
+		}
+
+		/**
+		 * @return freshness lifetime in seconds ({@code s-maxage} has precedence), negative if not specified
+		 */
+		long freshness() {
+			return sMaxAge >= 0L ? sMaxAge : maxAge;
+		}
+
+		private static long seconds(String value) {
+			if (value == null) {
+				return -1L;
+			}
+			try {
+				return Long.parseLong(value);
+			} catch (NumberFormatException e) {
+				return -1L;
+			}
+		}
+
+	}
+
+	/**
+	 * Request revalidating stale response - {@code If-None-Match} is replaced with {@code ETag} of the stale
+	 * response and {@code If-Modified-Since} is hidden.
+	 */
+	private static class ConditionalRequest extends HttpServletRequestWrapper {
+
+		private final String etag;
+
+		ConditionalRequest(HttpServletRequest request, String etag) {
+			super(request);
+			this.etag = etag;
+		}
+
+		@Override
+		public String getHeader(String name) {
+			if ("If-None-Match".equalsIgnoreCase(name)) {
+				return etag;
+			}
+			if ("If-Modified-Since".equalsIgnoreCase(name)) {
+				return null;
+			}
+			return super.getHeader(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaders(String name) {
+			if ("If-None-Match".equalsIgnoreCase(name)) {
+				return Collections.enumeration(Collections.singletonList(etag));
+			}
+			if ("If-Modified-Since".equalsIgnoreCase(name)) {
+				return Collections.emptyEnumeration();
+			}
+			return super.getHeaders(name);
+		}
+
+		@Override
+		public long getDateHeader(String name) {
+			if ("If-Modified-Since".equalsIgnoreCase(name)) {
+				return -1L;
+			}
+			return super.getDateHeader(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaderNames() {
+			Set<String> names = new LinkedHashSet<>();
+			for (String name : Collections.list(super.getHeaderNames())) {
+				if (!"If-Modified-Since".equalsIgnoreCase(name) && !"If-None-Match".equalsIgnoreCase(name)) {
+					names.add(name);
+				}
+			}
+			names.add("If-None-Match");
+			return Collections.enumeration(names);
+		}
+
+	}
+
+}
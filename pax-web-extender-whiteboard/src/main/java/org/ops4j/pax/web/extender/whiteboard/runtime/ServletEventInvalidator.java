@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.extender.whiteboard.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.ops4j.pax.web.service.SharedWebContainerContext;
+import org.ops4j.pax.web.service.WebContainerContext;
+import org.ops4j.pax.web.service.spi.ServletEvent;
+import org.ops4j.pax.web.service.spi.ServletListener;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.http.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link ServletListener} (notified by pax-web-runtime's {@code ServletEventDispatcher}) removing responses
+ * cached by {@link ResponseCacheFilter} when a servlet of the filter's context is unregistered. Kept in separate
+ * class, so the filter can be used without pax-web-spi.
+ */
+class ServletEventInvalidator implements ServletListener {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ServletEventInvalidator.class);
+
+	private final ResponseCacheFilter filter;
+
+	/**
+	 * Id of the filter's context ({@link WebContainerContext#getContextId()}, used as servlet context name by
+	 * all containers).
+	 */
+	private final String contextId;
+
+	/**
+	 * Bundle of the filter's context.
+	 */
+	private final Bundle bundle;
+
+	ServletEventInvalidator(ResponseCacheFilter filter, String contextId, Bundle bundle) {
+		this.filter = filter;
+		this.contextId = contextId;
+		this.bundle = bundle;
+	}
+
+	static ServiceRegistration<?> register(BundleContext bundleContext, ResponseCacheFilter filter, String contextId) {
+		return bundleContext.registerService(ServletListener.class,
+				new ServletEventInvalidator(filter, contextId, bundleContext.getBundle()), null);
+	}
+
+	@Override
+	public void servletEvent(ServletEvent event) {
+		if (event.isReplay() || event.getType() != ServletEvent.UNDEPLOYED || !isSameContext(event)) {
+			return;
+		}
+		List<String> patterns = new ArrayList<>();
+		String alias = event.getAlias();
+		if (alias != null) {
+			patterns.add("/".equals(alias) ? "/*" : alias + "/*");
+		}
+		if (event.getUrlParameter() != null) {
+			patterns.addAll(Arrays.asList(event.getUrlParameter()));
+		}
+		int removed = filter.invalidate(patterns.toArray(new String[patterns.size()]));
+		if (removed > 0) {
+			LOG.debug("Removed {} cached responses of unregistered servlet {}", removed, event.getServletName());
+		}
+	}
+
+	/**
+	 * The listener is notified about servlets of all the contexts - only servlets registered in the context
+	 * of the filter may have responses in its cache.
+	 *
+	 * @param event servlet event
+	 * @return whether the servlet belongs to the context of the filter
+	 */
+	boolean isSameContext(ServletEvent event) {
+		HttpContext httpContext = event.getHttpContext();
+		if (httpContext instanceof WebContainerContext) {
+			WebContainerContext context = (WebContainerContext) httpContext;
+			if (contextId == null || !contextId.equals(context.getContextId())) {
+				return false;
+			}
+			if (context instanceof SharedWebContainerContext) {
+				// the same context for all the bundles
+				return true;
+			}
+		}
+		// contexts with the same id are different for each bundle
+		return bundle == null || bundle.equals(event.getBundle());
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.extender.whiteboard.runtime;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Token buckets of clients of {@link RateLimitFilter}.</p>
+ *
+ * <p>Each bucket is single {@link AtomicLong} holding the <em>theoretical arrival time</em> of the next request
+ * (GCRA, equivalent of a token bucket refilled with one token per {@code period / capacity}) - a request takes
+ * a token with one CAS, without locking.</p>
+ *
+ * <p>Bucket which is full again (its arrival time has passed) carries no information, so such buckets are
+ * removed when the number of clients exceeds the maximum. If the map is still full, new clients share one
+ * overflow bucket until buckets expire.</p>
+ */
+class TokenBuckets {
+
+	/**
+	 * Minimal time (in nanoseconds) between two sweeps of full buckets.
+	 */
+	private static final long SWEEP_INTERVAL = TimeUnit.SECONDS.toNanos(1L);
+
+	private final long interval;
+	private final long burst;
+	private final int maxClients;
+
+	private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+	private final AtomicLong overflow;
+	private final AtomicLong lastSweep;
+
+	/**
+	 * @param capacity number of requests allowed within the period
+	 * @param period time (in nanoseconds) in which the bucket is refilled
+	 * @param maxClients maximum number of tracked clients
+	 * @param now current {@link System#nanoTime()}
+	 */
+	TokenBuckets(int capacity, long period, int maxClients, long now) {
+		this.interval = Math.max(1L, period / Math.max(1, capacity));
+		this.burst = interval * Math.max(1, capacity);
+		this.maxClients = Math.max(1, maxClients);
+		this.overflow = new AtomicLong(now);
+		this.lastSweep = new AtomicLong(now - SWEEP_INTERVAL);
+	}
+
+	/**
+	 * Takes a token from the bucket of given client.
+	 *
+	 * @param key client identifier
+	 * @param now current {@link System#nanoTime()}
+	 * @return {@code 0} if the request is allowed, otherwise time (in nanoseconds) after which it would be
+	 */
+	long acquire(String key, long now) {
+		AtomicLong bucket = buckets.get(key);
+		if (bucket == null) {
+			bucket = create(key, now);
+		}
+		for (;;) {
+			long arrival = bucket.get();
+			long next = (arrival - now > 0L ? arrival : now) + interval;
+			long wait = next - now - burst;
+			if (wait > 0L) {
+				return wait;
+			}
+			if (bucket.compareAndSet(arrival, next)) {
+				return 0L;
+			}
+		}
+	}
+
+	private AtomicLong create(String key, long now) {
+		if (buckets.size() >= maxClients) {
+			sweep(now);
+			if (buckets.size() >= maxClients) {
+				return overflow;
+			}
+		}
+		AtomicLong created = new AtomicLong(now);
+		AtomicLong existing = buckets.putIfAbsent(key, created);
+		return existing == null ? created : existing;
+	}
+
+	/**
+	 * Removes full buckets. Request racing with the removal may take a token from removed bucket, which only
+	 * gives its client one more token.
+	 */
+	private void sweep(long now) {
+		long last = lastSweep.get();
+		if (now - last < SWEEP_INTERVAL || !lastSweep.compareAndSet(last, now)) {
+			return;
+		}
+		buckets.values().removeIf(bucket -> bucket.get() - now <= 0L);
+	}
+
+	int size() {
+		return buckets.size();
+	}
+
+}
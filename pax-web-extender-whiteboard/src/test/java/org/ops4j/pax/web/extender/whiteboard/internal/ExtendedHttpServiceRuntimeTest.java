@@ -0,0 +1,145 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.extender.whiteboard.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ops4j.pax.web.service.WebContainer;
+import org.ops4j.pax.web.service.WebContainerDTO;
+import org.ops4j.pax.web.service.whiteboard.WhiteboardElement;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.http.runtime.dto.ServletContextDTO;
+import org.osgi.service.http.runtime.dto.RequestInfoDTO;
+import org.osgi.service.http.runtime.dto.RuntimeDTO;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ExtendedHttpServiceRuntimeTest {
+
+	@Mock
+	BundleContext bundleContext;
+
+	@Mock
+	WebContainer webContainer;
+
+	@Mock
+	WhiteboardElement element;
+
+	private ExtendedHttpServiceRuntime runtime;
+
+	private Runnable containerListener;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		WebContainerDTO webContainerDTO = new WebContainerDTO();
+		webContainerDTO.port = 8181;
+		when(webContainer.getWebcontainerDTO()).thenReturn(webContainerDTO);
+		when(webContainer.createWhiteboardRuntimeDTO(any(Iterator.class)))
+				.thenAnswer(invocation -> {
+					RuntimeDTO dto = new RuntimeDTO();
+					ServletContextDTO context = new ServletContextDTO();
+					context.name = "default";
+					context.initParams = Collections.singletonMap("p", "v");
+					dto.servletContextDTOs = new ServletContextDTO[] { context };
+					return dto;
+				});
+		when(webContainer.calculateRequestInfoDTO(any(String.class), any(Iterator.class)))
+				.thenAnswer(invocation -> {
+					RequestInfoDTO dto = new RequestInfoDTO();
+					dto.path = (String) invocation.getArguments()[0];
+					return dto;
+				});
+
+		runtime = new ExtendedHttpServiceRuntime(bundleContext);
+		runtime.serviceChanged(null, webContainer, Collections.singletonMap("service.id", 42L));
+
+		ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+		verify(webContainer).addRuntimeChangeListener(listener.capture());
+		containerListener = listener.getValue();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void runtimeDtoIsCachedUntilChange() {
+		runtime.getRuntimeDTO();
+		runtime.getRuntimeDTO();
+		verify(webContainer, times(1)).createWhiteboardRuntimeDTO(any(Iterator.class));
+
+		runtime.addWhiteboardElement(element);
+		runtime.getRuntimeDTO();
+		runtime.getRuntimeDTO();
+		verify(webContainer, times(2)).createWhiteboardRuntimeDTO(any(Iterator.class));
+
+		containerListener.run();
+		runtime.getRuntimeDTO();
+		verify(webContainer, times(3)).createWhiteboardRuntimeDTO(any(Iterator.class));
+		verify(webContainer, never()).getRuntimeChangeCount();
+	}
+
+	@Test
+	public void cachedRuntimeDtoIsNotExposed() {
+		RuntimeDTO first = runtime.getRuntimeDTO();
+		first.servletContextDTOs[0].name = "changed";
+		first.servletContextDTOs[0].initParams.put("p", "changed");
+		first.servletContextDTOs = new ServletContextDTO[0];
+
+		RuntimeDTO second = runtime.getRuntimeDTO();
+		assertNotSame(first, second);
+		assertEquals(1, second.servletContextDTOs.length);
+		assertEquals("default", second.servletContextDTOs[0].name);
+		assertEquals("v", second.servletContextDTOs[0].initParams.get("p"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void requestInfoDtoIsCachedByPath() {
+		RequestInfoDTO info = runtime.calculateRequestInfoDTO("/a");
+		info.path = "/changed";
+		assertEquals("/a", runtime.calculateRequestInfoDTO("/a").path);
+		runtime.calculateRequestInfoDTO("/b");
+		verify(webContainer, times(2)).calculateRequestInfoDTO(any(String.class), any(Iterator.class));
+
+		runtime.removeWhiteboardElement(element);
+		runtime.calculateRequestInfoDTO("/a");
+		verify(webContainer, times(2)).calculateRequestInfoDTO(any(String.class), any(Iterator.class));
+
+		runtime.addWhiteboardElement(element);
+		runtime.calculateRequestInfoDTO("/a");
+		verify(webContainer, times(3)).calculateRequestInfoDTO(any(String.class), any(Iterator.class));
+	}
+
+	@Test
+	public void listenerIsMovedToNewContainer() {
+		runtime.serviceChanged(webContainer, null, null);
+		verify(webContainer).removeRuntimeChangeListener(containerListener);
+	}
+
+}
@@ -17,6 +17,9 @@ package org.ops4j.pax.web.extender.whiteboard.internal;
 
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
@@ -24,15 +27,18 @@ import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.ops4j.pax.web.extender.whiteboard.ExtenderConstants;
 import org.ops4j.pax.web.extender.whiteboard.internal.element.WebElement;
 import org.ops4j.pax.web.service.WebContainer;
 import org.ops4j.pax.web.service.whiteboard.HttpContextMapping;
@@ -153,6 +159,60 @@ public class WebApplicationTest {
 		}
 	}
 
+	@Test
+	public void groupedRegistrationUsesSingleTransaction() throws Exception {
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		try {
+			WebApplication webApplication = new WebApplication(bundle, "myID", false,
+					new ExtendedHttpServiceRuntime(bundleContext), scheduler, 60000L);
+			webApplication.setHttpContextMapping(httpContextMapping);
+			webApplication.serviceChanged(null, newService, Collections.emptyMap());
+
+			WebElement[] elements = new WebElement[3];
+			for (int i = 0; i < elements.length; i++) {
+				elements[i] = mock(WebElement.class);
+				when(elements[i].isValid()).thenReturn(true);
+				webApplication.addWebElement(elements[i]);
+			}
+			for (WebElement element : elements) {
+				verify(element, times(0)).register(any(WebContainer.class), any(HttpContext.class));
+			}
+
+			webApplication.flushPendingWebElements();
+
+			// registered HttpContext is wrapped in WebContainerContext
+			ArgumentCaptor<HttpContext> context = ArgumentCaptor.forClass(HttpContext.class);
+			verify(newService, times(1)).begin(context.capture());
+			verify(newService, times(1)).end(context.getValue());
+			for (WebElement element : elements) {
+				verify(element, times(1)).register(newService, context.getValue());
+			}
+		} finally {
+			scheduler.shutdownNow();
+		}
+	}
+
+	@Test
+	public void elementsAreRegisteredImmediatelyWithDefaultSettleTime() throws Exception {
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		try {
+			WebApplication webApplication = new WebApplication(bundle, "myID", false,
+					new ExtendedHttpServiceRuntime(bundleContext), scheduler,
+					ExtenderConstants.DEFAULT_REGISTRATION_SETTLE_TIME);
+			webApplication.setHttpContextMapping(httpContextMapping);
+			webApplication.serviceChanged(null, newService, Collections.emptyMap());
+
+			WebElement element = mock(WebElement.class);
+			when(element.isValid()).thenReturn(true);
+			webApplication.addWebElement(element);
+
+			verify(element, times(1)).register(any(WebContainer.class), any(HttpContext.class));
+			verify(newService, times(0)).begin(any(HttpContext.class));
+		} finally {
+			scheduler.shutdownNow();
+		}
+	}
+
 	@Test
 	// @Ignore
 	public void executeMultiThreadedTestMultipleTimes() throws Throwable {
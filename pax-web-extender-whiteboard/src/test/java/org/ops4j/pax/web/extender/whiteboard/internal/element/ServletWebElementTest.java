@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.extender.whiteboard.internal.element;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.Dictionary;
+
+import javax.servlet.Servlet;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.ops4j.pax.web.extender.whiteboard.runtime.DefaultServletMapping;
+import org.ops4j.pax.web.extender.whiteboard.runtime.ResponseCacheFilter;
+import org.ops4j.pax.web.service.WebContainer;
+import org.ops4j.pax.web.service.WebContainerConstants;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.http.HttpContext;
+
+public class ServletWebElementTest {
+
+	@Test
+	public void responseCacheOfRootAliasIsMappedToAllPaths() throws Exception {
+		assertEquals("/*", registerCachedServlet("/")[1]);
+	}
+
+	@Test
+	public void responseCacheIsMappedToAliasAndItsSubpaths() throws Exception {
+		assertArrayEquals(new String[] { "/app", "/app/*" }, registerCachedServlet("/app"));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static String[] registerCachedServlet(String alias) throws Exception {
+		DefaultServletMapping mapping = new DefaultServletMapping();
+		mapping.setServlet(mock(Servlet.class));
+		mapping.setAlias(alias);
+		mapping.setResponseCacheEnabled(true);
+		ServletWebElement<Servlet> element = new ServletWebElement<>(mock(ServiceReference.class), mapping, null);
+
+		WebContainer webContainer = mock(WebContainer.class);
+		HttpContext httpContext = mock(HttpContext.class);
+		element.register(webContainer, httpContext);
+
+		ArgumentCaptor<String[]> urlPatterns = ArgumentCaptor.forClass(String[].class);
+		ArgumentCaptor<Dictionary> initParams = ArgumentCaptor.forClass(Dictionary.class);
+		verify(webContainer).registerFilter(any(ResponseCacheFilter.class), urlPatterns.capture(),
+				(String[]) isNull(), initParams.capture(), any(Boolean.class), eq(httpContext));
+		// ranked behind all other filters
+		assertEquals(Integer.toString(ResponseCacheFilter.RANKING),
+				initParams.getValue().get(WebContainerConstants.FILTER_RANKING));
+		return urlPatterns.getValue();
+	}
+
+}
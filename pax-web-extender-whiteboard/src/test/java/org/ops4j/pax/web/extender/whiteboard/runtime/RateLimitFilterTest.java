@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.extender.whiteboard.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+
+public class RateLimitFilterTest {
+
+	private static final long PERIOD = TimeUnit.SECONDS.toNanos(1L);
+
+	@Test
+	public void burstIsAllowedAndRefilled() {
+		TokenBuckets buckets = new TokenBuckets(10, PERIOD, 100, 0L);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0L, buckets.acquire("a", 0L));
+		}
+		long wait = buckets.acquire("a", 0L);
+		assertEquals(PERIOD / 10, wait);
+		// other clients have their own buckets
+		assertEquals(0L, buckets.acquire("b", 0L));
+
+		assertTrue(buckets.acquire("a", wait - 1L) > 0L);
+		assertEquals(0L, buckets.acquire("a", wait));
+		assertTrue(buckets.acquire("a", wait) > 0L);
+
+		// after whole period the bucket is full again, but not fuller
+		long later = 10 * PERIOD;
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0L, buckets.acquire("a", later));
+		}
+		assertTrue(buckets.acquire("a", later) > 0L);
+	}
+
+	@Test
+	public void fullBucketsAreRemovedWhenTooManyClients() {
+		TokenBuckets buckets = new TokenBuckets(1, PERIOD, 2, 0L);
+		assertEquals(0L, buckets.acquire("a", 0L));
+		assertEquals(0L, buckets.acquire("b", 0L));
+		// no bucket is full yet - new clients share the overflow bucket
+		assertEquals(0L, buckets.acquire("c", 1L));
+		assertTrue(buckets.acquire("d", 2L) > 0L);
+		assertEquals(2, buckets.size());
+
+		// buckets of "a" and "b" are full again
+		assertEquals(0L, buckets.acquire("e", 2 * PERIOD));
+		assertEquals(1, buckets.size());
+		assertTrue(buckets.acquire("e", 2 * PERIOD) > 0L);
+	}
+
+	@Test
+	public void forwardedForIsTrustedOnlyFromProxies() {
+		Set<String> proxies = RateLimitFilter.addresses(" 10.0.0.1, 10.0.0.2 ,");
+		assertEquals(2, proxies.size());
+
+		assertEquals("192.168.1.10", RateLimitFilter.clientAddress(
+				request("192.168.1.10", "1.2.3.4"), proxies));
+		assertEquals("5.6.7.8", RateLimitFilter.clientAddress(
+				request("10.0.0.1", "1.2.3.4, 5.6.7.8"), proxies));
+		// spoofed address on the left is ignored, trusted proxies on the right are skipped
+		assertEquals("5.6.7.8", RateLimitFilter.clientAddress(
+				request("10.0.0.1", "1.2.3.4, 5.6.7.8", "10.0.0.2"), proxies));
+		assertEquals("10.0.0.1", RateLimitFilter.clientAddress(request("10.0.0.1"), proxies));
+		assertEquals("10.0.0.2", RateLimitFilter.clientAddress(
+				request("10.0.0.1", "10.0.0.2"), proxies));
+	}
+
+	private HttpServletRequest request(String remoteAddress, String... forwardedFor) {
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		when(request.getRemoteAddr()).thenReturn(remoteAddress);
+		when(request.getHeaders("X-Forwarded-For")).thenReturn(Collections.enumeration(Arrays.asList(forwardedFor)));
+		return request;
+	}
+
+}
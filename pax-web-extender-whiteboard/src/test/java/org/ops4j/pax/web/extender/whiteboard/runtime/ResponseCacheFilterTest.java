@@ -0,0 +1,366 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.extender.whiteboard.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.ops4j.pax.web.extender.whiteboard.runtime.ResponseCacheFilter.CacheControl;
+import org.ops4j.pax.web.service.SharedWebContainerContext;
+import org.ops4j.pax.web.service.WebContainerContext;
+import org.ops4j.pax.web.service.spi.ServletEvent;
+import org.osgi.framework.Bundle;
+
+public class ResponseCacheFilterTest {
+
+	@Test
+	public void cacheControlDecidesWhatIsStored() {
+		CacheControl cacheControl = CacheControl.parse(Arrays.asList("public, max-age=60", "stale-while-revalidate=30"));
+		assertTrue(cacheControl.isStorable());
+		assertEquals(60L, cacheControl.freshness());
+		assertEquals(30L, cacheControl.staleWhileRevalidate);
+
+		assertEquals(10L, CacheControl.parse(Arrays.asList("max-age=60, s-maxage=10")).freshness());
+		assertTrue(CacheControl.parse(Arrays.asList("max-age=0, stale-while-revalidate=5")).isStorable());
+		assertFalse(CacheControl.parse(Arrays.asList("max-age=60, private")).isStorable());
+		assertFalse(CacheControl.parse(Arrays.asList("no-store, max-age=60")).isStorable());
+		assertFalse(CacheControl.parse(Arrays.asList("No-Cache", "max-age=60")).isStorable());
+		assertFalse(CacheControl.parse(Arrays.asList("max-age=\"x\"")).isStorable());
+		assertFalse(CacheControl.parse(Collections.<String>emptyList()).isStorable());
+	}
+
+	@Test
+	public void entityTagsAreComparedWeakly() {
+		assertTrue(ResponseCacheFilter.etagMatches(Collections.enumeration(Arrays.asList("\"a\", \"b\"")), "\"b\""));
+		assertTrue(ResponseCacheFilter.etagMatches(Collections.enumeration(Arrays.asList("W/\"a\"")), "\"a\""));
+		assertTrue(ResponseCacheFilter.etagMatches(Collections.enumeration(Arrays.asList("\"a\"")), "W/\"a\""));
+		assertTrue(ResponseCacheFilter.etagMatches(Collections.enumeration(Arrays.asList("*")), "\"a\""));
+		assertFalse(ResponseCacheFilter.etagMatches(Collections.enumeration(Arrays.asList("\"A\"")), "\"a\""));
+	}
+
+	@Test
+	public void invalidationFollowsServletMapping() {
+		assertTrue(ResponseCacheFilter.matches("/config/app.json", "/config/*"));
+		assertTrue(ResponseCacheFilter.matches("/config", "/config/*"));
+		assertFalse(ResponseCacheFilter.matches("/configuration", "/config/*"));
+		assertTrue(ResponseCacheFilter.matches("/styles/site.css", "*.css"));
+		assertTrue(ResponseCacheFilter.matches("/data", "/data"));
+		assertFalse(ResponseCacheFilter.matches("/data/1", "/data"));
+		assertTrue(ResponseCacheFilter.matches("/anything", "/"));
+	}
+
+	@Test
+	public void leastRecentlyUsedResponsesAreEvictedBySize() {
+		ResponseCache cache = new ResponseCache(3 * weight(100), true);
+		cache.put("a", response("/a", 100));
+		cache.put("b", response("/b", 100));
+		cache.put("c", response("/c", 100));
+		assertNotNull(cache.get("a"));
+
+		cache.put("d", response("/d", 100));
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+		assertEquals(3, cache.getCount());
+
+		// one large response takes place of two small ones
+		cache.put("e", response("/e", 200));
+		assertEquals(2, cache.getCount());
+		assertTrue(cache.getSize() <= 3 * weight(100));
+
+		assertFalse(cache.put("f", response("/f", 1000)));
+		assertNull(cache.get("f"));
+
+		assertEquals(1, cache.invalidate(r -> "/e".equals(r.getPath())));
+		assertEquals(1, cache.getCount());
+	}
+
+	@Test
+	public void onlyOneRequestFetchesTheSameKey() throws Exception {
+		ResponseCache cache = new ResponseCache(1024L, false);
+		assertNull(cache.claim("key"));
+		CountDownLatch other = cache.claim("key");
+		assertNotNull(other);
+		assertSame(other, cache.claim("key"));
+		assertNull(cache.claim("other-key"));
+
+		cache.release("key");
+		assertEquals(0L, other.getCount());
+		assertNull(cache.claim("key"));
+	}
+
+	@Test
+	public void staleResponseIsRevalidatedOnce() {
+		CachedResponse response = new CachedResponse("/a", "text/plain", Collections.<String[]>emptyList(), "\"1\"",
+				ByteBuffer.wrap(new byte[1]), 1000L, 2000L);
+		assertTrue(response.isFresh(999L));
+		assertFalse(response.isFresh(1000L));
+		assertTrue(response.isUsableStale(1999L));
+
+		assertTrue(response.startRevalidation());
+		assertFalse(response.startRevalidation());
+		response.revalidationFailed();
+		assertTrue(response.startRevalidation());
+	}
+
+	@Test
+	public void varyHeaderSelectsCachedVariant() throws Exception {
+		ResponseCacheFilter filter = filter();
+		AtomicInteger calls = new AtomicInteger();
+		FilterChain chain = (req, res) -> {
+			calls.incrementAndGet();
+			HttpServletResponse response = (HttpServletResponse) res;
+			response.setHeader("Cache-Control", "max-age=60");
+			response.setHeader("Vary", "Accept-Language");
+			response.setContentType("text/plain");
+			String language = ((HttpServletRequest) req).getHeader("Accept-Language");
+			response.getOutputStream().write(("lang=" + language).getBytes(StandardCharsets.UTF_8));
+		};
+
+		assertEquals("lang=en", get(filter, chain, "Accept-Language", "en").body());
+		assertEquals("lang=de", get(filter, chain, "Accept-Language", "de").body());
+		assertEquals(2, calls.get());
+
+		TestResponse en = get(filter, chain, "Accept-Language", "en");
+		assertEquals(200, en.status);
+		assertEquals("lang=en", en.body());
+		assertEquals("text/plain", en.contentType);
+		assertEquals("lang=de", get(filter, chain, "Accept-Language", "de").body());
+		assertEquals(2, calls.get());
+		filter.destroy();
+	}
+
+	@Test
+	public void matchingIfNoneMatchIsAnsweredWithNotModified() throws Exception {
+		ResponseCacheFilter filter = filter();
+		AtomicInteger calls = new AtomicInteger();
+		FilterChain chain = (req, res) -> {
+			calls.incrementAndGet();
+			HttpServletResponse response = (HttpServletResponse) res;
+			response.setHeader("Cache-Control", "max-age=60");
+			response.setHeader("ETag", "\"v1\"");
+			response.getOutputStream().write("content".getBytes(StandardCharsets.UTF_8));
+		};
+
+		TestResponse first = get(filter, chain);
+		assertEquals(200, first.status);
+		assertEquals("content", first.body());
+
+		TestResponse notModified = get(filter, chain, "If-None-Match", "W/\"v1\"");
+		assertEquals(304, notModified.status);
+		assertEquals("", notModified.body());
+		assertEquals("\"v1\"", notModified.header("ETag"));
+
+		TestResponse modified = get(filter, chain, "If-None-Match", "\"v0\"");
+		assertEquals(200, modified.status);
+		assertEquals("content", modified.body());
+		assertEquals(1, calls.get());
+		filter.destroy();
+	}
+
+	@Test
+	public void onlyServletsOfFilterContextInvalidateResponses() throws Exception {
+		Bundle bundle = bundle();
+		Bundle otherBundle = bundle();
+		ResponseCacheFilter filter = filter();
+		AtomicInteger calls = new AtomicInteger();
+		FilterChain chain = (req, res) -> {
+			calls.incrementAndGet();
+			((HttpServletResponse) res).setHeader("Cache-Control", "max-age=60");
+		};
+		ServletEventInvalidator invalidator = new ServletEventInvalidator(filter, "custom", bundle);
+
+		get(filter, chain);
+		invalidator.servletEvent(undeployed(bundle, context("other", WebContainerContext.class)));
+		invalidator.servletEvent(undeployed(otherBundle, context("custom", WebContainerContext.class)));
+		get(filter, chain);
+		assertEquals(1, calls.get());
+
+		invalidator.servletEvent(undeployed(bundle, context("custom", WebContainerContext.class)));
+		get(filter, chain);
+		assertEquals(2, calls.get());
+
+		// shared context is the same for all bundles
+		invalidator.servletEvent(undeployed(otherBundle, context("custom", SharedWebContainerContext.class)));
+		get(filter, chain);
+		assertEquals(3, calls.get());
+		filter.destroy();
+	}
+
+	private static ResponseCacheFilter filter() throws Exception {
+		ServletContext servletContext = mock(ServletContext.class);
+		FilterConfig filterConfig = mock(FilterConfig.class);
+		when(filterConfig.getFilterName()).thenReturn("cache");
+		when(filterConfig.getServletContext()).thenReturn(servletContext);
+		ResponseCacheFilter filter = new ResponseCacheFilter();
+		filter.init(filterConfig);
+		return filter;
+	}
+
+	/**
+	 * Sends {@code GET /data} request with given headers (name/value pairs) through the filter.
+	 */
+	private static TestResponse get(ResponseCacheFilter filter, FilterChain chain, String... headers)
+			throws Exception {
+		Map<String, String> values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (int i = 0; i < headers.length; i += 2) {
+			values.put(headers[i], headers[i + 1]);
+		}
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		when(request.getMethod()).thenReturn("GET");
+		when(request.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+		when(request.getScheme()).thenReturn("http");
+		when(request.getServerName()).thenReturn("localhost");
+		when(request.getServerPort()).thenReturn(8181);
+		when(request.getRequestURI()).thenReturn("/data");
+		when(request.getServletPath()).thenReturn("/data");
+		when(request.getHeader(anyString())).thenAnswer(i -> values.get((String) i.getArguments()[0]));
+		when(request.getHeaders(anyString())).thenAnswer(i -> {
+			String value = values.get((String) i.getArguments()[0]);
+			return Collections.enumeration(value == null ? Collections.<String>emptyList()
+					: Collections.singletonList(value));
+		});
+
+		TestResponse response = new TestResponse();
+		filter.doFilter(request, response.mock, chain);
+		return response;
+	}
+
+	private static Bundle bundle() {
+		Bundle bundle = mock(Bundle.class);
+		when(bundle.getHeaders()).thenReturn(new Hashtable<>());
+		return bundle;
+	}
+
+	private static WebContainerContext context(String contextId, Class<? extends WebContainerContext> type) {
+		WebContainerContext context = mock(type);
+		when(context.getContextId()).thenReturn(contextId);
+		return context;
+	}
+
+	private static ServletEvent undeployed(Bundle bundle, WebContainerContext context) {
+		return new ServletEvent(ServletEvent.UNDEPLOYED, bundle, null, "servlet", new String[] { "/data" },
+				null, HttpServlet.class, context);
+	}
+
+	/**
+	 * Mocked response keeping status, headers and body.
+	 */
+	private static class TestResponse {
+
+		final HttpServletResponse mock = mock(HttpServletResponse.class);
+		final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		int status = 200;
+		String contentType;
+
+		TestResponse() throws IOException {
+			doAnswer(i -> {
+				status = (Integer) i.getArguments()[0];
+				return null;
+			}).when(mock).setStatus(anyInt());
+			when(mock.getStatus()).thenAnswer(i -> status);
+			doAnswer(i -> {
+				headers.remove((String) i.getArguments()[0]);
+				return addHeader(i.getArguments());
+			}).when(mock).setHeader(anyString(), anyString());
+			doAnswer(i -> addHeader(i.getArguments())).when(mock).addHeader(anyString(), anyString());
+			when(mock.getHeader(anyString())).thenAnswer(i -> header((String) i.getArguments()[0]));
+			when(mock.getHeaders(anyString())).thenAnswer(i -> new ArrayList<>(
+					headers.getOrDefault((String) i.getArguments()[0], Collections.<String>emptyList())));
+			when(mock.getHeaderNames()).thenAnswer(i -> new ArrayList<>(headers.keySet()));
+			when(mock.containsHeader(anyString())).thenAnswer(i -> headers.containsKey((String) i.getArguments()[0]));
+			doAnswer(i -> {
+				contentType = (String) i.getArguments()[0];
+				return null;
+			}).when(mock).setContentType(anyString());
+			when(mock.getContentType()).thenAnswer(i -> contentType);
+			when(mock.getOutputStream()).thenReturn(new ServletOutputStream() {
+				@Override
+				public void write(int b) {
+					content.write(b);
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setWriteListener(WriteListener writeListener) {
+					// blocking writes only
+				}
+			});
+		}
+
+		private Object addHeader(Object[] arguments) {
+			headers.computeIfAbsent((String) arguments[0], name -> new ArrayList<>()).add((String) arguments[1]);
+			return null;
+		}
+
+		String header(String name) {
+			List<String> values = headers.get(name);
+			return values == null ? null : values.get(0);
+		}
+
+		String body() {
+			return new String(content.toByteArray(), StandardCharsets.UTF_8);
+		}
+
+	}
+
+	private static CachedResponse response(String path, int size) {
+		return new CachedResponse(path, null, Collections.<String[]>emptyList(), null,
+				ByteBuffer.allocate(size), Long.MAX_VALUE, Long.MAX_VALUE);
+	}
+
+	private static long weight(int size) {
+		return response("/x", size).getWeight();
+	}
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.itest.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import io.gatling.app.Gatling;
+import io.gatling.core.config.GatlingPropertiesBuilder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.ops4j.pax.exam.ExamSystem;
+import org.ops4j.pax.exam.TestContainer;
+import org.ops4j.pax.exam.spi.PaxExamRuntime;
+import org.ops4j.pax.web.itest.base.WaitCondition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Boots Jetty, Tomcat and Undertow in turn (as pax-exam native containers with the same applications, see
+ * {@link LoadTestConfiguration}) and runs {@code LoadRegressionSimulation} against each of them.</p>
+ *
+ * <p>The simulation fails (and so does this test) when 99th percentile of response time or throughput of any
+ * scenario is outside of the budget relative to {@code load-baseline.properties}. Properties:<ul>
+ *     <li>{@code load.containers} - comma separated containers to test (default: all)</li>
+ *     <li>{@code load.users}, {@code load.duration} - virtual users per scenario and duration in seconds</li>
+ *     <li>{@code load.budget.p99} - allowed ratio of p99 to baseline (default {@code 1.25})</li>
+ *     <li>{@code load.budget.throughput} - required ratio of throughput to baseline (default {@code 0.8})</li>
+ *     <li>{@code load.baseline} - class path resource with the baseline</li>
+ *     <li>{@code load.record} - runs the scenarios without checking the budget, to record new baseline</li>
+ *     <li>{@code load.requireBaseline} - fail instead of skipping the budget check when baseline of the
+ *     container wasn't recorded yet</li>
+ * </ul></p>
+ *
+ * <p>Baseline numbers are valid only for the machine they were measured on. Until
+ * {@code <container>.recorded = true} is set in the baseline, the container is still booted and loaded and
+ * failed requests are still checked, but the budget isn't (with a warning), because checking it against
+ * placeholder values would pass or fail at random.</p>
+ *
+ * <p>Gatling reports are written to {@code target/gatling/<container>}.</p>
+ */
+@RunWith(Parameterized.class)
+public class LoadRegressionIntegrationTest {
+
+	private static final Logger LOG = LoggerFactory.getLogger(LoadRegressionIntegrationTest.class);
+
+	private static final String BASE_URL = "http://127.0.0.1:8181";
+
+	/** Applications which have to be deployed before the load starts */
+	private static final String[] READY_PATHS = { "/war/wc", "/war/simple.jsp", "/whiteboard" };
+
+	private final String container;
+
+	public LoadRegressionIntegrationTest(String container) {
+		this.container = container;
+	}
+
+	@Parameters(name = "{0}")
+	public static Collection<Object[]> containers() {
+		List<Object[]> containers = new ArrayList<>();
+		String selected = System.getProperty("load.containers", LoadTestConfiguration.JETTY + ","
+				+ LoadTestConfiguration.TOMCAT + "," + LoadTestConfiguration.UNDERTOW);
+		for (String container : selected.split("\\s*,\\s*")) {
+			if (!container.isEmpty()) {
+				containers.add(new Object[] { container });
+			}
+		}
+		return containers;
+	}
+
+	@Test
+	public void scenariosWithinBudget() throws Exception {
+		boolean record = Boolean.getBoolean("load.record");
+		boolean checkBudget = !record && isBaselineRecorded();
+
+		ExamSystem system = PaxExamRuntime.createServerSystem(LoadTestConfiguration.configure(container));
+		TestContainer testContainer = PaxExamRuntime.createContainer(system);
+		testContainer.start();
+		try {
+			for (String path : READY_PATHS) {
+				waitForPath(path);
+			}
+
+			System.setProperty("load.container", container);
+			System.setProperty("load.baseUrl", BASE_URL);
+			System.setProperty("load.checkBudget", Boolean.toString(checkBudget));
+
+			GatlingPropertiesBuilder properties = new GatlingPropertiesBuilder();
+			properties.simulationClass("org.ops4j.pax.web.itest.load.LoadRegressionSimulation");
+			properties.runDescription(container);
+			properties.outputDirectoryBaseName(container);
+			properties.resultsDirectory(new File("target/gatling/" + container).getAbsolutePath());
+
+			LOG.info("Running load scenarios against {}", container);
+			int result = Gatling.fromMap(properties.build());
+			if (!checkBudget) {
+				LOG.warn("Budget of {} was not checked. Copy \"99th percentile\" and \"Mean requests/sec\" of each"
+						+ " scenario from target/gatling/{} report to load-baseline.properties and set {}.recorded = true",
+						container, container, container);
+				assertEquals("Load scenarios of " + container + " failed (see Gatling report)", 0, result);
+			} else {
+				assertEquals("Load scenarios of " + container + " are outside of the budget (see Gatling report)",
+						0, result);
+			}
+		} finally {
+			testContainer.stop();
+			system.clear();
+		}
+	}
+
+	/**
+	 * Checks whether baseline of the container was recorded. Fails with {@code load.requireBaseline} when it
+	 * contains only placeholder values.
+	 *
+	 * @return {@code false} if the budget can't be checked
+	 */
+	private boolean isBaselineRecorded() throws IOException {
+		String resource = System.getProperty("load.baseline", "/load-baseline.properties");
+		Properties baseline = new Properties();
+		try (InputStream in = getClass().getResourceAsStream(resource)) {
+			assertNotNull("Baseline " + resource + " not found", in);
+			baseline.load(in);
+		}
+		if (!Boolean.parseBoolean(baseline.getProperty(container + ".recorded"))) {
+			String message = "Baseline of " + container + " in " + resource + " contains placeholder values."
+					+ " Record it with -Dload.record=true and set " + container + ".recorded = true";
+			if (Boolean.getBoolean("load.requireBaseline")) {
+				fail(message);
+			}
+			LOG.warn("Budget check of {} SKIPPED: {}", container, message);
+			return false;
+		}
+		return true;
+	}
+
+	private void waitForPath(final String path) throws InterruptedException {
+		new WaitCondition(path + " in " + container) {
+			@Override
+			protected boolean isFulfilled() throws Exception {
+				HttpURLConnection connection = (HttpURLConnection) new URL(BASE_URL + path).openConnection();
+				try {
+					return connection.getResponseCode() == HttpURLConnection.HTTP_OK;
+				} catch (Exception e) {
+					return false;
+				} finally {
+					connection.disconnect();
+				}
+			}
+		}.waitForCondition(60000L, 500L, () -> {
+			throw new AssertionError(path + " is not available in " + container);
+		});
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.itest.load;
+
+import static org.ops4j.pax.exam.CoreOptions.bundle;
+import static org.ops4j.pax.exam.CoreOptions.mavenBundle;
+import static org.ops4j.pax.exam.CoreOptions.systemPackages;
+import static org.ops4j.pax.exam.CoreOptions.systemProperty;
+import static org.ops4j.pax.exam.MavenUtils.asInProject;
+import static org.ops4j.pax.exam.OptionUtils.combine;
+
+import org.ops4j.pax.exam.Option;
+import org.ops4j.pax.web.itest.base.AbstractControlledTestBase;
+import org.ops4j.pax.web.itest.base.VersionUtil;
+import org.osgi.framework.BundleContext;
+
+/**
+ * pax-exam configuration of native containers used by {@link LoadRegressionIntegrationTest} - the same
+ * applications deployed in Jetty, Tomcat and Undertow.
+ */
+public final class LoadTestConfiguration extends AbstractControlledTestBase {
+
+	static final String JETTY = "jetty";
+	static final String TOMCAT = "tomcat";
+	static final String UNDERTOW = "undertow";
+
+	private LoadTestConfiguration() {
+	}
+
+	/**
+	 * Options for given container with the load test applications:<ul>
+	 *     <li>{@code war} sample as WAB under {@code /war} (JSP, servlets, filters, static resources)</li>
+	 *     <li>{@code whiteboard} sample (servlets with filter chains and resources)</li>
+	 * </ul>
+	 *
+	 * @param container one of {@code jetty}, {@code tomcat} or {@code undertow}
+	 * @return pax-exam options
+	 */
+	static Option[] configure(String container) {
+		Option[] server;
+		switch (container) {
+			case JETTY:
+				server = jetty();
+				break;
+			case TOMCAT:
+				server = tomcat();
+				break;
+			case UNDERTOW:
+				server = undertow();
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown container \"" + container
+						+ "\". Expected one of: jetty, tomcat, undertow");
+		}
+		return combine(server,
+				// request log would measure the disk
+				systemProperty("org.ops4j.pax.web.log.ncsa.enabled").value("false"),
+				bundle(WEB_BUNDLE + "mvn:org.ops4j.pax.web.samples/war/" + VersionUtil.getProjectVersion()
+						+ "/war?" + WEB_CONTEXT_PATH + "=/war"),
+				mavenBundle().groupId("org.ops4j.pax.web.samples").artifactId("whiteboard").version(asInProject()));
+	}
+
+	private static Option[] jetty() {
+		return combine(
+				baseConfigure(),
+				mavenBundle().groupId("org.ops4j.pax.web").artifactId("pax-web-jetty").version(asInProject()),
+				mavenBundle().groupId("org.ops4j.pax.web").artifactId("pax-web-runtime").version(asInProject()),
+				mavenBundle().groupId("org.eclipse.jetty").artifactId("jetty-continuation").version(asInProject()),
+				mavenBundle().groupId("org.eclipse.jetty").artifactId("jetty-server").version(asInProject()),
+				mavenBundle().groupId("org.eclipse.jetty").artifactId("jetty-security").version(asInProject()),
+				mavenBundle().groupId("org.eclipse.jetty").artifactId("jetty-xml").version(asInProject()),
+				mavenBundle().groupId("org.eclipse.jetty").artifactId("jetty-servlet").version(asInProject()));
+	}
+
+	private static Option[] tomcat() {
+		return combine(
+				baseConfigure(),
+				systemProperty("javax.servlet.context.tempdir").value("target"),
+				systemProperty("catalina.base").value("target"),
+				systemPackages("javax.xml.namespace;version=1.0.0"),
+				mavenBundle().groupId("org.ops4j.pax.web").artifactId("pax-web-runtime").version(asInProject()),
+				mavenBundle().groupId("org.ops4j.pax.web").artifactId("pax-web-tomcat").version(asInProject()),
+				mavenBundle().groupId("javax.annotation").artifactId("javax.annotation-api").version(asInProject()),
+				mavenBundle().groupId("org.ops4j.pax.tipi").artifactId("org.ops4j.pax.tipi.tomcat-embed-core").version(asInProject()),
+				mavenBundle().groupId("org.ops4j.pax.tipi").artifactId("org.ops4j.pax.tipi.tomcat-embed-websocket").version(asInProject()),
+				mavenBundle().groupId("org.apache.servicemix.specs").artifactId("org.apache.servicemix.specs.saaj-api-1.3").version(asInProject()),
+				mavenBundle().groupId("org.apache.servicemix.specs").artifactId("org.apache.servicemix.specs.jaxb-api-2.2").version(asInProject()),
+				mavenBundle().groupId("org.apache.geronimo.specs").artifactId("geronimo-jaxws_2.2_spec").version(asInProject()),
+				mavenBundle().groupId("org.apache.geronimo.specs").artifactId("geronimo-jaxrpc_1.1_spec").version(asInProject()),
+				mavenBundle().groupId("org.apache.geronimo.specs").artifactId("geronimo-jta_1.1_spec").version(asInProject()),
+				mavenBundle().groupId("org.apache.servicemix.specs").artifactId("org.apache.servicemix.specs.jsr303-api-1.0.0").version(asInProject()),
+				mavenBundle().groupId("org.apache.geronimo.specs").artifactId("geronimo-activation_1.1_spec").version(asInProject()),
+				mavenBundle().groupId("org.apache.geronimo.specs").artifactId("geronimo-stax-api_1.2_spec").version(asInProject()),
+				mavenBundle().groupId("org.apache.geronimo.specs").artifactId("geronimo-ejb_3.1_spec").version(asInProject()),
+				mavenBundle().groupId("org.apache.geronimo.specs").artifactId("geronimo-jpa_2.0_spec").version(asInProject()),
+				mavenBundle().groupId("org.apache.geronimo.specs").artifactId("geronimo-javamail_1.4_spec").version(asInProject()),
+				mavenBundle().groupId("org.apache.geronimo.specs").artifactId("geronimo-osgi-registry").version(asInProject()),
+				mavenBundle().groupId("javax.security.auth.message").artifactId("javax.security.auth.message-api").version(asInProject()));
+	}
+
+	private static Option[] undertow() {
+		return combine(
+				baseConfigure(),
+				mavenBundle().groupId("javax.annotation").artifactId("javax.annotation-api").version(asInProject()),
+				mavenBundle().groupId("org.ops4j.pax.web").artifactId("pax-web-runtime").version(asInProject()),
+				mavenBundle().groupId("org.ops4j.pax.web").artifactId("pax-web-undertow").version(asInProject()),
+				mavenBundle().groupId("org.jboss.xnio").artifactId("xnio-api").version(asInProject()),
+				mavenBundle().groupId("org.jboss.xnio").artifactId("xnio-nio").version(asInProject()),
+				mavenBundle().groupId("io.undertow").artifactId("undertow-core").version(asInProject()),
+				mavenBundle().groupId("io.undertow").artifactId("undertow-servlet").version(asInProject()));
+	}
+
+	@Override
+	protected BundleContext getBundleContext() {
+		return null;
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.itest.load
+
+import java.util.Properties
+
+import scala.concurrent.duration._
+
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+
+/**
+ * Identical workloads for each container - every scenario runs `load.users` virtual users in a loop for
+ * `load.duration` seconds. Requests of a scenario share its name, so assertions (p99 response time from
+ * `percentile2` in gatling.conf and throughput) are checked per scenario against the baseline of the container.
+ */
+class LoadRegressionSimulation extends Simulation {
+
+	val container = System.getProperty("load.container", "jetty")
+	val users = Integer.getInteger("load.users", 10).intValue
+	val duration = Integer.getInteger("load.duration", 30).intValue
+	val p99Budget = System.getProperty("load.budget.p99", "1.25").toDouble
+	val throughputBudget = System.getProperty("load.budget.throughput", "0.8").toDouble
+	// recording new baseline (or baseline not recorded yet) - only failed requests are checked
+	val checkBudget = !java.lang.Boolean.getBoolean("load.record") &&
+		java.lang.Boolean.parseBoolean(System.getProperty("load.checkBudget", "true"))
+
+	val baseline = {
+		val properties = new Properties
+		val resource = System.getProperty("load.baseline", "/load-baseline.properties")
+		val in = getClass.getResourceAsStream(resource)
+		require(in != null, s"Baseline $resource not found")
+		try properties.load(in) finally in.close()
+		properties
+	}
+
+	def baselineValue(scenario: String, metric: String): Double = {
+		val key = s"$container.$scenario.$metric"
+		val value = baseline.getProperty(key)
+		require(value != null, s"No baseline for $key")
+		value.toDouble
+	}
+
+	val httpConf = http
+		.baseURL(System.getProperty("load.baseUrl", "http://127.0.0.1:8181"))
+		.acceptHeader("text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
+		.acceptEncodingHeader("gzip, deflate")
+		.disableFollowRedirect
+
+	val static = scenario("static").during(duration seconds) {
+		exec(http("static").get("/war/images/logo.png").check(status.is(200)))
+			.exec(http("static").get("/whiteboardresources/ops4j.png").check(status.is(200)))
+	}
+
+	// new HTTP session for each request - includes JSP session creation
+	val jsp = scenario("jsp").during(duration seconds) {
+		exec(http("jsp").get("/war/simple.jsp").check(status.is(200)))
+			.exec(http("jsp").get("/war/wc/subjsp").check(status.is(200)))
+			.exec(flushSessionCookies)
+	}
+
+	val servlet = scenario("servlet").during(duration seconds) {
+		exec(http("servlet").get("/whiteboard").check(status.is(200)))
+			.exec(http("servlet").get("/war/wc/sn").check(status.is(200)))
+	}
+
+	val filterChain = scenario("filter-chain").during(duration seconds) {
+		exec(http("filter-chain").get("/filtered").check(status.is(200)))
+			.exec(http("filter-chain").get("/second").check(status.is(200)))
+			.exec(http("filter-chain").get("/war/wc/example").check(status.is(200)))
+	}
+
+	// one HTTP session per virtual user, reused for all its requests
+	val session = scenario("session")
+		.exec(http("session").get("/war/simple.jsp").check(status.is(200), header("Set-Cookie").exists))
+		.during(duration seconds) {
+			exec(http("session").get("/war/simple.jsp").check(status.is(200)))
+		}
+
+	val names = List("static", "jsp", "servlet", "filter-chain", "session")
+
+	setUp(
+		static.inject(atOnceUsers(users)),
+		jsp.inject(atOnceUsers(users)),
+		servlet.inject(atOnceUsers(users)),
+		filterChain.inject(atOnceUsers(users)),
+		session.inject(atOnceUsers(users))
+	).protocols(httpConf)
+		.assertions(names.flatMap(name => details(name).failedRequests.count.is(0) :: (if (!checkBudget) Nil else List(
+			details(name).responseTime.percentile2.lessThan(math.ceil(baselineValue(name, "p99") * p99Budget).toInt),
+			details(name).requestsPerSec.greaterThan((baselineValue(name, "throughput") * throughputBudget).toInt)
+		))): _*)
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.jetty.internal;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.StatisticsHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Handler inserted into each {@link HttpServiceContext} when graceful shutdown is enabled. Jetty 9.4 has
+ * no dedicated graceful shutdown handler - {@link StatisticsHandler} counts in-flight requests (including async
+ * ones), rejects new requests with 503 after {@link #shutdown()} and completes the returned {@link Future}
+ * when the last request completes. This handler only adds {@code Retry-After} to the rejections.</p>
+ *
+ * <p>The same handlers are used by {@link org.eclipse.jetty.server.Server#setStopTimeout(long)} when whole
+ * server is stopped.</p>
+ */
+class GracefulShutdownHandler extends StatisticsHandler {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GracefulShutdownHandler.class);
+
+	private final long timeout;
+	private final String retryAfter;
+
+	private volatile boolean shutdown;
+
+	/**
+	 * @param timeout time (in milliseconds) to wait for in-flight requests
+	 */
+	GracefulShutdownHandler(long timeout) {
+		this.timeout = timeout;
+		this.retryAfter = Long.toString(Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(timeout + 999L)));
+	}
+
+	@Override
+	public void handle(String path, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+			throws IOException, ServletException {
+		if (shutdown && baseRequest.getHttpChannelState().isInitial()) {
+			response.setHeader(HttpHeader.RETRY_AFTER.asString(), retryAfter);
+		}
+		super.handle(path, baseRequest, request, response);
+	}
+
+	@Override
+	public Future<Void> shutdown() {
+		shutdown = true;
+		return super.shutdown();
+	}
+
+	/**
+	 * Rejects new requests and waits (at most the configured timeout) for in-flight requests to complete.
+	 * Does nothing if the handler was already shut down (drained before, or the whole server is stopping).
+	 *
+	 * @param contextPath path of the context used in log messages
+	 */
+	void drain(String contextPath) {
+		if (shutdown) {
+			return;
+		}
+		LOG.debug("Waiting for in-flight requests of context {}", contextPath);
+		try {
+			shutdown().get(timeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			LOG.warn("{} requests of context {} not completed within {}ms", getRequestsActive(), contextPath, timeout);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			LOG.warn("Graceful shutdown of context {} failed: {}", contextPath, e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.jetty.internal;
+
+import java.security.Principal;
+
+import javax.security.auth.Subject;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+
+import org.eclipse.jetty.server.Authentication;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.UserIdentity;
+import org.ops4j.lang.NullArgumentException;
+import org.osgi.service.http.HttpContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies authentication attributes set by {@link HttpContext#handleSecurity} to the Jetty request.
+ * The attributes are read after {@code handleSecurity()} returns, so the request doesn't have to be
+ * wrapped to intercept their setting.
+ */
+final class HttpServiceAuthentication {
+
+	/**
+	 * Logger.
+	 */
+	private static final Logger LOG = LoggerFactory
+			.getLogger(HttpServiceAuthentication.class);
+
+	private HttpServiceAuthentication() {
+	}
+
+	/**
+	 * If one of HttpContext.AUTHENTICATION_TYPE or HTTPContext.REMOTE_USER
+	 * attributes is set, set the corresponding values in Jetty request.
+	 *
+	 * @param baseRequest Jetty request
+	 * @param request request passed to {@link HttpContext#handleSecurity}
+	 */
+	static void apply(final Request baseRequest, final HttpServletRequest request) {
+		final Object authenticationType = request.getAttribute(HttpContext.AUTHENTICATION_TYPE);
+		final Object remoteUser = request.getAttribute(HttpContext.REMOTE_USER);
+		if (authenticationType == null && remoteUser == null) {
+			return;
+		}
+		final OsgiAuth auth = getOsgiAuth(baseRequest);
+		if (authenticationType != null) {
+			auth.setAuthMethod(asString(HttpContext.AUTHENTICATION_TYPE, authenticationType));
+		}
+		if (remoteUser != null) {
+			final String userName = asString(HttpContext.REMOTE_USER, remoteUser);
+			final Principal userPrincipal = auth.getUserPrincipal();
+			if (userPrincipal == null || !userPrincipal.getName().equals(userName)) {
+				auth.setUserPrincipal(new User(userName));
+			}
+		}
+	}
+
+	private static String asString(final String name, final Object value) {
+		// be defensive
+		if (!(value instanceof String)) {
+			final String message = "Attribute " + name
+					+ " expected to be a String but was an ["
+					+ value.getClass() + "]";
+			LOG.error(message);
+			throw new IllegalArgumentException(message);
+		}
+		return (String) value;
+	}
+
+	private static OsgiAuth getOsgiAuth(final Request request) {
+		OsgiAuth auth;
+		if (request.getAuthentication() instanceof OsgiAuth) {
+			auth = (OsgiAuth) request.getAuthentication();
+		} else {
+			auth = new OsgiAuth();
+			request.setAuthentication(auth);
+		}
+		return auth;
+	}
+
+	/**
+	 * A simple jetty user authentication
+	 */
+	private static class OsgiAuth implements Authentication.User, UserIdentity {
+
+		private Principal userPrincipal;
+		private String authMethod;
+
+		@Override
+		public Subject getSubject() {
+			return null;
+		}
+
+		@Override
+		public Principal getUserPrincipal() {
+			return userPrincipal;
+		}
+
+		public void setUserPrincipal(Principal userPrincipal) {
+			this.userPrincipal = userPrincipal;
+		}
+
+		@Override
+		public boolean isUserInRole(String role, Scope scope) {
+			return false;
+		}
+
+		@Override
+		public String getAuthMethod() {
+			return authMethod;
+		}
+
+		public void setAuthMethod(String authMethod) {
+			this.authMethod = authMethod;
+		}
+
+		@Override
+		public UserIdentity getUserIdentity() {
+			return this;
+		}
+
+		@Override
+		public boolean isUserInRole(UserIdentity.Scope scope, String role) {
+			return isUserInRole(role, scope);
+		}
+
+		@Override
+		public void logout() {
+		}
+
+		@Override
+		public Authentication logout(ServletRequest request) {
+			return this;
+		}
+	}
+
+	/**
+	 * A simple Principal.
+	 */
+	private static class User implements Principal {
+
+		/**
+		 * principla's name.
+		 */
+		private final String name;
+
+		/**
+		 * Creates a new user principal. The name must be not null.
+		 *
+		 * @param userName user's name
+		 */
+		public User(final String userName) {
+			NullArgumentException.validateNotNull(userName, "User name");
+			this.name = userName;
+		}
+
+		/**
+		 * @see java.security.Principal#getName()
+		 */
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @see java.security.Principal#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return name.hashCode();
+		}
+
+		/**
+		 * @see java.security.Principal#equals(Object)
+		 */
+		@Override
+		public boolean equals(final Object other) {
+			if (other == null || !(other instanceof User)) {
+				return false;
+			}
+			final User otherAsUser = (User) other;
+			return name.equals(otherAsUser.name);
+		}
+
+		/**
+		 * @see java.security.Principal#toString()
+		 */
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+}
@@ -64,6 +64,7 @@ import org.ops4j.pax.swissbox.core.ContextClassLoaderUtils;
 import org.ops4j.pax.web.service.WebContainerConstants;
 import org.ops4j.pax.web.service.WebContainerContext;
 import org.ops4j.pax.web.service.jetty.internal.util.DOMJettyWebXmlParser;
+import org.ops4j.pax.web.service.spi.timing.DeploymentTimings;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
@@ -98,6 +99,8 @@ class HttpServiceContext extends ServletContextHandler {
 	private final AtomicReference<ServiceRegistration<ServletContext>> registration
 			= new AtomicReference<>();
 
+	private DeploymentTimings deploymentTimings;
+
 	HttpServiceContext(
 			final HandlerContainer parent,
 			final Map<String, String> initParams,
@@ -127,7 +130,7 @@ class HttpServiceContext extends ServletContextHandler {
 				getClass().getClassLoader());
 		_scontext.setAttribute("org.eclipse.jetty.server.session.timer", executorScheduler);
 
-		setServletHandler(new HttpServiceServletHandler(httpContext));
+		setServletHandler(new HttpServiceServletHandler(httpContext, contextName));
 		ErrorPageErrorHandler errorPageErrorHandler = new ErrorPageErrorHandler();
 		if (showStacks != null) {
 			errorPageErrorHandler.setShowStacks(showStacks);
@@ -162,8 +165,25 @@ class HttpServiceContext extends ServletContextHandler {
 		}
 	}
 
+	/**
+	 * Sets timings to which the start of this context (and its container initializers) is recorded.
+	 */
+	void setDeploymentTimings(DeploymentTimings deploymentTimings) {
+		this.deploymentTimings = deploymentTimings;
+	}
+
+	DeploymentTimings getDeploymentTimings() {
+		return deploymentTimings;
+	}
+
 	@Override
 	protected void doStart() throws Exception {
+		try (DeploymentTimings.Phase phase = DeploymentTimings.start(deploymentTimings, "contextStart")) {
+			startWithInitializers();
+		}
+	}
+
+	private void startWithInitializers() throws Exception {
 
 		//need to initialize the logger as super doStart is to late already
 		setLogger(Log.getLogger(getDisplayName() == null ? getContextPath() : getDisplayName()));
@@ -208,7 +228,8 @@ class HttpServiceContext extends ServletContextHandler {
 			list.addAll(remaining);
 
 			list.forEach(initializer -> {
-				try {
+				try (DeploymentTimings.Phase phase = DeploymentTimings.start(deploymentTimings,
+						"onStartup:" + initializer.getClass().getName())) {
 					ContextClassLoaderUtils.doWithClassLoader(getClassLoader(),
 							new Callable<Void>() {
 								@Override
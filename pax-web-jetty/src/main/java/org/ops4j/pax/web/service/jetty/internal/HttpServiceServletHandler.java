@@ -19,13 +19,24 @@ package org.ops4j.pax.web.service.jetty.internal;
 
 import java.io.IOException;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.MultipartConfigElement;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
 
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpHeaderValue;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.servlet.ServletHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
 import org.ops4j.lang.NullArgumentException;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetrics;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
+import org.ops4j.pax.web.service.spi.util.MultipartConfigUtil;
 import org.osgi.service.http.HttpContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,13 +47,25 @@ class HttpServiceServletHandler extends ServletHandler {
 	private static final Logger LOG = LoggerFactory
 			.getLogger(HttpServiceServletHandler.class);
 	private final HttpContext httpContext;
+	private final String contextName;
 
-	HttpServiceServletHandler(final HttpContext httpContext) {
+	private RequestMetricsRegistry requestMetrics;
+
+	HttpServiceServletHandler(final HttpContext httpContext, final String contextName) {
 		NullArgumentException.validateNotNull(httpContext, "Http context");
 		this.httpContext = httpContext;
+		this.contextName = contextName;
 		setEnsureDefaultServlet(false);
 	}
 
+	@Override
+	protected synchronized void doStart() throws Exception {
+		if (getServer() instanceof JettyServerWrapper) {
+			requestMetrics = ((JettyServerWrapper) getServer()).getRequestMetrics();
+		}
+		super.doStart();
+	}
+
 	@Override
 	public void doHandle(final String target, final Request baseRequest,
 						 final HttpServletRequest request, final HttpServletResponse response)
@@ -50,24 +73,30 @@ class HttpServiceServletHandler extends ServletHandler {
 		if (request.getMethod().equals(METHOD_TRACE)) {
 			throw new ServletException("HTTP TRACE method is disabled");
 		}
-		// we have to set the jetty request as a request attribute if not
-		// already set in order to be able to handle the
-		// case that the request has been wrapped with a custom wrapper (case of
-		// redirect/forward).
-		// this is needed by HttpServiceRequestWrapper in order to handle
-		// authentication
-		// and should actually happen only once on initial request
-		if (baseRequest
-				.getAttribute(HttpServiceRequestWrapper.JETTY_REQUEST_ATTR_NAME) == null) {
-			baseRequest.setAttribute(
-					HttpServiceRequestWrapper.JETTY_REQUEST_ATTR_NAME, request);
+		// metrics are recorded outside of security check, so rejected requests are recorded too
+		if (requestMetrics == null || baseRequest.getDispatcherType() != DispatcherType.REQUEST) {
+			doHandleRequest(target, baseRequest, request, response);
+		} else {
+			handleWithMetrics(target, baseRequest, request, response);
+		}
+	}
+
+	private void doHandleRequest(final String target, final Request baseRequest,
+			final HttpServletRequest request, final HttpServletResponse response)
+			throws IOException, ServletException {
+		if (baseRequest.getDispatcherType() == DispatcherType.REQUEST && isMultipartTooLarge(baseRequest, request)) {
+			// rejected without reading the body
+			response.setHeader(HttpHeader.CONNECTION.asString(), HttpHeaderValue.CLOSE.asString());
+			response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+			return;
 		}
-		final HttpServiceRequestWrapper requestWrapper = new HttpServiceRequestWrapper(
-				request);
-		final HttpServiceResponseWrapper responseWrapper = new HttpServiceResponseWrapper(
-				response);
-		if (httpContext.handleSecurity(requestWrapper, responseWrapper)) {
-			LOG.debug("handling request {}, {}", requestWrapper, responseWrapper);
+		// handleSecurity is called with the original request - authentication attributes are applied to
+		// the Jetty request afterwards. Only the response is wrapped, to know whether a status was set
+		final StatusTrackingResponse securityResponse = new StatusTrackingResponse(response);
+		final boolean allowed = httpContext.handleSecurity(request, securityResponse);
+		HttpServiceAuthentication.apply(baseRequest, request);
+		if (allowed) {
+			LOG.debug("handling request {}, {}", request, response);
 			super.doHandle(target, baseRequest, request, response);
 		} else {
 			// on case of security constraints not fulfilled, handleSecurity is
@@ -77,15 +106,117 @@ class HttpServiceServletHandler extends ServletHandler {
 			// because if the header is not set the processing will go on with
 			// the rest of the contexts
 			LOG.debug("Security constraint not fulfilled");
-			if (!responseWrapper.isCommitted()) {
-				if (!responseWrapper.isStatusSet()) {
-					responseWrapper
-							.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+			if (!response.isCommitted()) {
+				if (securityResponse.isStatusSet()) {
+					response.sendError(response.getStatus());
 				} else {
-					responseWrapper.sendError(responseWrapper.getStatus());
+					response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
 				}
 			}
 		}
 	}
 
+	private static boolean isMultipartTooLarge(final Request baseRequest, final HttpServletRequest request) {
+		if (!(baseRequest.getUserIdentityScope() instanceof ServletHolder)) {
+			return false;
+		}
+		ServletHolder holder = (ServletHolder) baseRequest.getUserIdentityScope();
+		MultipartConfigElement config = ((ServletHolder.Registration) holder.getRegistration()).getMultipartConfig();
+		return MultipartConfigUtil.exceedsMaxRequestSize(config, request.getContentType(), request.getContentLengthLong());
+	}
+
+	/**
+	 * Records the request in {@link RequestMetrics} of mapped servlet. Async requests are recorded when
+	 * completed.
+	 */
+	private void handleWithMetrics(final String target, final Request baseRequest,
+			final HttpServletRequest request, final HttpServletResponse response)
+			throws IOException, ServletException {
+		final ServletHolder holder = baseRequest.getUserIdentityScope() instanceof ServletHolder
+				? (ServletHolder) baseRequest.getUserIdentityScope() : null;
+		final RequestMetrics metrics = requestMetrics.getMetrics(contextName, holder == null ? null : holder.getName());
+		final long start = metrics.requestStarted();
+		try {
+			doHandleRequest(target, baseRequest, request, response);
+		} finally {
+			if (baseRequest.isAsyncStarted()) {
+				baseRequest.getAsyncContext().addListener(new AsyncListener() {
+					@Override
+					public void onComplete(AsyncEvent event) {
+						requestCompleted(metrics, start, baseRequest);
+					}
+
+					@Override
+					public void onTimeout(AsyncEvent event) {
+					}
+
+					@Override
+					public void onError(AsyncEvent event) {
+					}
+
+					@Override
+					public void onStartAsync(AsyncEvent event) {
+						// listener has to be added again for the new async cycle
+						event.getAsyncContext().addListener(this);
+					}
+				});
+			} else {
+				requestCompleted(metrics, start, baseRequest);
+			}
+		}
+	}
+
+	private static void requestCompleted(final RequestMetrics metrics, final long start, final Request baseRequest) {
+		metrics.requestCompleted(start, baseRequest.getResponse().getStatus(),
+				baseRequest.getHttpInput().getContentConsumed(),
+				baseRequest.getResponse().getHttpOutput().getWritten());
+	}
+
+	/**
+	 * Response passed to {@link HttpContext#handleSecurity}, remembering whether the status was set.
+	 */
+	private static final class StatusTrackingResponse extends HttpServletResponseWrapper {
+
+		private boolean statusSet;
+
+		private StatusTrackingResponse(final HttpServletResponse response) {
+			super(response);
+		}
+
+		boolean isStatusSet() {
+			return statusSet;
+		}
+
+		@Override
+		public void setStatus(int sc) {
+			statusSet = true;
+			super.setStatus(sc);
+		}
+
+		@Override
+		@SuppressWarnings("deprecation")
+		public void setStatus(int sc, String sm) {
+			statusSet = true;
+			super.setStatus(sc, sm);
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			statusSet = true;
+			super.sendError(sc);
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			statusSet = true;
+			super.sendError(sc, msg);
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			statusSet = true;
+			super.sendRedirect(location);
+		}
+	}
+
 }
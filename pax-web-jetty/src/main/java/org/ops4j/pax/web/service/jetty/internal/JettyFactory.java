@@ -28,6 +28,22 @@ public interface JettyFactory {
 	Connector createConnector(Server server, String name, int port, Integer idleTimeout, int httpSecurePort, String host,
 							  Boolean checkForwaredHeaders);
 
+	/**
+	 * Creates a connector accepting HTTP requests on Unix domain socket. Requires {@code jetty-unixsocket}
+	 * (and {@code jnr-unixsocket}) to be available. Socket file left at the path is removed only if nothing accepts
+	 * connections on it.
+	 *
+	 * @param name           the name to give to this connector
+	 * @param path           path of the socket file
+	 * @param idleTimeout    the connector idle timeout
+	 * @param httpSecurePort the port used for redirects to secure scheme
+	 * @return Unix domain socket connector
+	 * @throws IllegalStateException if Unix domain sockets are not available or the socket is in use
+	 * @since 8.0.0
+	 */
+	Connector createUnixSocketConnector(Server server, String name, String path, Integer idleTimeout,
+										int httpSecurePort, Boolean checkForwaredHeaders);
+
 	/**
 	 * Creates a secure (SSL) connector.
 	 *
@@ -96,6 +112,8 @@ public interface JettyFactory {
      * @param sslKeystoreProvider     SSL keystore provider name
      * @param sslTrustStoreProvider   SSL truststore provider name
      * @param sslProvider             SSL provider name
+     * @param sslSessionCacheSize     maximum number of cached TLS sessions
+     * @param sslSessionTimeout       timeout (in seconds) of cached TLS sessions
      * @return a secure connector
      * @since 8.0.0
      */
@@ -116,6 +134,8 @@ public interface JettyFactory {
                                     Boolean checkForwaredHeaders,
                                     String sslKeystoreProvider,
                                     String sslTrustStoreProvider,
-                                    String sslProvider);
+                                    String sslProvider,
+                                    Integer sslSessionCacheSize,
+                                    Integer sslSessionTimeout);
 
 }
@@ -22,7 +22,6 @@ import org.eclipse.jetty.http.HttpScheme;
 import org.eclipse.jetty.server.*;
 import org.eclipse.jetty.server.HttpConfiguration.Customizer;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
-import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.ThreadPool;
 import org.ops4j.lang.NullArgumentException;
 import org.ops4j.pax.web.service.spi.model.ServerModel;
@@ -42,6 +41,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.Paths;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -51,6 +51,8 @@ import static org.ops4j.util.xml.ElementHelper.*;
 
 class JettyFactoryImpl implements JettyFactory {
 
+	private static final String UNIX_SOCKET_CONNECTOR = "org.eclipse.jetty.unixsocket.UnixSocketConnector";
+
 	/**
 	 * Associated server model.
 	 */
@@ -59,6 +61,11 @@ class JettyFactoryImpl implements JettyFactory {
 	private Bundle bundle;
 	private Comparator<?> priorityComparator;
 
+	/**
+	 * Shared {@link SslContextFactory SSL context factories} of each server by SSL configuration.
+	 */
+	private final Map<Server, Map<List<Object>, SslContextFactory.Server>> sslContextFactories = new WeakHashMap<>();
+
 	/**
 	 * Constrcutor.
 	 *
@@ -79,13 +86,13 @@ class JettyFactoryImpl implements JettyFactory {
 	public JettyServer createServer(Integer maxThreads, Integer minThreads, Integer threadIdleTimeout) {
 		ThreadPool threadPool;
 		if (maxThreads != null && minThreads != null && threadIdleTimeout != null) {
-			threadPool = new QueuedThreadPool(maxThreads, minThreads, threadIdleTimeout);
+			threadPool = new QueueDelayThreadPool(maxThreads, minThreads, threadIdleTimeout);
 		} else if (maxThreads != null && minThreads != null) {
-			threadPool = new QueuedThreadPool(maxThreads, minThreads);
+			threadPool = new QueueDelayThreadPool(maxThreads, minThreads);
 		} else if (maxThreads != null) {
-			threadPool = new QueuedThreadPool(maxThreads);
+			threadPool = new QueueDelayThreadPool(maxThreads);
 		} else {
-			threadPool = new QueuedThreadPool();
+			threadPool = new QueueDelayThreadPool();
 		}
 		return new JettyServerImpl(serverModel, bundle, priorityComparator, threadPool);
 	}
@@ -152,6 +159,46 @@ class JettyFactoryImpl implements JettyFactory {
 		return http;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Connector createUnixSocketConnector(final Server server, final String name, final String path,
+											   Integer idleTimeout, int securePort, final Boolean checkForwaredHeaders) {
+		Class<?> connectorClass;
+		UnixSocketFile.Probe probe;
+		try {
+			connectorClass = bundle.loadClass(UNIX_SOCKET_CONNECTOR);
+			probe = UnixSocketFile.jdkProbe();
+			if (probe == null) {
+				probe = UnixSocketFile.jnrProbe(bundle.loadClass("jnr.unixsocket.UnixSocketChannel"),
+						bundle.loadClass("jnr.unixsocket.UnixSocketAddress"));
+			}
+		} catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+			throw new IllegalStateException("Can't listen on Unix domain socket " + path + ": " + UNIX_SOCKET_CONNECTOR
+					+ " is not available (jetty-unixsocket and jnr-unixsocket bundles are required)", e);
+		}
+		UnixSocketFile.deleteIfStale(Paths.get(path), probe);
+
+		HttpConfiguration httpConfig = getHttpConfiguration(securePort, checkForwaredHeaders, server);
+		try {
+			AbstractConnector connector = (AbstractConnector) connectorClass
+					.getConstructor(Server.class, ConnectionFactory[].class)
+					.newInstance(server, new ConnectionFactory[] { new HttpConnectionFactory(httpConfig) });
+			connectorClass.getMethod("setUnixSocket", String.class).invoke(connector, path);
+			connector.setName(name);
+			if (idleTimeout != null) {
+				connector.setIdleTimeout(idleTimeout);
+			} else {
+				connector.setIdleTimeout(30000);
+			}
+			return connector;
+		} catch (ReflectiveOperationException | LinkageError e) {
+			Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+			throw new IllegalStateException("Can't listen on Unix domain socket " + path + ": " + cause, cause);
+		}
+	}
+
     private HttpConfiguration getHttpConfiguration(int securePort, Boolean checkForwardedHeaders, Server server) {
 
         File serverConfigDir = ((JettyServerWrapper) server).getServerConfigDir();
@@ -337,7 +384,7 @@ class JettyFactoryImpl implements JettyFactory {
           cipherSuitesIncluded, cipherSuitesExcluded, protocolsIncluded, protocolsExcluded,
           sslRenegotiationAllowed, crlPath, enableCRLDP, validateCerts, validatePeerCerts,
           enableOCSP, ocspResponderURL, checkForwaredHeaders,
-          null, null, null);
+          null, null, null, null, null);
     }
 
     /**
@@ -361,7 +408,47 @@ class JettyFactoryImpl implements JettyFactory {
 												 Boolean checkForwaredHeaders,
 												 String sslKeystoreProvider,
 												 String sslTrustStoreProvider,
-												 String sslProvider) {
+												 String sslProvider,
+												 Integer sslSessionCacheSize,
+												 Integer sslSessionTimeout) {
+
+		// connectors (e.g. for different addresses) with the same SSL configuration share single
+		// SslContextFactory, so key stores are loaded and SSLContext is created only once
+		List<Object> sslConfiguration = Arrays.asList(sslKeystore, sslKeystorePassword, sslKeyPassword,
+				sslKeystoreType, sslKeyAlias, trustStore, trustStorePassword, trustStoreType,
+				isClientAuthNeeded, isClientAuthWanted, cipherSuitesIncluded, cipherSuitesExcluded,
+				protocolsIncluded, protocolsExcluded, sslRenegotiationAllowed, crlPath, enableCRLDP,
+				validateCerts, validatePeerCerts, enableOCSP, ocspResponderURL,
+				sslKeystoreProvider, sslTrustStoreProvider, sslProvider, sslSessionCacheSize, sslSessionTimeout);
+		SslContextFactory.Server sslContextFactory;
+		synchronized (sslContextFactories) {
+			Map<List<Object>, SslContextFactory.Server> factories
+					= sslContextFactories.computeIfAbsent(server, s -> new HashMap<>());
+			sslContextFactory = factories.get(sslConfiguration);
+			if (sslContextFactory == null) {
+				sslContextFactory = createSslContextFactory(sslKeystore, sslKeystorePassword, sslKeyPassword,
+						sslKeystoreType, sslKeyAlias, trustStore, trustStorePassword, trustStoreType,
+						isClientAuthNeeded, isClientAuthWanted, cipherSuitesIncluded, cipherSuitesExcluded,
+						protocolsIncluded, protocolsExcluded, sslRenegotiationAllowed, crlPath, enableCRLDP,
+						validateCerts, validatePeerCerts, enableOCSP, ocspResponderURL,
+						sslKeystoreProvider, sslTrustStoreProvider, sslProvider, sslSessionCacheSize, sslSessionTimeout);
+				factories.put(sslConfiguration, sslContextFactory);
+			}
+		}
+
+		return createSecureConnector(server, name, port, idleTimeout, host, checkForwaredHeaders, sslContextFactory);
+	}
+
+	private SslContextFactory.Server createSslContextFactory(String sslKeystore, String sslKeystorePassword, String sslKeyPassword,
+			String sslKeystoreType, String sslKeyAlias,
+			String trustStore, String trustStorePassword, String trustStoreType,
+			boolean isClientAuthNeeded, boolean isClientAuthWanted,
+			List<String> cipherSuitesIncluded, List<String> cipherSuitesExcluded,
+			List<String> protocolsIncluded, List<String> protocolsExcluded,
+			Boolean sslRenegotiationAllowed, String crlPath, Boolean enableCRLDP,
+			Boolean validateCerts, Boolean validatePeerCerts, Boolean enableOCSP, String ocspResponderURL,
+			String sslKeystoreProvider, String sslTrustStoreProvider, String sslProvider,
+			Integer sslSessionCacheSize, Integer sslSessionTimeout) {
 
 		// SSL Context Factory for HTTPS and SPDY
 		SslContextFactory.Server sslContextFactory = new SslContextFactory.Server();
@@ -461,6 +548,17 @@ class JettyFactoryImpl implements JettyFactory {
 		if (sslRenegotiationAllowed != null) {
 			sslContextFactory.setRenegotiationAllowed(sslRenegotiationAllowed);
 		}
+		if (sslSessionCacheSize != null) {
+			sslContextFactory.setSslSessionCacheSize(sslSessionCacheSize);
+		}
+		if (sslSessionTimeout != null) {
+			sslContextFactory.setSslSessionTimeout(sslSessionTimeout);
+		}
+		return sslContextFactory;
+	}
+
+	private ServerConnector createSecureConnector(Server server, String name, int port, Integer idleTimeout,
+			String host, Boolean checkForwaredHeaders, SslContextFactory.Server sslContextFactory) {
 
 		// HTTP Configuration
         HttpConfiguration httpConfig = getHttpConfiguration(port, checkForwaredHeaders, server);
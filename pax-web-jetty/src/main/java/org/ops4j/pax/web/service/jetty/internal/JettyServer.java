@@ -23,6 +23,8 @@ import java.util.Map;
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.Handler;
 import org.ops4j.pax.web.service.spi.LifeCycle;
+import org.ops4j.pax.web.service.spi.admission.AdmissionControl;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
 import org.ops4j.pax.web.service.spi.model.ContainerInitializerModel;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
 import org.ops4j.pax.web.service.spi.model.ErrorPageModel;
@@ -100,6 +102,8 @@ public interface JettyServer {
 
 	void addFilter(FilterModel filterModel);
 
+	void insertFilter(FilterModel filterModel);
+
 	void removeFilter(FilterModel filterModel);
 
 	void addErrorPage(ErrorPageModel model);
@@ -126,10 +130,16 @@ public interface JettyServer {
 
 	String getDefaultRealmName() ;
 
+	void setGracefulShutdownTimeout(Integer timeout);
+
+	void setAdmissionControl(AdmissionControl admissionControl);
+
 	void addServletContainerInitializer(ContainerInitializerModel model);
 
 	Connector[] getConnectors();
 
+	RequestMetricsRegistry getRequestMetrics();
+
 	void removeConnector(Connector connector);
 	
 	Handler[] getHandlers();
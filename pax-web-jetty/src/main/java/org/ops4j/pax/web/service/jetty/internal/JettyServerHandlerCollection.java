@@ -18,16 +18,23 @@ package org.ops4j.pax.web.service.jetty.internal;
 
 import java.io.IOException;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.io.EofException;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.HandlerCollection;
 import org.ops4j.lang.NullArgumentException;
+import org.ops4j.pax.web.service.spi.admission.AdmissionControl;
+import org.ops4j.pax.web.service.spi.admission.ConcurrencyLimit;
+import org.ops4j.pax.web.service.spi.admission.QueueDelay;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
 import org.ops4j.pax.web.service.spi.model.ServerModel;
 import org.slf4j.Logger;
@@ -74,6 +81,18 @@ class JettyServerHandlerCollection extends HandlerCollection {
 			final ContextHandler context = ((JettyServerWrapper) getServer())
 					.getContext(matched.getHttpContext());
 
+			// only new requests are subject to admission control, async dispatches belong to admitted ones
+			final AdmissionControl admission = ((JettyServerWrapper) getServer()).getAdmissionControl();
+			final ConcurrencyLimit limit = admission == null || baseRequest.getDispatcherType() != DispatcherType.REQUEST
+					|| admission.isExempt(target) ? null : admission.getLimit(matched.getContextName());
+			if (limit != null) {
+				// time the job handling the connection waited for a thread of QueueDelayThreadPool
+				if (!limit.tryAcquire(QueueDelay.take())) {
+					reject(baseRequest, response, admission.getRetryAfter());
+					return;
+				}
+			}
+
 			try {
 				NullArgumentException.validateNotNull(context,
 						"Context (handler) for " + target);
@@ -86,6 +105,10 @@ class JettyServerHandlerCollection extends HandlerCollection {
 				throw e;
 			} catch (Exception e) {
 				throw new ServletException(e);
+			} finally {
+				if (limit != null) {
+					release(limit, baseRequest);
+				}
 			}
 			//CHECKSTYLE:ON
 
@@ -105,6 +128,46 @@ class JettyServerHandlerCollection extends HandlerCollection {
 		}
 	}
 
+	/**
+	 * Rejects the request with empty 503 response - without error page, so it's as cheap as possible.
+	 */
+	private static void reject(final Request baseRequest, final HttpServletResponse response, final String retryAfter) {
+		response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+		response.setHeader(HttpHeader.RETRY_AFTER.asString(), retryAfter);
+		response.setContentLength(0);
+		baseRequest.setHandled(true);
+	}
+
+	/**
+	 * Releases admitted request - when it completes, if it's async.
+	 */
+	private static void release(final ConcurrencyLimit limit, final Request baseRequest) {
+		if (!baseRequest.isAsyncStarted()) {
+			limit.release();
+			return;
+		}
+		baseRequest.getAsyncContext().addListener(new AsyncListener() {
+			@Override
+			public void onComplete(AsyncEvent event) {
+				limit.release();
+			}
+
+			@Override
+			public void onTimeout(AsyncEvent event) {
+			}
+
+			@Override
+			public void onError(AsyncEvent event) {
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) {
+				// listener has to be added again for the new async cycle
+				event.getAsyncContext().addListener(this);
+			}
+		});
+	}
+
 	private boolean matchedContextEqualsHandler(ContextModel matched,
 												Handler handler) {
 		return handler == ((JettyServerWrapper) getServer())
@@ -49,6 +49,7 @@ import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
 import org.eclipse.jetty.servlet.ServletMapping;
+import org.eclipse.jetty.servlet.Source;
 import org.eclipse.jetty.util.ArrayUtil;
 import org.eclipse.jetty.util.security.Constraint;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
@@ -57,6 +58,8 @@ import org.eclipse.jetty.xml.XmlConfiguration;
 import org.ops4j.pax.swissbox.core.BundleClassLoader;
 import org.ops4j.pax.swissbox.core.ContextClassLoaderUtils;
 import org.ops4j.pax.web.service.spi.LifeCycle;
+import org.ops4j.pax.web.service.spi.admission.AdmissionControl;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
 import org.ops4j.pax.web.service.spi.model.ContainerInitializerModel;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
 import org.ops4j.pax.web.service.spi.model.ErrorPageModel;
@@ -221,6 +224,7 @@ class JettyServerImpl implements JettyServer {
 			}
 
 			server.stop();
+			server.getRequestMetrics().close();
 			Handler[] childHandlers = server.getChildHandlers();
 			for (Handler handler : childHandlers) {
 				handler.stop();
@@ -243,10 +247,14 @@ class JettyServerImpl implements JettyServer {
 
 	@Override
 	public void addConnector(final Connector connector) {
-		LOG.info("Pax Web available at [{}]:[{}]",
-				((ServerConnector) connector).getHost() == null ? "0.0.0.0"
-						: ((ServerConnector) connector).getHost(),
-				((ServerConnector) connector).getPort());
+		if (connector instanceof ServerConnector) {
+			LOG.info("Pax Web available at [{}]:[{}]",
+					((ServerConnector) connector).getHost() == null ? "0.0.0.0"
+							: ((ServerConnector) connector).getHost(),
+					((ServerConnector) connector).getPort());
+		} else {
+			LOG.info("Pax Web available at [{}]", connector);
+		}
 		server.addConnector(connector);
 		if (priorityComparator != null) {
 			Connector[] connectors = server.getConnectors();
@@ -261,6 +269,11 @@ class JettyServerImpl implements JettyServer {
 		return server.getConnectors();
 	}
 
+	@Override
+	public RequestMetricsRegistry getRequestMetrics() {
+		return server.getRequestMetrics();
+	}
+
 	@Override
 	public void removeConnector(final Connector connector) {
 		LOG.info("Removing connection for [{}]:[{}]",
@@ -461,6 +474,8 @@ class JettyServerImpl implements JettyServer {
 		if (context == null) {
 			return; // context is already removed so no need for deregistration
 		}
+		// stop accepting requests before anything is removed, if this is the last element of the context
+		server.drainContext(model.getContextModel().getHttpContext(), false);
 
 		final ServletHandler servletHandler = context.getServletHandler();
 		final ServletHolder[] holders = servletHandler.getServlets();
@@ -534,6 +549,7 @@ class JettyServerImpl implements JettyServer {
 		if (context == null) {
 			return; // Obviously context is already destroyed
 		}
+		server.drainContext(model.getContextModel().getHttpContext(), false);
 
 		final List<EventListener> listeners = new ArrayList<>(
 				Arrays.asList(context.getEventListeners()));
@@ -557,6 +573,22 @@ class JettyServerImpl implements JettyServer {
 
 	@Override
 	public synchronized void addFilter(final FilterModel model) {
+		addFilter(model, false);
+	}
+
+	@Override
+	public synchronized void insertFilter(final FilterModel model) {
+		addFilter(model, true);
+	}
+
+	/**
+	 * Adds a filter to the context of the model. When {@code ranked}, mapping of the filter is inserted
+	 * before the mapping of first filter with higher ranking, otherwise it's appended.
+	 *
+	 * @param model
+	 * @param ranked
+	 */
+	private void addFilter(final FilterModel model, final boolean ranked) {
 		LOG.debug("Adding filter model [" + model + "]");
 		final FilterMapping mapping = new FilterMapping();
 		mapping.setFilterName(model.getName());
@@ -620,7 +652,11 @@ class JettyServerImpl implements JettyServer {
 
 						@Override
 						public Void call() {
-							servletHandler.addFilter(holder, mapping);
+							if (ranked) {
+								insertFilter(servletHandler, holder, mapping, model.getRanking());
+							} else {
+								servletHandler.addFilter(holder, mapping);
+							}
 							return null;
 						}
 
@@ -635,6 +671,50 @@ class JettyServerImpl implements JettyServer {
 		//CHECKSTYLE:OFF
 	}
 
+	/**
+	 * Adds the holder and places the mapping according to ranking of the filter - existing holders
+	 * and mappings are kept as they are.
+	 *
+	 * The mapping is added with {@link ServletHandler#addFilterMapping(FilterMapping)}, so Jetty keeps track of
+	 * programmatic ({@code ServletContext.addFilter()}) mappings matched before and after the others. Then it's
+	 * moved in front of higher ranked filters, but never across a programmatic mapping - positions of those
+	 * don't change, so Jetty's indexes stay valid.
+	 *
+	 * @param servletHandler
+	 * @param holder
+	 * @param mapping
+	 * @param ranking
+	 */
+	static void insertFilter(ServletHandler servletHandler, FilterHolder holder, FilterMapping mapping,
+							  int ranking) {
+		servletHandler.addFilter(holder);
+		servletHandler.addFilterMapping(mapping);
+		FilterMapping[] mappings = servletHandler.getFilterMappings();
+		int position = -1;
+		for (int i = mappings.length - 1; i >= 0; i--) {
+			if (mappings[i] == mapping) {
+				position = i;
+				break;
+			}
+		}
+		int index = position;
+		while (index > 0) {
+			FilterHolder existing = servletHandler.getFilter(mappings[index - 1].getFilterName());
+			if (existing == null || existing.getSource().getOrigin() == Source.Origin.JAVAX_API
+					|| FilterModel.getRanking(existing.getInitParameters()) <= ranking) {
+				break;
+			}
+			index--;
+		}
+		if (index == position) {
+			return;
+		}
+		FilterMapping[] newMappings = mappings.clone();
+		System.arraycopy(mappings, index, newMappings, index + 1, position - index);
+		newMappings[index] = mapping;
+		servletHandler.setFilterMappings(newMappings);
+	}
+
 	@Override
 	public synchronized void removeFilter(FilterModel model) {
 		LOG.debug("Removing filter model [" + model + "]");
@@ -644,6 +724,7 @@ class JettyServerImpl implements JettyServer {
 			return; // Obviously no context available anymore the server is
 			// already down
 		}
+		server.drainContext(model.getContextModel().getHttpContext(), false);
 
 		final ServletHandler servletHandler = context.getServletHandler();
 		// first remove filter mappings for the removed filter
@@ -758,6 +839,7 @@ class JettyServerImpl implements JettyServer {
 		if (context == null) {
 			return;// Obviously context is already removed
 		}
+		server.drainContext(model.getContextModel().getHttpContext(), false);
 		final ErrorPageErrorHandler errorPageHandler = (ErrorPageErrorHandler) context
 				.getErrorHandler();
 		if (errorPageHandler == null) {
@@ -802,6 +884,7 @@ class JettyServerImpl implements JettyServer {
 		if (context == null) {
 			return;// Obviously context is already removed
 		}
+		server.drainContext(model.getContextModel().getHttpContext(), false);
 		String[] welcomeFiles = context.getWelcomeFiles();
 		List<String> welcomeFileList = new ArrayList<>(Arrays.asList(welcomeFiles));
 		welcomeFileList.removeAll(Arrays.asList(model.getWelcomeFiles()));
@@ -863,6 +946,7 @@ class JettyServerImpl implements JettyServer {
 		if (context == null) {
 			return; // context already gone
 		}
+		server.drainContext(model.getContextModel().getHttpContext(), false);
 		final SecurityHandler securityHandler = context.getSecurityHandler();
 		if (securityHandler == null) {
 			throw new IllegalStateException(
@@ -971,6 +1055,16 @@ class JettyServerImpl implements JettyServer {
 		return server.getDefaultRealmName();
 	}
 
+	@Override
+	public void setGracefulShutdownTimeout(Integer timeout) {
+		server.setGracefulShutdownTimeout(timeout);
+	}
+
+	@Override
+	public void setAdmissionControl(AdmissionControl admissionControl) {
+		server.setAdmissionControl(admissionControl);
+	}
+
 	@Override
 	public JettyServerWrapper getServer() {
 		return server;
@@ -54,9 +54,12 @@ import org.ops4j.pax.swissbox.core.BundleUtils;
 import org.ops4j.pax.web.service.AuthenticatorService;
 import org.ops4j.pax.web.service.SharedWebContainerContext;
 import org.ops4j.pax.web.service.WebContainerConstants;
+import org.ops4j.pax.web.service.spi.admission.AdmissionControl;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
 import org.ops4j.pax.web.service.spi.model.Model;
 import org.ops4j.pax.web.service.spi.model.ServerModel;
+import org.ops4j.pax.web.service.spi.timing.DeploymentTimings;
 import org.ops4j.pax.web.utils.ServletContainerInitializerScanner;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
@@ -95,6 +98,10 @@ class JettyServerWrapper extends Server {
 			return refCount.decrementAndGet();
 		}
 
+		public int getRefCount() {
+			return refCount.get();
+		}
+
 		public HttpServiceContext getHandler() {
 			return handler;
 		}
@@ -127,6 +134,10 @@ class JettyServerWrapper extends Server {
 
 	private Integer sessionCookieMaxAge;
 
+	private long gracefulShutdownTimeout;
+
+	private volatile AdmissionControl admissionControl;
+
 	private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
 	private final Lock readLock = rwLock.readLock();
 	private final Lock writeLock = rwLock.writeLock();
@@ -135,6 +146,8 @@ class JettyServerWrapper extends Server {
 
 	private HandlerCollection rootCollections;
 
+	private final RequestMetricsRegistry requestMetrics = new RequestMetricsRegistry();
+
 	JettyServerWrapper(ServerModel serverModel, ThreadPool threadPool) {
 		super(threadPool);
 		this.serverModel = serverModel;
@@ -163,6 +176,27 @@ class JettyServerWrapper extends Server {
 		return rootCollections;
 	}
 
+	/**
+	 * @return request metrics recorded by {@link HttpServiceServletHandler}s of this server
+	 */
+	RequestMetricsRegistry getRequestMetrics() {
+		return requestMetrics;
+	}
+
+	/**
+	 * @return admission control used by {@link JettyServerHandlerCollection} or {@code null} if not enabled
+	 */
+	AdmissionControl getAdmissionControl() {
+		return admissionControl;
+	}
+
+	public void setAdmissionControl(AdmissionControl admissionControl) {
+		this.admissionControl = admissionControl;
+		if (getThreadPool() instanceof QueueDelayThreadPool) {
+			((QueueDelayThreadPool) getThreadPool()).setMeasureQueueDelay(admissionControl != null);
+		}
+	}
+
 	public void configureContext(final Map<String, Object> attributes, final Integer timeout, final String cookie,
 								 final String domain, final String path, final String url, final Boolean cookieHttpOnly,
 								 final Boolean sessionCookieSecure, final String workerName, final Boolean lazy, final String directory,
@@ -215,7 +249,11 @@ class JettyServerWrapper extends Server {
 						LOG.debug("Creating new ServletContextHandler for HTTP context [{}] and model [{}]",
 								httpContext, model);
 
-						context = new ServletContextInfo(this.addContext(model));
+						DeploymentTimings timings = DeploymentTimings.get(model.getBundle(), model.getContextName());
+						try (DeploymentTimings.Phase phase = DeploymentTimings.start(timings, "addContext")) {
+							context = new ServletContextInfo(this.addContext(model));
+						}
+						context.getHandler().setDeploymentTimings(timings);
 						contexts.put(httpContext, context);
 						// don't increment! - it's already == 1 after creation
 //						context.incrementRefCount();
@@ -234,6 +272,43 @@ class JettyServerWrapper extends Server {
 		return context.getHandler();
 	}
 
+	/**
+	 * Rejects new requests of the context and waits for its in-flight requests, if the context is going to be
+	 * removed by following {@link #removeContext(HttpContext, boolean)} call. Has to be called before servlets,
+	 * filters or other elements are removed from the context, so in-flight requests don't reach destroyed
+	 * servlets and new requests get 503 instead of 404.
+	 *
+	 * @param httpContext context which is going to be removed
+	 * @param force the same value as passed to {@link #removeContext(HttpContext, boolean)}
+	 */
+	void drainContext(final HttpContext httpContext, boolean force) {
+		HttpServiceContext sch;
+		try {
+			readLock.lock();
+			ServletContextInfo context = contexts.get(httpContext);
+			if (context == null) {
+				return;
+			}
+			boolean removed = (force && !(httpContext instanceof SharedWebContainerContext))
+					|| context.getRefCount() <= 1;
+			if (!removed) {
+				return;
+			}
+			sch = context.getHandler();
+		} finally {
+			readLock.unlock();
+		}
+		drain(sch);
+	}
+
+	private static void drain(HttpServiceContext sch) {
+		GracefulShutdownHandler graceful = sch.getChildHandlerByClass(GracefulShutdownHandler.class);
+		if (graceful != null && sch.isStarted()) {
+			// let in-flight requests complete before the context is stopped
+			graceful.drain(sch.getContextPath());
+		}
+	}
+
 	void removeContext(final HttpContext httpContext, boolean force) {
 		ServletContextInfo context;
 		try {
@@ -263,7 +338,10 @@ class JettyServerWrapper extends Server {
 		// Destroy the context outside of the locking region
 		if (context != null) {
 			HttpServiceContext sch = context.getHandler();
+			// usually drained already, before its last element was removed
+			drain(sch);
 			sch.unregisterService();
+			DeploymentTimings.remove(sch.getDeploymentTimings());
 			try {
 				sch.stop();
 			} catch (Throwable t) { // CHECKSTYLE:SKIP
@@ -341,6 +419,10 @@ class JettyServerWrapper extends Server {
 				modelSessionUrl, modelSessionCookieHttpOnly, modelSessionSecure, workerName, lazyLoad, storeDirectory,
 				maxAge);
 
+		if (gracefulShutdownTimeout > 0) {
+			context.insertHandler(new GracefulShutdownHandler(gracefulShutdownTimeout));
+		}
+
 		if(this.defaultAuthMethod != null && model.getAuthMethod() == null){
             model.setAuthMethod(this.defaultAuthMethod);
         }
@@ -652,4 +734,17 @@ class JettyServerWrapper extends Server {
 	public void setDefaultRealmName(String defaultRealmName) {
 		this.defaultRealmName = defaultRealmName;
 	}
+
+	/**
+	 * @param timeout time (in milliseconds) given to in-flight requests when a context is removed or the server
+	 *        is stopped - {@code null} or {@code 0} to stop immediately
+	 */
+	public void setGracefulShutdownTimeout(Integer timeout) {
+		this.gracefulShutdownTimeout = timeout == null ? 0L : Math.max(0L, timeout);
+		if (gracefulShutdownTimeout > 0) {
+			// Server.doStop() shuts down connectors and all Graceful handlers (including GracefulShutdownHandlers
+			// of the contexts) and waits for them at most stopTimeout
+			setStopTimeout(gracefulShutdownTimeout);
+		}
+	}
 }
@@ -0,0 +1,54 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.jetty.internal;
+
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.ops4j.pax.web.service.spi.admission.QueueDelay;
+
+/**
+ * {@link QueuedThreadPool} which (when admission control is enabled) {@link QueueDelay#timestamped(Runnable)
+ * timestamps} the jobs, so {@link JettyServerHandlerCollection} knows how long a request waited for a thread.
+ */
+class QueueDelayThreadPool extends QueuedThreadPool {
+
+	private volatile boolean measureQueueDelay;
+
+	QueueDelayThreadPool() {
+		super();
+	}
+
+	QueueDelayThreadPool(int maxThreads) {
+		super(maxThreads);
+	}
+
+	QueueDelayThreadPool(int maxThreads, int minThreads) {
+		super(maxThreads, minThreads);
+	}
+
+	QueueDelayThreadPool(int maxThreads, int minThreads, int idleTimeout) {
+		super(maxThreads, minThreads, idleTimeout);
+	}
+
+	void setMeasureQueueDelay(boolean measureQueueDelay) {
+		this.measureQueueDelay = measureQueueDelay;
+	}
+
+	@Override
+	public void execute(Runnable job) {
+		super.execute(measureQueueDelay ? QueueDelay.timestamped(job) : job);
+	}
+
+}
@@ -17,10 +17,12 @@
 package org.ops4j.pax.web.service.jetty.internal;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -28,19 +30,29 @@ import java.util.concurrent.CopyOnWriteArraySet;
 
 import javax.servlet.Servlet;
 
+import org.eclipse.jetty.server.AbstractConnector;
 import org.eclipse.jetty.server.ConnectionFactory;
 import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.HttpConfiguration.Customizer;
 import org.eclipse.jetty.server.HttpConnectionFactory;
 import org.eclipse.jetty.server.MultiPartFormDataCompliance;
 import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.server.handler.RequestLogHandler;
+import org.eclipse.jetty.server.session.SessionHandler;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
 import org.ops4j.pax.web.service.spi.Configuration;
+import org.ops4j.pax.web.service.spi.ConfigurationChange;
 import org.ops4j.pax.web.service.spi.LifeCycle;
 import org.ops4j.pax.web.service.spi.ServerController;
 import org.ops4j.pax.web.service.spi.ServerEvent;
 import org.ops4j.pax.web.service.spi.ServerListener;
+import org.ops4j.pax.web.service.spi.admission.AdmissionControl;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
 import org.ops4j.pax.web.service.spi.model.ContainerInitializerModel;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
 import org.ops4j.pax.web.service.spi.model.ErrorPageModel;
@@ -50,6 +62,7 @@ import org.ops4j.pax.web.service.spi.model.LoginConfigModel;
 import org.ops4j.pax.web.service.spi.model.SecurityConstraintMappingModel;
 import org.ops4j.pax.web.service.spi.model.ServletModel;
 import org.ops4j.pax.web.service.spi.model.WelcomeFileModel;
+import org.ops4j.pax.web.service.spi.util.KeyStoreWatcher;
 import org.osgi.service.http.HttpContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,6 +80,8 @@ class ServerControllerImpl implements ServerController {
 	private ServerConnector httpConnector;
 	private ServerConnector httpSecureConnector;
 	private final Comparator<?> priorityComparator;
+	private final Map<SslContextFactory, KeyStoreWatcher> keyStoreWatchers = new IdentityHashMap<>();
+	private final List<Connector> createdConnectors = new ArrayList<>();
 
 	ServerControllerImpl(final JettyFactory jettyFactory, Comparator<?> priorityComparator) {
 		this.jettyFactory = jettyFactory;
@@ -76,6 +91,288 @@ class ServerControllerImpl implements ServerController {
 		this.priorityComparator = priorityComparator;
 	}
 
+	/**
+	 * Starts watching key stores of the connector (if configured), so renewed certificates are used without
+	 * restarting the server. Connectors sharing {@link SslContextFactory} share the watcher too.
+	 *
+	 * @param connector
+	 */
+	private void watchKeyStores(Connector connector) {
+		Integer interval = configuration.getSslReloadInterval();
+		SslConnectionFactory sslConnectionFactory = connector.getConnectionFactory(SslConnectionFactory.class);
+		if (interval == null || interval <= 0 || sslConnectionFactory == null) {
+			return;
+		}
+		final SslContextFactory sslContextFactory = sslConnectionFactory.getSslContextFactory();
+		if (keyStoreWatchers.containsKey(sslContextFactory)) {
+			return;
+		}
+		KeyStoreWatcher watcher = new KeyStoreWatcher(connector.getName(), () -> {
+			try {
+				sslContextFactory.reload(f -> { });
+				//CHECKSTYLE:OFF
+			} catch (Exception e) {
+				throw new IllegalStateException(e.getMessage(), e);
+			}
+			//CHECKSTYLE:ON
+		}, sslContextFactory.getKeyStorePath(), sslContextFactory.getTrustStorePath());
+		if (watcher.start(interval)) {
+			keyStoreWatchers.put(sslContextFactory, watcher);
+		}
+	}
+
+	private void closeKeyStoreWatchers() {
+		keyStoreWatchers.values().forEach(KeyStoreWatcher::close);
+		keyStoreWatchers.clear();
+	}
+
+	private void configureContext() {
+		Map<String, Object> attributes = new HashMap<>();
+		attributes.put("javax.servlet.context.tempdir",
+				configuration.getTemporaryDirectory());
+		jettyServer.configureContext(attributes,
+				configuration.getSessionTimeout(),
+				configuration.getSessionCookie(),
+				configuration.getSessionDomain(),
+				configuration.getSessionPath(),
+				configuration.getSessionUrl(),
+				configuration.getSessionCookieHttpOnly(),
+				configuration.getSessionCookieSecure(),
+				configuration.getWorkerName(),
+				configuration.getSessionLazyLoad(),
+				configuration.getSessionStoreDirectory(),
+				configuration.getSessionCookieMaxAge(),
+				configuration.isShowStacks());
+	}
+
+	private void configureRequestLog() {
+		if (configuration.isLogNCSAFormatEnabled()) {
+			jettyServer.configureRequestLog(
+					new ConfigureRequestLogParameter(configuration.getLogNCSAFormat(), configuration.getLogNCSARetainDays(),
+							configuration.isLogNCSAAppend(), configuration.isLogNCSAExtended(), configuration.isLogNCSADispatch(), configuration.getLogNCSATimeZone(),
+							configuration.getLogNCSADirectory(), configuration.isLogNCSALatency(), configuration.isLogNCSACookies(), configuration.isLogNCSAServer()));
+		}
+	}
+
+	/**
+	 * Creates connectors for configured listening addresses or combines them with connectors configured in
+	 * {@code jetty.xml}. Unix domain socket connector is added independently of TCP connectors.
+	 */
+	private void configureConnectors() {
+		String[] addresses = configuration.getListeningAddresses();
+		if (addresses == null || addresses.length == 0) {
+			addresses = new String[]{null};
+		}
+		for (String address : addresses) {
+			Integer httpPort = configuration.getHttpPort();
+			// Boolean useNIO = configuration.useNIO();
+			Integer httpSecurePort = configuration.getHttpSecurePort();
+			// Server should listen to std. http.
+			if (configuration.isHttpEnabled()) {
+				Connector[] connectors = jettyServer.getConnectors();
+				// Flag is set if the same connector has been found
+				// through xml config and properties
+				boolean masterConnectorFound = false;
+				if (connectors != null && connectors.length > 0) {
+					// Combine the configurations if they do match
+					ServerConnector backupConnector = null;
+					for (Connector connector : connectors) {
+						if ((connector instanceof ServerConnector) && (connector.getConnectionFactory(SslConnectionFactory.class)) == null) {
+							if (match(address, httpPort, connector)) {
+								// the same connection as configured through
+								// property/config-admin already is
+								// configured through jetty.xml
+								// therefore just use it as the one if not
+								// already done so.
+								//CHECKSTYLE:OFF
+								if (httpConnector == null) {
+									httpConnector = (ServerConnector) connector;
+								}
+								//CHECKSTYLE:ON
+								masterConnectorFound = true;
+							} else {
+								//CHECKSTYLE:OFF
+								if (backupConnector == null) {
+									backupConnector = (ServerConnector) connector;
+								}
+								//CHECKSTYLE:ON
+							}
+						}
+					}
+					if (httpConnector == null && backupConnector != null) {
+						httpConnector = backupConnector;
+					}
+				}
+				if (!masterConnectorFound) {
+					final Connector connector = jettyFactory
+							.createConnector(jettyServer.getServer(),
+									configuration.getHttpConnectorName(),
+									httpPort, configuration.getConnectorIdleTimeout(), httpSecurePort, address, configuration.checkForwardedHeaders());
+					if (httpConnector == null) {
+						httpConnector = (ServerConnector) connector;
+					}
+					jettyServer.addConnector(connector);
+					createdConnectors.add(connector);
+				}
+			} else {
+				// remove maybe already configured connectors through
+				// jetty.xml, the config-property/config-admin service is
+				// master configuration
+				Connector[] connectors = jettyServer.getConnectors();
+				if (connectors != null) {
+					for (Connector connector : connectors) {
+						if ((connector instanceof Connector) && (connector.getConnectionFactory(SslConnectionFactory.class)) == null) {
+							LOG.warn(String.format("HTTP is not enabled in Pax Web configuration - removing connector: %s", connector));
+							jettyServer.removeConnector(connector);
+						}
+					}
+				}
+			}
+			if (configuration.isHttpSecureEnabled()) {
+				final String sslKeystorePassword = configuration.getSslKeystorePassword();
+				final String sslKeyPassword = configuration.getSslKeyPassword();
+
+				Connector[] connectors = jettyServer.getConnectors();
+				boolean masterSSLConnectorFound = false;
+				if (connectors != null && connectors.length > 0) {
+					// Combine the configurations if they do match
+					ServerConnector backupConnector = null;
+					for (Connector connector : connectors) {
+						if (connector.getConnectionFactory(SslConnectionFactory.class) != null) {
+							ServerConnector sslCon = (ServerConnector) connector;
+							String[] split = connector.getName().split(":");
+							if (split.length == 2 && httpSecurePort == Integer.valueOf(split[1])
+									.intValue()
+									&& address.equalsIgnoreCase(split[0])) {
+								httpSecureConnector = sslCon;
+								masterSSLConnectorFound = true;
+							} else {
+								// default behavior
+								//CHECKSTYLE:OFF
+								if (backupConnector == null) {
+									backupConnector = (ServerConnector) connector;
+								}
+								//CHECKSTYLE:ON
+							}
+						}
+					}
+					if (httpSecureConnector == null && backupConnector != null) {
+						httpSecureConnector = backupConnector;
+					}
+				}
+
+				if (!masterSSLConnectorFound) {
+					// no combination of jetty.xml and
+					// config-admin/properties needed
+					if (sslKeystorePassword != null && sslKeyPassword != null) {
+						final Connector secureConnector = jettyFactory
+								.createSecureConnector(jettyServer
+												.getServer(),
+										configuration.getHttpSecureConnectorName(),
+										httpSecurePort,
+										configuration.getConnectorIdleTimeout(),
+										configuration.getSslKeystore(),
+										sslKeystorePassword,
+										sslKeyPassword,
+										address,
+										configuration.getSslKeystoreType(),
+										configuration.getSslKeyAlias(),
+										configuration.getTrustStore(),
+										configuration.getTrustStorePassword(),
+										configuration.getTrustStoreType(),
+										configuration.isClientAuthNeeded(),
+										configuration.isClientAuthWanted(),
+										configuration.getCiphersuiteIncluded(),
+										configuration.getCiphersuiteExcluded(),
+										configuration.getProtocolsIncluded(),
+										configuration.getProtocolsExcluded(),
+										configuration.isSslRenegotiationAllowed(),
+										configuration.getCrlPath(),
+										configuration.isEnableCRLDP(),
+										configuration.isValidateCerts(),
+										configuration.isValidatePeerCerts(),
+										configuration.isEnableOCSP(),
+										configuration.getOcspResponderURL(),
+										configuration.checkForwardedHeaders(),
+										configuration.getSslKeystoreProvider(),
+										configuration.getSslTrustStoreProvider(),
+										configuration.getSslProvider(),
+										configuration.getSslSessionCacheSize(),
+										configuration.getSslSessionTimeout());
+						if (httpSecureConnector == null) {
+							httpSecureConnector = (ServerConnector) secureConnector;
+						}
+						jettyServer.addConnector(secureConnector);
+						createdConnectors.add(secureConnector);
+						watchKeyStores(secureConnector);
+					} else {
+						LOG.warn("SSL password and SSL keystore password must be set in order to enable SSL.");
+						LOG.warn("SSL connector will not be started");
+					}
+				}
+			} else {
+				// remove maybe already configured connectors through
+				// jetty.xml, the config-property/config-admin service is
+				// master configuration
+				Connector[] connectors = jettyServer.getConnectors();
+				if (connectors != null) {
+					for (Connector connector : connectors) {
+						if (connector.getConnectionFactory(SslConnectionFactory.class) != null) {
+							LOG.warn(String.format("HTTPS is not enabled in Pax Web configuration - removing connector: %s", connector));
+							jettyServer.removeConnector(connector);
+						}
+					}
+				}
+			}
+		}
+		configureUnixSocketConnector();
+	}
+
+	/**
+	 * Creates connector listening on configured Unix domain socket, unless {@code jetty.xml} already has
+	 * a connector with the same name. Contexts are bound to it by {@code @name} virtual host like to any other
+	 * named connector.
+	 */
+	private void configureUnixSocketConnector() {
+		String path = configuration.getListeningUnixSocket();
+		if (path == null) {
+			return;
+		}
+		String name = configuration.getListeningUnixSocketConnectorName();
+		Connector[] connectors = jettyServer.getConnectors();
+		if (connectors != null && name != null) {
+			for (Connector connector : connectors) {
+				if (name.equals(connector.getName())) {
+					LOG.info("Connector \"{}\" is already configured, not creating Unix domain socket connector for {}",
+							name, path);
+					return;
+				}
+			}
+		}
+		Integer httpSecurePort = configuration.getHttpSecurePort();
+		try {
+			Connector connector = jettyFactory.createUnixSocketConnector(jettyServer.getServer(), name, path,
+					configuration.getConnectorIdleTimeout(), httpSecurePort == null ? 0 : httpSecurePort,
+					configuration.checkForwardedHeaders());
+			jettyServer.addConnector(connector);
+			createdConnectors.add(connector);
+		} catch (IllegalStateException e) {
+			LOG.error(e.getMessage(), e.getCause());
+		}
+	}
+
+	private boolean match(String address, Integer httpPort,
+						  Connector connector) {
+		InetSocketAddress isa1 = address != null ? new InetSocketAddress(
+				address, httpPort) : new InetSocketAddress(httpPort);
+		InetSocketAddress isa2 = ((ServerConnector) connector).getHost() != null ? new InetSocketAddress(
+				((ServerConnector) connector).getHost(),
+				((ServerConnector) connector).getPort())
+				: new InetSocketAddress(
+				((ServerConnector) connector).getPort());
+		return isa1.equals(isa2);
+	}
+
 	@Override
 	public synchronized void start() {
 		LOG.debug("Starting server [{}]", this);
@@ -98,6 +395,111 @@ class ServerControllerImpl implements ServerController {
 		state.configure();
 	}
 
+	@Override
+	public synchronized boolean reconfigure(final Configuration config, final Set<String> changed) {
+		ConfigurationChange change = ConfigurationChange.of(changed);
+		if (config == null || change == ConfigurationChange.RESTART || !isStarted()) {
+			return false;
+		}
+		LOG.debug("Reconfiguring server [{}] -> [{}], changed properties: {}", this, config, changed);
+		Integer previousSessionTimeout = configuration == null ? null : configuration.getSessionTimeout();
+		configuration = config;
+		if (change == ConfigurationChange.NONE) {
+			return true;
+		}
+
+		// thread pool and timeouts
+		ThreadPool threadPool = jettyServer.getServer().getThreadPool();
+		if (threadPool instanceof QueuedThreadPool) {
+			QueuedThreadPool qtp = (QueuedThreadPool) threadPool;
+			if (configuration.getServerMaxThreads() != null) {
+				qtp.setMaxThreads(configuration.getServerMaxThreads());
+			}
+			if (configuration.getServerMinThreads() != null) {
+				qtp.setMinThreads(configuration.getServerMinThreads());
+			}
+			if (configuration.getServerIdleTimeout() != null) {
+				qtp.setIdleTimeout(configuration.getServerIdleTimeout());
+			}
+		}
+		if (configuration.getConnectorIdleTimeout() != null) {
+			for (Connector connector : jettyServer.getConnectors()) {
+				if (connector instanceof AbstractConnector) {
+					((AbstractConnector) connector).setIdleTimeout(configuration.getConnectorIdleTimeout());
+				}
+			}
+		}
+		jettyServer.setGracefulShutdownTimeout(configuration.getGracefulShutdownTimeout());
+
+		// session timeout is used by new contexts and new sessions of existing contexts
+		configureContext();
+		if (configuration.getSessionTimeout() != null) {
+			for (Handler handler : jettyServer.getServer().getChildHandlersByClass(SessionHandler.class)) {
+				SessionHandler sessionHandler = (SessionHandler) handler;
+				// contexts with own session timeout (set in their ContextModel) keep it
+				if (previousSessionTimeout == null
+						|| sessionHandler.getMaxInactiveInterval() == previousSessionTimeout * 60) {
+					sessionHandler.setMaxInactiveInterval(configuration.getSessionTimeout() * 60);
+				}
+			}
+		}
+
+		if (ConfigurationChange.isRequestLogChanged(changed)) {
+			for (Handler handler : jettyServer.getHandlers()) {
+				if (handler instanceof RequestLogHandler) {
+					jettyServer.removeHandler(handler);
+					stopQuietly(handler);
+				}
+			}
+			configureRequestLog();
+			for (Handler handler : jettyServer.getHandlers()) {
+				if (handler instanceof RequestLogHandler && !handler.isStarted()) {
+					startQuietly(handler);
+				}
+			}
+		}
+
+		if (change == ConfigurationChange.CONNECTOR) {
+			// contexts stay deployed, only connectors created from previous configuration are replaced
+			closeKeyStoreWatchers();
+			for (Connector connector : createdConnectors) {
+				jettyServer.removeConnector(connector);
+				stopQuietly(connector);
+			}
+			createdConnectors.clear();
+			httpConnector = null;
+			httpSecureConnector = null;
+			configureConnectors();
+			for (Connector connector : jettyServer.getConnectors()) {
+				if (!connector.isStarted()) {
+					startQuietly(connector);
+				}
+			}
+		}
+		notifyListeners(ServerEvent.CONFIGURED);
+		return true;
+	}
+
+	private static void startQuietly(org.eclipse.jetty.util.component.LifeCycle lifeCycle) {
+		try {
+			lifeCycle.start();
+			//CHECKSTYLE:OFF
+		} catch (Exception e) {
+			throw new IllegalStateException("Can't start " + lifeCycle + ": " + e.getMessage(), e);
+		}
+		//CHECKSTYLE:ON
+	}
+
+	private static void stopQuietly(org.eclipse.jetty.util.component.LifeCycle lifeCycle) {
+		try {
+			lifeCycle.stop();
+			//CHECKSTYLE:OFF
+		} catch (Exception e) {
+			LOG.warn("Can't stop {}: {}", lifeCycle, e.getMessage());
+		}
+		//CHECKSTYLE:ON
+	}
+
 	@Override
 	public Configuration getConfiguration() {
 		return configuration;
@@ -156,6 +558,11 @@ class ServerControllerImpl implements ServerController {
 		state.addFilter(filterModel);
 	}
 
+	@Override
+	public void insertFilter(final FilterModel filterModel) {
+		state.insertFilter(filterModel);
+	}
+
 	@Override
 	public void removeFilter(final FilterModel filterModel) {
 		state.removeFilter(filterModel);
@@ -201,6 +608,12 @@ class ServerControllerImpl implements ServerController {
 		state.addContainerInitializerModel(model);
 	}
 
+	@Override
+	public RequestMetricsRegistry getRequestMetrics() {
+		JettyServer server = jettyServer;
+		return isStarted() && server != null ? server.getRequestMetrics() : null;
+	}
+
 	public void addCustomizers(Collection<Customizer> customizers) {
 		state.addCustomizers(customizers);
 	}
@@ -276,6 +689,8 @@ class ServerControllerImpl implements ServerController {
 
 		void addFilter(FilterModel filterModel);
 
+		void insertFilter(FilterModel filterModel);
+
 		void removeFilter(FilterModel filterModel);
 
 		void addErrorPage(ErrorPageModel model);
@@ -300,6 +715,7 @@ class ServerControllerImpl implements ServerController {
 
 		@Override
 		public void stop() {
+			closeKeyStoreWatchers();
 			jettyServer.stop();
 			state = new Stopped();
 			notifyListeners(ServerEvent.STOPPED);
@@ -341,6 +757,11 @@ class ServerControllerImpl implements ServerController {
 			jettyServer.addFilter(filterModel);
 		}
 
+		@Override
+		public void insertFilter(FilterModel filterModel) {
+			jettyServer.insertFilter(filterModel);
+		}
+
 		@Override
 		public void removeFilter(FilterModel filterModel) {
 			jettyServer.removeFilter(filterModel);
@@ -449,215 +870,26 @@ class ServerControllerImpl implements ServerController {
 
 			httpConnector = null;
 			httpSecureConnector = null;
-			String[] addresses = configuration.getListeningAddresses();
-			if (addresses == null || addresses.length == 0) {
-				addresses = new String[]{null};
-			}
-			Map<String, Object> attributes = new HashMap<>();
-			attributes.put("javax.servlet.context.tempdir",
-					configuration.getTemporaryDirectory());
+			createdConnectors.clear();
 
 			// Fix for PAXWEB-193
 			jettyServer.setServerConfigDir(configuration.getConfigurationDir());
 			jettyServer.setServerConfigURL(configuration.getConfigurationURL());
 			jettyServer.setDefaultAuthMethod(configuration.getDefaultAuthMethod());
 			jettyServer.setDefaultRealmName(configuration.getDefaultRealmName());
-			jettyServer.configureContext(attributes,
-					configuration.getSessionTimeout(),
-					configuration.getSessionCookie(),
-					configuration.getSessionDomain(),
-					configuration.getSessionPath(),
-					configuration.getSessionUrl(),
-					configuration.getSessionCookieHttpOnly(),
-					configuration.getSessionCookieSecure(),
-					configuration.getWorkerName(),
-					configuration.getSessionLazyLoad(),
-					configuration.getSessionStoreDirectory(),
-					configuration.getSessionCookieMaxAge(),
-					configuration.isShowStacks());
+			jettyServer.setGracefulShutdownTimeout(configuration.getGracefulShutdownTimeout());
+			jettyServer.setAdmissionControl(AdmissionControl.create(configuration));
+			configureContext();
 
 			// Configure NCSA RequestLogHandler
-			if (configuration.isLogNCSAFormatEnabled()) {
-				jettyServer.configureRequestLog(
-						new ConfigureRequestLogParameter(configuration.getLogNCSAFormat(), configuration.getLogNCSARetainDays(),
-								configuration.isLogNCSAAppend(), configuration.isLogNCSAExtended(), configuration.isLogNCSADispatch(), configuration.getLogNCSATimeZone(),
-								configuration.getLogNCSADirectory(), configuration.isLogNCSALatency(), configuration.isLogNCSACookies(), configuration.isLogNCSAServer()));
-			}
+			configureRequestLog();
 
 			jettyServer.start();
-			for (String address : addresses) {
-				Integer httpPort = configuration.getHttpPort();
-				// Boolean useNIO = configuration.useNIO();
-				Integer httpSecurePort = configuration.getHttpSecurePort();
-				// Server should listen to std. http.
-				if (configuration.isHttpEnabled()) {
-					Connector[] connectors = jettyServer.getConnectors();
-					// Flag is set if the same connector has been found
-					// through xml config and properties
-					boolean masterConnectorFound = false;
-					if (connectors != null && connectors.length > 0) {
-						// Combine the configurations if they do match
-						ServerConnector backupConnector = null;
-						for (Connector connector : connectors) {
-							if ((connector instanceof ServerConnector) && (connector.getConnectionFactory(SslConnectionFactory.class)) == null) {
-								if (match(address, httpPort, connector)) {
-									// the same connection as configured through
-									// property/config-admin already is
-									// configured through jetty.xml
-									// therefore just use it as the one if not
-									// already done so.
-									//CHECKSTYLE:OFF
-									if (httpConnector == null) {
-										httpConnector = (ServerConnector) connector;
-									}
-									//CHECKSTYLE:ON
-									masterConnectorFound = true;
-								} else {
-									//CHECKSTYLE:OFF
-									if (backupConnector == null) {
-										backupConnector = (ServerConnector) connector;
-									}
-									//CHECKSTYLE:ON
-								}
-							}
-						}
-						if (httpConnector == null && backupConnector != null) {
-							httpConnector = backupConnector;
-						}
-					}
-					if (!masterConnectorFound) {
-						final Connector connector = jettyFactory
-								.createConnector(jettyServer.getServer(),
-										configuration.getHttpConnectorName(),
-										httpPort, configuration.getConnectorIdleTimeout(), httpSecurePort, address, configuration.checkForwardedHeaders());
-						if (httpConnector == null) {
-							httpConnector = (ServerConnector) connector;
-						}
-						jettyServer.addConnector(connector);
-					}
-				} else {
-					// remove maybe already configured connectors through
-					// jetty.xml, the config-property/config-admin service is
-					// master configuration
-					Connector[] connectors = jettyServer.getConnectors();
-					if (connectors != null) {
-						for (Connector connector : connectors) {
-							if ((connector instanceof Connector) && (connector.getConnectionFactory(SslConnectionFactory.class)) == null) {
-								LOG.warn(String.format("HTTP is not enabled in Pax Web configuration - removing connector: %s", connector));
-								jettyServer.removeConnector(connector);
-							}
-						}
-					}
-				}
-				if (configuration.isHttpSecureEnabled()) {
-					final String sslKeystorePassword = configuration.getSslKeystorePassword();
-					final String sslKeyPassword = configuration.getSslKeyPassword();
-
-					Connector[] connectors = jettyServer.getConnectors();
-					boolean masterSSLConnectorFound = false;
-					if (connectors != null && connectors.length > 0) {
-						// Combine the configurations if they do match
-						ServerConnector backupConnector = null;
-						for (Connector connector : connectors) {
-							if (connector.getConnectionFactory(SslConnectionFactory.class) != null) {
-								ServerConnector sslCon = (ServerConnector) connector;
-								String[] split = connector.getName().split(":");
-								if (split.length == 2 && httpSecurePort == Integer.valueOf(split[1])
-										.intValue()
-										&& address.equalsIgnoreCase(split[0])) {
-									httpSecureConnector = sslCon;
-									masterSSLConnectorFound = true;
-								} else {
-									// default behavior
-									//CHECKSTYLE:OFF
-									if (backupConnector == null) {
-										backupConnector = (ServerConnector) connector;
-									}
-									//CHECKSTYLE:ON
-								}
-							}
-						}
-						if (httpSecureConnector == null && backupConnector != null) {
-							httpSecureConnector = backupConnector;
-						}
-					}
-
-					if (!masterSSLConnectorFound) {
-						// no combination of jetty.xml and
-						// config-admin/properties needed
-						if (sslKeystorePassword != null && sslKeyPassword != null) {
-							final Connector secureConnector = jettyFactory
-									.createSecureConnector(jettyServer
-													.getServer(),
-											configuration.getHttpSecureConnectorName(),
-											httpSecurePort,
-											configuration.getConnectorIdleTimeout(),
-											configuration.getSslKeystore(),
-											sslKeystorePassword,
-											sslKeyPassword,
-											address,
-											configuration.getSslKeystoreType(),
-											configuration.getSslKeyAlias(),
-											configuration.getTrustStore(),
-											configuration.getTrustStorePassword(),
-											configuration.getTrustStoreType(),
-											configuration.isClientAuthNeeded(),
-											configuration.isClientAuthWanted(),
-											configuration.getCiphersuiteIncluded(),
-											configuration.getCiphersuiteExcluded(),
-											configuration.getProtocolsIncluded(),
-											configuration.getProtocolsExcluded(),
-											configuration.isSslRenegotiationAllowed(),
-											configuration.getCrlPath(),
-											configuration.isEnableCRLDP(),
-											configuration.isValidateCerts(),
-											configuration.isValidatePeerCerts(),
-											configuration.isEnableOCSP(),
-											configuration.getOcspResponderURL(),
-											configuration.checkForwardedHeaders(),
-											configuration.getSslKeystoreProvider(),
-											configuration.getSslTrustStoreProvider(),
-											configuration.getSslProvider());
-							if (httpSecureConnector == null) {
-								httpSecureConnector = (ServerConnector) secureConnector;
-							}
-							jettyServer.addConnector(secureConnector);
-						} else {
-							LOG.warn("SSL password and SSL keystore password must be set in order to enable SSL.");
-							LOG.warn("SSL connector will not be started");
-						}
-					}
-				} else {
-					// remove maybe already configured connectors through
-					// jetty.xml, the config-property/config-admin service is
-					// master configuration
-					Connector[] connectors = jettyServer.getConnectors();
-					if (connectors != null) {
-						for (Connector connector : connectors) {
-							if (connector.getConnectionFactory(SslConnectionFactory.class) != null) {
-								LOG.warn(String.format("HTTPS is not enabled in Pax Web configuration - removing connector: %s", connector));
-								jettyServer.removeConnector(connector);
-							}
-						}
-					}
-				}
-			}
+			configureConnectors();
 			state = new Started();
 			notifyListeners(ServerEvent.STARTED);
 		}
 
-		private boolean match(String address, Integer httpPort,
-							  Connector connector) {
-			InetSocketAddress isa1 = address != null ? new InetSocketAddress(
-					address, httpPort) : new InetSocketAddress(httpPort);
-			InetSocketAddress isa2 = ((ServerConnector) connector).getHost() != null ? new InetSocketAddress(
-					((ServerConnector) connector).getHost(),
-					((ServerConnector) connector).getPort())
-					: new InetSocketAddress(
-					((ServerConnector) connector).getPort());
-			return isa1.equals(isa2);
-		}
-
 		@Override
 		public void stop() {
 			// do nothing. already stopped
@@ -698,6 +930,11 @@ class ServerControllerImpl implements ServerController {
 			// do nothing if server is not started
 		}
 
+		@Override
+		public void insertFilter(FilterModel filterModel) {
+			// do nothing if server is not started
+		}
+
 		@Override
 		public void removeFilter(FilterModel filterModel) {
 			// do nothing if server is not started
@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.jetty.internal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ConnectException;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handles socket file found at the path of Unix domain socket connector before binding. The file is removed only
+ * when it's stale - when connecting to it is refused, because nothing listens there anymore. Socket used by
+ * another process (second instance, proxy) is never taken over.
+ */
+final class UnixSocketFile {
+
+	private static final Logger LOG = LoggerFactory.getLogger(UnixSocketFile.class);
+
+	private UnixSocketFile() {
+	}
+
+	/**
+	 * Connects to Unix domain socket (and closes the connection).
+	 */
+	interface Probe {
+		void connect(Path socket) throws IOException;
+	}
+
+	/**
+	 * Removes stale socket file at given path.
+	 *
+	 * @param socket path of Unix domain socket
+	 * @param probe  used to check whether some process accepts connections on the socket
+	 * @throws IllegalStateException if the socket is in use or the path can't be used for a socket
+	 */
+	static void deleteIfStale(Path socket, Probe probe) {
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(socket, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		} catch (NoSuchFileException e) {
+			return;
+		} catch (IOException e) {
+			throw new IllegalStateException("Can't check Unix domain socket " + socket + ": " + e.getMessage(), e);
+		}
+		if (!attributes.isOther()) {
+			throw new IllegalStateException("Can't listen on Unix domain socket " + socket
+					+ ": the path exists and it's not a socket");
+		}
+		try {
+			probe.connect(socket);
+		} catch (ConnectException e) {
+			try {
+				Files.deleteIfExists(socket);
+				LOG.info("Removed stale Unix domain socket {}", socket);
+				return;
+			} catch (IOException ex) {
+				throw new IllegalStateException("Can't remove stale Unix domain socket " + socket + ": "
+						+ ex.getMessage(), ex);
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Can't check Unix domain socket " + socket + ": " + e.getMessage(), e);
+		}
+		throw new IllegalStateException("Unix domain socket " + socket + " is in use by another process");
+	}
+
+	/**
+	 * Returns probe using {@code java.net.UnixDomainSocketAddress} (Java 16+).
+	 *
+	 * @return probe or {@code null} if JDK doesn't support Unix domain sockets
+	 */
+	static Probe jdkProbe() {
+		final Method of;
+		final Method open;
+		final ProtocolFamily unix;
+		try {
+			of = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class);
+			open = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+			unix = StandardProtocolFamily.valueOf("UNIX");
+		} catch (ClassNotFoundException | NoSuchMethodException | IllegalArgumentException e) {
+			return null;
+		}
+		return socket -> {
+			SocketAddress address = (SocketAddress) invoke(of, null, socket);
+			try (SocketChannel channel = (SocketChannel) invoke(open, null, unix)) {
+				channel.connect(address);
+			}
+		};
+	}
+
+	/**
+	 * Returns probe using jnr-unixsocket (required by Jetty's {@code UnixSocketConnector} anyway).
+	 *
+	 * @param channelClass {@code jnr.unixsocket.UnixSocketChannel}
+	 * @param addressClass {@code jnr.unixsocket.UnixSocketAddress}
+	 * @return probe
+	 */
+	static Probe jnrProbe(Class<?> channelClass, Class<?> addressClass) throws NoSuchMethodException {
+		final Method open = channelClass.getMethod("open", addressClass);
+		final Constructor<?> address = addressClass.getConstructor(File.class);
+		return socket -> {
+			Object channel;
+			try {
+				channel = open.invoke(null, address.newInstance(socket.toFile()));
+			} catch (InvocationTargetException e) {
+				throw refused(e.getCause());
+			} catch (ReflectiveOperationException e) {
+				throw new IOException(e);
+			}
+			((Closeable) channel).close();
+		};
+	}
+
+	private static Object invoke(Method method, Object target, Object arg) throws IOException {
+		try {
+			return method.invoke(target, arg);
+		} catch (InvocationTargetException e) {
+			throw refused(e.getCause());
+		} catch (IllegalAccessException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * jnr reports {@code ECONNREFUSED} as plain {@link IOException} with the message of {@code strerror()}.
+	 */
+	private static IOException refused(Throwable cause) {
+		if (cause instanceof ConnectException) {
+			return (ConnectException) cause;
+		}
+		if (cause instanceof IOException) {
+			String message = cause.getMessage();
+			if (message != null && message.contains("Connection refused")) {
+				ConnectException e = new ConnectException(message);
+				e.initCause(cause);
+				return e;
+			}
+			return (IOException) cause;
+		}
+		return new IOException(cause);
+	}
+
+}
@@ -25,22 +25,15 @@ import static org.ops4j.util.xml.ElementHelper.getValue;
 import java.io.InputStream;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.net.InetAddress;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,13 +52,6 @@ public class DOMJettyWebXmlParser {
 			.getLogger(DOMJettyWebXmlParser.class);
 
 	//CHECKSTYLE:OFF
-	private static final Class<?>[] __primitives = {Boolean.TYPE,
-			Character.TYPE, Byte.TYPE, Short.TYPE, Integer.TYPE, Long.TYPE,
-			Float.TYPE, Double.TYPE, Void.TYPE};
-
-	private static final Class<?>[] __primitiveHolders = {Boolean.class,
-			Character.class, Byte.class, Short.class, Integer.class,
-			Long.class, Float.class, Double.class, Void.class};
 	private static final Integer ZERO = Integer.valueOf(0);
 
 	Map<String, Object> _idMap = new HashMap<>();
@@ -153,7 +139,9 @@ public class DOMJettyWebXmlParser {
 	 * method. The type of the value is used to find a suitable set method by 1.
 	 * Trying for a trivial type match. 2. Looking for a native type match. 3.
 	 * Trying all correctly named methods for an auto conversion. 4. Attempting
-	 * to construct a suitable value from original value. @param obj
+	 * to construct a suitable value from original value. The method found (or
+	 * not found) for given class, property and value type is cached in
+	 * MemberCache. @param obj
 	 * 
 	 * @param node
 	 */
@@ -162,7 +150,6 @@ public class DOMJettyWebXmlParser {
 		String name = "set" + attr.substring(0, 1).toUpperCase()
 				+ attr.substring(1);
 		Object value = value(obj, node);
-		Object[] arg = {value};
 
 		//CHECKSTYLE:OFF
 		Class<?> oClass = nodeClass(node);
@@ -173,176 +160,13 @@ public class DOMJettyWebXmlParser {
 		}
 		//CHECKSTYLE:ON
 
-		Class<?>[] vClass = {Object.class};
-		if (value != null) {
-			vClass[0] = value.getClass();
-		}
-
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("XML "
 					+ (obj != null ? obj.toString() : oClass.getName()) + "."
 					+ name + "(" + value + ")");
 		}
 
-		// Try for trivial match
-		try {
-			Method set = oClass.getMethod(name, vClass);
-			set.invoke(obj, arg);
-			return;
-		} catch (IllegalArgumentException e) {
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("IllegalArgument while parsing jetty-web.xml", e);
-			}
-		} catch (IllegalAccessException e) {
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("IllegalAccessException while parsing jetty-web.xml",
-						e);
-			}
-		} catch (NoSuchMethodException e) {
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("NoSuchMethodException while parsing jetty-web.xml", e);
-			}
-		}
-
-		// Try for native match
-		try {
-			Field type = vClass[0].getField("TYPE");
-			vClass[0] = (Class<?>) type.get(null);
-			Method set = oClass.getMethod(name, vClass);
-			set.invoke(obj, arg);
-			return;
-		} catch (NoSuchFieldException e) {
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("NoSuchFieldException while parsing jetty-web.xml", e);
-			}
-		} catch (IllegalArgumentException e) {
-			if (LOG.isDebugEnabled()) {
-				LOG.debug(
-						"IllegalArgumentException while parsing jetty-web.xml",
-						e);
-			}
-		} catch (IllegalAccessException e) {
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("IllegalAccessException while parsing jetty-web.xml",
-						e);
-			}
-		} catch (NoSuchMethodException e) {
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("NoSuchMethodException while parsing jetty-web.xml", e);
-			}
-		}
-
-		// Try a field
-		try {
-			Field field = oClass.getField(attr);
-			if (Modifier.isPublic(field.getModifiers())) {
-				field.set(obj, value);
-				return;
-			}
-		} catch (NoSuchFieldException e) {
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("NoSuchFieldException while parsing jetty-web.xml", e);
-			}
-		}
-
-		// Search for a match by trying all the set methods
-		Method[] sets = oClass.getMethods();
-		Method set = null;
-		for (int s = 0; sets != null && s < sets.length; s++) {
-
-			Class<?>[] paramTypes = sets[s].getParameterTypes();
-			if (name.equals(sets[s].getName()) && paramTypes.length == 1) {
-
-				// lets try it
-				try {
-					set = sets[s];
-					sets[s].invoke(obj, arg);
-					return;
-				} catch (IllegalArgumentException e) {
-					if (LOG.isInfoEnabled()) {
-						LOG.info(
-								"IllegalArgumentException while parsing jetty-web.xml",
-								e);
-					}
-				} catch (IllegalAccessException e) {
-					if (LOG.isInfoEnabled()) {
-						LOG.info(
-								"IllegalAccessException while parsing jetty-web.xml",
-								e);
-					}
-				}
-
-				// Can we convert to a collection
-				if (paramTypes[0].isAssignableFrom(Collection.class)
-						&& value.getClass().isArray()) {
-					try {
-						if (paramTypes[0].isAssignableFrom(Set.class)) {
-							sets[s].invoke(
-									obj,
-									new Object[]{new HashSet<>(Arrays
-											.asList((Object[]) value))});
-						} else {
-							sets[s].invoke(obj, new Object[]{Arrays
-									.asList((Object[]) value)});
-						}
-						return;
-					} catch (IllegalArgumentException e) {
-						if (LOG.isInfoEnabled()) {
-							LOG.info(
-									"IllegalArgumentException while parsing jetty-web.xml",
-									e);
-						}
-					} catch (IllegalAccessException e) {
-						if (LOG.isInfoEnabled()) {
-							LOG.info(
-									"IllegalAccessException while parsing jetty-web.xml",
-									e);
-						}
-					}
-				}
-			}
-		}
-
-		// Try converting the arg to the last set found.
-		if (set != null) {
-			try {
-				Class<?> sClass = set.getParameterTypes()[0];
-				if (sClass.isPrimitive()) {
-					for (int t = 0; t < __primitives.length; t++) {
-						if (sClass.equals(__primitives[t])) {
-							sClass = __primitiveHolders[t];
-							break;
-						}
-					}
-				}
-				Constructor<?> cons = sClass.getConstructor(vClass);
-				arg[0] = cons.newInstance(arg);
-				set.invoke(obj, arg);
-				return;
-			} catch (NoSuchMethodException e) {
-				if (LOG.isInfoEnabled()) {
-					LOG.info(
-							"NoSuchMethodException while parsing jetty-web.xml",
-							e);
-				}
-			} catch (IllegalAccessException e) {
-				if (LOG.isInfoEnabled()) {
-					LOG.info(
-							"IllegalAccessException while parsing jetty-web.xml",
-							e);
-				}
-			} catch (InstantiationException e) {
-				if (LOG.isInfoEnabled()) {
-					LOG.info(
-							"InstantiationException while parsing jetty-web.xml",
-							e);
-				}
-			}
-		}
-
-		// No Joy
-		throw new NoSuchMethodException(oClass + "." + name + "(" + vClass[0]
-				+ ")");
+		MemberCache.set(oClass, obj, attr, value);
 	}
 
 	/* ------------------------------------------------------------ */
@@ -392,23 +216,9 @@ public class DOMJettyWebXmlParser {
 		}
 
 		//CHECKSTYLE:OFF
-		try {
-			// try calling a getXxx method.
-			Method method = oClass.getMethod("get"
-							+ name.substring(0, 1).toUpperCase() + name.substring(1),
-					(java.lang.Class[]) null);
-			obj = method.invoke(obj, ((java.lang.Object[]) null));
-			configure(obj, node, 0);
-		} catch (NoSuchMethodException nsme) {
-			try {
-				Field field = oClass.getField(name);
-				obj = field.get(obj);
-				configure(obj, node, 0);
-			} catch (NoSuchFieldException nsfe) {
-				throw nsme;
-			}
-		}
+		obj = MemberCache.get(oClass, obj, name);
 		//CHECKSTYLE:ON
+		configure(obj, node, 0);
 		if (id != null) {
 			_idMap.put(id, obj);
 		}
@@ -469,7 +279,7 @@ public class DOMJettyWebXmlParser {
 		}
 
 		try {
-			Object n = TypeUtil.call(oClass, method, obj, arg);
+			Object n = MemberCache.call(oClass, obj, method, arg);
 			if (id != null) {
 				_idMap.put(id, n);
 			}
@@ -0,0 +1,466 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.jetty.internal.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Members (setters, getters, fields and methods) used by {@link DOMJettyWebXmlParser}, resolved once per
+ * class, name and argument types and kept as {@link MethodHandle method handles}. The resolution follows the
+ * rules the parser used with plain reflection, but it checks the argument types instead of trying to invoke
+ * the candidates, so failed lookups don't cost an exception each - they're cached too.</p>
+ *
+ * <p>Members are kept in a {@link ClassValue} of the configured class, so they go away with its class loader.
+ * Argument types are referenced weakly and checked by identity, as classes of the same name may come from
+ * different bundles.</p>
+ */
+final class MemberCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MemberCache.class);
+
+	private static final Class<?>[] PRIMITIVES = {boolean.class, char.class, byte.class, short.class, int.class,
+			long.class, float.class, double.class};
+
+	private static final Class<?>[] WRAPPERS = {Boolean.class, Character.class, Byte.class, Short.class,
+			Integer.class, Long.class, Float.class, Double.class};
+
+	private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType CONVERTER = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType CALL = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+	private static final Class<?>[] NO_TYPES = new Class<?>[0];
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	private static final MethodHandle AS_LIST;
+	private static final MethodHandle AS_SET;
+
+	static {
+		try {
+			AS_LIST = LOOKUP.findStatic(MemberCache.class, "asList", CONVERTER);
+			AS_SET = LOOKUP.findStatic(MemberCache.class, "asSet", CONVERTER);
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private static final ClassValue<ConcurrentMap<String, Member>> MEMBERS
+			= new ClassValue<ConcurrentMap<String, Member>>() {
+		@Override
+		protected ConcurrentMap<String, Member> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	private MemberCache() {
+	}
+
+	/**
+	 * Sets a property using {@code setXxx} method, public field or {@code setXxx} method after converting the
+	 * value (array to collection or using a constructor of parameter type taking the value).
+	 *
+	 * @param oClass class to configure
+	 * @param obj object to configure, {@code null} for static properties
+	 * @param attr name of the property
+	 * @param value value of the property
+	 * @throws NoSuchMethodException if there's no suitable setter
+	 * @throws InvocationTargetException if the setter or conversion fails
+	 */
+	static void set(Class<?> oClass, Object obj, String attr, Object value) throws Exception {
+		Class<?>[] types = types(new Object[] {value});
+		String key = key("set", obj == null, attr, types);
+		Member member = member(oClass, key, types);
+		if (member == null) {
+			member = resolveSet(oClass, obj == null, attr, types[0]);
+			MEMBERS.get(oClass).put(key, member);
+		}
+		if (member.handle == null) {
+			throw new NoSuchMethodException(member.missing);
+		}
+		try {
+			member.handle.invokeExact(obj, value);
+		} catch (Throwable t) { // CHECKSTYLE:SKIP
+			throw new InvocationTargetException(t);
+		}
+	}
+
+	/**
+	 * Gets a property using {@code getXxx} method or public field.
+	 *
+	 * @throws NoSuchMethodException if there's neither getter nor field
+	 */
+	static Object get(Class<?> oClass, Object obj, String name) throws Exception {
+		String key = key("get", obj == null, name, NO_TYPES);
+		Member member = member(oClass, key, NO_TYPES);
+		if (member == null) {
+			member = resolveGet(oClass, obj == null, name);
+			MEMBERS.get(oClass).put(key, member);
+		}
+		if (member.handle == null) {
+			throw new NoSuchMethodException(member.missing);
+		}
+		try {
+			return (Object) member.handle.invokeExact(obj);
+		} catch (Throwable t) { // CHECKSTYLE:SKIP
+			throw new InvocationTargetException(t);
+		}
+	}
+
+	/**
+	 * Calls a method with the same semantics as {@link TypeUtil#call(Class, String, Object, Object[])}.
+	 *
+	 * @throws NoSuchMethodException if there's no method accepting the arguments
+	 */
+	static Object call(Class<?> oClass, Object obj, String method, Object[] args) throws Exception {
+		Class<?>[] types = types(args);
+		String key = key("call", obj == null, method, types);
+		Member member = member(oClass, key, types);
+		if (member == null) {
+			member = resolveCall(oClass, obj == null, method, types);
+			MEMBERS.get(oClass).put(key, member);
+		}
+		if (member.handle == null) {
+			throw new NoSuchMethodException(member.missing);
+		}
+		try {
+			return (Object) member.handle.invokeExact(obj, args);
+		} catch (Throwable t) { // CHECKSTYLE:SKIP
+			throw new InvocationTargetException(t);
+		}
+	}
+
+	/**
+	 * @return number of members (including missing ones) resolved for given class
+	 */
+	static int size(Class<?> oClass) {
+		return MEMBERS.get(oClass).size();
+	}
+
+	/**
+	 * @return cached member or {@code null} if it wasn't resolved yet (or it was resolved for different classes
+	 * of the same names)
+	 */
+	private static Member member(Class<?> oClass, String key, Class<?>[] types) {
+		Member member = MEMBERS.get(oClass).get(key);
+		return member != null && member.matches(types) ? member : null;
+	}
+
+	private static String key(String kind, boolean isStatic, String name, Class<?>[] types) {
+		StringBuilder key = new StringBuilder(kind).append(isStatic ? " static " : " ").append(name).append('(');
+		for (int i = 0; i < types.length; i++) {
+			key.append(i > 0 ? "," : "").append(types[i] == null ? "null" : types[i].getName());
+		}
+		return key.append(')').toString();
+	}
+
+	private static Class<?>[] types(Object[] values) {
+		Class<?>[] types = new Class<?>[values.length];
+		for (int i = 0; i < values.length; i++) {
+			types[i] = values[i] == null ? null : values[i].getClass();
+		}
+		return types;
+	}
+
+	private static Member resolveSet(Class<?> oClass, boolean isStatic, String attr, Class<?> vClass) {
+		String name = "set" + attr.substring(0, 1).toUpperCase() + attr.substring(1);
+		Class<?> type = vClass == null ? Object.class : vClass;
+
+		// trivial match
+		MethodHandle handle = setter(exactMethod(oClass, name, type), isStatic);
+		if (handle != null) {
+			return new Member(vClass, handle, null);
+		}
+
+		// native match
+		Class<?> primitive = primitive(type);
+		if (primitive != null) {
+			type = primitive;
+			handle = setter(exactMethod(oClass, name, type), isStatic);
+			if (handle != null) {
+				return new Member(vClass, handle, null);
+			}
+		}
+
+		// public field
+		Field field = field(oClass, attr, isStatic);
+		handle = field != null && accepts(field.getType(), vClass) ? setter(field) : null;
+		if (handle != null) {
+			return new Member(vClass, handle, null);
+		}
+
+		// any setter accepting the value, possibly converted to collection
+		Method last = null;
+		for (Method method : oClass.getMethods()) {
+			if (!name.equals(method.getName()) || method.getParameterTypes().length != 1
+					|| (isStatic && !Modifier.isStatic(method.getModifiers()))) {
+				continue;
+			}
+			last = method;
+			Class<?> paramType = method.getParameterTypes()[0];
+			MethodHandle converter = null;
+			if (!accepts(paramType, vClass)) {
+				if (vClass == null || !vClass.isArray() || vClass.getComponentType().isPrimitive()
+						|| !paramType.isAssignableFrom(Collection.class)) {
+					continue;
+				}
+				converter = paramType.isAssignableFrom(Set.class) ? AS_SET : AS_LIST;
+			}
+			handle = setter(method, isStatic);
+			if (handle != null) {
+				return new Member(vClass, converter == null ? handle
+						: MethodHandles.filterArguments(handle, 1, converter), null);
+			}
+		}
+
+		// the last setter found, with the value passed to constructor of its parameter type
+		if (last != null) {
+			Class<?> sClass = last.getParameterTypes()[0];
+			if (sClass.isPrimitive()) {
+				sClass = WRAPPERS[Arrays.asList(PRIMITIVES).indexOf(sClass)];
+			}
+			handle = setter(last, isStatic);
+			for (Constructor<?> constructor : sClass.getConstructors()) {
+				if (handle == null || !Arrays.equals(constructor.getParameterTypes(), new Class<?>[] {type})) {
+					continue;
+				}
+				try {
+					MethodHandle converter = LOOKUP.unreflectConstructor(constructor).asType(CONVERTER);
+					return new Member(vClass, MethodHandles.filterArguments(handle, 1, converter), null);
+				} catch (IllegalAccessException e) {
+					LOG.debug("Can't access {}: {}", constructor, e.getMessage());
+				}
+			}
+		}
+
+		return new Member(vClass, null, oClass + "." + name + "(" + type + ")");
+	}
+
+	private static Member resolveGet(Class<?> oClass, boolean isStatic, String name) {
+		String methodName = "get" + name.substring(0, 1).toUpperCase() + name.substring(1);
+		Method method = exactMethod(oClass, methodName);
+		try {
+			if (method != null && (!isStatic || Modifier.isStatic(method.getModifiers()))) {
+				MethodHandle handle = LOOKUP.unreflect(method);
+				if (Modifier.isStatic(method.getModifiers())) {
+					handle = MethodHandles.dropArguments(handle, 0, Object.class);
+				}
+				return new Member(NO_TYPES, handle.asType(GETTER), null);
+			}
+			Field field = field(oClass, name, isStatic);
+			if (field != null) {
+				MethodHandle handle = LOOKUP.unreflectGetter(field);
+				if (Modifier.isStatic(field.getModifiers())) {
+					handle = MethodHandles.dropArguments(handle, 0, Object.class);
+				}
+				return new Member(NO_TYPES, handle.asType(GETTER), null);
+			}
+		} catch (IllegalAccessException e) {
+			LOG.debug("Can't access {} of {}: {}", name, oClass, e.getMessage());
+		}
+		return new Member(NO_TYPES, null, oClass.getName() + "." + methodName + "()");
+	}
+
+	private static Member resolveCall(Class<?> oClass, boolean isStatic, String name, Class<?>[] types) {
+		for (Method method : oClass.getMethods()) {
+			if (!method.getName().equals(name) || method.getParameterTypes().length != types.length
+					|| Modifier.isStatic(method.getModifiers()) != isStatic
+					|| (isStatic && method.getDeclaringClass() != oClass)) {
+				continue;
+			}
+			boolean accepts = true;
+			for (int i = 0; i < types.length && accepts; i++) {
+				accepts = accepts(method.getParameterTypes()[i], types[i]);
+			}
+			if (!accepts) {
+				continue;
+			}
+			try {
+				MethodHandle handle = LOOKUP.unreflect(method);
+				if (isStatic) {
+					handle = MethodHandles.dropArguments(handle, 0, Object.class);
+				}
+				return new Member(types, handle.asSpreader(Object[].class, types.length).asType(CALL), null);
+			} catch (IllegalAccessException e) {
+				LOG.debug("Can't access {}: {}", method, e.getMessage());
+			}
+		}
+		return new Member(types, null, name);
+	}
+
+	/**
+	 * @return public method with given name and parameter types, preferring non-bridge methods
+	 */
+	private static Method exactMethod(Class<?> oClass, String name, Class<?>... types) {
+		Method result = null;
+		for (Method method : oClass.getMethods()) {
+			if (name.equals(method.getName()) && Arrays.equals(method.getParameterTypes(), types)
+					&& (result == null || result.isBridge())) {
+				result = method;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return public field with given name, usable in static or instance context
+	 */
+	private static Field field(Class<?> oClass, String name, boolean isStatic) {
+		for (Field field : oClass.getFields()) {
+			if (field.getName().equals(name)) {
+				return !isStatic || Modifier.isStatic(field.getModifiers()) ? field : null;
+			}
+		}
+		return null;
+	}
+
+	private static MethodHandle setter(Method method, boolean isStatic) {
+		if (method == null || (isStatic && !Modifier.isStatic(method.getModifiers()))) {
+			return null;
+		}
+		try {
+			MethodHandle handle = LOOKUP.unreflect(method);
+			if (Modifier.isStatic(method.getModifiers())) {
+				handle = MethodHandles.dropArguments(handle, 0, Object.class);
+			}
+			return handle.asType(SETTER);
+		} catch (IllegalAccessException e) {
+			LOG.debug("Can't access {}: {}", method, e.getMessage());
+			return null;
+		}
+	}
+
+	private static MethodHandle setter(Field field) {
+		if (Modifier.isFinal(field.getModifiers())) {
+			return null;
+		}
+		try {
+			MethodHandle handle = LOOKUP.unreflectSetter(field);
+			if (Modifier.isStatic(field.getModifiers())) {
+				handle = MethodHandles.dropArguments(handle, 0, Object.class);
+			}
+			return handle.asType(SETTER);
+		} catch (IllegalAccessException e) {
+			LOG.debug("Can't access {}: {}", field, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * @return primitive type of given wrapper type or {@code null}
+	 */
+	private static Class<?> primitive(Class<?> type) {
+		int index = Arrays.asList(WRAPPERS).indexOf(type);
+		return index < 0 ? null : PRIMITIVES[index];
+	}
+
+	/**
+	 * Checks whether reflective invocation with parameter of given type would accept value of given type
+	 * ({@code null} type for {@code null} value) - including unboxing and widening of primitive values.
+	 */
+	static boolean accepts(Class<?> paramType, Class<?> vClass) {
+		if (vClass == null) {
+			return !paramType.isPrimitive();
+		}
+		if (!paramType.isPrimitive()) {
+			return paramType.isAssignableFrom(vClass);
+		}
+		Class<?> primitive = primitive(vClass);
+		if (primitive == null || primitive == boolean.class || paramType == boolean.class) {
+			return primitive == paramType;
+		}
+		if (primitive == paramType) {
+			return true;
+		}
+		// widening primitive conversions
+		switch (paramType.getName()) {
+			case "short":
+				return primitive == byte.class;
+			case "int":
+				return primitive == byte.class || primitive == short.class || primitive == char.class;
+			case "long":
+				return primitive != float.class && primitive != double.class;
+			case "float":
+				return primitive != double.class;
+			case "double":
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	static Object asList(Object array) {
+		return Arrays.asList((Object[]) array);
+	}
+
+	static Object asSet(Object array) {
+		return new HashSet<>(Arrays.asList((Object[]) array));
+	}
+
+	/**
+	 * Resolved member (or missing member) for arguments of given types.
+	 */
+	private static final class Member {
+
+		private final WeakReference<?>[] types;
+		private final MethodHandle handle;
+		private final String missing;
+
+		private Member(Class<?> type, MethodHandle handle, String missing) {
+			this(new Class<?>[] {type}, handle, missing);
+		}
+
+		private Member(Class<?>[] types, MethodHandle handle, String missing) {
+			this.types = new WeakReference<?>[types.length];
+			for (int i = 0; i < types.length; i++) {
+				this.types[i] = new WeakReference<>(types[i]);
+			}
+			this.handle = handle;
+			this.missing = missing;
+		}
+
+		private boolean matches(Class<?>[] argumentTypes) {
+			if (argumentTypes.length != types.length) {
+				return false;
+			}
+			for (int i = 0; i < types.length; i++) {
+				if (types[i].get() != argumentTypes[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.jetty.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.Test;
+
+public class GracefulShutdownHandlerTest {
+
+	private final CountDownLatch slowStarted = new CountDownLatch(1);
+	private final CountDownLatch releaseSlow = new CountDownLatch(1);
+	private final ExecutorService clients = Executors.newCachedThreadPool();
+
+	private Server server;
+	private GracefulShutdownHandler graceful;
+	private int port;
+
+	@After
+	public void tearDown() throws Exception {
+		releaseSlow.countDown();
+		clients.shutdownNow();
+		if (server != null) {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void inFlightRequestCompletesAndNewRequestsAreRejected() throws Exception {
+		start(5000L);
+		Future<Integer> slow = clients.submit(() -> status("/slow"));
+		assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+
+		Future<?> drained = clients.submit(() -> graceful.drain("/test"));
+		HttpURLConnection rejected = awaitRejection();
+		assertEquals("5", rejected.getHeaderField("Retry-After"));
+		assertFalse(drained.isDone());
+
+		releaseSlow.countDown();
+		assertEquals(200, slow.get(5, TimeUnit.SECONDS).intValue());
+		drained.get(5, TimeUnit.SECONDS);
+		assertEquals(0, graceful.getRequestsActive());
+	}
+
+	@Test
+	public void drainWaitsAtMostTheTimeout() throws Exception {
+		start(200L);
+		Future<Integer> slow = clients.submit(() -> status("/slow"));
+		assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+
+		long start = System.nanoTime();
+		graceful.drain("/test");
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue("Drain took " + elapsed + "ms", elapsed >= 200L && elapsed < 5000L);
+		assertEquals(1, graceful.getRequestsActive());
+
+		releaseSlow.countDown();
+		assertEquals(200, slow.get(5, TimeUnit.SECONDS).intValue());
+	}
+
+	@Test
+	public void drainWithoutRequestsReturnsImmediately() throws Exception {
+		start(5000L);
+		assertEquals(200, status("/fast"));
+
+		long start = System.nanoTime();
+		graceful.drain("/test");
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000L);
+		assertEquals(503, status("/fast"));
+	}
+
+	private void start(long timeout) throws Exception {
+		server = new Server();
+		ServerConnector connector = new ServerConnector(server);
+		connector.setHost("localhost");
+		connector.setPort(0);
+		server.addConnector(connector);
+		graceful = new GracefulShutdownHandler(timeout);
+		graceful.setHandler(new AbstractHandler() {
+			@Override
+			public void handle(String target, Request baseRequest, HttpServletRequest request,
+					HttpServletResponse response) throws IOException {
+				if ("/slow".equals(target)) {
+					slowStarted.countDown();
+					try {
+						releaseSlow.await();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				baseRequest.setHandled(true);
+				response.setStatus(200);
+				response.getWriter().write("done");
+			}
+		});
+		server.setHandler(graceful);
+		server.start();
+		port = connector.getLocalPort();
+	}
+
+	/**
+	 * Sends new requests until the handler starts rejecting them (after {@code drain()} was called).
+	 */
+	private HttpURLConnection awaitRejection() throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (System.nanoTime() < deadline) {
+			HttpURLConnection connection = connect("/fast");
+			if (connection.getResponseCode() == 503) {
+				return connection;
+			}
+			connection.disconnect();
+		}
+		throw new AssertionError("New requests were not rejected");
+	}
+
+	private int status(String path) throws IOException {
+		HttpURLConnection connection = connect(path);
+		try {
+			return connection.getResponseCode();
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private HttpURLConnection connect(String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+		connection.setConnectTimeout(5000);
+		connection.setReadTimeout(10000);
+		return connection;
+	}
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.jetty.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Authentication;
+import org.eclipse.jetty.server.HttpInput;
+import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.ops4j.pax.web.service.RequestMetricsDTO;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
+import org.osgi.service.http.HttpContext;
+
+public class HttpServiceServletHandlerTest {
+
+	private HttpContext httpContext;
+	private Request baseRequest;
+	private HttpServletRequest request;
+	private HttpServletResponse response;
+
+	@Before
+	public void setUp() {
+		httpContext = mock(HttpContext.class);
+		baseRequest = mock(Request.class);
+		request = mock(HttpServletRequest.class);
+		response = mock(HttpServletResponse.class);
+		when(request.getMethod()).thenReturn("GET");
+		when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+	}
+
+	@Test
+	public void securityIsHandledWithoutRequestWrapper() throws Exception {
+		new HttpServiceServletHandler(httpContext, "").doHandle("/", baseRequest, request, response);
+
+		verify(httpContext).handleSecurity(eq(request), any(HttpServletResponse.class));
+		verify(response).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+	}
+
+	@Test
+	public void statusSetByHandleSecurityIsSent() throws Exception {
+		when(httpContext.handleSecurity(eq(request), any(HttpServletResponse.class))).thenAnswer(invocation -> {
+			((HttpServletResponse) invocation.getArguments()[1]).setStatus(HttpServletResponse.SC_FORBIDDEN);
+			when(response.getStatus()).thenReturn(HttpServletResponse.SC_FORBIDDEN);
+			return false;
+		});
+
+		new HttpServiceServletHandler(httpContext, "").doHandle("/", baseRequest, request, response);
+
+		verify(response).setStatus(HttpServletResponse.SC_FORBIDDEN);
+		verify(response).sendError(HttpServletResponse.SC_FORBIDDEN);
+		verify(response, never()).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+	}
+
+	@Test
+	public void statusSetByHandleSecurityIsSentEvenIfItDidNotChange() throws Exception {
+		when(response.getStatus()).thenReturn(HttpServletResponse.SC_FORBIDDEN);
+		when(httpContext.handleSecurity(eq(request), any(HttpServletResponse.class))).thenAnswer(invocation -> {
+			((HttpServletResponse) invocation.getArguments()[1]).setStatus(HttpServletResponse.SC_FORBIDDEN);
+			return false;
+		});
+
+		new HttpServiceServletHandler(httpContext, "").doHandle("/", baseRequest, request, response);
+
+		verify(response).sendError(HttpServletResponse.SC_FORBIDDEN);
+		verify(response, never()).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+	}
+
+	@Test
+	public void errorSentByHandleSecurityIsNotSentAgain() throws Exception {
+		when(httpContext.handleSecurity(eq(request), any(HttpServletResponse.class))).thenAnswer(invocation -> {
+			((HttpServletResponse) invocation.getArguments()[1]).sendError(HttpServletResponse.SC_FORBIDDEN);
+			when(response.isCommitted()).thenReturn(true);
+			return false;
+		});
+
+		new HttpServiceServletHandler(httpContext, "").doHandle("/", baseRequest, request, response);
+
+		verify(response).sendError(HttpServletResponse.SC_FORBIDDEN);
+		verify(response, never()).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+	}
+
+	@Test
+	public void requestRejectedBySecurityIsRecordedInMetrics() throws Exception {
+		RequestMetricsRegistry registry = new RequestMetricsRegistry(null);
+		JettyServerWrapper server = mock(JettyServerWrapper.class);
+		when(server.getRequestMetrics()).thenReturn(registry);
+		Response jettyResponse = mock(Response.class);
+		HttpOutput output = mock(HttpOutput.class);
+		HttpInput input = mock(HttpInput.class);
+		when(baseRequest.getDispatcherType()).thenReturn(DispatcherType.REQUEST);
+		when(baseRequest.getResponse()).thenReturn(jettyResponse);
+		when(baseRequest.getHttpInput()).thenReturn(input);
+		when(jettyResponse.getStatus()).thenReturn(HttpServletResponse.SC_UNAUTHORIZED);
+		when(jettyResponse.getHttpOutput()).thenReturn(output);
+
+		HttpServiceServletHandler handler = new HttpServiceServletHandler(httpContext, "ctx");
+		handler.setServer(server);
+		handler.start();
+		try {
+			handler.doHandle("/", baseRequest, request, response);
+		} finally {
+			handler.stop();
+		}
+
+		verify(response).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+		List<RequestMetricsDTO> metrics = registry.getRequestMetrics();
+		assertEquals(1, metrics.size());
+		assertEquals("ctx", metrics.get(0).contextName);
+		assertEquals(1L, metrics.get(0).requestCount);
+		assertEquals(1L, metrics.get(0).statusClassCounts[3]);
+	}
+
+	@Test
+	public void authenticationAttributesAreAppliedToJettyRequest() throws Exception {
+		when(request.getAttribute(HttpContext.AUTHENTICATION_TYPE)).thenReturn("BASIC");
+		when(request.getAttribute(HttpContext.REMOTE_USER)).thenReturn("admin");
+
+		HttpServiceAuthentication.apply(baseRequest, request);
+
+		ArgumentCaptor<Authentication> authentication = ArgumentCaptor.forClass(Authentication.class);
+		verify(baseRequest).setAuthentication(authentication.capture());
+		Authentication.User user = (Authentication.User) authentication.getValue();
+		assertEquals("BASIC", user.getAuthMethod());
+		assertEquals("admin", user.getUserIdentity().getUserPrincipal().getName());
+		verify(response, never()).sendError(anyInt());
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.jetty.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.jetty.servlet.FilterHolder;
+import org.eclipse.jetty.servlet.FilterMapping;
+import org.eclipse.jetty.servlet.ServletHandler;
+import org.eclipse.jetty.servlet.Source;
+import org.junit.Test;
+import org.ops4j.pax.web.service.WebContainerConstants;
+
+public class JettyServerImplTest {
+
+	@Test
+	public void rankedFiltersAreOrderedByRanking() {
+		ServletHandler handler = new ServletHandler();
+		insert(handler, "b", 2);
+		insert(handler, "a", 1);
+		insert(handler, "d", 4);
+		// equal ranking - registration order
+		insert(handler, "c", 2);
+
+		assertEquals(Arrays.asList("a", "b", "c", "d"), names(handler));
+	}
+
+	@Test
+	public void programmaticMappingsKeepTheirPlace() {
+		ServletHandler handler = new ServletHandler();
+		programmatic(handler, "before", false);
+		programmatic(handler, "after", true);
+		insert(handler, "r2", 2);
+		insert(handler, "r1", 1);
+		assertEquals(Arrays.asList("before", "r1", "r2", "after"), names(handler));
+
+		// Jetty's own bookkeeping of programmatic mappings is still valid
+		programmatic(handler, "after2", true);
+		FilterHolder plain = new FilterHolder();
+		plain.setName("plain");
+		handler.addFilter(plain);
+		handler.addFilterMapping(mapping("plain"));
+		assertEquals(Arrays.asList("before", "r1", "r2", "plain", "after", "after2"), names(handler));
+	}
+
+	private static void insert(ServletHandler handler, String name, int ranking) {
+		FilterHolder holder = new FilterHolder();
+		holder.setName(name);
+		holder.setInitParameter(WebContainerConstants.FILTER_RANKING, Integer.toString(ranking));
+		JettyServerImpl.insertFilter(handler, holder, mapping(name), ranking);
+	}
+
+	/**
+	 * Adds filter like {@code ServletContext.addFilter()} does.
+	 */
+	private static void programmatic(ServletHandler handler, String name, boolean matchAfter) {
+		FilterHolder holder = new FilterHolder(Source.JAVAX_API);
+		holder.setName(name);
+		handler.addFilter(holder);
+		holder.getRegistration().addMappingForUrlPatterns(null, matchAfter, "/*");
+	}
+
+	private static FilterMapping mapping(String name) {
+		FilterMapping mapping = new FilterMapping();
+		mapping.setFilterName(name);
+		mapping.setPathSpec("/*");
+		return mapping;
+	}
+
+	private static List<String> names(ServletHandler handler) {
+		List<String> names = new ArrayList<>();
+		for (FilterMapping mapping : handler.getFilterMappings()) {
+			names.add(mapping.getFilterName());
+		}
+		return names;
+	}
+
+}
@@ -15,20 +15,28 @@
  */
 package org.ops4j.pax.web.service.jetty.internal;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
+import java.io.IOException;
 import java.util.Dictionary;
 import java.util.Hashtable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import org.eclipse.jetty.server.LocalConnector;
 import org.eclipse.jetty.servlet.DefaultServlet;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.junit.Before;
@@ -218,6 +226,90 @@ public class JettyServerWrapperTest {
 		}
 	}
 
+	@Test
+	public void inFlightRequestCompletesBeforeLastServletIsDestroyed() throws Exception {
+		when(httpContextMock.handleSecurity(any(HttpServletRequest.class), any(HttpServletResponse.class)))
+				.thenReturn(true);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicBoolean inFlight = new AtomicBoolean();
+		final AtomicBoolean destroyed = new AtomicBoolean();
+		final AtomicBoolean destroyedInFlight = new AtomicBoolean();
+		HttpServlet slowServlet = new HttpServlet() {
+			@Override
+			protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+				inFlight.set(true);
+				started.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				resp.getWriter().write("done");
+				inFlight.set(false);
+			}
+
+			@Override
+			public void destroy() {
+				destroyedInFlight.set(inFlight.get());
+				destroyed.set(true);
+			}
+		};
+
+		final JettyServerImpl server = new JettyServerImpl(serverModelMock, null);
+		server.setGracefulShutdownTimeout(5000);
+		final LocalConnector connector = new LocalConnector(server.getServer());
+		server.getServer().addConnector(connector);
+		server.start();
+		ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			ContextModel contextModel = new ContextModel(httpContextMock,
+					mock(Bundle.class), getClass().getClassLoader(), null);
+			final ServletModel servletModel = new ServletModel(contextModel, slowServlet,
+					"/slow", null, null, null);
+			server.addServlet(servletModel);
+
+			Future<String> slow = executor.submit(() -> connector.getResponse(request("/slow"), 10, TimeUnit.SECONDS));
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			Future<?> removed = executor.submit(() -> server.removeServlet(servletModel));
+
+			// the context is drained before the servlet is removed - new requests get 503, not 404
+			String rejected = awaitRejection(connector);
+			assertTrue(rejected, rejected.contains("Retry-After: 5"));
+			assertFalse(removed.isDone());
+			assertFalse(destroyed.get());
+
+			release.countDown();
+			String response = slow.get(5, TimeUnit.SECONDS);
+			assertTrue(response, response.startsWith("HTTP/1.1 200"));
+			assertTrue(response, response.contains("done"));
+			removed.get(5, TimeUnit.SECONDS);
+			assertTrue(destroyed.get());
+			assertFalse(destroyedInFlight.get());
+			assertNull(server.getServer().getContext(httpContextMock));
+		} finally {
+			release.countDown();
+			executor.shutdownNow();
+			server.stop();
+		}
+	}
+
+	private static String awaitRejection(LocalConnector connector) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (System.nanoTime() < deadline) {
+			String response = connector.getResponse(request("/other"), 5, TimeUnit.SECONDS);
+			if (response != null && response.startsWith("HTTP/1.1 503")) {
+				return response;
+			}
+			Thread.sleep(10);
+		}
+		throw new AssertionError("New requests were not rejected");
+	}
+
+	private static String request(String path) {
+		return "GET " + path + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n";
+	}
+
 	@Test
 	public void testDefaultAuthMethod()
 			throws Exception {
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.jetty.internal;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Server;
+import org.junit.Before;
+import org.junit.Test;
+import org.ops4j.pax.web.service.spi.Configuration;
+
+public class ServerControllerImplTest {
+
+	private JettyFactory factory;
+	private JettyServer server;
+	private Configuration configuration;
+
+	@Before
+	public void setUp() {
+		factory = mock(JettyFactory.class);
+		server = mock(JettyServer.class);
+		configuration = mock(Configuration.class);
+		when(factory.createServer(any(Integer.class), any(Integer.class), any(Integer.class))).thenReturn(server);
+		when(configuration.isHttpEnabled()).thenReturn(false);
+		when(configuration.isHttpSecureEnabled()).thenReturn(false);
+	}
+
+	@Test
+	public void unixSocketConnectorIsCreatedWithConfiguredNameAndPath() {
+		Connector connector = mock(Connector.class);
+		when(configuration.getListeningUnixSocket()).thenReturn("/run/pax-web/http.sock");
+		when(configuration.getListeningUnixSocketConnectorName()).thenReturn("proxy");
+		when(configuration.getConnectorIdleTimeout()).thenReturn(15000);
+		when(configuration.getHttpSecurePort()).thenReturn(8443);
+		when(configuration.checkForwardedHeaders()).thenReturn(true);
+		when(factory.createUnixSocketConnector(any(Server.class), anyString(), anyString(), any(Integer.class),
+				anyInt(), any(Boolean.class))).thenReturn(connector);
+
+		new ServerControllerImpl(factory, null).configure(configuration);
+
+		verify(factory).createUnixSocketConnector(null, "proxy", "/run/pax-web/http.sock", 15000, 8443, true);
+		verify(server).addConnector(connector);
+	}
+
+	@Test
+	public void noUnixSocketConnectorWithoutPath() {
+		new ServerControllerImpl(factory, null).configure(configuration);
+
+		verify(factory, never()).createUnixSocketConnector(any(Server.class), anyString(), anyString(),
+				any(Integer.class), anyInt(), any(Boolean.class));
+	}
+
+	@Test
+	public void connectorFromJettyXmlIsKept() {
+		Connector configured = mock(Connector.class);
+		when(configured.getName()).thenReturn("unixSocket");
+		when(server.getConnectors()).thenReturn(new Connector[] { configured });
+		when(configuration.getListeningUnixSocket()).thenReturn("/run/pax-web/http.sock");
+		when(configuration.getListeningUnixSocketConnectorName()).thenReturn("unixSocket");
+
+		new ServerControllerImpl(factory, null).configure(configuration);
+
+		verify(factory, never()).createUnixSocketConnector(any(Server.class), anyString(), anyString(),
+				any(Integer.class), anyInt(), any(Boolean.class));
+	}
+
+	@Test
+	public void socketInUseDoesNotPreventStart() {
+		when(configuration.getListeningUnixSocket()).thenReturn("/run/pax-web/http.sock");
+		when(configuration.getListeningUnixSocketConnectorName()).thenReturn("unixSocket");
+		when(factory.createUnixSocketConnector(any(Server.class), anyString(), anyString(), any(Integer.class),
+				anyInt(), any(Boolean.class)))
+				.thenThrow(new IllegalStateException("Unix domain socket /run/pax-web/http.sock is in use"));
+
+		ServerControllerImpl controller = new ServerControllerImpl(factory, null);
+		controller.configure(configuration);
+
+		verify(server).start();
+		verify(server, never()).addConnector(any(Connector.class));
+	}
+
+}
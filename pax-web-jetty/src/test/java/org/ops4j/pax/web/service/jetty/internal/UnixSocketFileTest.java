@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.jetty.internal;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UnixSocketFileTest {
+
+	private Path dir;
+	private Path socket;
+
+	@Before
+	public void createDirectory() throws IOException {
+		// short path - socket paths are limited to ~100 characters
+		dir = Files.createTempDirectory("pw");
+		socket = dir.resolve("http.sock");
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		File[] files = dir.toFile().listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		Files.delete(dir);
+	}
+
+	@Test
+	public void missingSocketIsIgnored() {
+		UnixSocketFile.deleteIfStale(socket, s -> fail("nothing to probe"));
+		assertFalse(Files.exists(socket));
+	}
+
+	@Test
+	public void staleSocketIsRemoved() throws Exception {
+		UnixSocketFile.Probe probe = UnixSocketFile.jdkProbe();
+		assumeNotNull(probe);
+		// closing JDK server channel doesn't remove the file, just like killed process doesn't
+		bind(socket).close();
+		assertTrue(Files.exists(socket));
+
+		UnixSocketFile.deleteIfStale(socket, probe);
+		assertFalse(Files.exists(socket));
+	}
+
+	@Test
+	public void socketInUseIsNotTakenOver() throws Exception {
+		UnixSocketFile.Probe probe = UnixSocketFile.jdkProbe();
+		assumeNotNull(probe);
+		try (ServerSocketChannel server = bind(socket)) {
+			try {
+				UnixSocketFile.deleteIfStale(socket, probe);
+				fail("socket is in use");
+			} catch (IllegalStateException e) {
+				assertTrue(e.getMessage().contains("in use"));
+			}
+			assertTrue(Files.exists(socket));
+		}
+	}
+
+	@Test
+	public void otherFilesAreNeverRemoved() throws Exception {
+		Files.write(socket, new byte[] { 42 });
+		try {
+			UnixSocketFile.deleteIfStale(socket, s -> fail("regular file is not probed"));
+			fail("regular file can't be used as socket");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().contains("not a socket"));
+		}
+		assertTrue(Files.exists(socket));
+	}
+
+	@Test
+	public void socketIsKeptWhenProbeFails() throws Exception {
+		assumeNotNull(UnixSocketFile.jdkProbe());
+		bind(socket).close();
+		try {
+			UnixSocketFile.deleteIfStale(socket, s -> {
+				throw new IOException("Permission denied");
+			});
+			fail("socket can't be checked");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().contains("Permission denied"));
+		}
+		assertTrue(Files.exists(socket));
+	}
+
+	/**
+	 * Binds JDK 16+ Unix domain socket, using reflection to compile with older JDKs.
+	 */
+	private static ServerSocketChannel bind(Path path) throws Exception {
+		SocketAddress address = (SocketAddress) Class.forName("java.net.UnixDomainSocketAddress")
+				.getMethod("of", Path.class).invoke(null, path);
+		ServerSocketChannel server = (ServerSocketChannel) ServerSocketChannel.class
+				.getMethod("open", ProtocolFamily.class).invoke(null, StandardProtocolFamily.valueOf("UNIX"));
+		server.bind(address);
+		return server;
+	}
+
+}
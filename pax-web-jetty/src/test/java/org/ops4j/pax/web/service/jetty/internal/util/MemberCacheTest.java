@@ -0,0 +1,175 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.jetty.internal.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Collection;
+
+import org.junit.Test;
+
+public class MemberCacheTest {
+
+	@Test
+	public void settersAreResolvedByValueType() throws Exception {
+		Bean bean = new Bean();
+		MemberCache.set(Bean.class, bean, "name", "bean");
+		MemberCache.set(Bean.class, bean, "port", 8080);
+		MemberCache.set(Bean.class, bean, "timeout", (short) 5);
+		MemberCache.set(Bean.class, bean, "hosts", new String[] { "a", "b" });
+		MemberCache.set(Bean.class, bean, "flag", Boolean.TRUE);
+		assertEquals("bean", bean.name);
+		assertEquals(8080, bean.port);
+		assertEquals(5L, bean.timeout);
+		assertEquals(new HashSet<>(Arrays.asList("a", "b")), bean.hosts);
+		assertTrue(bean.flag);
+
+		// constructor conversion of String to int and null to non-primitive setter
+		MemberCache.set(Bean.class, bean, "port", "8181");
+		MemberCache.set(Bean.class, bean, "name", null);
+		assertEquals(8181, bean.port);
+		assertNull(bean.name);
+
+		try {
+			MemberCache.set(Bean.class, bean, "port", "not a number");
+			fail();
+		} catch (InvocationTargetException e) {
+			assertTrue(e.getCause() instanceof NumberFormatException);
+		}
+	}
+
+	@Test
+	public void missingMembersAreCached() throws Exception {
+		Bean bean = new Bean();
+		for (int i = 0; i < 2; i++) {
+			try {
+				MemberCache.set(Bean.class, bean, "unknown", "value");
+				fail();
+			} catch (NoSuchMethodException e) {
+				assertTrue(e.getMessage().endsWith("setUnknown(class java.lang.String)"));
+			}
+			try {
+				MemberCache.set(Bean.class, bean, "flag", 1);
+				fail();
+			} catch (NoSuchMethodException e) {
+				assertTrue(e.getMessage().endsWith("setFlag(int)"));
+			}
+			try {
+				MemberCache.get(Bean.class, bean, "unknown");
+				fail();
+			} catch (NoSuchMethodException e) {
+				assertTrue(e.getMessage().endsWith("getUnknown()"));
+			}
+		}
+		int size = MemberCache.size(Bean.class);
+		try {
+			MemberCache.call(Bean.class, bean, "add", new Object[] { "a", "b" });
+			fail();
+		} catch (NoSuchMethodException e) {
+			assertEquals("add", e.getMessage());
+		}
+		assertEquals(size + 1, MemberCache.size(Bean.class));
+	}
+
+	@Test
+	public void gettersAndMethodsAreResolved() throws Exception {
+		Bean bean = new Bean();
+		bean.port = 1;
+		assertEquals(1, MemberCache.get(Bean.class, bean, "port"));
+		assertEquals("field", MemberCache.get(Bean.class, bean, "field"));
+		assertEquals("static", MemberCache.get(Bean.class, null, "constant"));
+
+		assertEquals(3, MemberCache.call(Bean.class, bean, "add", new Object[] { 1, (byte) 2 }));
+		assertEquals("a1", MemberCache.call(Bean.class, bean, "join", new Object[] { "a", 1 }));
+		assertNull(MemberCache.call(Bean.class, bean, "reset", new Object[0]));
+		assertEquals(0, bean.port);
+		assertEquals("x", MemberCache.call(Bean.class, null, "echo", new Object[] { "x" }));
+
+		// static context doesn't see instance methods
+		try {
+			MemberCache.call(Bean.class, null, "reset", new Object[0]);
+			fail();
+		} catch (NoSuchMethodException e) {
+			assertFalse(e.getMessage().isEmpty());
+		}
+	}
+
+	public static class Bean {
+
+		public static final String CONSTANT = "static";
+
+		public String field = "field";
+
+		private String name;
+		private int port;
+		private long timeout;
+		private Collection<String> hosts;
+		private boolean flag;
+
+		public static String getConstant() {
+			return CONSTANT;
+		}
+
+		public static String echo(String value) {
+			return value;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getPort() {
+			return port;
+		}
+
+		public void setPort(int port) {
+			this.port = port;
+		}
+
+		public void setTimeout(long timeout) {
+			this.timeout = timeout;
+		}
+
+		public void setHosts(Collection<String> hosts) {
+			this.hosts = hosts;
+		}
+
+		public void setFlag(boolean flag) {
+			this.flag = flag;
+		}
+
+		public int add(int a, int b) {
+			return a + b;
+		}
+
+		public String join(String a, Object b) {
+			return a + b;
+		}
+
+		public void reset() {
+			port = 0;
+		}
+
+	}
+
+}
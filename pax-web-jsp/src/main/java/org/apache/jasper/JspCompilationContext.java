@@ -119,7 +119,11 @@ public class JspCompilationContext {
         // Pax-Web enhanced-on
         if (null == this.options.getTldCache()) {
             if (this.options instanceof EmbeddedServletOptions) {
-                ((EmbeddedServletOptions) this.options).setTldCache(TldCache.getInstance(context));
+                TldCache tldCache = TldCache.getInstance(context);
+                if (tldCache != null) {
+                    tldCache.setCheckInterval(this.options.getCheckInterval());
+                }
+                ((EmbeddedServletOptions) this.options).setTldCache(tldCache);
             }
         }
         // Pax-Web enhanced-off
@@ -19,9 +19,11 @@ package org.apache.jasper.compiler;
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLConnection;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.servlet.ServletContext;
 
@@ -38,6 +40,9 @@ import org.xml.sax.SAXException;
  * same TLD to be parsed for each JSP that references it. It does not protect
  * against multiple threads processing the same, new TLD but it does ensure that
  * each all threads will use the same TLD object after parsing.
+ *
+ * Pax Web: lookups are lock-free and checking whether the TLD was modified is
+ * done at most once per {@link #setCheckInterval(int) check interval}.
  */
 public class TldCache {
 
@@ -45,10 +50,11 @@ public class TldCache {
             TldCache.class.getName();
 
     private final ServletContext servletContext;
-    private final Map<String,TldResourcePath> uriTldResourcePathMap = new HashMap<>();
+    private final Map<String,TldResourcePath> uriTldResourcePathMap = new ConcurrentHashMap<>();
     private final Map<TldResourcePath,TaglibXmlCacheEntry> tldResourcePathTaglibXmlMap =
-            new HashMap<>();
+            new ConcurrentHashMap<>();
     private final TldParser tldParser;
+    private volatile long checkIntervalNanos = 0L;
 
 
     public static TldCache getInstance(ServletContext servletContext) {
@@ -69,7 +75,7 @@ public class TldCache {
             TldResourcePath tldResourcePath = entry.getKey();
             long lastModified[] = getLastModified(tldResourcePath);
             TaglibXmlCacheEntry cacheEntry = new TaglibXmlCacheEntry(
-                    entry.getValue(), lastModified[0], lastModified[1]);
+                    entry.getValue(), lastModified[0], lastModified[1], System.nanoTime());
             this.tldResourcePathTaglibXmlMap.put(tldResourcePath, cacheEntry);
         }
         boolean validate = Boolean.parseBoolean(
@@ -86,6 +92,18 @@ public class TldCache {
     }
 
 
+    /**
+     * Sets the interval (in seconds) between checks whether cached TLDs were modified.
+     * Pax Web passes {@code org.ops4j.pax.web.jsp.check.interval} here. With non-positive
+     * value, TLDs are checked on each lookup.
+     *
+     * @param checkInterval
+     */
+    public void setCheckInterval(int checkInterval) {
+        this.checkIntervalNanos = checkInterval > 0 ? TimeUnit.SECONDS.toNanos(checkInterval) : 0L;
+    }
+
+
     public TldResourcePath getTldResourcePath(String uri) {
         return uriTldResourcePathMap.get(uri);
     }
@@ -96,26 +114,32 @@ public class TldCache {
         if (cacheEntry == null) {
             return null;
         }
+        TaglibXmlState state = cacheEntry.getState();
+        long now = System.nanoTime();
+        long interval = checkIntervalNanos;
+        if (interval > 0L && now - state.getCheckedAt() < interval) {
+            return state.getTaglibXml();
+        }
+        // only the thread that successfully marks the entry as checked accesses
+        // the file system. Others use current TaglibXml without waiting
+        if (!cacheEntry.compareAndSet(state, state.checked(now))) {
+            return cacheEntry.getState().getTaglibXml();
+        }
         long lastModified[] = getLastModified(tldResourcePath);
-        if (lastModified[0] != cacheEntry.getWebAppPathLastModified() ||
-                lastModified[1] != cacheEntry.getEntryLastModified()) {
-            synchronized (cacheEntry) {
-                if (lastModified[0] != cacheEntry.getWebAppPathLastModified() ||
-                        lastModified[1] != cacheEntry.getEntryLastModified()) {
-                    // Re-parse TLD
-                    TaglibXml updatedTaglibXml;
-                    try {
-                        updatedTaglibXml = tldParser.parse(tldResourcePath);
-                    } catch (IOException | SAXException e) {
-                        throw new JasperException(e);
-                    }
-                    cacheEntry.setTaglibXml(updatedTaglibXml);
-                    cacheEntry.setWebAppPathLastModified(lastModified[0]);
-                    cacheEntry.setEntryLastModified(lastModified[1]);
-                }
+        if (lastModified[0] != state.getWebAppPathLastModified() ||
+                lastModified[1] != state.getEntryLastModified()) {
+            // Re-parse TLD
+            TaglibXml updatedTaglibXml;
+            try {
+                updatedTaglibXml = tldParser.parse(tldResourcePath);
+            } catch (IOException | SAXException e) {
+                throw new JasperException(e);
             }
+            cacheEntry.setState(new TaglibXmlState(updatedTaglibXml,
+                    lastModified[0], lastModified[1], now));
+            return updatedTaglibXml;
         }
-        return cacheEntry.getTaglibXml();
+        return state.getTaglibXml();
     }
 
 
@@ -150,39 +174,63 @@ public class TldCache {
     }
 
     private static class TaglibXmlCacheEntry {
-        private volatile TaglibXml taglibXml;
-        private volatile long webAppPathLastModified;
-        private volatile long entryLastModified;
+        private final AtomicReference<TaglibXmlState> state;
 
         public TaglibXmlCacheEntry(TaglibXml taglibXml, long webAppPathLastModified,
-                long entryLastModified) {
+                long entryLastModified, long checkedAt) {
+            this.state = new AtomicReference<>(new TaglibXmlState(taglibXml,
+                    webAppPathLastModified, entryLastModified, checkedAt));
+        }
+
+        public TaglibXmlState getState() {
+            return state.get();
+        }
+
+        public void setState(TaglibXmlState state) {
+            this.state.set(state);
+        }
+
+        public boolean compareAndSet(TaglibXmlState expected, TaglibXmlState updated) {
+            return state.compareAndSet(expected, updated);
+        }
+    }
+
+    /**
+     * Immutable snapshot of cached TLD together with modification times and
+     * the time of last check.
+     */
+    private static class TaglibXmlState {
+        private final TaglibXml taglibXml;
+        private final long webAppPathLastModified;
+        private final long entryLastModified;
+        private final long checkedAt;
+
+        public TaglibXmlState(TaglibXml taglibXml, long webAppPathLastModified,
+                long entryLastModified, long checkedAt) {
             this.taglibXml = taglibXml;
             this.webAppPathLastModified = webAppPathLastModified;
             this.entryLastModified = entryLastModified;
+            this.checkedAt = checkedAt;
         }
 
-        public TaglibXml getTaglibXml() {
-            return taglibXml;
+        public TaglibXmlState checked(long checkedAt) {
+            return new TaglibXmlState(taglibXml, webAppPathLastModified, entryLastModified, checkedAt);
         }
 
-        public void setTaglibXml(TaglibXml taglibXml) {
-            this.taglibXml = taglibXml;
+        public TaglibXml getTaglibXml() {
+            return taglibXml;
         }
 
         public long getWebAppPathLastModified() {
             return webAppPathLastModified;
         }
 
-        public void setWebAppPathLastModified(long webAppPathLastModified) {
-            this.webAppPathLastModified = webAppPathLastModified;
-        }
-
         public long getEntryLastModified() {
             return entryLastModified;
         }
 
-        public void setEntryLastModified(long entryLastModified) {
-            this.entryLastModified = entryLastModified;
+        public long getCheckedAt() {
+            return checkedAt;
         }
     }
 }
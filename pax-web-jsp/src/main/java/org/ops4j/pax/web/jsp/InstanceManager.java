@@ -19,16 +19,15 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.security.AccessController;
+import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.WeakHashMap;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -43,7 +42,19 @@ public class InstanceManager implements org.apache.tomcat.InstanceManager {
 
 	private final Properties restrictedFilters = new Properties();
 	private final Properties restrictedListeners = new Properties();
-	private final Map<Class<?>, List<AnnotationCacheEntry>> annotationCache = new WeakHashMap<>();
+
+	/**
+	 * Lock-free cache of lifecycle annotation metadata for declared methods of given class. Values are bound
+	 * to the lifecycle of the {@link Class} itself, so there's no need for weak map and global monitor.
+	 * {@link Method methods} are already made accessible when stored. The metadata is filled only for classes
+	 * instantiated through an instance manager - for other classes {@link #preDestroy(Object, Class)} does nothing.
+	 */
+	private static final ClassValue<AnnotationCache> ANNOTATION_CACHE = new ClassValue<AnnotationCache>() {
+		@Override
+		protected AnnotationCache computeValue(Class<?> type) {
+			return new AnnotationCache();
+		}
+	};
 
 	@Override
 	public Object newInstance(String className) throws IllegalAccessException,
@@ -112,25 +123,14 @@ public class InstanceManager implements org.apache.tomcat.InstanceManager {
 			preDestroy(instance, superClass);
 		}
 
-		// At the end the postconstruct annotated
-		// method is invoked
-		List<AnnotationCacheEntry> annotations = null;
-		synchronized (annotationCache) {
-			annotations = annotationCache.get(clazz);
-		}
+		List<AnnotationCacheEntry> annotations = ANNOTATION_CACHE.get(clazz).annotations;
 		if (annotations == null) {
 			// instance not created through the instance manager
 			return;
 		}
 		for (AnnotationCacheEntry entry : annotations) {
 			if (entry.getType() == AnnotationCacheEntryType.PRE_DESTROY) {
-				Method preDestroy = getMethod(clazz, entry);
-				synchronized (preDestroy) {
-					boolean accessibility = preDestroy.isAccessible();
-					preDestroy.setAccessible(true);
-					preDestroy.invoke(instance);
-					preDestroy.setAccessible(accessibility);
-				}
+				entry.getMethod().invoke(instance);
 			}
 		}
 	}
@@ -150,63 +150,10 @@ public class InstanceManager implements org.apache.tomcat.InstanceManager {
 			InvocationTargetException {
 
 		while (clazz != null) {
-			List<AnnotationCacheEntry> annotations = null;
-			synchronized (annotationCache) {
-				annotations = annotationCache.get(clazz);
-			}
-			if (annotations == null) {
-				annotations = new ArrayList<>();
-
-				// Initialize methods annotations
-				Method[] methods = null;
-				methods = clazz.getDeclaredMethods();
-
-				Method postConstruct = null;
-				Method preDestroy = null;
-				for (Method method : methods) {
-
-					if (method.isAnnotationPresent(PostConstruct.class)) {
-						if ((postConstruct != null)
-								|| (method.getParameterTypes().length != 0)
-								|| (Modifier.isStatic(method.getModifiers()))
-								|| (method.getExceptionTypes().length > 0)
-								|| (!method.getReturnType().getName()
-								.equals("void"))) {
-							throw new IllegalArgumentException(
-									"Invalid PostConstruct annotation");
-						}
-						postConstruct = method;
-					}
-
-					if (method.isAnnotationPresent(PreDestroy.class)) {
-						if ((preDestroy != null || method.getParameterTypes().length != 0)
-								|| (Modifier.isStatic(method.getModifiers()))
-								|| (method.getExceptionTypes().length > 0)
-								|| (!method.getReturnType().getName()
-								.equals("void"))) {
-							throw new IllegalArgumentException(
-									"Invalid PreDestroy annotation");
-						}
-						preDestroy = method;
-					}
-				}
-				if (postConstruct != null) {
-					annotations.add(new AnnotationCacheEntry(postConstruct
-							.getName(), postConstruct.getParameterTypes(),
-							null, AnnotationCacheEntryType.POST_CONSTRUCT));
-				}
-				if (preDestroy != null) {
-					annotations.add(new AnnotationCacheEntry(preDestroy
-							.getName(), preDestroy.getParameterTypes(), null,
-							AnnotationCacheEntryType.PRE_DESTROY));
-				}
-				if (annotations.size() == 0) {
-					// Use common empty list to save memory
-					annotations = Collections.emptyList();
-				}
-				synchronized (annotationCache) {
-					annotationCache.put(clazz, annotations);
-				}
+			AnnotationCache cache = ANNOTATION_CACHE.get(clazz);
+			if (cache.annotations == null) {
+				// concurrent computations give the same result
+				cache.annotations = findAnnotations(clazz);
 			}
 			// CHECKSTYLE:OFF
 			clazz = clazz.getSuperclass();
@@ -215,12 +162,77 @@ public class InstanceManager implements org.apache.tomcat.InstanceManager {
 	}
 
 	/**
-	 * Makes cache size available to unit tests.
+	 * Finds {@link PostConstruct} and {@link PreDestroy} methods declared in given class.
+	 *
+	 * @param clazz class to examine
+	 * @return list of annotation cache entries (with accessible methods)
+	 */
+	private static List<AnnotationCacheEntry> findAnnotations(Class<?> clazz) {
+		Method postConstruct = null;
+		Method preDestroy = null;
+		for (Method method : clazz.getDeclaredMethods()) {
+
+			if (method.isAnnotationPresent(PostConstruct.class)) {
+				if ((postConstruct != null)
+						|| (method.getParameterTypes().length != 0)
+						|| (Modifier.isStatic(method.getModifiers()))
+						|| (method.getExceptionTypes().length > 0)
+						|| (!method.getReturnType().getName()
+						.equals("void"))) {
+					throw new IllegalArgumentException(
+							"Invalid PostConstruct annotation");
+				}
+				postConstruct = method;
+			}
+
+			if (method.isAnnotationPresent(PreDestroy.class)) {
+				if ((preDestroy != null || method.getParameterTypes().length != 0)
+						|| (Modifier.isStatic(method.getModifiers()))
+						|| (method.getExceptionTypes().length > 0)
+						|| (!method.getReturnType().getName()
+						.equals("void"))) {
+					throw new IllegalArgumentException(
+							"Invalid PreDestroy annotation");
+				}
+				preDestroy = method;
+			}
+		}
+
+		if (postConstruct == null && preDestroy == null) {
+			// Use common empty list to save memory
+			return Collections.emptyList();
+		}
+		List<AnnotationCacheEntry> annotations = new ArrayList<>(2);
+		if (postConstruct != null) {
+			annotations.add(new AnnotationCacheEntry(makeAccessible(postConstruct),
+					AnnotationCacheEntryType.POST_CONSTRUCT));
+		}
+		if (preDestroy != null) {
+			annotations.add(new AnnotationCacheEntry(makeAccessible(preDestroy),
+					AnnotationCacheEntryType.PRE_DESTROY));
+		}
+		return Collections.unmodifiableList(annotations);
+	}
+
+	/**
+	 * Accessibility is set once, when the method is cached - not for each invocation.
+	 *
+	 * @param method method to make accessible
+	 * @return the same method
 	 */
-	protected int getAnnotationCacheSize() {
-		synchronized (annotationCache) {
-			return annotationCache.size();
+	private static Method makeAccessible(final Method method) {
+		if (System.getSecurityManager() != null) {
+			AccessController.doPrivileged(new PrivilegedAction<Void>() {
+				@Override
+				public Void run() {
+					method.setAccessible(true);
+					return null;
+				}
+			});
+		} else {
+			method.setAccessible(true);
 		}
+		return method;
 	}
 
 	protected Class<?> loadClassMaybePrivileged(final String className,
@@ -282,42 +294,21 @@ public class InstanceManager implements org.apache.tomcat.InstanceManager {
 		return name.toString();
 	}
 
-	private static Method getMethod(final Class<?> clazz,
-									final AnnotationCacheEntry entry) {
-		Method result = null;
-
-		try {
-			result = clazz.getDeclaredMethod(entry.getAccessibleObjectName(),
-					entry.getParamTypes());
-		} catch (NoSuchMethodException e) {
-			// Should never happen. On that basis don't log it.
-		}
-		return result;
+	private static final class AnnotationCache {
+		private volatile List<AnnotationCacheEntry> annotations;
 	}
 
 	private static final class AnnotationCacheEntry {
-		private final String accessibleObjectName;
-		private final Class<?>[] paramTypes;
+		private final Method method;
 		private final AnnotationCacheEntryType type;
 
-		public AnnotationCacheEntry(String accessibleObjectName,
-									Class<?>[] paramTypes, String name,
-									AnnotationCacheEntryType type) {
-			this.accessibleObjectName = accessibleObjectName;
-			if (paramTypes != null) {
-				this.paramTypes = Arrays.copyOf(paramTypes, paramTypes.length);
-			} else {
-				this.paramTypes = null;
-			}
+		AnnotationCacheEntry(Method method, AnnotationCacheEntryType type) {
+			this.method = method;
 			this.type = type;
 		}
 
-		public String getAccessibleObjectName() {
-			return accessibleObjectName;
-		}
-
-		public Class<?>[] getParamTypes() {
-			return paramTypes;
+		public Method getMethod() {
+			return method;
 		}
 
 		public AnnotationCacheEntryType getType() {
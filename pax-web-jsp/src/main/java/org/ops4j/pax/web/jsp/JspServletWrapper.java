@@ -138,35 +138,24 @@ public class JspServletWrapper implements Servlet {
 	@Override
 	public void service(final ServletRequest req, final ServletResponse res)
 			throws ServletException, IOException {
-		if (jspFile != null) {
+		if (jspFile != null
+				&& !jspFile.equals(req.getAttribute(RequestDispatcher.INCLUDE_SERVLET_PATH))) {
 			req.setAttribute(RequestDispatcher.INCLUDE_SERVLET_PATH, jspFile);
 		}
-		String includeRequestUri = (String) req
-				.getAttribute(RequestDispatcher.INCLUDE_REQUEST_URI);
-
-		if (includeRequestUri != null) {
+		if (req.getAttribute(RequestDispatcher.INCLUDE_REQUEST_URI) != null) {
 			req.removeAttribute(RequestDispatcher.INCLUDE_REQUEST_URI);
 		}
 
+		// TCCL is swapped inline - this is the hot path and we don't want to
+		// allocate a Callable (and wrap/unwrap exceptions) for each request
+		final Thread thread = Thread.currentThread();
+		final ClassLoader previous = thread.getContextClassLoader();
+		thread.setContextClassLoader(jasperClassLoader);
 		try {
-			ContextClassLoaderUtils.doWithClassLoader(jasperClassLoader,
-					new Callable<Void>() {
-
-						@Override
-						public Void call() throws Exception {
-							jasperServlet.service(req, res);
-							return null;
-						}
-
-					});
-		} catch (ServletException | IOException e) {
-			// re-thrown
-			throw e;
-		} catch (Exception ignore) {
-			// ignored as it should never happen
-			LOG.error("Ignored exception", ignore);
+			jasperServlet.service(req, res);
+		} finally {
+			thread.setContextClassLoader(previous);
 		}
-		//CHECKSTYLE:ON
 	}
 
 	/**
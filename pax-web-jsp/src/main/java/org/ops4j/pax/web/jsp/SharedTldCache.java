@@ -0,0 +1,199 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.jsp;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.tomcat.util.descriptor.tld.TaglibXml;
+import org.apache.tomcat.util.descriptor.tld.TldResourcePath;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.SynchronousBundleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * <p>Framework-wide cache of {@link TaglibXml} parsed from TLDs found in bundles (like JSTL or JSF
+ * implementation bundles). Such TLDs are visible to many web applications and there's no need to parse
+ * them again for each context that's being started.</p>
+ *
+ * <p>Entries are keyed by TLD URL and {@link TldParser#getSettings() parser settings} (a context validating
+ * TLDs or blocking external entities doesn't get a TLD parsed without these settings) and carry the revision (id and last modification time) of the bundle
+ * providing the TLD. Entries for updated, unresolved or uninstalled bundles are removed and an entry whose
+ * revision doesn't match the current bundle is never returned.</p>
+ *
+ * <p>When pax-web-jsp bundle stops, the cache is cleared and the listener is registered again after the bundle
+ * is started again.</p>
+ */
+final class SharedTldCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SharedTldCache.class);
+
+	private static final ConcurrentMap<String, Entry> CACHE = new ConcurrentHashMap<>();
+
+	private static final AtomicBoolean LISTENER_REGISTERED = new AtomicBoolean(false);
+	private static final Object LISTENER_LOCK = new Object();
+
+	private SharedTldCache() {
+	}
+
+	/**
+	 * Returns parsed TLD from a bundle - either already cached or freshly parsed using passed {@link TldParser}.
+	 *
+	 * @param bundle bundle providing the TLD
+	 * @param path TLD resource path (with bundle URL)
+	 * @param parser parser used when there's no up-to-date cached entry
+	 * @return parsed TLD
+	 * @throws IOException
+	 * @throws SAXException
+	 */
+	static TaglibXml getTaglibXml(Bundle bundle, TldResourcePath path, TldParser parser)
+			throws IOException, SAXException {
+		registerListener();
+
+		URL url = path.getUrl();
+		String key = parser.getSettings() + " " + url.toExternalForm();
+		long bundleId = bundle.getBundleId();
+		long revision = bundle.getLastModified();
+
+		Entry entry = CACHE.get(key);
+		if (entry != null && entry.bundleId == bundleId && entry.revision == revision) {
+			LOG.debug("Using cached TLD {}", url);
+			return entry.taglibXml;
+		}
+
+		TaglibXml taglibXml = parser.parse(path);
+		CACHE.put(key, new Entry(bundleId, revision, taglibXml));
+		return taglibXml;
+	}
+
+	/**
+	 * Removes all entries provided by given bundle.
+	 *
+	 * @param bundleId id of bundle which was updated or uninstalled
+	 */
+	static void invalidate(long bundleId) {
+		for (Iterator<Entry> it = CACHE.values().iterator(); it.hasNext();) {
+			if (it.next().bundleId == bundleId) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Clears the cache and forgets the listener - called when pax-web-jsp bundle is stopping (its listener is
+	 * then removed by the framework).
+	 */
+	static void reset() {
+		synchronized (LISTENER_LOCK) {
+			LISTENER_REGISTERED.set(false);
+			CACHE.clear();
+		}
+	}
+
+	/**
+	 * Number of cached TLDs.
+	 *
+	 * @return number of cached TLDs
+	 */
+	static int size() {
+		return CACHE.size();
+	}
+
+	/**
+	 * When running inside OSGi framework, registers (once per start of pax-web-jsp bundle) a listener that
+	 * invalidates TLDs of updated bundles. If pax-web-jsp bundle is not active yet, registration is attempted
+	 * again with next lookup.
+	 */
+	private static void registerListener() {
+		if (LISTENER_REGISTERED.get()) {
+			return;
+		}
+		synchronized (LISTENER_LOCK) {
+			if (LISTENER_REGISTERED.get()) {
+				return;
+			}
+			Bundle jspBundle = FrameworkUtil.getBundle(SharedTldCache.class);
+			if (jspBundle == null) {
+				// not running in OSGi - revision check is enough
+				LISTENER_REGISTERED.set(true);
+				return;
+			}
+			BundleContext context = jspBundle.getBundleContext();
+			if (context == null) {
+				// pax-web-jsp bundle is not active
+				return;
+			}
+			try {
+				context.addBundleListener(new Invalidator(jspBundle.getBundleId()));
+				LISTENER_REGISTERED.set(true);
+			} catch (IllegalStateException e) {
+				LOG.debug("Can't register bundle listener for TLD cache invalidation: {}", e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Invalidates TLDs of updated bundles and resets the cache when pax-web-jsp bundle stops.
+	 */
+	static final class Invalidator implements SynchronousBundleListener {
+
+		private final long jspBundleId;
+
+		Invalidator(long jspBundleId) {
+			this.jspBundleId = jspBundleId;
+		}
+
+		@Override
+		public void bundleChanged(BundleEvent event) {
+			switch (event.getType()) {
+				case BundleEvent.STOPPING:
+					if (event.getBundle().getBundleId() == jspBundleId) {
+						reset();
+					}
+					break;
+				case BundleEvent.UPDATED:
+				case BundleEvent.UNRESOLVED:
+				case BundleEvent.UNINSTALLED:
+					invalidate(event.getBundle().getBundleId());
+					break;
+				default:
+					break;
+			}
+		}
+	}
+
+	private static final class Entry {
+		private final long bundleId;
+		private final long revision;
+		private final TaglibXml taglibXml;
+
+		Entry(long bundleId, long revision, TaglibXml taglibXml) {
+			this.bundleId = bundleId;
+			this.revision = revision;
+			this.taglibXml = taglibXml;
+		}
+	}
+
+}
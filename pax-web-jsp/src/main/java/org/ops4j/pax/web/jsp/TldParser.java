@@ -40,6 +40,7 @@ import org.xml.sax.SAXException;
 public class TldParser {
     private final Log log = LogFactory.getLog(TldParser.class); // must not be static
     private final Digester digester;
+    private final String settings;
 
     public TldParser(boolean namespaceAware, boolean validation,
             boolean blockExternal) {
@@ -50,6 +51,18 @@ public class TldParser {
             boolean blockExternal) {
         digester = DigesterFactory.newDigester(
                 validation, namespaceAware, ruleSet, blockExternal);
+        settings = ruleSet.getClass().getName() + ";namespaceAware=" + namespaceAware
+                + ";validation=" + validation + ";blockExternal=" + blockExternal;
+    }
+
+    /**
+     * Returns the settings which affect the result of parsing. {@link TaglibXml} parsed by one parser may be
+     * reused by another parser only if both have the same settings.
+     *
+     * @return parser settings
+     */
+    String getSettings() {
+        return settings;
     }
 
     public TaglibXml parse(TldResourcePath path) throws IOException, SAXException {
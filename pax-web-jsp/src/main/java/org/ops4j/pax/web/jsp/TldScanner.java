@@ -268,7 +268,7 @@ public class TldScanner {
                         LOG.info("found TLD {}", url);
                         TldResourcePath tldResourcePath = new TldResourcePath(url, null, null);
                         try {
-                            parseTld(tldResourcePath);
+                            parseTld(tldResourcePath, bundle);
                         } catch (SAXException e) {
                             throw new IOException(e);
                         }
@@ -293,11 +293,24 @@ public class TldScanner {
     }
 
     protected void parseTld(TldResourcePath path) throws IOException, SAXException {
+        parseTld(path, null);
+    }
+
+    /**
+     * Parses TLD. When the TLD comes from a bundle, parsed {@link TaglibXml} is shared with other contexts
+     * that can see the same bundle.
+     *
+     * @param path
+     * @param bundle bundle providing the TLD or {@code null} for TLDs from web application itself
+     * @throws IOException
+     * @throws SAXException
+     */
+    protected void parseTld(TldResourcePath path, Bundle bundle) throws IOException, SAXException {
         if (tldResourcePathTaglibXmlMap.containsKey(path)) {
             // TLD has already been parsed as a result of processing web.xml
             return;
         }
-        TaglibXml tld = tldParser.parse(path);
+        TaglibXml tld = bundle == null ? tldParser.parse(path) : SharedTldCache.getTaglibXml(bundle, path, tldParser);
         String uri = tld.getUri();
         if (uri != null) {
             if (!uriTldResourcePathMap.containsKey(uri)) {
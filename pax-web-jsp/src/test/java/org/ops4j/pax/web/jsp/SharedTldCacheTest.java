@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.jsp;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.net.URL;
+
+import org.apache.tomcat.util.descriptor.tld.TaglibXml;
+import org.apache.tomcat.util.descriptor.tld.TldResourcePath;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleEvent;
+
+public class SharedTldCacheTest {
+
+	@Test
+	public void contextsWithSameSettingsShareParsedTld() throws Exception {
+		TldResourcePath path = path("shared");
+		Bundle bundle = bundle(1L, 100L);
+		CountingParser first = new CountingParser(true, false, false);
+		CountingParser second = new CountingParser(true, false, false);
+
+		TaglibXml tld = SharedTldCache.getTaglibXml(bundle, path, first);
+		assertSame(tld, SharedTldCache.getTaglibXml(bundle, path, second));
+		assertEquals(1, first.parsed);
+		assertEquals(0, second.parsed);
+	}
+
+	@Test
+	public void parserSettingsArePartOfTheKey() throws Exception {
+		TldResourcePath path = path("settings");
+		Bundle bundle = bundle(2L, 100L);
+		CountingParser plain = new CountingParser(true, false, false);
+		CountingParser validating = new CountingParser(true, true, false);
+		CountingParser blocking = new CountingParser(true, false, true);
+
+		TaglibXml tld = SharedTldCache.getTaglibXml(bundle, path, plain);
+		TaglibXml validated = SharedTldCache.getTaglibXml(bundle, path, validating);
+		TaglibXml blocked = SharedTldCache.getTaglibXml(bundle, path, blocking);
+		assertNotSame(tld, validated);
+		assertNotSame(tld, blocked);
+		assertNotSame(validated, blocked);
+		assertEquals(1, plain.parsed);
+		assertEquals(1, validating.parsed);
+		assertEquals(1, blocking.parsed);
+
+		// each variant is cached separately
+		assertSame(validated, SharedTldCache.getTaglibXml(bundle, path, new CountingParser(true, true, false)));
+		assertSame(tld, SharedTldCache.getTaglibXml(bundle, path, plain));
+		assertEquals(1, plain.parsed);
+	}
+
+	@Test
+	public void updatedBundleIsParsedAgain() throws Exception {
+		TldResourcePath path = path("updated");
+		CountingParser parser = new CountingParser(true, false, false);
+
+		TaglibXml tld = SharedTldCache.getTaglibXml(bundle(3L, 100L), path, parser);
+		assertNotSame(tld, SharedTldCache.getTaglibXml(bundle(3L, 200L), path, parser));
+		assertEquals(2, parser.parsed);
+
+		SharedTldCache.invalidate(3L);
+		SharedTldCache.getTaglibXml(bundle(3L, 200L), path, parser);
+		assertEquals(3, parser.parsed);
+	}
+
+	@Test
+	public void cacheIsClearedWhenJspBundleStops() throws Exception {
+		TldResourcePath path = path("stopped");
+		Bundle bundle = bundle(4L, 100L);
+		CountingParser parser = new CountingParser(true, false, false);
+		SharedTldCache.Invalidator invalidator = new SharedTldCache.Invalidator(5L);
+
+		SharedTldCache.getTaglibXml(bundle, path, parser);
+		// other bundles stopping don't matter
+		invalidator.bundleChanged(new BundleEvent(BundleEvent.STOPPING, bundle));
+		SharedTldCache.getTaglibXml(bundle, path, parser);
+		assertEquals(1, parser.parsed);
+
+		invalidator.bundleChanged(new BundleEvent(BundleEvent.STOPPING, bundle(5L, 100L)));
+		assertEquals(0, SharedTldCache.size());
+		SharedTldCache.getTaglibXml(bundle, path, parser);
+		assertEquals(2, parser.parsed);
+	}
+
+	private static TldResourcePath path(String name) throws Exception {
+		return new TldResourcePath(new URL("file:/bundles/" + name + "/META-INF/taglib.tld"), null);
+	}
+
+	private static Bundle bundle(long id, long lastModified) {
+		Bundle bundle = createMock(Bundle.class);
+		expect(bundle.getBundleId()).andReturn(id).anyTimes();
+		expect(bundle.getLastModified()).andReturn(lastModified).anyTimes();
+		replay(bundle);
+		return bundle;
+	}
+
+	private static class CountingParser extends TldParser {
+		private int parsed;
+
+		CountingParser(boolean namespaceAware, boolean validation, boolean blockExternal) {
+			super(namespaceAware, validation, blockExternal);
+		}
+
+		@Override
+		public TaglibXml parse(TldResourcePath path) {
+			parsed++;
+			return new TaglibXml();
+		}
+	}
+
+}
@@ -16,6 +16,7 @@
  */
 package org.ops4j.pax.web.resources.api.query;
 
+import java.util.Collection;
 import java.util.Optional;
 
 import org.ops4j.pax.web.resources.api.OsgiResourceLocator;
@@ -38,4 +39,15 @@ public interface ResourceQueryMatcher {
 	 */
 	<R extends ResourceQueryResult> Optional<R> matches(String resourcePath);
 
+	/**
+	 * Allows an {@link OsgiResourceLocator} with sorted index to call {@link #matches(String)} only for
+	 * resources which can match at all.
+	 *
+	 * @return prefixes of the resource paths (as passed to {@link #matches(String)}) which may match this query
+	 * or {@code null} if every resource has to be checked
+	 */
+	default Collection<String> getResourcePathPrefixes() {
+		return null;
+	}
+
 }
@@ -23,13 +23,16 @@ import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.apache.commons.lang3.StringUtils;
 import org.ops4j.pax.web.resources.api.OsgiResourceLocator;
@@ -55,6 +58,10 @@ import org.slf4j.LoggerFactory;
  * the map is already used, the old value will be moved to a separated
  * collection, until the overriding bundle is stopped.
  * </p>
+ * <p>
+ * The map is sorted, so queries with known path prefixes (like JSF library lookups)
+ * are range scans instead of checking every resource.
+ * </p>
  *
  * @author Marc Schlegel
  */
@@ -68,9 +75,6 @@ public class IndexedOsgiResourceLocator implements OsgiResourceLocator {
 	private ResourceBundleIndex index;
 	private transient Logger logger;
 
-
-	private List<ResourceBundleIndexEntry> shadowedMap = new CopyOnWriteArrayList<>();
-
 	public IndexedOsgiResourceLocator(BundleContext context) {
 		this.logger = LoggerFactory.getLogger(getClass());
 		this.context = context;
@@ -87,14 +91,12 @@ public class IndexedOsgiResourceLocator implements OsgiResourceLocator {
 			urls = Collections.emptyList();
 		}
 
-		urls.forEach(url -> index.addResourceToIndex(
-				url.getPath(),
-				new ResourceInfo(url, LocalDateTime.ofInstant(
-						Instant.ofEpochMilli(
-								bundle.getLastModified()),
-						ZoneId.systemDefault()),
-						bundle.getBundleId()),
-				bundle));
+		final LocalDateTime lastModified = LocalDateTime.ofInstant(
+				Instant.ofEpochMilli(bundle.getLastModified()),
+				ZoneId.systemDefault());
+		Map<String, ResourceInfo> resources = new LinkedHashMap<>(urls.size());
+		urls.forEach(url -> resources.put(url.getPath(), new ResourceInfo(url, lastModified, bundle.getBundleId())));
+		index.addResourcesToIndex(resources, bundle);
 
 		logger.info("Bundle '{}' scanned for resources in '{}': {} entries added to index.",
 				new Object[]{bundle.getSymbolicName(),
@@ -143,27 +145,40 @@ public class IndexedOsgiResourceLocator implements OsgiResourceLocator {
 		return workPath;
 	}
 
+	/**
+	 * Index of resources sorted by lookup path, so queries providing
+	 * {@link ResourceQueryMatcher#getResourcePathPrefixes() path prefixes} check only matching ranges.
+	 * Changes are published as new immutable snapshot, so lookups never lock.
+	 */
 	private class ResourceBundleIndex {
 
-		private Map<String, ResourceBundleIndexEntry> indexMap = new ConcurrentHashMap<>(100);
+		private volatile NavigableMap<String, ResourceBundleIndexEntry> indexMap = Collections.emptyNavigableMap();
 
-		private void addResourceToIndex(String lookupPath, ResourceInfo resourceInfo, Bundle bundleWithResource) {
-			if (StringUtils.isBlank(lookupPath) || resourceInfo == null || bundleWithResource == null) {
-				return;
-			}
-			if (indexMap.containsKey(lookupPath)) {
-				ResourceBundleIndexEntry entry = indexMap.get(lookupPath);
-				Bundle currentlyProvidingBundle = context.getBundle(entry.getResourceInfo().getBundleId());
-				logger.warn(
-						"Resource with path '{}' is already provided by bundle '{}'! Will be overridden by bundle '{}'",
-						new Object[]{
-								lookupPath,
-								currentlyProvidingBundle.getSymbolicName(),
-								bundleWithResource.getSymbolicName()});
-				shadowedMap.add(indexMap.get(lookupPath));
-			}
-			indexMap.put(lookupPath,
-					new ResourceBundleIndexEntry(lookupPath, resourceInfo));
+		/**
+		 * Overridden entries for given lookup path - last element was overridden most recently. Used only
+		 * when modifying the index.
+		 */
+		private final Map<String, List<ResourceBundleIndexEntry>> shadowedMap = new HashMap<>();
+
+		private synchronized void addResourcesToIndex(Map<String, ResourceInfo> resources, Bundle bundleWithResources) {
+			NavigableMap<String, ResourceBundleIndexEntry> newIndex = new TreeMap<>(indexMap);
+			resources.forEach((lookupPath, resourceInfo) -> {
+				if (StringUtils.isBlank(lookupPath) || resourceInfo == null) {
+					return;
+				}
+				ResourceBundleIndexEntry entry = newIndex.put(lookupPath, new ResourceBundleIndexEntry(lookupPath, resourceInfo));
+				if (entry != null) {
+					Bundle currentlyProvidingBundle = context.getBundle(entry.getResourceInfo().getBundleId());
+					logger.warn(
+							"Resource with path '{}' is already provided by bundle '{}'! Will be overridden by bundle '{}'",
+							new Object[]{
+									lookupPath,
+									currentlyProvidingBundle.getSymbolicName(),
+									bundleWithResources.getSymbolicName()});
+					shadowedMap.computeIfAbsent(lookupPath, path -> new ArrayList<>(2)).add(entry);
+				}
+			});
+			indexMap = Collections.unmodifiableNavigableMap(newIndex);
 		}
 
 		private ResourceInfo getResourceInfo(String lookupPath) {
@@ -171,10 +186,29 @@ public class IndexedOsgiResourceLocator implements OsgiResourceLocator {
 			return entry != null ? entry.getResourceInfo() : null;
 		}
 
-
 		private <R extends ResourceQueryResult, Q extends ResourceQueryMatcher> Collection<R> findResources(Q query) {
+			NavigableMap<String, ResourceBundleIndexEntry> snapshot = indexMap;
 			List<R> resultList = new ArrayList<>();
-			for (Entry<String, ResourceBundleIndexEntry> entry : indexMap.entrySet()) {
+			Collection<String> prefixes = query.getResourcePathPrefixes();
+			if (prefixes == null) {
+				findResources(query, snapshot, resultList);
+			} else {
+				String previous = null;
+				for (String prefix : new TreeSet<>(prefixes)) {
+					if (previous != null && prefix.startsWith(previous)) {
+						// already checked by the range of shorter prefix
+						continue;
+					}
+					previous = prefix;
+					findResources(query, snapshot.subMap(prefix, true, prefix + Character.MAX_VALUE, false), resultList);
+				}
+			}
+			return Collections.unmodifiableCollection(resultList);
+		}
+
+		private <R extends ResourceQueryResult, Q extends ResourceQueryMatcher> void findResources(Q query,
+				Map<String, ResourceBundleIndexEntry> entries, List<R> resultList) {
+			for (Entry<String, ResourceBundleIndexEntry> entry : entries.entrySet()) {
 				Optional<R> isQueryResult = query.matches(entry.getKey());
 				if (isQueryResult.isPresent()) {
 					R queryResult = isQueryResult.get();
@@ -182,33 +216,47 @@ public class IndexedOsgiResourceLocator implements OsgiResourceLocator {
 					resultList.add(queryResult);
 				}
 			}
-			return Collections.unmodifiableCollection(resultList);
 		}
 
-
-		private void cleanBundleFromIndex(final Bundle bundle) {
+		private synchronized void cleanBundleFromIndex(final Bundle bundle) {
 			final long removedBundleId = bundle.getBundleId();
-			// We first have to collect all necessary entries from the
-			// indexMap as well as the shadowedMap into a separated list in
-			// order to avoid concurrent-modifications.
-			// This is especially important when using streams, because the
-			// underlying backing-collection must not be modified while the
-			// stream is open (same applies to iterators)
-			List<ResourceBundleIndexEntry> entriesToBeRemoved = indexMap.values().stream()
-					.filter(indexEntry -> indexEntry.getResourceInfo().getBundleId() == removedBundleId).collect(Collectors.toList());
-			List<ResourceBundleIndexEntry> entriesToBeRevoked = shadowedMap.stream()
-					.filter(shadowedEntry -> indexMap.containsKey(shadowedEntry.getLookupPath()))
-					.collect(Collectors.toList());
+			NavigableMap<String, ResourceBundleIndexEntry> newIndex = new TreeMap<>(indexMap);
+
+			// resources of stopped bundle can't be revoked later
+			for (Iterator<List<ResourceBundleIndexEntry>> it = shadowedMap.values().iterator(); it.hasNext(); ) {
+				List<ResourceBundleIndexEntry> shadowedEntries = it.next();
+				shadowedEntries.removeIf(entry -> entry.getResourceInfo().getBundleId() == removedBundleId);
+				if (shadowedEntries.isEmpty()) {
+					it.remove();
+				}
+			}
+
 			// remove the entries from the bundle which got stopped
-			entriesToBeRemoved.forEach(entry -> indexMap.remove(entry.getLookupPath()));
+			for (Iterator<ResourceBundleIndexEntry> it = newIndex.values().iterator(); it.hasNext(); ) {
+				ResourceBundleIndexEntry entry = it.next();
+				if (entry.getResourceInfo().getBundleId() == removedBundleId) {
+					it.remove();
+				}
+			}
 			logger.info("Removed all resources from bundle '{}'", bundle.getSymbolicName());
-			// revoke the matching shadowed-entries back to the indexMap
-			entriesToBeRevoked.forEach(entry -> {
-				indexMap.put(entry.getLookupPath(), entry);
+
+			// revoke the most recently shadowed entries back to the index
+			for (Iterator<Entry<String, List<ResourceBundleIndexEntry>>> it = shadowedMap.entrySet().iterator(); it.hasNext(); ) {
+				Entry<String, List<ResourceBundleIndexEntry>> shadowed = it.next();
+				if (newIndex.containsKey(shadowed.getKey())) {
+					continue;
+				}
+				List<ResourceBundleIndexEntry> shadowedEntries = shadowed.getValue();
+				ResourceBundleIndexEntry entry = shadowedEntries.remove(shadowedEntries.size() - 1);
+				if (shadowedEntries.isEmpty()) {
+					it.remove();
+				}
+				newIndex.put(entry.getLookupPath(), entry);
 				logger.info("Revoking shadowed resource '{}' from bundle '{}'", entry.getLookupPath(),
 						context.getBundle(entry.getResourceInfo().getBundleId()).getSymbolicName());
-				shadowedMap.remove(entry);
-			});
+			}
+
+			indexMap = Collections.unmodifiableNavigableMap(newIndex);
 		}
 	}
 
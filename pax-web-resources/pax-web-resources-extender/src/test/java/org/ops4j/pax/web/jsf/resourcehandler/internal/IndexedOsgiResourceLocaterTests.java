@@ -17,6 +17,7 @@
 package org.ops4j.pax.web.jsf.resourcehandler.internal;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.ops4j.pax.web.jsf.resourcehandler.internal.OsgiResourceMatcher.isBundleResource;
@@ -24,13 +25,18 @@ import static org.ops4j.pax.web.jsf.resourcehandler.internal.OsgiResourceMatcher
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.ops4j.pax.web.resources.api.query.ResourceQueryMatcher;
+import org.ops4j.pax.web.resources.api.query.ResourceQueryResult;
 import org.ops4j.pax.web.resources.extender.internal.IndexedOsgiResourceLocator;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
@@ -99,6 +105,48 @@ public class IndexedOsgiResourceLocaterTests {
 		assertThat("Resource doesn't match!", sut.locateResource("template.html"), isBundleResource(resourceBundleOne, "template.html"));
 	}
 
+	@Test
+	public void shadowedResourceOverrideUninstalled() throws Exception {
+		Bundle firstOverride = new BundleBuilder().withSymbolicName("resourcebundle-override-1")
+				.buildWithResources("template.html");
+		Bundle secondOverride = new BundleBuilder().withSymbolicName("resourcebundle-override-2")
+				.buildWithResources("template.html");
+		when(context.getBundle(resourceBundleOne.getBundleId())).thenReturn(resourceBundleOne);
+		when(context.getBundle(firstOverride.getBundleId())).thenReturn(firstOverride);
+
+		sut.register(firstOverride);
+		sut.register(secondOverride);
+		sut.unregister(firstOverride);
+		assertThat("Resource doesn't match!", sut.locateResource("template.html"), isBundleResource(secondOverride, "template.html"));
+
+		sut.unregister(secondOverride);
+		assertThat("Resource doesn't match!", sut.locateResource("template.html"), isBundleResource(resourceBundleOne, "template.html"));
+	}
+
+	@Test
+	public void queryChecksOnlyResourcesWithMatchingPrefix() throws Exception {
+		final List<String> checkedPaths = new ArrayList<>();
+		ResourceQueryMatcher query = new ResourceQueryMatcher() {
+			@Override
+			public <R extends ResourceQueryResult> Optional<R> matches(String resourcePath) {
+				checkedPaths.add(resourcePath);
+				return Optional.empty();
+			}
+
+			@Override
+			public Collection<String> getResourcePathPrefixes() {
+				return Arrays.asList("/META-INF/resources/folder/sub", "/META-INF/resources/folder/", "/META-INF/resources/js");
+			}
+		};
+
+		assertEquals(0, sut.findResources(query).size());
+		assertEquals(Arrays.asList(
+				"/META-INF/resources/folder/bla/a.js",
+				"/META-INF/resources/folder/subfolder/a.js",
+				"/META-INF/resources/folder/subfolder/b.js",
+				"/META-INF/resources/js/some.js"), checkedPaths);
+	}
+
 	private static class BundleBuilder {
 
 		private Long bundleId = generateBundleId();
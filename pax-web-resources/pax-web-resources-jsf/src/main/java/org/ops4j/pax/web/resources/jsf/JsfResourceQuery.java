@@ -16,6 +16,10 @@
  */
 package org.ops4j.pax.web.resources.jsf;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.regex.Matcher;
@@ -57,6 +61,18 @@ public class JsfResourceQuery implements ResourceQueryMatcher {
 	private final String resourceName;
 	private final String contentType;
 
+	/**
+	 * Paths against which the (partially stripped) resource path is checked
+	 */
+	private final String localePrefixPath;
+	private final String libraryNamePath;
+	private final String resourceNamePath;
+
+	/**
+	 * Resource path may start only with locale prefix, library name, library version or resource name,
+	 * so there's no need to check other resources.
+	 */
+	private final List<String> resourcePathPrefixes;
 
 	public JsfResourceQuery(String localePrefix, String libraryName, String resourceName, String contentType) {
 		if (resourceName == null) {
@@ -66,6 +82,29 @@ public class JsfResourceQuery implements ResourceQueryMatcher {
 		this.libraryName = libraryName;
 		this.resourceName = resourceName;
 		this.contentType = contentType;
+
+		localePrefixPath = localePrefix == null ? null : PATH_SEPARATOR + localePrefix;
+		libraryNamePath = libraryName == null ? null : PATH_SEPARATOR + libraryName;
+		resourceNamePath = PATH_SEPARATOR + resourceName;
+
+		List<String> prefixes = new ArrayList<>(13);
+		if (localePrefix != null) {
+			prefixes.add(RESOURCE_ROOT + localePrefix);
+		}
+		if (libraryName != null) {
+			prefixes.add(RESOURCE_ROOT + libraryName);
+		}
+		prefixes.add(RESOURCE_ROOT + resourceName);
+		for (char digit = '0'; digit <= '9'; digit++) {
+			// library version without library name
+			prefixes.add(RESOURCE_ROOT + digit);
+		}
+		resourcePathPrefixes = Collections.unmodifiableList(prefixes);
+	}
+
+	@Override
+	public Collection<String> getResourcePathPrefixes() {
+		return resourcePathPrefixes;
 	}
 
 	/**
@@ -103,7 +142,7 @@ public class JsfResourceQuery implements ResourceQueryMatcher {
 	}
 
 	private String matchLocalePrefix(final String path, final MatchingResult result) {
-		if (localePrefix != null && path.startsWith(PATH_SEPARATOR + localePrefix)) {
+		if (localePrefixPath != null && path.startsWith(localePrefixPath)) {
 			result.matchedLocalePrefix = true;
 			return path.substring(path.indexOf(PATH_SEPARATOR, 1));
 		} else {
@@ -113,7 +152,7 @@ public class JsfResourceQuery implements ResourceQueryMatcher {
 
 
 	private String matchLibraryName(final String path, final MatchingResult result) {
-		if (libraryName != null && path.startsWith(PATH_SEPARATOR + libraryName)) {
+		if (libraryNamePath != null && path.startsWith(libraryNamePath)) {
 			result.matchedLibraryName = true;
 			return path.substring(path.indexOf(PATH_SEPARATOR, 1));
 		} else {
@@ -133,7 +172,7 @@ public class JsfResourceQuery implements ResourceQueryMatcher {
 	}
 
 	private String matchResourceName(final String path, final MatchingResult result) {
-		if (path.startsWith(PATH_SEPARATOR + resourceName)) {
+		if (path.startsWith(resourceNamePath)) {
 			result.matchedResourceName = true;
 			// after resourceName, an optional resourceVersion might follow
 			int index = path.indexOf(PATH_SEPARATOR, 1);
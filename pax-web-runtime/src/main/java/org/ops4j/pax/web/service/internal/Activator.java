@@ -36,6 +36,7 @@ import java.io.File;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -46,6 +47,7 @@ import org.ops4j.pax.swissbox.property.BundleContextPropertyResolver;
 import org.ops4j.pax.web.service.WebContainer;
 import org.ops4j.pax.web.service.internal.util.SupportUtils;
 import org.ops4j.pax.web.service.spi.Configuration;
+import org.ops4j.pax.web.service.spi.ConfigurationChange;
 import org.ops4j.pax.web.service.spi.ServerController;
 import org.ops4j.pax.web.service.spi.ServerControllerFactory;
 import org.ops4j.pax.web.service.spi.ServletListener;
@@ -336,6 +338,11 @@ public class Activator implements BundleActivator {
 		if (same(dictionary, this.config) && same(controllerFactory, this.factory)) {
 			return;
 		}
+		if (serverController != null && httpServiceFactoryReg != null && same(controllerFactory, this.factory)
+				&& reconfigureController(dictionary)) {
+			this.config = dictionary;
+			return;
+		}
 		if (httpServiceFactoryReg != null) {
 			httpServiceFactoryReg.unregister();
 			httpServiceFactoryReg = null;
@@ -350,23 +357,7 @@ public class Activator implements BundleActivator {
 		}
 		if (controllerFactory != null) {
 			try {
-				final PropertyResolver tmpResolver = new BundleContextPropertyResolver(
-						bundleContext, new DefaultPropertyResolver());
-				final PropertyResolver resolver = dictionary != null
-						? new DictionaryPropertyResolver(dictionary, tmpResolver)
-						: tmpResolver;
-
-				final ConfigurationImpl configuration = new ConfigurationImpl(resolver);
-				if (dictionary != null) {
-					// PAXWEB-1169: dictionary comes directly from configadmin.
-					// however, org.ops4j.util.property.PropertyStore.m_properties gets also filled after
-					// calling org.ops4j.util.property.PropertyStore.set() in every getXXX() method of
-					// ConfigurationImpl...
-					// For now, the dictionary is set from configadmin only and not from unpredictable state of
-					// PropertyStore.m_properties (which over time may contain default values for properties
-					// which are not found in PropertyResolver passed to the configurationImpl object)
-					configuration.setDictionary(dictionary);
-				}
+				final ConfigurationImpl configuration = createConfiguration(dictionary);
 				final ServerModel serverModel = new ServerModel();
 
 				serverController = controllerFactory.createServerController(serverModel);
@@ -419,6 +410,60 @@ public class Activator implements BundleActivator {
 		this.config = dictionary;
 	}
 
+	private ConfigurationImpl createConfiguration(Dictionary<String, ?> dictionary) {
+		final PropertyResolver tmpResolver = new BundleContextPropertyResolver(
+				bundleContext, new DefaultPropertyResolver());
+		final PropertyResolver resolver = dictionary != null
+				? new DictionaryPropertyResolver(dictionary, tmpResolver)
+				: tmpResolver;
+
+		final ConfigurationImpl configuration = new ConfigurationImpl(resolver);
+		if (dictionary != null) {
+			// PAXWEB-1169: dictionary comes directly from configadmin.
+			// however, org.ops4j.util.property.PropertyStore.m_properties gets also filled after
+			// calling org.ops4j.util.property.PropertyStore.set() in every getXXX() method of
+			// ConfigurationImpl...
+			// For now, the dictionary is set from configadmin only and not from unpredictable state of
+			// PropertyStore.m_properties (which over time may contain default values for properties
+			// which are not found in PropertyResolver passed to the configurationImpl object)
+			configuration.setDictionary(dictionary);
+		}
+		return configuration;
+	}
+
+	/**
+	 * Tries to apply changed {@code org.ops4j.pax.web} configuration to running server without stopping it
+	 * (and all the registered contexts).
+	 *
+	 * @param dictionary new configuration
+	 * @return {@code true} if the configuration was applied, {@code false} if the server has to be restarted
+	 */
+	private boolean reconfigureController(Dictionary<String, ?> dictionary) {
+		Set<String> changed = ConfigurationImpl.changedProperties(this.config, dictionary);
+		ConfigurationChange change = ConfigurationChange.of(changed);
+		if (change == ConfigurationChange.RESTART) {
+			LOG.info("Server will be restarted to apply changed configuration: {}", changed);
+			return false;
+		}
+		try {
+			ConfigurationImpl configuration = createConfiguration(dictionary);
+			if (!serverController.reconfigure(configuration, changed)) {
+				return false;
+			}
+			httpServiceFactoryReg.setProperties(determineServiceProperties(
+					dictionary, configuration,
+					serverController.getHttpPort(),
+					serverController.getHttpSecurePort()));
+			LOG.info("Changed configuration applied without restarting the server: {}", changed);
+			return true;
+			//CHECKSTYLE:OFF
+		} catch (Exception e) {
+			LOG.warn("Can't apply changed configuration to running server, it will be restarted: " + e.getMessage(), e);
+			return false;
+		}
+		//CHECKSTYLE:ON
+	}
+
 	private Dictionary<String, Object> determineServiceProperties(
 			final Dictionary<String, ?> managedConfig,
 			final Configuration configuration, final Integer httpPort,
@@ -476,6 +521,10 @@ public class Activator implements BundleActivator {
 		setProperty(toPropagate, PROPERTY_WORKER_NAME, configuration.getWorkerName());
 		setProperty(toPropagate, PROPERTY_LISTENING_ADDRESSES,
 				configuration.getListeningAddresses());
+		setProperty(toPropagate, PROPERTY_LISTENING_UNIX_SOCKET,
+				configuration.getListeningUnixSocket());
+		setProperty(toPropagate, PROPERTY_LISTENING_UNIX_SOCKET_CONNECTOR_NAME,
+				configuration.getListeningUnixSocketConnectorName());
 		setProperty(toPropagate, PROPERTY_DEFAULT_AUTHMETHOD,
 				configuration.getDefaultAuthMethod());
 		setProperty(toPropagate, PROPERTY_DEFAULT_REALMNAME,
@@ -27,6 +27,8 @@ import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_HTTP_SECU
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_HTTP_USE_NIO;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_HTTP_CHECK_FORWARDED_HEADERS;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_LISTENING_ADDRESSES;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_LISTENING_UNIX_SOCKET;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_LISTENING_UNIX_SOCKET_CONNECTOR_NAME;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_LOG_NCSA_APPEND;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_LOG_NCSA_COOKIES;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_LOG_NCSA_DISPATCH;
@@ -48,6 +50,11 @@ import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SESSION_C
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SESSION_COOKIE_SECURE;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SESSION_LAZY_LOAD;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SESSION_STORE_DIRECTORY;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SESSION_MAX_ACTIVE;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SESSION_MAX_IDLE_BACKUP;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SESSION_MAX_IDLE_SWAP;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SESSION_MIN_IDLE_SWAP;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SESSION_STORE_ASYNC;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SESSION_TIMEOUT;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SESSION_URL;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SSL_CLIENT_AUTH_NEEDED;
@@ -77,7 +84,10 @@ import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_WORKER_NA
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_MAX_THREADS;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_MIN_THREADS;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_IDLE_TIMEOUT;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SSL_RELOAD_INTERVAL;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SSL_RENEGOTIATION_ALLOWED;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SSL_SESSION_CACHE_SIZE;
+import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_SSL_SESSION_TIMEOUT;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_CRL_PATH;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_ENABLE_CRLDP;
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_VALIDATE_CERTS;
@@ -93,13 +103,20 @@ import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_DEFAULT_A
 import static org.ops4j.pax.web.service.WebContainerConstants.PROPERTY_DEFAULT_REALMNAME;
 
 import java.io.File;
+import java.lang.reflect.Array;
 import java.net.URI;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Dictionary;
+import java.util.Enumeration;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.jasypt.encryption.pbe.StandardPBEStringEncryptor;
 import org.ops4j.lang.NullArgumentException;
@@ -160,6 +177,56 @@ public class ConfigurationImpl extends PropertyStore implements Configuration, C
 		this.dictionary = dictionary;
 	}
 
+	/**
+	 * Compares two configuration dictionaries and returns names of properties which were added, removed
+	 * or changed. Values are compared by their string form (Configuration Admin may deliver {@code 8080} or
+	 * {@code "8080"} for the same property), arrays and collections are compared element by element.
+	 * Impact of the changes is determined by {@link org.ops4j.pax.web.service.spi.ConfigurationChange}.
+	 *
+	 * @param previous dictionary of current configuration - may be {@code null}
+	 * @param current dictionary of new configuration - may be {@code null}
+	 * @return sorted names of changed properties
+	 */
+	public static Set<String> changedProperties(Dictionary<String, ?> previous, Dictionary<String, ?> current) {
+		Set<String> changed = new TreeSet<>();
+		Set<String> keys = new TreeSet<>();
+		for (Dictionary<String, ?> d : Arrays.asList(previous, current)) {
+			if (d != null) {
+				for (Enumeration<String> e = d.keys(); e.hasMoreElements(); ) {
+					keys.add(e.nextElement());
+				}
+			}
+		}
+		for (String key : keys) {
+			Object before = previous == null ? null : normalize(previous.get(key));
+			Object after = current == null ? null : normalize(current.get(key));
+			if (!Objects.equals(before, after)) {
+				changed.add(key);
+			}
+		}
+		return changed;
+	}
+
+	private static Object normalize(Object value) {
+		if (value == null) {
+			return null;
+		}
+		if (value.getClass().isArray() || value instanceof Collection) {
+			List<Object> values = new ArrayList<>();
+			if (value instanceof Collection) {
+				for (Object v : (Collection<?>) value) {
+					values.add(normalize(v));
+				}
+			} else {
+				for (int i = 0; i < Array.getLength(value); i++) {
+					values.add(normalize(Array.get(value, i)));
+				}
+			}
+			return values;
+		}
+		return value.toString().trim();
+	}
+
 	/**
 	 * @see Configuration#getHttpPort()
 	 */
@@ -181,6 +248,56 @@ public class ConfigurationImpl extends PropertyStore implements Configuration, C
 		return getResolvedBooleanProperty(PROPERTY_SHOW_STACKS);
 	}
 
+	@Override
+	public Integer getGracefulShutdownTimeout() {
+		return getResolvedIntegerProperty(PROPERTY_GRACEFUL_SHUTDOWN_TIMEOUT);
+	}
+
+	@Override
+	public Boolean isAdmissionControlEnabled() {
+		return getResolvedBooleanProperty(PROPERTY_ADMISSION_ENABLED);
+	}
+
+	@Override
+	public Integer getAdmissionTargetDelay() {
+		return getResolvedIntegerProperty(PROPERTY_ADMISSION_TARGET_DELAY);
+	}
+
+	@Override
+	public Integer getAdmissionInterval() {
+		return getResolvedIntegerProperty(PROPERTY_ADMISSION_INTERVAL);
+	}
+
+	@Override
+	public Integer getAdmissionMinConcurrency() {
+		return getResolvedIntegerProperty(PROPERTY_ADMISSION_MIN_CONCURRENCY);
+	}
+
+	@Override
+	public Integer getAdmissionMaxConcurrency() {
+		return getResolvedIntegerProperty(PROPERTY_ADMISSION_MAX_CONCURRENCY);
+	}
+
+	@Override
+	public List<String> getAdmissionExemptPaths() {
+		String exemptPaths = getResolvedStringProperty(PROPERTY_ADMISSION_EXEMPT_PATHS);
+		if (exemptPaths == null || exemptPaths.trim().isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<String> paths = new ArrayList<>();
+		for (String path : exemptPaths.split(",")) {
+			if (!path.trim().isEmpty()) {
+				paths.add(path.trim());
+			}
+		}
+		return paths;
+	}
+
+	@Override
+	public Integer getAdmissionRetryAfter() {
+		return getResolvedIntegerProperty(PROPERTY_ADMISSION_RETRY_AFTER);
+	}
+
 	/**
 	 * @see Configuration#getHttpConnectorName()
 	 */
@@ -359,6 +476,21 @@ public class ConfigurationImpl extends PropertyStore implements Configuration, C
 		return getResolvedBooleanProperty(PROPERTY_SSL_RENEGOTIATION_ALLOWED);
 	}
 
+	@Override
+	public Integer getSslSessionCacheSize() {
+		return getResolvedIntegerProperty(PROPERTY_SSL_SESSION_CACHE_SIZE);
+	}
+
+	@Override
+	public Integer getSslSessionTimeout() {
+		return getResolvedIntegerProperty(PROPERTY_SSL_SESSION_TIMEOUT);
+	}
+
+	@Override
+	public Integer getSslReloadInterval() {
+		return getResolvedIntegerProperty(PROPERTY_SSL_RELOAD_INTERVAL);
+	}
+
 	/**
 	 * @see Configuration#getCiphersuiteIncluded()
 	 */
@@ -455,6 +587,26 @@ public class ConfigurationImpl extends PropertyStore implements Configuration, C
 		return get(PROPERTY_TEMP_DIR);
 	}
 
+	@Override
+	public String getMultipartLocation() {
+		return getResolvedStringProperty(PROPERTY_MULTIPART_LOCATION);
+	}
+
+	@Override
+	public Long getMultipartMaxFileSize() {
+		return getResolvedLongProperty(PROPERTY_MULTIPART_MAX_FILE_SIZE);
+	}
+
+	@Override
+	public Long getMultipartMaxRequestSize() {
+		return getResolvedLongProperty(PROPERTY_MULTIPART_MAX_REQUEST_SIZE);
+	}
+
+	@Override
+	public Integer getMultipartFileSizeThreshold() {
+		return getResolvedIntegerProperty(PROPERTY_MULTIPART_FILE_SIZE_THRESHOLD);
+	}
+
 	@Override
 	public File getConfigurationDir() {
 		try {
@@ -557,6 +709,31 @@ public class ConfigurationImpl extends PropertyStore implements Configuration, C
 		return getResolvedStringProperty(PROPERTY_SESSION_STORE_DIRECTORY);
 	}
 
+	@Override
+	public Integer getSessionMaxActive() {
+		return getResolvedIntegerProperty(PROPERTY_SESSION_MAX_ACTIVE);
+	}
+
+	@Override
+	public Integer getSessionMinIdleSwap() {
+		return getResolvedIntegerProperty(PROPERTY_SESSION_MIN_IDLE_SWAP);
+	}
+
+	@Override
+	public Integer getSessionMaxIdleSwap() {
+		return getResolvedIntegerProperty(PROPERTY_SESSION_MAX_IDLE_SWAP);
+	}
+
+	@Override
+	public Integer getSessionMaxIdleBackup() {
+		return getResolvedIntegerProperty(PROPERTY_SESSION_MAX_IDLE_BACKUP);
+	}
+
+	@Override
+	public Boolean getSessionStoreAsync() {
+		return getResolvedBooleanProperty(PROPERTY_SESSION_STORE_ASYNC);
+	}
+
 	@Override
 	public String getWorkerName() {
 		return getResolvedStringProperty(PROPERTY_WORKER_NAME);
@@ -584,6 +761,34 @@ public class ConfigurationImpl extends PropertyStore implements Configuration, C
 		return get(PROPERTY_LISTENING_ADDRESSES);
 	}
 
+	/**
+	 * @see Configuration#getListeningUnixSocket()
+	 */
+	@Override
+	public String getListeningUnixSocket() {
+		try {
+			if (!contains(PROPERTY_LISTENING_UNIX_SOCKET)) {
+				String path = propertyResolver.get(PROPERTY_LISTENING_UNIX_SOCKET);
+				return set(PROPERTY_LISTENING_UNIX_SOCKET,
+						path == null || path.trim().isEmpty() ? null : path.trim());
+			}
+			//CHECKSTYLE:OFF
+		} catch (Exception ignore) {
+			LOG.debug("Reading configuration property "
+					+ PROPERTY_LISTENING_UNIX_SOCKET + " has failed");
+		}
+		//CHECKSTYLE:ON
+		return get(PROPERTY_LISTENING_UNIX_SOCKET);
+	}
+
+	/**
+	 * @see Configuration#getListeningUnixSocketConnectorName()
+	 */
+	@Override
+	public String getListeningUnixSocketConnectorName() {
+		return getResolvedStringProperty(PROPERTY_LISTENING_UNIX_SOCKET_CONNECTOR_NAME);
+	}
+
 	@Override
 	public String getJspScratchDir() {
 		// Just in case JSP is not available this parameter is useless
@@ -824,6 +1029,24 @@ public class ConfigurationImpl extends PropertyStore implements Configuration, C
 		return get(property);
 	}
 
+	private Long getResolvedLongProperty(String property) {
+		try {
+			if (!contains(property)) {
+				String resolvedProperty = propertyResolver.get(property);
+				return set(
+						property,
+						resolvedProperty == null ? null : Long
+								.valueOf(resolvedProperty));
+			}
+			//CHECKSTYLE:OFF
+		} catch (Exception ignore) {
+			LOG.debug("Reading configuration property " + property
+					+ " has failed");
+		}
+		//CHECKSTYLE:ON
+		return get(property);
+	}
+
 	@Override
 	public List<String> getVirtualHosts() {
 		List<String> virtualHosts = new LinkedList<>();
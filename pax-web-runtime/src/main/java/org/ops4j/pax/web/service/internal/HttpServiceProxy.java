@@ -30,7 +30,9 @@ import javax.servlet.ServletContainerInitializer;
 import javax.servlet.ServletException;
 
 import org.ops4j.lang.NullArgumentException;
+import org.ops4j.pax.web.service.DeploymentTimingsDTO;
 import org.ops4j.pax.web.service.SharedWebContainerContext;
+import org.ops4j.pax.web.service.RequestMetricsDTO;
 import org.ops4j.pax.web.service.WebContainer;
 import org.ops4j.pax.web.service.WebContainerDTO;
 import org.ops4j.pax.web.service.whiteboard.WhiteboardElement;
@@ -552,10 +554,35 @@ public class HttpServiceProxy implements StoppableHttpService {
 		return delegate.createWhiteboardRuntimeDTO(iterator);
 	}
 
+	@Override
+	public long getRuntimeChangeCount() {
+		return delegate.getRuntimeChangeCount();
+	}
+
+	@Override
+	public void addRuntimeChangeListener(Runnable listener) {
+		delegate.addRuntimeChangeListener(listener);
+	}
+
+	@Override
+	public void removeRuntimeChangeListener(Runnable listener) {
+		delegate.removeRuntimeChangeListener(listener);
+	}
+
     @Override
     public WebContainerDTO getWebcontainerDTO() {
         return delegate.getWebcontainerDTO();
     }
 
+	@Override
+	public List<RequestMetricsDTO> getRequestMetrics() {
+		return delegate.getRequestMetrics();
+	}
+
+	@Override
+	public List<DeploymentTimingsDTO> getDeploymentTimings() {
+		return delegate.getDeploymentTimings();
+	}
+
 
 }
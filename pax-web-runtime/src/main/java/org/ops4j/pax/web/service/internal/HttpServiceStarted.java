@@ -36,6 +36,7 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -43,7 +44,6 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import javax.servlet.Filter;
 import javax.servlet.MultipartConfigElement;
@@ -55,9 +55,10 @@ import javax.websocket.DeploymentException;
 
 import org.ops4j.lang.NullArgumentException;
 import org.ops4j.pax.web.jsp.JspServletWrapper;
+import org.ops4j.pax.web.service.DeploymentTimingsDTO;
 import org.ops4j.pax.web.service.SharedWebContainerContext;
+import org.ops4j.pax.web.service.RequestMetricsDTO;
 import org.ops4j.pax.web.service.WebContainer;
-import org.ops4j.pax.web.service.WebContainerConstants;
 import org.ops4j.pax.web.service.WebContainerContext;
 import org.ops4j.pax.web.service.WebContainerDTO;
 import org.ops4j.pax.web.service.internal.util.SupportUtils;
@@ -67,6 +68,7 @@ import org.ops4j.pax.web.service.spi.ServerEvent;
 import org.ops4j.pax.web.service.spi.ServerListener;
 import org.ops4j.pax.web.service.spi.ServletEvent;
 import org.ops4j.pax.web.service.spi.ServletListener;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
 import org.ops4j.pax.web.service.spi.model.ErrorPageModel;
 import org.ops4j.pax.web.service.spi.model.EventListenerModel;
@@ -78,6 +80,8 @@ import org.ops4j.pax.web.service.spi.model.ServiceModel;
 import org.ops4j.pax.web.service.spi.model.ServletModel;
 import org.ops4j.pax.web.service.spi.model.WebSocketModel;
 import org.ops4j.pax.web.service.spi.model.WelcomeFileModel;
+import org.ops4j.pax.web.service.spi.timing.DeploymentTimings;
+import org.ops4j.pax.web.service.spi.util.MultipartConfigUtil;
 import org.ops4j.pax.web.service.spi.util.ResourceDelegatingBundleClassLoader;
 import org.ops4j.pax.web.service.whiteboard.WhiteboardElement;
 import org.ops4j.pax.web.utils.ClassPathUtil;
@@ -112,8 +116,20 @@ class HttpServiceStarted implements StoppableHttpService {
 	private final ServletListener eventDispatcher;
 	private final Boolean showStacks;
 
+	/**
+	 * Listeners added through this service - removed when the service is stopped
+	 */
+	private final List<Runnable> runtimeChangeListeners = new CopyOnWriteArrayList<>();
+
 	private final Object lock = new Object();
 
+	/**
+	 * Contexts for which {@link #begin(HttpContext)} started the transaction on not yet used context. After
+	 * {@link #end(HttpContext)} such context is no longer treated as web bundle context, so later registrations
+	 * are applied to running context as usual.
+	 */
+	private final Set<ContextModel> freshTransactions = Collections.synchronizedSet(new HashSet<>());
+
 	static {
 		sharedWebContainerContext = new DefaultSharedWebContainerContext();
 	}
@@ -194,6 +210,9 @@ class HttpServiceStarted implements StoppableHttpService {
 			serverController.removeContext(contextModel.getHttpContext());
 		}
 		serverModel.deassociateHttpContexts(serviceBundle);
+		for (Runnable listener : runtimeChangeListeners) {
+			removeRuntimeChangeListener(listener);
+		}
 	}
 
 	/**
@@ -237,6 +256,9 @@ class HttpServiceStarted implements StoppableHttpService {
 
 	private void registerServlet(ServletModel model)
 			throws ServletException, NamespaceException {
+		// the same defaults for all containers
+		model.setMultipartConfig(MultipartConfigUtil.withDefaults(model.getMultipartConfig(),
+				serverController.getConfiguration()));
 		servletEvent(ServletEvent.DEPLOYING, serviceBundle, model);
 		boolean serverSuccess = false;
 		boolean serviceSuccess = false;
@@ -560,57 +582,7 @@ class HttpServiceStarted implements StoppableHttpService {
 		}
 		final FilterModel model = new FilterModel(contextModel, filter,
 				urlPatterns, servletNames, initParams, asyncSupported);
-		if (initParams != null && !initParams.isEmpty()
-				&& initParams.get(WebContainerConstants.FILTER_RANKING) != null
-				&& serviceModel.getFilterModels().length > 0) {
-			String filterRankingString = initParams.get(WebContainerConstants.FILTER_RANKING);
-			Integer filterRanking = Integer.valueOf(filterRankingString);
-			FilterModel[] filterModels = serviceModel.getFilterModels();
-			Integer firstRanking = Integer.valueOf(filterModels[0].getInitParams().get(WebContainerConstants.FILTER_RANKING));
-			Integer lastRanking;
-
-			if (filterModels.length == 1) {
-				lastRanking = firstRanking;
-			} else {
-				lastRanking = Integer.valueOf(filterModels[filterModels.length - 1].getInitParams().get(WebContainerConstants.FILTER_RANKING));
-			}
-
-			//DO ordering of filters ...
-			if (filterRanking < firstRanking) {
-				//unregister the old one
-				Arrays.stream(filterModels).forEach(this::unregister);
-				//register the new model as first one
-				registerFilter(model);
-				//keep on going, and register the previously known one again.
-				Arrays.stream(filterModels).forEach(this::registerFilter);
-			} else if (filterRanking > lastRanking) {
-				registerFilter(model);
-			} else {
-				//unregister all filters ranked lower
-				List<FilterModel> filteredModels = Arrays.stream(filterModels)
-						.filter(removableFilterModel -> Integer.valueOf(removableFilterModel.getInitParams().get(WebContainerConstants.FILTER_RANKING)) > filterRanking)
-						.collect(Collectors.toList());
-				filteredModels.forEach(this::unregister);
-
-				//register the new model
-				registerFilter(model);
-
-				//re-register the filtered models
-				filteredModels.forEach(this::registerFilter);
-			}
-		} else {
-			registerFilter(model);
-		}
-	}
-
-
-	private void unregister(FilterModel model) {
-		if (model != null) {
-			LOG.debug("Unregister filter (filter={})", model.getFilter());
-			serviceModel.removeFilter(model.getName());
-			serverModel.removeFilterModel(model);
-			serverController.removeFilter(model);
-		}
+		registerFilter(model);
 	}
 
 	private void registerFilter(FilterModel model) {
@@ -622,7 +594,12 @@ class HttpServiceStarted implements StoppableHttpService {
 			serverSuccess = true;
 			serviceModel.addFilterModel(model);
 			serviceSuccess = true;
-			serverController.addFilter(model);
+			if (model.isRanked()) {
+				// placed according to its ranking, filters already registered are left untouched
+				serverController.insertFilter(model);
+			} else {
+				serverController.addFilter(model);
+			}
 			controllerSuccess = true;
 			ContextModel contextModel = model.getContextModel();
 			if (model.getFilter() != null && !isWebAppWebContainerContext(contextModel)) {
@@ -1243,8 +1220,12 @@ class HttpServiceStarted implements StoppableHttpService {
 		final ContextModel contextModel = getOrCreateContext(httpContext);
 		LOG.debug("Beginning and ssing context [" + contextModel + "]");
 		try {
+			boolean fresh = !contextModel.isWebBundle() && serviceModel.canBeConfigured(httpContext);
 			serverController.getContext(contextModel);
 			contextModel.setWebBundle(true);
+			if (fresh) {
+				freshTransactions.add(contextModel);
+			}
 			//CHECKSTYLE:OFF
 		} catch (RuntimeException e) {
 			LOG.error("Exception starting HttpContext registration", e);
@@ -1265,6 +1246,10 @@ class HttpServiceStarted implements StoppableHttpService {
 				throw (RuntimeException) e;
 			}
 			LOG.error("Exception finalizing HttpContext registration", e);
+		} finally {
+			if (freshTransactions.remove(contextModel)) {
+				contextModel.setWebBundle(false);
+			}
 		}
 		//CHECKSTYLE:ON
 	}
@@ -1436,6 +1421,40 @@ class HttpServiceStarted implements StoppableHttpService {
 		return withWhiteboardDtoService(service -> service.createWhiteboardRuntimeDTO(iterator, serverModel, serviceModel));
 	}
 
+	@Override
+	public long getRuntimeChangeCount() {
+		// both counters only grow, so their sum changes whenever any of them changes
+		return serverModel.getChangeCount() + withWhiteboardDtoService(WhiteboardDtoService::getChangeCount);
+	}
+
+	@Override
+	public void addRuntimeChangeListener(Runnable listener) {
+		runtimeChangeListeners.add(listener);
+		serverModel.addChangeListener(listener);
+		try {
+			withWhiteboardDtoService(service -> {
+				service.addChangeListener(listener);
+				return null;
+			});
+		} catch (IllegalStateException e) {
+			LOG.warn("Changes of servlet contexts won't be reported: {}", e.getMessage());
+		}
+	}
+
+	@Override
+	public void removeRuntimeChangeListener(Runnable listener) {
+		runtimeChangeListeners.remove(listener);
+		serverModel.removeChangeListener(listener);
+		try {
+			withWhiteboardDtoService(service -> {
+				service.removeChangeListener(listener);
+				return null;
+			});
+		} catch (IllegalStateException e) {
+			LOG.debug("Can't remove runtime change listener: {}", e.getMessage());
+		}
+	}
+
 	
 	/**
 	 * WhiteboardDtoService is registered as DS component. Should be removed if this class gets full DS support
@@ -1474,4 +1493,15 @@ class HttpServiceStarted implements StoppableHttpService {
         
         return dto;
     }
+
+	@Override
+	public List<RequestMetricsDTO> getRequestMetrics() {
+		RequestMetricsRegistry requestMetrics = serverController.getRequestMetrics();
+		return requestMetrics == null ? Collections.emptyList() : requestMetrics.getRequestMetrics();
+	}
+
+	@Override
+	public List<DeploymentTimingsDTO> getDeploymentTimings() {
+		return DeploymentTimings.getDeploymentTimings();
+	}
 }
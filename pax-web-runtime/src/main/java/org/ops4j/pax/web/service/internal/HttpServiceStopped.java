@@ -17,6 +17,7 @@
 package org.ops4j.pax.web.service.internal;
 
 import java.net.URL;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.EventListener;
 import java.util.Iterator;
@@ -28,7 +29,9 @@ import javax.servlet.Servlet;
 import javax.servlet.ServletContainerInitializer;
 import javax.servlet.ServletException;
 
+import org.ops4j.pax.web.service.DeploymentTimingsDTO;
 import org.ops4j.pax.web.service.SharedWebContainerContext;
+import org.ops4j.pax.web.service.RequestMetricsDTO;
 import org.ops4j.pax.web.service.WebContainer;
 import org.ops4j.pax.web.service.WebContainerDTO;
 import org.ops4j.pax.web.service.whiteboard.WhiteboardElement;
@@ -523,6 +526,20 @@ class HttpServiceStopped implements StoppableHttpService {
 		return null;
 	}
 
+	@Override
+	public long getRuntimeChangeCount() {
+		return -1L;
+	}
+
+	@Override
+	public void addRuntimeChangeListener(Runnable listener) {
+		// nothing changes anymore
+	}
+
+	@Override
+	public void removeRuntimeChangeListener(Runnable listener) {
+	}
+
 	@Override
 	public String toString() {
 		if (serviceBundle == null) {
@@ -538,4 +555,16 @@ class HttpServiceStopped implements StoppableHttpService {
         return null;
     }
 
+	@Override
+	public List<RequestMetricsDTO> getRequestMetrics() {
+		LOG.warn("Http service has already been stoped");
+		return Collections.emptyList();
+	}
+
+	@Override
+	public List<DeploymentTimingsDTO> getDeploymentTimings() {
+		LOG.warn("Http service has already been stoped");
+		return Collections.emptyList();
+	}
+
 }
@@ -17,25 +17,26 @@
 
 package org.ops4j.pax.web.service.internal;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.ops4j.lang.NullArgumentException;
 import org.ops4j.pax.web.service.spi.ServletEvent;
 import org.ops4j.pax.web.service.spi.ServletListener;
+import org.ops4j.pax.web.service.spi.util.ListenerQueue;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.BundleEvent;
 import org.osgi.framework.BundleListener;
@@ -52,6 +53,16 @@ public class ServletEventDispatcher implements ServletListener, BundleListener {
 
 	private static final int THREAD_POOL_SIZE = 3;
 
+	/**
+	 * Maximal number of events waiting for delivery to single listener.
+	 */
+	private static final int QUEUE_CAPACITY = 1024;
+
+	/**
+	 * Listener not returning from single call within this time is removed.
+	 */
+	private static final long LISTENER_TIMEOUT = TimeUnit.SECONDS.toMillis(60L);
+
 	/**
 	 * Logger.
 	 */
@@ -59,15 +70,28 @@ public class ServletEventDispatcher implements ServletListener, BundleListener {
 			.getLogger(ServletEventDispatcher.class);
 
 	private final BundleContext bundleContext;
-	private final ScheduledExecutorService executors;
+	private final ExecutorService executors;
+	/**
+	 * Interrupts listeners which time out - separate from {@link #executors}, which may be all busy.
+	 */
+	private final ScheduledExecutorService timer;
 	private final ServiceTracker<ServletListener, ServletListener> servletListenerTracker;
-	private final Set<ServletListener> listeners = new CopyOnWriteArraySet<>();
+	/**
+	 * Each listener has own queue, so slow listener doesn't delay events for other listeners. The map is used
+	 * as a monitor when registering new listener and when queuing an event, so each listener gets each
+	 * event exactly once - either replayed from {@link #states} or queued. Events are only queued under the
+	 * monitor, never delivered.
+	 */
+	private final ConcurrentMap<ServletListener, ListenerQueue<ServletEvent>> listeners = new ConcurrentHashMap<>();
+	/**
+	 * Last events for bundles (by alias) - values are never modified, only replaced.
+	 */
 	private final Map<Long, Map<String, ServletEvent>> states = new ConcurrentHashMap<>();
 
 	public ServletEventDispatcher(final BundleContext bundleContext) {
 		NullArgumentException.validateNotNull(bundleContext, "Bundle Context");
 		this.bundleContext = bundleContext;
-		this.executors = Executors.newScheduledThreadPool(THREAD_POOL_SIZE,
+		this.executors = Executors.newFixedThreadPool(THREAD_POOL_SIZE,
 				new ThreadFactory() {
 
 					private final AtomicInteger count = new AtomicInteger();
@@ -82,6 +106,12 @@ public class ServletEventDispatcher implements ServletListener, BundleListener {
 						return t;
 					}
 				});
+		this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+			final Thread t = Executors.defaultThreadFactory().newThread(r);
+			t.setName("ServletEventDispatcher: timeout");
+			t.setDaemon(true);
+			return t;
+		});
 
 		this.servletListenerTracker = new ServiceTracker<>(
 				bundleContext,
@@ -95,9 +125,15 @@ public class ServletEventDispatcher implements ServletListener, BundleListener {
 						if (listener != null) {
 							LOG.debug("New ServletListener added: {}", listener
 									.getClass().getName());
+							ListenerQueue<ServletEvent> queue = new ListenerQueue<>(
+									listener.getClass().getName(), listener::servletEvent,
+									executors, timer, LISTENER_TIMEOUT, QUEUE_CAPACITY,
+									() -> removeListener(listener));
+							queue.registerMBean(ManagementFactory.getPlatformMBeanServer(),
+									ServletEventDispatcher.class.getSimpleName());
 							synchronized (listeners) {
-								sendInitialEvents(listener);
-								listeners.add(listener);
+								listeners.put(listener, queue);
+								queue.start(initialEvents());
 							}
 						}
 						return listener;
@@ -113,7 +149,7 @@ public class ServletEventDispatcher implements ServletListener, BundleListener {
 					public void removedService(
 							ServiceReference<ServletListener> reference,
 							ServletListener service) {
-						listeners.remove(service);
+						removeListener(service);
 						bundleContext.ungetService(reference);
 						LOG.debug("ServletListener is removed: {}", service
 								.getClass().getName());
@@ -145,16 +181,27 @@ public class ServletEventDispatcher implements ServletListener, BundleListener {
 					+ event.getBundleName());
 		}
 		synchronized (listeners) {
-			callListeners(event);
-			Map<String, ServletEvent> events = states.get(event.getBundleId());
-			if (events == null) {
-				events = new LinkedHashMap<>();
-				states.put(event.getBundleId(), events);
+			states.compute(event.getBundleId(), (id, events) -> {
+				Map<String, ServletEvent> newEvents = events == null ? new LinkedHashMap<>() : new LinkedHashMap<>(events);
+				newEvents.put(event.getAlias(), event);
+				return Collections.unmodifiableMap(newEvents);
+			});
+			for (ListenerQueue<ServletEvent> queue : listeners.values()) {
+				queue.offer(event);
 			}
-			events.put(event.getAlias(), event);
 		}
 	}
 
+	/**
+	 * Returns event queues of all current listeners - with their depth and drop counters. The same counters
+	 * are available in JMX as {@link org.ops4j.pax.web.service.spi.util.ListenerQueueMXBean}s.
+	 *
+	 * @return queues of current listeners
+	 */
+	public Collection<ListenerQueue<ServletEvent>> getListenerQueues() {
+		return Collections.unmodifiableCollection(listeners.values());
+	}
+
 	void destroy() {
 		bundleContext.removeBundleListener(this);
 		servletListenerTracker.close();
@@ -165,56 +212,24 @@ public class ServletEventDispatcher implements ServletListener, BundleListener {
 		} catch (InterruptedException e) {
 			// ignore
 		}
+		timer.shutdownNow();
 	}
 
-	private void sendInitialEvents(ServletListener listener) {
-		for (Map.Entry<Long, Map<String, ServletEvent>> entry : states
-				.entrySet()) {
-			try {
-				if (entry.getValue() != null && !entry.getValue().isEmpty()) {
-					for (ServletEvent event : entry.getValue().values()) {
-						callListener(listener, new ServletEvent(event, true));
-					}
-				}
-			} catch (RejectedExecutionException ree) {
-				LOG.warn("Executor shut down", ree);
-				break;
-			}
+	private void removeListener(ServletListener listener) {
+		ListenerQueue<ServletEvent> queue = listeners.remove(listener);
+		if (queue != null) {
+			queue.close();
 		}
 	}
 
-	private void callListeners(ServletEvent servletEvent) {
-		for (ServletListener listener : listeners) {
-			try {
-				callListener(listener, servletEvent);
-			} catch (RejectedExecutionException ree) {
-				LOG.warn("Executor shut down", ree);
-				break;
+	private List<ServletEvent> initialEvents() {
+		List<ServletEvent> initialEvents = new ArrayList<>();
+		for (Map<String, ServletEvent> events : states.values()) {
+			for (ServletEvent event : events.values()) {
+				initialEvents.add(new ServletEvent(event, true));
 			}
 		}
-	}
-
-	private void callListener(final ServletListener listener,
-							  final ServletEvent event) {
-		try {
-			executors.invokeAny(Collections
-					.<Callable<Void>>singleton(new Callable<Void>() {
-						@Override
-						public Void call() throws Exception {
-							listener.servletEvent(event);
-							return null;
-						}
-					}), 60L, TimeUnit.SECONDS);
-		} catch (InterruptedException ie) {
-			LOG.warn("Thread interrupted", ie);
-			Thread.currentThread().interrupt();
-		} catch (TimeoutException te) {
-			LOG.warn("Listener timed out, will be ignored", te);
-			listeners.remove(listener);
-		} catch (ExecutionException ee) {
-			LOG.warn("Listener caused an exception, will be ignored", ee);
-			listeners.remove(listener);
-		}
+		return initialEvents;
 	}
 
 }
@@ -27,6 +27,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import javax.servlet.ServletContext;
@@ -76,6 +78,16 @@ public class WhiteboardDtoService {
 
     private volatile Map<ServiceReference<ServletContext>, ServletContext> servletContexts = new ConcurrentHashMap<>(5);
 
+    /**
+     * Incremented when tracked {@link ServletContext} services change
+     */
+    private final AtomicLong changeCount = new AtomicLong();
+
+    /**
+     * Notified after each change of {@link #changeCount}
+     */
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
     @Activate
     protected void activate(BundleContext bundleContext) {
     }
@@ -643,9 +655,33 @@ public class WhiteboardDtoService {
     @Reference(unbind = "removeServletContext", service = ServletContext.class, cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC)
     protected void addServletContext(ServiceReference<ServletContext> ref, ServletContext servletContext) {
         servletContexts.put(ref, servletContext);
+        changed();
     }
 
     protected void removeServletContext(ServiceReference<ServletContext> ref, ServletContext servletContext) {
         servletContexts.remove(ref);
+        changed();
+    }
+
+    private void changed() {
+        changeCount.incrementAndGet();
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * @return counter changed each time a {@link ServletContext} service is added or removed
+     */
+    long getChangeCount() {
+        return changeCount.get();
+    }
+
+    void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
     }
 }
@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.HashSet;
+import java.util.Hashtable;
+
+import org.junit.Test;
+import org.ops4j.pax.web.service.WebContainerConstants;
+import org.ops4j.pax.web.service.spi.ConfigurationChange;
+
+public class ConfigurationImplTest {
+
+	@Test
+	public void valuesAreComparedByStringForm() {
+		Dictionary<String, Object> previous = new Hashtable<>();
+		previous.put(WebContainerConstants.PROPERTY_HTTP_PORT, 8181);
+		previous.put(WebContainerConstants.PROPERTY_LISTENING_ADDRESSES, new String[] { "0.0.0.0" });
+		previous.put(WebContainerConstants.PROPERTY_SESSION_TIMEOUT, "30");
+		Dictionary<String, Object> current = new Hashtable<>();
+		current.put(WebContainerConstants.PROPERTY_HTTP_PORT, "8181");
+		current.put(WebContainerConstants.PROPERTY_LISTENING_ADDRESSES, Collections.singletonList("0.0.0.0"));
+		current.put(WebContainerConstants.PROPERTY_SESSION_TIMEOUT, 10);
+		current.put(WebContainerConstants.PROPERTY_MAX_THREADS, 200);
+
+		assertEquals(new HashSet<>(Arrays.asList(WebContainerConstants.PROPERTY_SESSION_TIMEOUT,
+				WebContainerConstants.PROPERTY_MAX_THREADS)),
+				ConfigurationImpl.changedProperties(previous, current));
+		assertEquals(Collections.singleton(WebContainerConstants.PROPERTY_HTTP_PORT),
+				ConfigurationImpl.changedProperties(null, singleton(WebContainerConstants.PROPERTY_HTTP_PORT, 8080)));
+		assertTrue(ConfigurationImpl.changedProperties(previous, previous).isEmpty());
+	}
+
+	@Test
+	public void changesAreClassified() {
+		assertEquals(ConfigurationChange.NONE, ConfigurationChange.of(Arrays.asList("service.pid")));
+		assertEquals(ConfigurationChange.HOT, ConfigurationChange.of(Arrays.asList(
+				WebContainerConstants.PROPERTY_LOG_NCSA_LOGDIR, WebContainerConstants.PROPERTY_MAX_THREADS)));
+		assertEquals(ConfigurationChange.CONNECTOR, ConfigurationChange.of(Arrays.asList(
+				WebContainerConstants.PROPERTY_SESSION_TIMEOUT, WebContainerConstants.PROPERTY_HTTP_PORT)));
+		assertEquals(ConfigurationChange.CONNECTOR, ConfigurationChange.of(WebContainerConstants.PROPERTY_SSL_KEYSTORE));
+		assertEquals(ConfigurationChange.CONNECTOR, ConfigurationChange.of(Arrays.asList(
+				WebContainerConstants.PROPERTY_LISTENING_UNIX_SOCKET,
+				WebContainerConstants.PROPERTY_LISTENING_UNIX_SOCKET_CONNECTOR_NAME)));
+		assertEquals(ConfigurationChange.RESTART, ConfigurationChange.of(Arrays.asList(
+				WebContainerConstants.PROPERTY_HTTP_PORT, WebContainerConstants.PROPERTY_SESSION_COOKIE)));
+		assertEquals(ConfigurationChange.RESTART, ConfigurationChange.of("org.ops4j.pax.web.unknown"));
+
+		assertTrue(ConfigurationChange.isRequestLogChanged(Arrays.asList(WebContainerConstants.PROPERTY_LOG_NCSA_FORMAT)));
+		assertFalse(ConfigurationChange.isRequestLogChanged(Arrays.asList(WebContainerConstants.PROPERTY_MAX_THREADS)));
+	}
+
+	private static Dictionary<String, Object> singleton(String key, Object value) {
+		Dictionary<String, Object> dictionary = new Hashtable<>();
+		dictionary.put(key, value);
+		return dictionary;
+	}
+
+}
@@ -39,6 +39,22 @@ public interface Configuration {
 
 	Boolean isShowStacks();
 
+	Integer getGracefulShutdownTimeout();
+
+	Boolean isAdmissionControlEnabled();
+
+	Integer getAdmissionTargetDelay();
+
+	Integer getAdmissionInterval();
+
+	Integer getAdmissionMinConcurrency();
+
+	Integer getAdmissionMaxConcurrency();
+
+	List<String> getAdmissionExemptPaths();
+
+	Integer getAdmissionRetryAfter();
+
 	Integer getHttpSecurePort();
 
 	String getHttpSecureConnectorName();
@@ -112,6 +128,20 @@ public interface Configuration {
 	 */
 	File getTemporaryDirectory();
 
+	/**
+	 * Default values for multipart configuration of servlets - used only for values which are not set in
+	 * servlet's own multipart configuration.
+	 *
+	 * @return directory where uploaded files are spooled
+	 */
+	String getMultipartLocation();
+
+	Long getMultipartMaxFileSize();
+
+	Long getMultipartMaxRequestSize();
+
+	Integer getMultipartFileSizeThreshold();
+
 	/**
 	 * Returns the time in minutes after which an incative settion times out. If
 	 * returned value is null then no time out will be set (in jetty this will
@@ -139,6 +169,34 @@ public interface Configuration {
 
 	Boolean getSessionLazyLoad();
 
+	/**
+	 * Returns maximum number of sessions kept in memory when sessions are persisted in
+	 * {@link #getSessionStoreDirectory()}. Sessions above this limit are swapped out to the store.
+	 *
+	 * @return maximum number of active sessions or null/-1 for no limit
+	 */
+	Integer getSessionMaxActive();
+
+	/**
+	 * @return minimum idle time in seconds before persisted session may be swapped out
+	 */
+	Integer getSessionMinIdleSwap();
+
+	/**
+	 * @return idle time in seconds after which persisted session is swapped out
+	 */
+	Integer getSessionMaxIdleSwap();
+
+	/**
+	 * @return idle time in seconds after which persisted session is backed up
+	 */
+	Integer getSessionMaxIdleBackup();
+
+	/**
+	 * @return whether persisted sessions are written asynchronously
+	 */
+	Boolean getSessionStoreAsync();
+
 	String getWorkerName();
 
 	/**
@@ -148,6 +206,20 @@ public interface Configuration {
 	 */
 	String[] getListeningAddresses();
 
+	/**
+	 * Returns the path of Unix domain socket to listen on
+	 *
+	 * @return socket path or {@code null} if there should be no Unix domain socket connector
+	 */
+	String getListeningUnixSocket();
+
+	/**
+	 * Returns the name of Unix domain socket connector
+	 *
+	 * @return connector name
+	 */
+	String getListeningUnixSocketConnectorName();
+
 	/**
 	 * Returns the directory containing the external configuration
 	 *
@@ -231,6 +303,12 @@ public interface Configuration {
 	String getTrustStoreType();
 
 	Boolean isSslRenegotiationAllowed();
+
+	Integer getSslSessionCacheSize();
+
+	Integer getSslSessionTimeout();
+
+	Integer getSslReloadInterval();
 	
 	String getCrlPath();
 	
@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.ops4j.pax.web.service.WebContainerConstants;
+
+/**
+ * <p>Impact of a change of {@link WebContainerConstants} configuration properties on running server. Used by
+ * {@link ServerController#reconfigure(Configuration, Set)} to decide whether new configuration can be applied
+ * without stopping the server (and all the contexts registered in it).</p>
+ *
+ * <p>Constants are ordered by severity - {@link #of(Collection)} returns the most severe impact of given
+ * changes.</p>
+ */
+public enum ConfigurationChange {
+
+	/**
+	 * Nothing in the server has to be changed.
+	 */
+	NONE,
+
+	/**
+	 * Change can be applied to running server - request logging, timeouts, thread pool sizes and defaults
+	 * used for new registrations.
+	 */
+	HOT,
+
+	/**
+	 * Connectors have to be recreated (ports, listening addresses, SSL), but contexts may stay deployed.
+	 */
+	CONNECTOR,
+
+	/**
+	 * Server has to be stopped and started again with new configuration.
+	 */
+	RESTART;
+
+	private static final Set<String> IGNORED = new HashSet<>(Arrays.asList(
+			"service.pid",
+			"service.factoryPid",
+			"service.bundleLocation",
+			"felix.fileinstall.filename"
+	));
+
+	private static final Set<String> HOT_PROPERTIES = new HashSet<>(Arrays.asList(
+			WebContainerConstants.PROPERTY_LOG_NCSA_ENABLED,
+			WebContainerConstants.PROPERTY_LOG_NCSA_FORMAT,
+			WebContainerConstants.PROPERTY_LOG_NCSA_RETAINDAYS,
+			WebContainerConstants.PROPERTY_LOG_NCSA_APPEND,
+			WebContainerConstants.PROPERTY_LOG_NCSA_EXTENDED,
+			WebContainerConstants.PROPERTY_LOG_NCSA_DISPATCH,
+			WebContainerConstants.PROPERTY_LOG_NCSA_LOGTIMEZONE,
+			WebContainerConstants.PROPERTY_LOG_NCSA_LOGDIR,
+			WebContainerConstants.PROPERTY_LOG_NCSA_LATENCY,
+			WebContainerConstants.PROPERTY_LOG_NCSA_COOKIES,
+			WebContainerConstants.PROPERTY_LOG_NCSA_SERVER,
+			WebContainerConstants.PROPERTY_SESSION_TIMEOUT,
+			WebContainerConstants.PROPERTY_MAX_THREADS,
+			WebContainerConstants.PROPERTY_MIN_THREADS,
+			WebContainerConstants.PROPERTY_IDLE_TIMEOUT,
+			WebContainerConstants.PROPERTY_CONNECTOR_IDLE_TIMEOUT,
+			WebContainerConstants.PROPERTY_GRACEFUL_SHUTDOWN_TIMEOUT,
+			WebContainerConstants.PROPERTY_MULTIPART_LOCATION,
+			WebContainerConstants.PROPERTY_MULTIPART_MAX_FILE_SIZE,
+			WebContainerConstants.PROPERTY_MULTIPART_MAX_REQUEST_SIZE,
+			WebContainerConstants.PROPERTY_MULTIPART_FILE_SIZE_THRESHOLD
+	));
+
+	private static final Set<String> CONNECTOR_PROPERTIES = new HashSet<>(Arrays.asList(
+			WebContainerConstants.PROPERTY_HTTP_USE_NIO,
+			WebContainerConstants.PROPERTY_HTTP_CHECK_FORWARDED_HEADERS,
+			WebContainerConstants.PROPERTY_HTTP_PORT,
+			WebContainerConstants.PROPERTY_HTTP_CONNECTOR_NAME,
+			WebContainerConstants.PROPERTY_HTTP_SECURE_PORT,
+			WebContainerConstants.PROPERTY_HTTP_ENABLED,
+			WebContainerConstants.PROPERTY_HTTP_SECURE_ENABLED,
+			WebContainerConstants.PROPERTY_HTTP_SECURE_CONNECTOR_NAME,
+			WebContainerConstants.PROPERTY_LISTENING_ADDRESSES,
+			WebContainerConstants.PROPERTY_LISTENING_UNIX_SOCKET,
+			WebContainerConstants.PROPERTY_LISTENING_UNIX_SOCKET_CONNECTOR_NAME,
+			WebContainerConstants.PROPERTY_CIPHERSUITE_INCLUDED,
+			WebContainerConstants.PROPERTY_CIPHERSUITE_EXCLUDED,
+			WebContainerConstants.PROPERTY_CRL_PATH,
+			WebContainerConstants.PROPERTY_ENABLE_CRLDP,
+			WebContainerConstants.PROPERTY_VALIDATE_CERTS,
+			WebContainerConstants.PROPERTY_VALIDATE_PEER_CERTS,
+			WebContainerConstants.PROPERTY_ENABLE_OCSP,
+			WebContainerConstants.PROPERTY_OCSP_RESPONDER_URL
+	));
+
+	private static final String SSL_PREFIX = WebContainerConstants.PID + ".ssl.";
+
+	private static final String LOG_NCSA_PREFIX = "org.ops4j.pax.web.log.ncsa.";
+
+	/**
+	 * Classifies single configuration property. Properties not known to be safe for running server require
+	 * {@link #RESTART}.
+	 *
+	 * @param property name of changed property
+	 * @return impact of the change
+	 */
+	public static ConfigurationChange of(String property) {
+		if (property == null || IGNORED.contains(property)) {
+			return NONE;
+		}
+		if (HOT_PROPERTIES.contains(property)) {
+			return HOT;
+		}
+		if (CONNECTOR_PROPERTIES.contains(property) || property.startsWith(SSL_PREFIX)) {
+			return CONNECTOR;
+		}
+		return RESTART;
+	}
+
+	/**
+	 * Classifies a set of configuration properties.
+	 *
+	 * @param properties names of changed properties
+	 * @return the most severe impact of the changes
+	 */
+	public static ConfigurationChange of(Collection<String> properties) {
+		ConfigurationChange result = NONE;
+		for (String property : properties) {
+			ConfigurationChange change = of(property);
+			if (change.compareTo(result) > 0) {
+				result = change;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Checks whether request log (NCSA log) has to be reconfigured.
+	 *
+	 * @param properties names of changed properties
+	 * @return {@code true} if any of {@code org.ops4j.pax.web.log.ncsa.*} properties changed
+	 */
+	public static boolean isRequestLogChanged(Collection<String> properties) {
+		for (String property : properties) {
+			if (property != null && property.startsWith(LOG_NCSA_PREFIX)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
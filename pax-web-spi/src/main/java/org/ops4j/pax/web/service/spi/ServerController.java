@@ -16,8 +16,10 @@
  */
 package org.ops4j.pax.web.service.spi;
 
+import java.util.Set;
 import javax.servlet.Servlet;
 
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
 import org.ops4j.pax.web.service.spi.model.ContainerInitializerModel;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
 import org.ops4j.pax.web.service.spi.model.ErrorPageModel;
@@ -40,6 +42,22 @@ public interface ServerController {
 
 	void configure(Configuration configuration);
 
+	/**
+	 * <p>Applies changed configuration to running server without stopping it, so registered contexts stay
+	 * deployed. Depending on {@link ConfigurationChange#of(java.util.Collection) impact} of the changes,
+	 * settings are changed in place or only the connectors are recreated.</p>
+	 *
+	 * <p>Default implementation doesn't support reconfiguration.</p>
+	 *
+	 * @param configuration new configuration
+	 * @param changed names of properties changed since previous configuration
+	 * @return {@code true} if the configuration was applied, {@code false} if the caller has to stop the server
+	 * and start a new one with given configuration
+	 */
+	default boolean reconfigure(Configuration configuration, Set<String> changed) {
+		return false;
+	}
+
 	Configuration getConfiguration();
 
 	void addListener(ServerListener listener);
@@ -58,6 +76,15 @@ public interface ServerController {
 
 	void addFilter(FilterModel filterModel);
 
+	/**
+	 * Adds a filter at the position determined by its {@link FilterModel#getRanking() ranking} within the
+	 * filter chain of its context. Filters already registered are neither removed nor added again and
+	 * filters with equal ranking keep the order of registration.
+	 *
+	 * @param filterModel filter to add
+	 */
+	void insertFilter(FilterModel filterModel);
+
 	void removeFilter(FilterModel filterModel);
 
 	void addErrorPage(ErrorPageModel model);
@@ -83,4 +110,11 @@ public interface ServerController {
 
 	void addContainerInitializerModel(ContainerInitializerModel model);
 
+	/**
+	 * Returns request metrics recorded by running server.
+	 *
+	 * @return metrics of the server or {@code null} if the server is not started
+	 */
+	RequestMetricsRegistry getRequestMetrics();
+
 }
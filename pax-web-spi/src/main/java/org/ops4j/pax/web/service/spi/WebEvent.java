@@ -17,6 +17,7 @@
 package org.ops4j.pax.web.service.spi;
 
 import java.util.Collection;
+import java.util.Map;
 
 import org.osgi.framework.Bundle;
 import org.osgi.framework.Constants;
@@ -69,6 +70,7 @@ public class WebEvent {
 	private Collection<Long> collisionIds;
 	private HttpService httpService;
 	private HttpContext httpContext;
+	private Map<String, Long> deploymentTimings;
 
 	public WebEvent(WebEvent event, boolean replay) {
 		this.type = event.getType();
@@ -86,6 +88,7 @@ public class WebEvent {
 		this.timestamp = event.getTimestamp();
 		this.httpService = event.getHttpService();
 		this.httpContext = event.getHttpContext();
+		this.deploymentTimings = event.getDeploymentTimings();
 		this.replay = replay;
 	}
 
@@ -124,6 +127,13 @@ public class WebEvent {
 		this.httpService = httpService;
 	}
 
+	public WebEvent(int type, String contextPath, Bundle bundle,
+					Bundle extenderBundle, HttpService httpService,
+					HttpContext httpContext, Map<String, Long> deploymentTimings) {
+		this(type, contextPath, bundle, extenderBundle, httpService, httpContext);
+		this.deploymentTimings = deploymentTimings;
+	}
+
 	/**
 	 * @return the type
 	 */
@@ -218,6 +228,14 @@ public class WebEvent {
 		return httpContext;
 	}
 
+	/**
+	 * @return durations (in microseconds) of deployment phases, in the order the phases started (only for
+	 * {@link #DEPLOYED} events)
+	 */
+	public Map<String, Long> getDeploymentTimings() {
+		return deploymentTimings;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.admission;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.ops4j.pax.web.service.spi.Configuration;
+
+/**
+ * <p>Container-neutral admission control of single server. Keeps a {@link ConcurrencyLimit} for each context
+ * (by {@link org.ops4j.pax.web.service.spi.model.ContextModel#getContextName() context name}) and the list of
+ * paths which are never rejected.</p>
+ *
+ * <p>Containers call {@link #isExempt(String)} and {@link ConcurrencyLimit#tryAcquire(long)} before
+ * dispatching a request (not async dispatches) to a context and reject the request with 503 and
+ * {@link #getRetryAfter() Retry-After} when it's not admitted.</p>
+ */
+public class AdmissionControl {
+
+	public static final int DEFAULT_TARGET_DELAY = 50;
+	public static final int DEFAULT_INTERVAL = 500;
+	public static final int DEFAULT_MIN_CONCURRENCY = 4;
+	public static final int DEFAULT_MAX_CONCURRENCY = 200;
+	public static final int DEFAULT_RETRY_AFTER = 1;
+
+	private final long targetDelay;
+	private final long interval;
+	private final int minConcurrency;
+	private final int maxConcurrency;
+	private final String[] exemptPaths;
+	private final String retryAfter;
+
+	private final ConcurrentMap<String, ConcurrencyLimit> limits = new ConcurrentHashMap<>();
+
+	/**
+	 * @param targetDelay acceptable queueing delay (in milliseconds)
+	 * @param interval time (in milliseconds) after which limits are adjusted
+	 * @param minConcurrency lowest limit of a context
+	 * @param maxConcurrency highest (and initial) limit of a context
+	 * @param exemptPaths request paths which are never rejected (with all paths below them)
+	 * @param retryAfter value (in seconds) of {@code Retry-After} header
+	 */
+	public AdmissionControl(int targetDelay, int interval, int minConcurrency, int maxConcurrency,
+			List<String> exemptPaths, int retryAfter) {
+		if (minConcurrency < 1 || maxConcurrency < minConcurrency) {
+			throw new IllegalArgumentException("Invalid concurrency limits: " + minConcurrency + " - " + maxConcurrency);
+		}
+		this.targetDelay = TimeUnit.MILLISECONDS.toNanos(Math.max(0, targetDelay));
+		this.interval = TimeUnit.MILLISECONDS.toNanos(Math.max(1, interval));
+		this.minConcurrency = minConcurrency;
+		this.maxConcurrency = maxConcurrency;
+		List<String> paths = new ArrayList<>();
+		for (String path : exemptPaths) {
+			// "/health/" and "/health/*" are the same as "/health"
+			String p = path.endsWith("/*") ? path.substring(0, path.length() - 2) : path;
+			while (p.endsWith("/")) {
+				p = p.substring(0, p.length() - 1);
+			}
+			paths.add(p.startsWith("/") || p.isEmpty() ? p : "/" + p);
+		}
+		this.exemptPaths = paths.toArray(new String[0]);
+		this.retryAfter = Integer.toString(Math.max(0, retryAfter));
+	}
+
+	/**
+	 * Creates admission control for the server.
+	 *
+	 * @param configuration server configuration
+	 * @return admission control or {@code null} if it's not enabled
+	 */
+	public static AdmissionControl create(Configuration configuration) {
+		if (configuration == null || !Boolean.TRUE.equals(configuration.isAdmissionControlEnabled())) {
+			return null;
+		}
+		List<String> exemptPaths = configuration.getAdmissionExemptPaths();
+		return new AdmissionControl(
+				valueOf(configuration.getAdmissionTargetDelay(), DEFAULT_TARGET_DELAY),
+				valueOf(configuration.getAdmissionInterval(), DEFAULT_INTERVAL),
+				valueOf(configuration.getAdmissionMinConcurrency(), DEFAULT_MIN_CONCURRENCY),
+				valueOf(configuration.getAdmissionMaxConcurrency(), DEFAULT_MAX_CONCURRENCY),
+				exemptPaths == null ? Collections.<String>emptyList() : exemptPaths,
+				valueOf(configuration.getAdmissionRetryAfter(), DEFAULT_RETRY_AFTER));
+	}
+
+	private static int valueOf(Integer value, int defaultValue) {
+		return value == null ? defaultValue : value;
+	}
+
+	/**
+	 * @param path full (decoded) request path, including context path
+	 * @return {@code true} if the request is never rejected
+	 */
+	public boolean isExempt(String path) {
+		if (path == null) {
+			return false;
+		}
+		for (String exempt : exemptPaths) {
+			if (path.startsWith(exempt)
+					&& (path.length() == exempt.length() || path.charAt(exempt.length()) == '/')) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns (and possibly creates) the limit of given context.
+	 *
+	 * @param contextName name of the context
+	 * @return concurrency limit of the context
+	 */
+	public ConcurrencyLimit getLimit(String contextName) {
+		String context = contextName == null ? "" : contextName;
+		ConcurrencyLimit limit = limits.get(context);
+		if (limit == null) {
+			limit = limits.computeIfAbsent(context,
+					name -> new ConcurrencyLimit(targetDelay, interval, minConcurrency, maxConcurrency));
+		}
+		return limit;
+	}
+
+	/**
+	 * @return value of {@code Retry-After} header of rejected requests
+	 */
+	public String getRetryAfter() {
+		return retryAfter;
+	}
+
+}
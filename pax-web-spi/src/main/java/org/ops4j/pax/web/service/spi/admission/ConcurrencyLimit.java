@@ -0,0 +1,156 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Adaptive limit of concurrent requests of single context.</p>
+ *
+ * <p>Each admitted request reports its queueing delay (time between receiving the request and dispatching it
+ * to the context). Like in CoDel, only the <em>minimum</em> delay of an interval matters - when even the
+ * fastest request of the whole interval waited longer than the target, there's a standing queue and the limit
+ * is decreased multiplicatively (and requests which waited longer than the target are shed). Otherwise the
+ * limit is increased by one (AIMD).</p>
+ *
+ * <p>The limit is lock-free: requests update an atomic counter and minimum, and only the thread which closes
+ * an interval adjusts the limit.</p>
+ */
+public class ConcurrencyLimit {
+
+	/**
+	 * Multiplicative decrease of the limit when the interval had a standing queue.
+	 */
+	static final double BACKOFF_RATIO = 0.9d;
+
+	private final long targetDelay;
+	private final long interval;
+	private final int minLimit;
+	private final int maxLimit;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong minDelay = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong intervalStart;
+	private final LongAdder rejected = new LongAdder();
+
+	private volatile int limit;
+	private volatile boolean overloaded;
+
+	/**
+	 * @param targetDelay acceptable queueing delay (in nanoseconds)
+	 * @param interval time (in nanoseconds) after which the limit is adjusted
+	 * @param minLimit lowest limit
+	 * @param maxLimit highest (and initial) limit
+	 */
+	public ConcurrencyLimit(long targetDelay, long interval, int minLimit, int maxLimit) {
+		this(targetDelay, interval, minLimit, maxLimit, System.nanoTime());
+	}
+
+	ConcurrencyLimit(long targetDelay, long interval, int minLimit, int maxLimit, long now) {
+		this.targetDelay = targetDelay;
+		this.interval = interval;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.limit = maxLimit;
+		this.intervalStart = new AtomicLong(now);
+	}
+
+	/**
+	 * Admits a request, unless the context is overloaded. Admitted request has to be {@link #release() released}
+	 * when it completes (also when it's async).
+	 *
+	 * @param queueDelay time (in nanoseconds) the request waited before being dispatched to the context
+	 * @return {@code true} if the request is admitted
+	 */
+	public boolean tryAcquire(long queueDelay) {
+		return tryAcquire(queueDelay, System.nanoTime());
+	}
+
+	boolean tryAcquire(long queueDelay, long now) {
+		long delay = Math.max(0L, queueDelay);
+		sample(delay, now);
+		if (overloaded && delay > targetDelay) {
+			// the request already waited too long - answering it quickly helps more than processing it late
+			rejected.increment();
+			return false;
+		}
+		int current;
+		do {
+			current = inFlight.get();
+			if (current >= limit) {
+				rejected.increment();
+				return false;
+			}
+		} while (!inFlight.compareAndSet(current, current + 1));
+		return true;
+	}
+
+	/**
+	 * Completes request admitted by {@link #tryAcquire(long)}.
+	 */
+	public void release() {
+		inFlight.decrementAndGet();
+	}
+
+	private void sample(long delay, long now) {
+		long min = minDelay.get();
+		while (delay < min && !minDelay.compareAndSet(min, delay)) {
+			min = minDelay.get();
+		}
+		long start = intervalStart.get();
+		if (now - start >= interval && intervalStart.compareAndSet(start, now)) {
+			adjust(minDelay.getAndSet(Long.MAX_VALUE));
+		}
+	}
+
+	/**
+	 * Called by single thread at the end of each interval.
+	 *
+	 * @param intervalMinDelay the lowest delay of the interval ({@link Long#MAX_VALUE} if there were no requests)
+	 */
+	private void adjust(long intervalMinDelay) {
+		if (intervalMinDelay != Long.MAX_VALUE && intervalMinDelay > targetDelay) {
+			overloaded = true;
+			// back off from the concurrency actually reached, the limit may be far above it
+			int base = Math.min(limit, inFlight.get());
+			limit = Math.max(minLimit, (int) (base * BACKOFF_RATIO));
+		} else {
+			overloaded = false;
+			if (limit < maxLimit) {
+				limit = limit + 1;
+			}
+		}
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	public boolean isOverloaded() {
+		return overloaded;
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.admission;
+
+/**
+ * <p>Measures how long tasks waited in the queue of a container's thread pool.</p>
+ *
+ * <p>Thread pools wrap each submitted task with {@link #timestamped(Runnable)}, which remembers the time the
+ * task was enqueued. When a pooled thread runs the task, the time it waited is available to the code running
+ * in the task through {@link #take()} - the first request handled by the task reports it as its queueing
+ * delay, further requests handled by the same task (e.g. pipelined ones) didn't wait for a thread.</p>
+ */
+public final class QueueDelay {
+
+	private static final long NONE = -1L;
+
+	private static final ThreadLocal<long[]> CURRENT = ThreadLocal.withInitial(() -> new long[] { NONE });
+
+	private QueueDelay() {
+	}
+
+	/**
+	 * Wraps a task which is about to be enqueued in a thread pool.
+	 *
+	 * @param task the task
+	 * @return the task remembering the time it was enqueued
+	 */
+	public static Runnable timestamped(Runnable task) {
+		if (task == null || task instanceof Timestamped) {
+			return task;
+		}
+		return new Timestamped(task, System.nanoTime());
+	}
+
+	/**
+	 * Returns (only once) the time the task running in current thread waited in the queue.
+	 *
+	 * @return queueing delay in nanoseconds or {@code 0} if current thread doesn't run a
+	 * {@link #timestamped(Runnable) timestamped} task or the delay was already taken
+	 */
+	public static long take() {
+		long[] current = CURRENT.get();
+		long delay = current[0];
+		current[0] = NONE;
+		return delay < 0L ? 0L : delay;
+	}
+
+	private static final class Timestamped implements Runnable {
+
+		private final Runnable task;
+		private final long enqueued;
+
+		private Timestamped(Runnable task, long enqueued) {
+			this.task = task;
+			this.enqueued = enqueued;
+		}
+
+		@Override
+		public void run() {
+			long[] current = CURRENT.get();
+			current[0] = Math.max(0L, System.nanoTime() - enqueued);
+			try {
+				task.run();
+			} finally {
+				current[0] = NONE;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return task.toString();
+		}
+	}
+
+}
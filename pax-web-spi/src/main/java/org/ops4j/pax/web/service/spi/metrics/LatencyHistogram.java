@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Lock-free histogram of non-negative values (e.g. latencies in microseconds) with log-linear buckets
+ * (like HdrHistogram): each power of two range is divided into {@link #SUB_BUCKET_COUNT} equal buckets,
+ * so percentiles are reported with relative error below 1/32 using fixed amount of memory.</p>
+ *
+ * <p>Recording is a single atomic increment of a bucket plus two striped counters, so concurrent requests
+ * don't contend on a single memory location.</p>
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Values above 2^MAX_EXPONENT (about 12 days in microseconds) are counted in the last bucket.
+	 */
+	private static final int MAX_EXPONENT = 40;
+
+	static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Long::max, 0L);
+
+	/**
+	 * Records single value - negative values are recorded as {@code 0}.
+	 *
+	 * @param value value to record
+	 */
+	public void record(long value) {
+		long v = value < 0L ? 0L : value;
+		buckets.incrementAndGet(bucketIndex(v));
+		count.increment();
+		sum.add(v);
+		max.accumulate(v);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public long getMean() {
+		long c = count.sum();
+		return c == 0L ? 0L : sum.sum() / c;
+	}
+
+	/**
+	 * Returns a value for which given percentage of recorded values is lower or equal (within precision of
+	 * the histogram).
+	 *
+	 * @param percentile percentile between {@code 0} and {@code 100}
+	 * @return value at given percentile or {@code 0} if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long[] counts = new long[BUCKET_COUNT];
+		long total = 0L;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0L) {
+			return 0L;
+		}
+		double p = Math.min(Math.max(percentile, 0.0d), 100.0d);
+		long target = Math.max(1L, (long) Math.ceil(p / 100.0d * total));
+		long cumulative = 0L;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			cumulative += counts[i];
+			if (cumulative >= target) {
+				return Math.min(highestValue(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			// small values are counted exactly
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		if (exponent > MAX_EXPONENT) {
+			return BUCKET_COUNT - 1;
+		}
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+	}
+
+	/**
+	 * @param index index of a bucket
+	 * @return highest value counted in given bucket
+	 */
+	static long highestValue(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.ops4j.pax.web.service.RequestMetricsDTO;
+
+/**
+ * <p>Request statistics of single servlet within single context. Containers call
+ * {@link #requestStarted()} when the request enters the context and
+ * {@link #requestCompleted(long, int, long, long)} when the response is completed (also for async requests).</p>
+ *
+ * <p>All counters are {@link LongAdder striped}, so recording doesn't contend between request threads.</p>
+ */
+public class RequestMetrics implements RequestMetricsMXBean {
+
+	private final String contextName;
+	private final String servletName;
+
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder active = new LongAdder();
+	private final LongAdder bytesIn = new LongAdder();
+	private final LongAdder bytesOut = new LongAdder();
+	private final LongAdder[] statusClasses = new LongAdder[5];
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	public RequestMetrics(String contextName, String servletName) {
+		this.contextName = contextName;
+		this.servletName = servletName;
+		for (int i = 0; i < statusClasses.length; i++) {
+			statusClasses[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Marks the request as active.
+	 *
+	 * @return start time to pass to {@link #requestCompleted(long, int, long, long)}
+	 */
+	public long requestStarted() {
+		active.increment();
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records completed request.
+	 *
+	 * @param startNanos value returned from {@link #requestStarted()}
+	 * @param status status of the response
+	 * @param requestBytes number of bytes of request content (negative if unknown)
+	 * @param responseBytes number of bytes of response content (negative if unknown)
+	 */
+	public void requestCompleted(long startNanos, int status, long requestBytes, long responseBytes) {
+		latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+		active.decrement();
+		requests.increment();
+		if (requestBytes > 0L) {
+			bytesIn.add(requestBytes);
+		}
+		if (responseBytes > 0L) {
+			bytesOut.add(responseBytes);
+		}
+		int statusClass = status / 100 - 1;
+		if (statusClass >= 0 && statusClass < statusClasses.length) {
+			statusClasses[statusClass].increment();
+		}
+	}
+
+	@Override
+	public String getContextName() {
+		return contextName;
+	}
+
+	@Override
+	public String getServletName() {
+		return servletName;
+	}
+
+	@Override
+	public long getRequestCount() {
+		return requests.sum();
+	}
+
+	@Override
+	public long getActiveRequests() {
+		return active.sum();
+	}
+
+	@Override
+	public long getBytesIn() {
+		return bytesIn.sum();
+	}
+
+	@Override
+	public long getBytesOut() {
+		return bytesOut.sum();
+	}
+
+	@Override
+	public long getStatus1xxCount() {
+		return statusClasses[0].sum();
+	}
+
+	@Override
+	public long getStatus2xxCount() {
+		return statusClasses[1].sum();
+	}
+
+	@Override
+	public long getStatus3xxCount() {
+		return statusClasses[2].sum();
+	}
+
+	@Override
+	public long getStatus4xxCount() {
+		return statusClasses[3].sum();
+	}
+
+	@Override
+	public long getStatus5xxCount() {
+		return statusClasses[4].sum();
+	}
+
+	@Override
+	public long getLatencyMean() {
+		return latency.getMean();
+	}
+
+	@Override
+	public long getLatency50thPercentile() {
+		return latency.getValueAtPercentile(50.0d);
+	}
+
+	@Override
+	public long getLatency90thPercentile() {
+		return latency.getValueAtPercentile(90.0d);
+	}
+
+	@Override
+	public long getLatency99thPercentile() {
+		return latency.getValueAtPercentile(99.0d);
+	}
+
+	@Override
+	public long getLatencyMax() {
+		return latency.getMax();
+	}
+
+	public RequestMetricsDTO toDTO() {
+		RequestMetricsDTO dto = new RequestMetricsDTO();
+		dto.contextName = contextName;
+		dto.servletName = servletName;
+		dto.requestCount = getRequestCount();
+		dto.activeRequests = getActiveRequests();
+		dto.bytesIn = getBytesIn();
+		dto.bytesOut = getBytesOut();
+		dto.statusClassCounts = new long[statusClasses.length];
+		for (int i = 0; i < statusClasses.length; i++) {
+			dto.statusClassCounts[i] = statusClasses[i].sum();
+		}
+		dto.latencyMean = getLatencyMean();
+		dto.latency50thPercentile = getLatency50thPercentile();
+		dto.latency90thPercentile = getLatency90thPercentile();
+		dto.latency99thPercentile = getLatency99thPercentile();
+		dto.latencyMax = getLatencyMax();
+		return dto;
+	}
+
+	@Override
+	public String toString() {
+		return "RequestMetrics{" + contextName + ", " + servletName + ", requests=" + getRequestCount()
+				+ ", active=" + getActiveRequests() + "}";
+	}
+
+}
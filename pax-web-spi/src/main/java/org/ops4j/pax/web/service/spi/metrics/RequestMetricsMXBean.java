@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.metrics;
+
+/**
+ * JMX view of {@link RequestMetrics} registered as
+ * {@code org.ops4j.pax.web:type=RequestMetrics,context=<context>,servlet=<servlet>}.
+ * Latencies are in microseconds.
+ */
+public interface RequestMetricsMXBean {
+
+	String getContextName();
+
+	String getServletName();
+
+	long getRequestCount();
+
+	long getActiveRequests();
+
+	long getBytesIn();
+
+	long getBytesOut();
+
+	long getStatus1xxCount();
+
+	long getStatus2xxCount();
+
+	long getStatus3xxCount();
+
+	long getStatus4xxCount();
+
+	long getStatus5xxCount();
+
+	long getLatencyMean();
+
+	long getLatency50thPercentile();
+
+	long getLatency90thPercentile();
+
+	long getLatency99thPercentile();
+
+	long getLatencyMax();
+
+}
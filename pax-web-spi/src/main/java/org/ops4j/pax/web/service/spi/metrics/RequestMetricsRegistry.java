@@ -0,0 +1,149 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.metrics;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.ops4j.pax.web.service.RequestMetricsDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Container-neutral registry of {@link RequestMetrics} of single server, keyed by context name
+ * ({@link org.ops4j.pax.web.service.spi.model.ContextModel#getContextName()}) and servlet name. Metrics are
+ * created when the first request of given servlet is recorded and registered in platform
+ * {@link MBeanServer} as {@link RequestMetricsMXBean}.</p>
+ *
+ * <p>Metrics are kept when a context is removed, so they accumulate over redeployments of the same
+ * context. They're unregistered from JMX when the registry is {@link #close() closed} together with
+ * the server.</p>
+ */
+public class RequestMetricsRegistry implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(RequestMetricsRegistry.class);
+
+	public static final String OBJECT_NAME_DOMAIN = "org.ops4j.pax.web";
+
+	/**
+	 * Key used for requests which are not mapped to any servlet.
+	 */
+	private static final String UNMAPPED = "";
+
+	private final ConcurrentMap<String, ConcurrentMap<String, RequestMetrics>> contexts = new ConcurrentHashMap<>();
+
+	private final MBeanServer mBeanServer;
+
+	private volatile boolean closed;
+
+	public RequestMetricsRegistry() {
+		this(ManagementFactory.getPlatformMBeanServer());
+	}
+
+	/**
+	 * @param mBeanServer server where metrics are registered - may be {@code null} to disable JMX
+	 */
+	public RequestMetricsRegistry(MBeanServer mBeanServer) {
+		this.mBeanServer = mBeanServer;
+	}
+
+	/**
+	 * Returns (and possibly creates) metrics for given servlet. Called for each request, so lookup of
+	 * existing metrics doesn't allocate.
+	 *
+	 * @param contextName name of the context
+	 * @param servletName name of the servlet or {@code null} if the request is not mapped to any servlet
+	 * @return metrics to record the request
+	 */
+	public RequestMetrics getMetrics(String contextName, String servletName) {
+		String context = contextName == null ? "" : contextName;
+		ConcurrentMap<String, RequestMetrics> servlets = contexts.get(context);
+		if (servlets == null) {
+			servlets = contexts.computeIfAbsent(context, name -> new ConcurrentHashMap<>());
+		}
+		String servlet = servletName == null ? UNMAPPED : servletName;
+		RequestMetrics metrics = servlets.get(servlet);
+		if (metrics == null) {
+			metrics = servlets.computeIfAbsent(servlet, name -> register(new RequestMetrics(context, servletName)));
+		}
+		return metrics;
+	}
+
+	/**
+	 * @return snapshot of all metrics sorted by context and servlet name
+	 */
+	public List<RequestMetricsDTO> getRequestMetrics() {
+		List<RequestMetricsDTO> result = new ArrayList<>();
+		for (ConcurrentMap<String, RequestMetrics> servlets : contexts.values()) {
+			for (RequestMetrics metrics : servlets.values()) {
+				result.add(metrics.toDTO());
+			}
+		}
+		result.sort(Comparator.comparing((RequestMetricsDTO dto) -> dto.contextName)
+				.thenComparing(dto -> dto.servletName == null ? UNMAPPED : dto.servletName));
+		return result;
+	}
+
+	/**
+	 * Unregisters all metrics from JMX. Metrics created later are not registered.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		if (mBeanServer == null) {
+			return;
+		}
+		for (ConcurrentMap<String, RequestMetrics> servlets : contexts.values()) {
+			for (RequestMetrics metrics : servlets.values()) {
+				try {
+					ObjectName name = objectName(metrics);
+					if (mBeanServer.isRegistered(name)) {
+						mBeanServer.unregisterMBean(name);
+					}
+				} catch (JMException e) {
+					LOG.debug("Can't unregister request metrics {}: {}", metrics, e.getMessage());
+				}
+			}
+		}
+	}
+
+	private RequestMetrics register(RequestMetrics metrics) {
+		if (mBeanServer != null && !closed) {
+			try {
+				mBeanServer.registerMBean(metrics, objectName(metrics));
+			} catch (JMException e) {
+				// e.g. metrics of previous server not yet unregistered - metrics are still recorded
+				LOG.debug("Can't register request metrics {}: {}", metrics, e.getMessage());
+			}
+		}
+		return metrics;
+	}
+
+	static ObjectName objectName(RequestMetrics metrics) throws JMException {
+		return new ObjectName(OBJECT_NAME_DOMAIN + ":type=RequestMetrics"
+				+ ",context=" + ObjectName.quote(metrics.getContextName())
+				+ ",servlet=" + ObjectName.quote(metrics.getServletName() == null ? UNMAPPED : metrics.getServletName()));
+	}
+
+}
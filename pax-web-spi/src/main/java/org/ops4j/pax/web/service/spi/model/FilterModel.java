@@ -153,6 +153,43 @@ public class FilterModel extends Model {
 		return asyncSupported;
 	}
 
+	/**
+	 * Returns ranking of the filter passed as {@link WebContainerConstants#FILTER_RANKING} init parameter.
+	 * Filters with lower ranking come first in the filter chain.
+	 *
+	 * @return ranking of the filter or {@code 0} if not specified
+	 */
+	public int getRanking() {
+		return getRanking(initParams);
+	}
+
+	/**
+	 * Returns ranking of a filter from its init parameters.
+	 *
+	 * @param initParams init parameters of a filter
+	 * @return ranking of the filter or {@code 0} if not specified
+	 */
+	public static int getRanking(Map<String, String> initParams) {
+		String ranking = initParams == null ? null : initParams.get(WebContainerConstants.FILTER_RANKING);
+		if (ranking == null) {
+			return 0;
+		}
+		try {
+			return Integer.parseInt(ranking.trim());
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Checks whether ranking was specified for the filter.
+	 *
+	 * @return {@code true} if {@link WebContainerConstants#FILTER_RANKING} init parameter is set
+	 */
+	public boolean isRanked() {
+		return initParams != null && initParams.get(WebContainerConstants.FILTER_RANKING) != null;
+	}
+
 	/*
 	 * From web app XSD:
 	 * The logical name of the filter is declare by using filter-nameType. This name is used to map the
@@ -26,6 +26,8 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Pattern;
 
@@ -109,6 +111,17 @@ public class ServerModel {
 
     private final Map<String,List<Bundle>> bundlesByVirtualHost;
 
+	/**
+	 * Incremented on each change of registered servlets, filters and http contexts. Allows to cache
+	 * information derived from this model (like runtime DTOs) until next change.
+	 */
+	private final AtomicLong changeCount = new AtomicLong();
+
+	/**
+	 * Notified after each change of {@link #changeCount}.
+	 */
+	private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
 	/**
 	 * Constructor.
 	 */
@@ -215,6 +228,7 @@ public class ServerModel {
                 }
             }
 		} finally {
+			changed();
 			servletLock.writeLock().unlock();
 		}
 	}
@@ -242,6 +256,7 @@ public class ServerModel {
                 }
             }
 		} finally {
+			changed();
 			servletLock.writeLock().unlock();
 		}
 	}
@@ -282,6 +297,7 @@ public class ServerModel {
                                     }
                                 }
 			} finally {
+				changed();
 				filterLock.writeLock().unlock();
 			}
 		}
@@ -320,6 +336,7 @@ public class ServerModel {
 					}
 				}
 			} finally {
+				changed();
 				filterLock.writeLock().unlock();
 			}
 		}
@@ -370,6 +387,9 @@ public class ServerModel {
 					throw new IllegalStateException("Http context " + httpContext + " is already associated to bundle "
 									+ currentBundle);
 			}
+			if (currentBundle == null) {
+				changed();
+			}
 		}
 	}
 
@@ -405,6 +425,38 @@ public class ServerModel {
             .flatMap(setEntry -> setEntry.stream())
             .filter(entry -> entry.getValue() == bundle)
             .forEach(entry -> httpContexts.remove(entry.getKey()));
+		changed();
+	}
+
+	/**
+	 * Returns a counter which changes each time servlets, filters or http contexts are registered or
+	 * unregistered.
+	 *
+	 * @return current change count of this model
+	 */
+	public long getChangeCount() {
+		return changeCount.get();
+	}
+
+	/**
+	 * Registers a listener called each time {@link #getChangeCount() change count} changes. Listeners are
+	 * called while the model is being modified, so they must be fast and must not access the model.
+	 *
+	 * @param listener listener to add
+	 */
+	public void addChangeListener(Runnable listener) {
+		changeListeners.add(listener);
+	}
+
+	public void removeChangeListener(Runnable listener) {
+		changeListeners.remove(listener);
+	}
+
+	private void changed() {
+		changeCount.incrementAndGet();
+		for (Runnable listener : changeListeners) {
+			listener.run();
+		}
 	}
 
 	public ContextModel matchPathToContext(final String path) {
@@ -239,4 +239,8 @@ public class ServletModel extends Model {
 		return multipartConfigElement;
 	}
 
+	public void setMultipartConfig(MultipartConfigElement multipartConfigElement) {
+		this.multipartConfigElement = multipartConfigElement;
+	}
+
 }
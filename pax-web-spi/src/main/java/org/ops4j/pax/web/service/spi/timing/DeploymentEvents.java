@@ -0,0 +1,154 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.timing;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Reports deployment phases as JDK Flight Recorder events named {@code org.ops4j.pax.web.DeploymentPhase}
+ * (with {@code bundleId}, {@code bundle}, {@code contextName} and {@code phase} fields).</p>
+ *
+ * <p>Pax Web is compiled for Java 8, so the event type can't be declared as subclass of {@code jdk.jfr.Event} -
+ * it's defined at runtime with {@code jdk.jfr.EventFactory} and all calls go through method handles. The
+ * {@code jdk.jfr} package is loaded from system class loader, because it's usually not visible to bundles.
+ * When Flight Recorder API is not available (Java 8 before 8u262, other JVMs), events are not reported.</p>
+ */
+final class DeploymentEvents {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DeploymentEvents.class);
+
+	static final String EVENT_NAME = "org.ops4j.pax.web.DeploymentPhase";
+
+	private static final Object FACTORY;
+	private static final MethodHandle NEW_EVENT;
+	private static final MethodHandle BEGIN;
+	private static final MethodHandle END;
+	private static final MethodHandle SHOULD_COMMIT;
+	private static final MethodHandle SET;
+	private static final MethodHandle COMMIT;
+
+	static {
+		Object factory = null;
+		MethodHandle newEvent = null;
+		MethodHandle begin = null;
+		MethodHandle end = null;
+		MethodHandle shouldCommit = null;
+		MethodHandle set = null;
+		MethodHandle commit = null;
+		try {
+			ClassLoader loader = ClassLoader.getSystemClassLoader();
+			Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory", true, loader);
+			Class<?> eventClass = Class.forName("jdk.jfr.Event", true, loader);
+			Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement", true, loader);
+			Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor", true, loader);
+
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			MethodHandle annotation = lookup.findConstructor(annotationElementClass,
+					MethodType.methodType(void.class, Class.class, Object.class));
+			MethodHandle valueDescriptor = lookup.findConstructor(valueDescriptorClass,
+					MethodType.methodType(void.class, Class.class, String.class));
+
+			List<Object> annotations = Arrays.asList(
+					annotation.invoke(Class.forName("jdk.jfr.Name", true, loader), EVENT_NAME),
+					annotation.invoke(Class.forName("jdk.jfr.Label", true, loader), "Web Deployment Phase"),
+					annotation.invoke(Class.forName("jdk.jfr.Category", true, loader), new String[] { "Pax Web" }));
+			// order of the fields is the order of indexes used by commit()
+			List<Object> fields = Arrays.asList(
+					valueDescriptor.invoke(long.class, "bundleId"),
+					valueDescriptor.invoke(String.class, "bundle"),
+					valueDescriptor.invoke(String.class, "contextName"),
+					valueDescriptor.invoke(String.class, "phase"));
+
+			factory = lookup.findStatic(eventFactoryClass, "create",
+					MethodType.methodType(eventFactoryClass, List.class, List.class)).invoke(annotations, fields);
+			newEvent = lookup.findVirtual(eventFactoryClass, "newEvent", MethodType.methodType(eventClass));
+			begin = lookup.findVirtual(eventClass, "begin", MethodType.methodType(void.class));
+			end = lookup.findVirtual(eventClass, "end", MethodType.methodType(void.class));
+			shouldCommit = lookup.findVirtual(eventClass, "shouldCommit", MethodType.methodType(boolean.class));
+			set = lookup.findVirtual(eventClass, "set", MethodType.methodType(void.class, int.class, Object.class));
+			commit = lookup.findVirtual(eventClass, "commit", MethodType.methodType(void.class));
+		} catch (ClassNotFoundException e) {
+			LOG.debug("Flight Recorder API is not available, deployment events won't be recorded");
+		} catch (Throwable t) { // CHECKSTYLE:SKIP
+			LOG.debug("Can't define Flight Recorder event {}: {}", EVENT_NAME, t.getMessage());
+			factory = null;
+		}
+		FACTORY = factory;
+		NEW_EVENT = newEvent;
+		BEGIN = begin;
+		END = end;
+		SHOULD_COMMIT = shouldCommit;
+		SET = set;
+		COMMIT = commit;
+	}
+
+	private DeploymentEvents() {
+	}
+
+	/**
+	 * @return {@code true} if Flight Recorder API is available
+	 */
+	static boolean isEnabled() {
+		return FACTORY != null;
+	}
+
+	/**
+	 * Creates and begins new event.
+	 *
+	 * @return the event or {@code null} if events are not recorded
+	 */
+	static Object begin() {
+		if (FACTORY == null) {
+			return null;
+		}
+		try {
+			Object event = NEW_EVENT.invoke(FACTORY);
+			BEGIN.invoke(event);
+			return event;
+		} catch (Throwable t) { // CHECKSTYLE:SKIP
+			return null;
+		}
+	}
+
+	/**
+	 * Ends and commits event created by {@link #begin()}, if the recording is interested in it.
+	 */
+	static void commit(Object event, long bundleId, String bundleName, String contextName, String phase) {
+		if (event == null) {
+			return;
+		}
+		try {
+			END.invoke(event);
+			if ((boolean) SHOULD_COMMIT.invoke(event)) {
+				SET.invoke(event, 0, (Object) bundleId);
+				SET.invoke(event, 1, (Object) bundleName);
+				SET.invoke(event, 2, (Object) contextName);
+				SET.invoke(event, 3, (Object) phase);
+				COMMIT.invoke(event);
+			}
+		} catch (Throwable t) { // CHECKSTYLE:SKIP
+			LOG.trace("Can't commit Flight Recorder event: {}", t.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.timing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.ops4j.pax.web.service.DeploymentTimingsDTO;
+import org.osgi.framework.Bundle;
+
+/**
+ * <p>Durations of deployment phases (parsing, scanning, container initializers, context start, ...) of single
+ * context of single bundle, measured with {@link System#nanoTime()}.</p>
+ *
+ * <p>Phases are recorded by different parts of Pax Web (WAR extender, containers), so timings are kept in a
+ * framework-wide registry keyed by bundle and context name. The WAR extender {@link #begin(Bundle, String) begins}
+ * new timings for each deployment, containers {@link #get(Bundle, String) add} their phases to it (or to new
+ * timings for contexts not deployed by the extender). Each phase is also reported as JDK Flight Recorder event,
+ * when Flight Recorder is available.</p>
+ */
+public final class DeploymentTimings {
+
+	private static final ConcurrentMap<String, DeploymentTimings> TIMINGS = new ConcurrentHashMap<>();
+
+	private final String key;
+	private final long bundleId;
+	private final String bundleName;
+	private final String contextName;
+	private final long startTime;
+	private final long start;
+
+	/**
+	 * Phase name to its duration (in nanoseconds), in the order phases started. Guarded by {@code this}.
+	 */
+	private final Map<String, Long> phases = new LinkedHashMap<>();
+	private long end;
+
+	private DeploymentTimings(Bundle bundle, String contextName) {
+		this.key = key(bundle, contextName);
+		this.bundleId = bundle.getBundleId();
+		this.bundleName = bundle.getSymbolicName();
+		this.contextName = contextName;
+		this.startTime = System.currentTimeMillis();
+		this.start = System.nanoTime();
+		this.end = start;
+	}
+
+	private static String key(Bundle bundle, String contextName) {
+		return bundle.getBundleId() + ":" + (contextName == null ? "" : contextName);
+	}
+
+	/**
+	 * Starts timing new deployment of given context, replacing timings of previous deployment.
+	 *
+	 * @param bundle bundle providing the context
+	 * @param contextName name of the context
+	 * @return new timings
+	 */
+	public static DeploymentTimings begin(Bundle bundle, String contextName) {
+		DeploymentTimings timings = new DeploymentTimings(bundle, contextName);
+		TIMINGS.put(timings.key, timings);
+		return timings;
+	}
+
+	/**
+	 * Returns timings of current deployment of given context, beginning new timings if there are none.
+	 *
+	 * @param bundle bundle providing the context
+	 * @param contextName name of the context
+	 * @return timings of the context or {@code null} if there's no bundle (e.g. in embedded tests)
+	 */
+	public static DeploymentTimings get(Bundle bundle, String contextName) {
+		if (bundle == null) {
+			return null;
+		}
+		return TIMINGS.computeIfAbsent(key(bundle, contextName), k -> new DeploymentTimings(bundle, contextName));
+	}
+
+	/**
+	 * Forgets timings of given context, when it's undeployed.
+	 */
+	public static void remove(Bundle bundle, String contextName) {
+		if (bundle != null) {
+			TIMINGS.remove(key(bundle, contextName));
+		}
+	}
+
+	/**
+	 * Forgets given timings, unless they were already replaced by timings of newer deployment.
+	 */
+	public static void remove(DeploymentTimings timings) {
+		if (timings != null) {
+			TIMINGS.remove(timings.key, timings);
+		}
+	}
+
+	/**
+	 * @return timings of all deployed contexts, in the order they started deploying
+	 */
+	public static List<DeploymentTimingsDTO> getDeploymentTimings() {
+		List<DeploymentTimings> all = new ArrayList<>(TIMINGS.values());
+		all.sort(Comparator.comparingLong(t -> t.startTime));
+		List<DeploymentTimingsDTO> result = new ArrayList<>(all.size());
+		for (DeploymentTimings timings : all) {
+			result.add(timings.toDTO());
+		}
+		return result;
+	}
+
+	/**
+	 * Starts a phase, which should be {@link Phase#close() closed} when it's done (using try-with-resources).
+	 * Phases may be nested. Phase started more times (e.g. for more contexts of a bundle) is summed up.
+	 *
+	 * @param phase name of the phase
+	 * @return started phase
+	 */
+	public Phase start(String phase) {
+		return new Phase(phase);
+	}
+
+	/**
+	 * Starts a phase of given timings, which may be {@code null} - then the returned phase is {@code null} too,
+	 * which is fine for try-with-resources.
+	 */
+	public static Phase start(DeploymentTimings timings, String phase) {
+		return timings == null ? null : timings.start(phase);
+	}
+
+	private synchronized void started(String phase) {
+		phases.putIfAbsent(phase, 0L);
+	}
+
+	private synchronized void record(String phase, long startNanos, long endNanos) {
+		phases.merge(phase, endNanos - startNanos, Long::sum);
+		if (endNanos - end > 0L) {
+			end = endNanos;
+		}
+	}
+
+	/**
+	 * @return phase name to its duration in microseconds, in the order phases started (running phases have
+	 * zero duration)
+	 */
+	public synchronized Map<String, Long> getPhases() {
+		Map<String, Long> result = new LinkedHashMap<>();
+		phases.forEach((phase, nanos) -> result.put(phase, TimeUnit.NANOSECONDS.toMicros(nanos)));
+		return result;
+	}
+
+	/**
+	 * @return time (in microseconds) from the beginning of the deployment to the end of its last phase
+	 */
+	public synchronized long getTotal() {
+		return TimeUnit.NANOSECONDS.toMicros(end - start);
+	}
+
+	public long getBundleId() {
+		return bundleId;
+	}
+
+	public String getContextName() {
+		return contextName;
+	}
+
+	DeploymentTimingsDTO toDTO() {
+		DeploymentTimingsDTO dto = new DeploymentTimingsDTO();
+		dto.bundleId = bundleId;
+		dto.bundleSymbolicName = bundleName;
+		dto.contextName = contextName;
+		dto.startTime = startTime;
+		dto.phases = getPhases();
+		dto.total = getTotal();
+		return dto;
+	}
+
+	/**
+	 * Running phase of the deployment.
+	 */
+	public final class Phase implements AutoCloseable {
+
+		private final String name;
+		private final long start;
+		private final Object event;
+
+		private Phase(String name) {
+			this.name = name;
+			started(name);
+			this.event = DeploymentEvents.begin();
+			this.start = System.nanoTime();
+		}
+
+		@Override
+		public void close() {
+			record(name, start, System.nanoTime());
+			DeploymentEvents.commit(event, bundleId, bundleName, contextName, name);
+		}
+
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Periodically checks keystore (and truststore) files for changes and calls a reload action when
+ * they change, so renewed certificates can be used by running connectors.</p>
+ *
+ * <p>Files are polled (modification time and size) instead of using {@link java.nio.file.WatchService},
+ * because certificates are often rotated by replacing symbolic links, which is not reported for the
+ * directory of the link target. The action is called only after the files didn't change for one more
+ * interval, so it doesn't see partially written files.</p>
+ */
+public class KeyStoreWatcher implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(KeyStoreWatcher.class);
+
+	private final String name;
+	private final Runnable reload;
+	private final List<File> files = new ArrayList<>();
+
+	private ScheduledExecutorService executor;
+	private List<Long> lastState;
+	private List<Long> pendingState;
+
+	/**
+	 * @param name name used in log messages and thread names
+	 * @param reload action called when any of the files changes
+	 * @param locations paths or {@code file:} URLs - other locations are ignored
+	 */
+	public KeyStoreWatcher(String name, Runnable reload, String... locations) {
+		this.name = name;
+		this.reload = reload;
+		for (String location : locations) {
+			File file = toFile(location);
+			if (file != null) {
+				files.add(file);
+			}
+		}
+	}
+
+	/**
+	 * Starts checking the files.
+	 *
+	 * @param interval interval of the checks in milliseconds - watcher isn't started if not positive
+	 * @return {@code true} if the watcher was started
+	 */
+	public synchronized boolean start(long interval) {
+		if (interval <= 0 || files.isEmpty() || executor != null) {
+			return false;
+		}
+		lastState = state();
+		executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("paxweb-keystore-watcher"));
+		executor.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+		LOG.info("Watching {} for changes of {}", name, files);
+		return true;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	private void check() {
+		List<Long> current = state();
+		if (current.equals(lastState)) {
+			pendingState = null;
+			return;
+		}
+		if (!current.equals(pendingState)) {
+			// changed since last check - wait until the files are stable
+			pendingState = current;
+			return;
+		}
+		LOG.info("{} changed, reloading certificates", name);
+		try {
+			reload.run();
+			lastState = current;
+			//CHECKSTYLE:OFF
+		} catch (Exception e) {
+			LOG.warn("Reloading certificates of {} failed, will retry on next change", name, e);
+			lastState = current;
+		}
+		//CHECKSTYLE:ON
+		pendingState = null;
+	}
+
+	private List<Long> state() {
+		List<Long> state = new ArrayList<>(files.size() * 2);
+		for (File file : files) {
+			state.addAll(Arrays.asList(file.lastModified(), file.length()));
+		}
+		return state;
+	}
+
+	private static File toFile(String location) {
+		if (location == null || "".equals(location.trim())) {
+			return null;
+		}
+		try {
+			if (location.startsWith("file:")) {
+				return new File(URI.create(location));
+			}
+			if (location.indexOf(':') > 1) {
+				// other URL scheme
+				return null;
+			}
+			return new File(location);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "KeyStoreWatcher{" + name + ", " + files + "}";
+	}
+
+}
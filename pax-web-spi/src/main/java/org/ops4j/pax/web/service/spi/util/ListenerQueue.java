@@ -0,0 +1,373 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Bounded queue of events for single listener. Events are delivered in order of {@link #offer(Object)}
+ * calls by tasks submitted to shared {@link Executor}, but there's at most one such task for given queue
+ * at a time - so a slow listener delays only its own events.</p>
+ *
+ * <p>When the queue is full, new events are dropped (and counted) instead of blocking the sender. Listener
+ * which doesn't return from single delivery within the timeout is interrupted and removed, just like
+ * a listener throwing an exception.</p>
+ *
+ * <p>Counters can be published in JMX with {@link #registerMBean(MBeanServer, String)}.</p>
+ *
+ * @param <E> type of delivered events
+ */
+public class ListenerQueue<E> implements ListenerQueueMXBean {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ListenerQueue.class);
+
+	/**
+	 * Number of events delivered by single task before it gives the thread back to the pool.
+	 */
+	private static final int BATCH_SIZE = 64;
+
+	private static final AtomicInteger IDS = new AtomicInteger();
+
+	/**
+	 * States of single delivery
+	 */
+	private static final int RUNNING = 0;
+	private static final int FINISHED = 1;
+	private static final int TIMING_OUT = 2;
+	private static final int TIMED_OUT = 3;
+
+	private final int id = IDS.incrementAndGet();
+	private final String name;
+	private final Consumer<E> delivery;
+	private final Executor executor;
+	private final ScheduledExecutorService timer;
+	private final long timeoutMillis;
+	private final int capacity;
+	private final Runnable onFailure;
+
+	private final ConcurrentLinkedDeque<E> events = new ConcurrentLinkedDeque<>();
+	private final AtomicInteger depth = new AtomicInteger();
+	private final AtomicBoolean draining = new AtomicBoolean();
+	private final AtomicLong delivered = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicBoolean failed = new AtomicBoolean();
+
+	private volatile boolean started;
+	private volatile boolean closed;
+
+	private volatile MBeanServer mBeanServer;
+	private volatile ObjectName objectName;
+
+	/**
+	 * Creates not yet started queue - events can be offered, but are delivered only after
+	 * {@link #start(List)}.
+	 *
+	 * @param name name of the queue (usually the class of listener)
+	 * @param delivery actual call of the listener
+	 * @param executor pool shared by all listener queues
+	 * @param timer used to interrupt deliveries taking longer than the timeout - should not be the
+	 *        {@code executor}, which may be blocked by hanging listeners
+	 * @param timeoutMillis maximal duration of single delivery, {@code 0} for no timeout
+	 * @param capacity maximal number of events waiting for delivery
+	 * @param onFailure called (once) when delivery throws an exception or times out - the queue is then closed
+	 */
+	public ListenerQueue(String name, Consumer<E> delivery, Executor executor, ScheduledExecutorService timer,
+			long timeoutMillis, int capacity, Runnable onFailure) {
+		this.name = name;
+		this.delivery = delivery;
+		this.executor = executor;
+		this.timer = timer;
+		this.timeoutMillis = timeoutMillis;
+		this.capacity = capacity;
+		this.onFailure = onFailure;
+	}
+
+	/**
+	 * Registers this queue as {@link ListenerQueueMXBean}. It's unregistered when the queue is closed.
+	 *
+	 * @param server server to register the queue in
+	 * @param dispatcher name of the dispatcher owning the queue
+	 */
+	public void registerMBean(MBeanServer server, String dispatcher) {
+		try {
+			ObjectName name = objectName(dispatcher);
+			server.registerMBean(this, name);
+			mBeanServer = server;
+			objectName = name;
+			if (closed) {
+				unregisterMBean();
+			}
+		} catch (JMException e) {
+			LOG.debug("Can't register event queue {}: {}", this.name, e.getMessage());
+		}
+	}
+
+	ObjectName objectName(String dispatcher) throws JMException {
+		return new ObjectName(RequestMetricsRegistry.OBJECT_NAME_DOMAIN + ":type=ListenerQueue"
+				+ ",dispatcher=" + ObjectName.quote(dispatcher)
+				+ ",listener=" + ObjectName.quote(name)
+				+ ",id=" + id);
+	}
+
+	/**
+	 * Starts delivery of events. Initial events (e.g. replay of current state for late joining listener)
+	 * are delivered before any event offered so far.
+	 *
+	 * @param initialEvents events to deliver first
+	 */
+	public void start(List<E> initialEvents) {
+		if (initialEvents != null) {
+			for (ListIterator<E> it = initialEvents.listIterator(initialEvents.size()); it.hasPrevious();) {
+				events.offerFirst(it.previous());
+				depth.incrementAndGet();
+			}
+		}
+		started = true;
+		schedule();
+	}
+
+	/**
+	 * Adds an event to the queue without waiting for its delivery.
+	 *
+	 * @param event event to deliver
+	 * @return {@code false} if the queue is closed or full and the event was dropped
+	 */
+	public boolean offer(E event) {
+		if (closed) {
+			return false;
+		}
+		if (depth.incrementAndGet() > capacity) {
+			depth.decrementAndGet();
+			if (dropped.getAndIncrement() == 0) {
+				LOG.warn("Event queue of {} is full ({} events), events will be dropped", name, capacity);
+			}
+			return false;
+		}
+		events.offer(event);
+		schedule();
+		return true;
+	}
+
+	/**
+	 * Stops delivery and discards waiting events.
+	 */
+	public void close() {
+		closed = true;
+		events.clear();
+		depth.set(0);
+		unregisterMBean();
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return number of events waiting for delivery
+	 */
+	@Override
+	public int getQueueDepth() {
+		return depth.get();
+	}
+
+	/**
+	 * @return number of events delivered to the listener
+	 */
+	@Override
+	public long getDeliveredCount() {
+		return delivered.get();
+	}
+
+	/**
+	 * @return number of events dropped because the queue was full
+	 */
+	@Override
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	@Override
+	public boolean isClosed() {
+		return closed;
+	}
+
+	private void unregisterMBean() {
+		MBeanServer server = mBeanServer;
+		ObjectName name = objectName;
+		if (server == null || name == null) {
+			return;
+		}
+		mBeanServer = null;
+		try {
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		} catch (JMException e) {
+			LOG.debug("Can't unregister event queue {}: {}", this.name, e.getMessage());
+		}
+	}
+
+	private void schedule() {
+		if (!started || closed || events.isEmpty() || !draining.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			executor.execute(this::drain);
+		} catch (RejectedExecutionException ree) {
+			draining.set(false);
+			LOG.warn("Executor shut down, events for {} won't be delivered", name);
+		}
+	}
+
+	private void drain() {
+		try {
+			E event;
+			for (int i = 0; i < BATCH_SIZE && !closed && (event = events.poll()) != null; i++) {
+				depth.decrementAndGet();
+				Delivery state = new Delivery();
+				ScheduledFuture<?> timeout = scheduleTimeout(state, Thread.currentThread());
+				try {
+					delivery.accept(event);
+					//CHECKSTYLE:OFF
+				} catch (Exception e) {
+					if (finished(state)) {
+						LOG.warn("Listener " + name + " caused an exception, will be ignored", e);
+						fail();
+					}
+					return;
+				} finally {
+					if (timeout != null) {
+						timeout.cancel(false);
+					}
+				}
+				//CHECKSTYLE:ON
+				if (!finished(state)) {
+					// timed out - the queue is already closed
+					return;
+				}
+				delivered.incrementAndGet();
+			}
+		} finally {
+			draining.set(false);
+		}
+		// more events or events offered after last poll() but before draining flag was cleared
+		schedule();
+	}
+
+	private ScheduledFuture<?> scheduleTimeout(Delivery state, Thread thread) {
+		if (timer == null || timeoutMillis <= 0) {
+			return null;
+		}
+		try {
+			return timer.schedule(() -> {
+				if (state.compareAndSet(RUNNING, TIMING_OUT)) {
+					LOG.warn("Listener {} timed out after {}ms, will be ignored", name, timeoutMillis);
+					fail();
+					thread.interrupt();
+					state.timedOut();
+				}
+			}, timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException ree) {
+			return null;
+		}
+	}
+
+	/**
+	 * Marks single delivery as finished by the delivering thread.
+	 *
+	 * @return {@code false} if the delivery has timed out in the meantime
+	 */
+	private static boolean finished(Delivery state) {
+		if (state.compareAndSet(RUNNING, FINISHED)) {
+			return true;
+		}
+		// the timeout may still be about to interrupt this thread
+		state.awaitTimedOut();
+		// don't leave interrupted status set by the timeout in pooled thread
+		Thread.interrupted();
+		return false;
+	}
+
+	private void fail() {
+		if (failed.compareAndSet(false, true)) {
+			close();
+			onFailure.run();
+		}
+	}
+
+	/**
+	 * State of single delivery, changed by the delivering thread and the timeout.
+	 */
+	private static final class Delivery {
+
+		private int state = RUNNING;
+
+		synchronized boolean compareAndSet(int expected, int newState) {
+			if (state != expected) {
+				return false;
+			}
+			state = newState;
+			return true;
+		}
+
+		/**
+		 * Called by the timeout after it interrupted the delivering thread.
+		 */
+		synchronized void timedOut() {
+			state = TIMED_OUT;
+			notifyAll();
+		}
+
+		/**
+		 * Blocks the delivering thread until the timeout is done with it.
+		 */
+		synchronized void awaitTimedOut() {
+			while (state != TIMED_OUT) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					// interrupted by the timeout itself - keep waiting for TIMED_OUT
+				}
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ListenerQueue{" + name + ", depth=" + depth.get() + ", delivered=" + delivered.get()
+				+ ", dropped=" + dropped.get() + "}";
+	}
+
+}
@@ -0,0 +1,34 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+/**
+ * JMX view of {@link ListenerQueue} registered as
+ * {@code org.ops4j.pax.web:type=ListenerQueue,dispatcher=<dispatcher>,listener=<listener class>,id=<id>}.
+ */
+public interface ListenerQueueMXBean {
+
+	String getName();
+
+	int getQueueDepth();
+
+	long getDeliveredCount();
+
+	long getDroppedCount();
+
+	boolean isClosed();
+
+}
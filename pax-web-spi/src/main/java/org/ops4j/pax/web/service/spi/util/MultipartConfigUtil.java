@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import java.util.Locale;
+import javax.servlet.MultipartConfigElement;
+
+import org.ops4j.pax.web.service.spi.Configuration;
+
+/**
+ * Container-neutral handling of {@link MultipartConfigElement multipart configuration} of servlets.
+ */
+public class MultipartConfigUtil {
+
+	private static final String MULTIPART_FORM_DATA = "multipart/form-data";
+
+	private MultipartConfigUtil() {
+		super();
+	}
+
+	/**
+	 * Fills values of servlet's multipart configuration which are not set (empty location, {@code -1} sizes,
+	 * {@code 0} threshold) with defaults from {@link Configuration}.
+	 *
+	 * @param config multipart configuration of a servlet - may be {@code null}
+	 * @param configuration server configuration - may be {@code null}
+	 * @return configuration with defaults applied or {@code null} if the servlet doesn't handle multipart requests
+	 */
+	public static MultipartConfigElement withDefaults(MultipartConfigElement config, Configuration configuration) {
+		if (config == null || configuration == null) {
+			return config;
+		}
+		String location = config.getLocation();
+		if (location == null || location.isEmpty()) {
+			location = configuration.getMultipartLocation() == null ? "" : configuration.getMultipartLocation();
+		}
+		long maxFileSize = config.getMaxFileSize();
+		if (maxFileSize < 0L && configuration.getMultipartMaxFileSize() != null) {
+			maxFileSize = configuration.getMultipartMaxFileSize();
+		}
+		long maxRequestSize = config.getMaxRequestSize();
+		if (maxRequestSize < 0L && configuration.getMultipartMaxRequestSize() != null) {
+			maxRequestSize = configuration.getMultipartMaxRequestSize();
+		}
+		int fileSizeThreshold = config.getFileSizeThreshold();
+		if (fileSizeThreshold <= 0 && configuration.getMultipartFileSizeThreshold() != null) {
+			fileSizeThreshold = configuration.getMultipartFileSizeThreshold();
+		}
+		if (location.equals(config.getLocation()) && maxFileSize == config.getMaxFileSize()
+				&& maxRequestSize == config.getMaxRequestSize() && fileSizeThreshold == config.getFileSizeThreshold()) {
+			return config;
+		}
+		return new MultipartConfigElement(location, maxFileSize, maxRequestSize, fileSizeThreshold);
+	}
+
+	/**
+	 * Checks whether multipart request can be rejected before its body is read, because declared
+	 * {@code Content-Length} is bigger than {@link MultipartConfigElement#getMaxRequestSize()}.
+	 *
+	 * @param config multipart configuration of target servlet - may be {@code null}
+	 * @param contentType content type of the request
+	 * @param contentLength content length of the request ({@code -1} if unknown)
+	 * @return {@code true} if the request exceeds the limit
+	 */
+	public static boolean exceedsMaxRequestSize(MultipartConfigElement config, String contentType, long contentLength) {
+		return config != null && config.getMaxRequestSize() > 0L && contentLength > config.getMaxRequestSize()
+				&& contentType != null
+				&& contentType.toLowerCase(Locale.ENGLISH).startsWith(MULTIPART_FORM_DATA);
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.admission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class AdmissionControlTest {
+
+	private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(50L);
+	private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(500L);
+
+	@Test
+	public void requestsAboveLimitAreRejected() {
+		ConcurrencyLimit limit = new ConcurrencyLimit(TARGET, INTERVAL, 1, 2, 0L);
+		assertTrue(limit.tryAcquire(0L, 1L));
+		assertTrue(limit.tryAcquire(0L, 2L));
+		assertFalse(limit.tryAcquire(0L, 3L));
+		assertEquals(1L, limit.getRejected());
+
+		limit.release();
+		assertTrue(limit.tryAcquire(0L, 4L));
+		assertEquals(2, limit.getInFlight());
+	}
+
+	@Test
+	public void standingQueueDecreasesLimit() {
+		ConcurrencyLimit limit = new ConcurrencyLimit(TARGET, INTERVAL, 4, 100, 0L);
+		long now = 0L;
+		// 50 concurrent requests, each of them waiting longer than the target for two intervals
+		for (int i = 0; i < 50; i++) {
+			assertTrue(limit.tryAcquire(2 * TARGET, now++));
+		}
+		now = INTERVAL;
+		assertFalse(limit.tryAcquire(2 * TARGET, now));
+		assertTrue(limit.isOverloaded());
+		// decreased from concurrency actually reached, not from the initial limit
+		assertEquals((int) (50 * ConcurrencyLimit.BACKOFF_RATIO), limit.getLimit());
+
+		// while overloaded, requests which waited too long are shed even below the limit
+		for (int i = 0; i < 10; i++) {
+			limit.release();
+		}
+		assertFalse(limit.tryAcquire(2 * TARGET, now + 1));
+		assertTrue(limit.tryAcquire(TARGET / 2, now + 2));
+
+		// keeps decreasing down to the minimum
+		for (int i = 2; i < 100; i++) {
+			limit.tryAcquire(2 * TARGET, i * INTERVAL);
+		}
+		assertEquals(4, limit.getLimit());
+	}
+
+	@Test
+	public void singleFastRequestMeansNoStandingQueue() {
+		ConcurrencyLimit limit = new ConcurrencyLimit(TARGET, INTERVAL, 4, 10, 0L);
+		limit.tryAcquire(2 * TARGET, 1L);
+		limit.tryAcquire(0L, 2L);
+		limit.tryAcquire(2 * TARGET, 3L);
+		limit.tryAcquire(2 * TARGET, INTERVAL);
+		assertFalse(limit.isOverloaded());
+		assertEquals(10, limit.getLimit());
+	}
+
+	@Test
+	public void limitRecoversAdditively() {
+		ConcurrencyLimit limit = new ConcurrencyLimit(TARGET, INTERVAL, 4, 10, 0L);
+		limit.tryAcquire(2 * TARGET, 1L);
+		limit.tryAcquire(2 * TARGET, INTERVAL);
+		int decreased = limit.getLimit();
+		assertEquals(4, decreased);
+
+		limit.tryAcquire(0L, 2 * INTERVAL);
+		assertFalse(limit.isOverloaded());
+		assertEquals(decreased + 1, limit.getLimit());
+		for (int i = 3; i < 20; i++) {
+			limit.tryAcquire(0L, i * INTERVAL);
+		}
+		assertEquals(10, limit.getLimit());
+	}
+
+	@Test
+	public void exemptPathsMatchWholeSegments() {
+		AdmissionControl control = new AdmissionControl(50, 500, 1, 10,
+				Arrays.asList("/health", "system/console/*", "/metrics/"), 3);
+		assertTrue(control.isExempt("/health"));
+		assertTrue(control.isExempt("/health/live"));
+		assertFalse(control.isExempt("/healthz"));
+		assertTrue(control.isExempt("/system/console/bundles"));
+		assertTrue(control.isExempt("/metrics"));
+		assertFalse(control.isExempt("/app/health"));
+		assertFalse(control.isExempt(null));
+		assertEquals("3", control.getRetryAfter());
+
+		assertSame(control.getLimit("app"), control.getLimit("app"));
+		assertSame(control.getLimit(null), control.getLimit(""));
+	}
+
+	@Test
+	public void queueDelayIsTheWaitForAPooledThread() throws Exception {
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			CountDownLatch busy = new CountDownLatch(1);
+			pool.execute(() -> {
+				try {
+					busy.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			// enqueued while the only thread is busy
+			long[] delays = new long[2];
+			Future<?> queued = pool.submit(QueueDelay.timestamped(() -> {
+				delays[0] = QueueDelay.take();
+				delays[1] = QueueDelay.take();
+			}));
+			Thread.sleep(100L);
+			busy.countDown();
+			queued.get(5, TimeUnit.SECONDS);
+
+			assertTrue(delays[0] >= TimeUnit.MILLISECONDS.toNanos(100L));
+			// the delay is reported only once
+			assertEquals(0L, delays[1]);
+			// not in a timestamped task
+			assertEquals(0L, pool.submit(QueueDelay::take).get(5, TimeUnit.SECONDS).longValue());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidLimits() {
+		new AdmissionControl(50, 500, 10, 5, Arrays.<String>asList(), 1);
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import javax.management.MBeanServer;
+
+import org.junit.Test;
+import org.ops4j.pax.web.service.RequestMetricsDTO;
+
+public class RequestMetricsTest {
+
+	@Test
+	public void bucketsCoverAllValues() {
+		long previous = -1L;
+		for (int i = 0; i < LatencyHistogram.BUCKET_COUNT - 1; i++) {
+			long highest = LatencyHistogram.highestValue(i);
+			assertTrue(highest > previous);
+			assertEquals(i, LatencyHistogram.bucketIndex(previous + 1));
+			assertEquals(i, LatencyHistogram.bucketIndex(highest));
+			previous = highest;
+		}
+		assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void percentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0L, histogram.getValueAtPercentile(99.0d));
+		for (long v = 1L; v <= 1000L; v++) {
+			histogram.record(v);
+		}
+		assertEquals(1000L, histogram.getCount());
+		assertEquals(1000L, histogram.getMax());
+		assertEquals(500L, histogram.getMean());
+
+		// relative error of the histogram is below 1/32
+		assertWithinPrecision(500L, histogram.getValueAtPercentile(50.0d));
+		assertWithinPrecision(900L, histogram.getValueAtPercentile(90.0d));
+		assertWithinPrecision(990L, histogram.getValueAtPercentile(99.0d));
+		assertEquals(1000L, histogram.getValueAtPercentile(100.0d));
+	}
+
+	@Test
+	public void registryCollectsMetricsPerServlet() {
+		RequestMetricsRegistry registry = new RequestMetricsRegistry(null);
+		RequestMetrics servlet = registry.getMetrics("ctx", "servlet");
+		assertSame(servlet, registry.getMetrics("ctx", "servlet"));
+
+		long start = servlet.requestStarted();
+		assertEquals(1L, servlet.getActiveRequests());
+		servlet.requestCompleted(start, 200, 10L, 100L);
+		servlet.requestCompleted(servlet.requestStarted(), 404, -1L, 20L);
+		registry.getMetrics("ctx", null).requestCompleted(registry.getMetrics("ctx", null).requestStarted(), 500, 0L, 0L);
+
+		List<RequestMetricsDTO> dtos = registry.getRequestMetrics();
+		assertEquals(2, dtos.size());
+		assertNull(dtos.get(0).servletName);
+		assertEquals(1L, dtos.get(0).statusClassCounts[4]);
+
+		RequestMetricsDTO dto = dtos.get(1);
+		assertEquals("servlet", dto.servletName);
+		assertEquals(2L, dto.requestCount);
+		assertEquals(0L, dto.activeRequests);
+		assertEquals(10L, dto.bytesIn);
+		assertEquals(120L, dto.bytesOut);
+		assertEquals(1L, dto.statusClassCounts[1]);
+		assertEquals(1L, dto.statusClassCounts[3]);
+	}
+
+	@Test
+	public void metricsAreRegisteredInJmxUntilClosed() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		RequestMetricsRegistry registry = new RequestMetricsRegistry(server);
+		RequestMetrics metrics = registry.getMetrics("jmx-test", "servlet");
+		assertTrue(server.isRegistered(RequestMetricsRegistry.objectName(metrics)));
+
+		registry.close();
+		assertFalse(server.isRegistered(RequestMetricsRegistry.objectName(metrics)));
+	}
+
+	private static void assertWithinPrecision(long expected, long actual) {
+		assertTrue("Expected " + expected + ", got " + actual,
+				Math.abs(expected - actual) <= expected / LatencyHistogram.SUB_BUCKET_COUNT + 1);
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.timing;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+import org.ops4j.pax.web.service.DeploymentTimingsDTO;
+import org.osgi.framework.Bundle;
+
+public class DeploymentTimingsTest {
+
+	@Test
+	public void phasesAreRecordedInStartOrder() throws Exception {
+		DeploymentTimings timings = DeploymentTimings.begin(bundle(42L), "app");
+		try (DeploymentTimings.Phase parse = timings.start("parse")) {
+			try (DeploymentTimings.Phase tldScan = timings.start("tldScan")) {
+				Thread.sleep(2L);
+			}
+		}
+		try (DeploymentTimings.Phase phase = DeploymentTimings.start(timings, "onStartup:A")) {
+			Thread.sleep(1L);
+		}
+		try (DeploymentTimings.Phase phase = DeploymentTimings.start(timings, "onStartup:A")) {
+			Thread.sleep(1L);
+		}
+
+		Map<String, Long> phases = timings.getPhases();
+		assertEquals(Arrays.asList("parse", "tldScan", "onStartup:A"), new ArrayList<>(phases.keySet()));
+		assertTrue(phases.get("parse") >= phases.get("tldScan"));
+		assertTrue(phases.get("tldScan") >= 2000L);
+		assertTrue(phases.get("onStartup:A") >= 2000L);
+		assertTrue(timings.getTotal() >= phases.get("parse") + phases.get("onStartup:A"));
+
+		DeploymentTimings.remove(timings);
+	}
+
+	@Test
+	public void timingsAreSharedByExtenderAndContainer() {
+		Bundle bundle = bundle(43L);
+		DeploymentTimings deployment = DeploymentTimings.begin(bundle, "app");
+		assertSame(deployment, DeploymentTimings.get(bundle, "app"));
+		assertNotSame(deployment, DeploymentTimings.get(bundle, "other"));
+
+		// redeployment replaces the timings, removal of old ones doesn't affect it
+		DeploymentTimings redeployment = DeploymentTimings.begin(bundle, "app");
+		DeploymentTimings.remove(deployment);
+		assertSame(redeployment, DeploymentTimings.get(bundle, "app"));
+
+		boolean found = false;
+		for (DeploymentTimingsDTO dto : DeploymentTimings.getDeploymentTimings()) {
+			if (dto.bundleId == 43L && "app".equals(dto.contextName)) {
+				assertEquals("bundle43", dto.bundleSymbolicName);
+				found = true;
+			}
+		}
+		assertTrue(found);
+
+		DeploymentTimings.remove(bundle, "app");
+		DeploymentTimings.remove(bundle, "other");
+		assertNotSame(redeployment, DeploymentTimings.get(bundle, "app"));
+		DeploymentTimings.remove(bundle, "app");
+	}
+
+	@Test
+	public void missingTimingsAreIgnored() {
+		assertNull(DeploymentTimings.get(null, "app"));
+		try (DeploymentTimings.Phase phase = DeploymentTimings.start(null, "parse")) {
+			assertNull(phase);
+		}
+		DeploymentTimings.remove(null);
+	}
+
+	private Bundle bundle(long id) {
+		Bundle bundle = createNiceMock(Bundle.class);
+		expect(bundle.getBundleId()).andStubReturn(id);
+		expect(bundle.getSymbolicName()).andStubReturn("bundle" + id);
+		replay(bundle);
+		return bundle;
+	}
+
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ListenerQueueTest {
+
+	private ExecutorService executor;
+	private ScheduledExecutorService timer;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(2);
+		timer = Executors.newSingleThreadScheduledExecutor();
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+		timer.shutdownNow();
+	}
+
+	@Test
+	public void initialEventsAreDeliveredFirstAndInOrder() throws Exception {
+		final List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch latch = new CountDownLatch(5);
+		ListenerQueue<Integer> queue = new ListenerQueue<>("test", e -> {
+			received.add(e);
+			latch.countDown();
+		}, executor, timer, 0L, 10, () -> { });
+
+		queue.offer(3);
+		queue.offer(4);
+		queue.start(Arrays.asList(1, 2));
+		queue.offer(5);
+
+		assertTrue(latch.await(5, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList(1, 2, 3, 4, 5), received);
+		assertDelivered(5L, queue);
+		assertEquals(0, queue.getQueueDepth());
+	}
+
+	@Test
+	public void slowListenerDoesNotBlockOthersAndDropsWhenFull() throws Exception {
+		final CountDownLatch slowStarted = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		ListenerQueue<Integer> slow = new ListenerQueue<>("slow", e -> {
+			slowStarted.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}, executor, timer, 0L, 2, () -> { });
+		final Semaphore fastDelivered = new Semaphore(0);
+		ListenerQueue<Integer> fast = new ListenerQueue<>("fast", e -> fastDelivered.release(), executor, timer,
+				0L, 2, () -> { });
+		slow.start(null);
+		fast.start(null);
+
+		slow.offer(0);
+		assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+		for (int i = 0; i < 5; i++) {
+			if (i > 0) {
+				slow.offer(i);
+			}
+			fast.offer(i);
+			// fast listener keeps up with the sender
+			assertTrue(fastDelivered.tryAcquire(5, TimeUnit.SECONDS));
+		}
+
+		assertDelivered(5L, fast);
+		assertEquals(0L, fast.getDroppedCount());
+		// first event is being delivered, two are waiting, rest is dropped
+		assertEquals(2, slow.getQueueDepth());
+		assertEquals(2L, slow.getDroppedCount());
+		release.countDown();
+	}
+
+	@Test
+	public void failingListenerClosesQueue() throws Exception {
+		final CountDownLatch failed = new CountDownLatch(1);
+		final AtomicBoolean secondDelivered = new AtomicBoolean();
+		ListenerQueue<Integer> queue = new ListenerQueue<>("failing", e -> {
+			if (e == 1) {
+				throw new IllegalStateException("expected");
+			}
+			secondDelivered.set(true);
+		}, executor, timer, 0L, 10, failed::countDown);
+		queue.start(null);
+		queue.offer(1);
+
+		assertTrue(failed.await(5, TimeUnit.SECONDS));
+		assertTrue(queue.isClosed());
+		assertFalse(queue.offer(2));
+		assertFalse(secondDelivered.get());
+	}
+
+	@Test
+	public void hangingListenerIsInterruptedAndRemoved() throws Exception {
+		final CountDownLatch failed = new CountDownLatch(1);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		ListenerQueue<Integer> queue = new ListenerQueue<>("hanging", e -> {
+			try {
+				new CountDownLatch(1).await();
+			} catch (InterruptedException ex) {
+				interrupted.countDown();
+			}
+		}, executor, timer, 50L, 10, failed::countDown);
+		queue.start(null);
+		queue.offer(1);
+		queue.offer(2);
+
+		assertTrue(failed.await(5, TimeUnit.SECONDS));
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		assertTrue(queue.isClosed());
+		assertEquals(0L, queue.getDeliveredCount());
+		assertFalse(queue.offer(3));
+	}
+
+	@Test
+	public void listenerReturningWhileTimingOutWaitsForTheTimeout() throws Exception {
+		final CountDownLatch timingOut = new CountDownLatch(1);
+		final AtomicReference<Thread> deliveringThread = new AtomicReference<>();
+		final AtomicReference<Thread.State> stateDuringTimeout = new AtomicReference<>();
+		ListenerQueue<Integer> queue = new ListenerQueue<>("returning-late", e -> {
+			deliveringThread.set(Thread.currentThread());
+			// ignores interrupts, returns only after the timeout started
+			while (timingOut.getCount() > 0) {
+				Thread.yield();
+			}
+		}, executor, timer, 50L, 10, () -> {
+			timingOut.countDown();
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (deliveringThread.get().getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+				Thread.yield();
+			}
+			stateDuringTimeout.set(deliveringThread.get().getState());
+		});
+		queue.start(null);
+		queue.offer(1);
+
+		assertTrue(timingOut.await(5, TimeUnit.SECONDS));
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (stateDuringTimeout.get() == null && System.nanoTime() < deadline) {
+			Thread.sleep(10L);
+		}
+		// blocked instead of spinning until the timeout is done with the thread
+		assertEquals(Thread.State.WAITING, stateDuringTimeout.get());
+		assertEquals(0L, queue.getDeliveredCount());
+
+		// interrupt of the timeout doesn't leak to the next task of the pooled thread
+		for (int i = 0; i < 2; i++) {
+			assertFalse(executor.submit(() -> Thread.currentThread().isInterrupted()).get(5, TimeUnit.SECONDS));
+		}
+	}
+
+	@Test
+	public void countersArePublishedInJmx() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		final CountDownLatch delivered = new CountDownLatch(1);
+		ListenerQueue<Integer> queue = new ListenerQueue<>("jmx-test", e -> delivered.countDown(), executor, timer,
+				0L, 1, () -> { });
+		queue.registerMBean(server, "TestDispatcher");
+		ObjectName name = queue.objectName("TestDispatcher");
+		assertTrue(server.isRegistered(name));
+
+		// not started - second event doesn't fit
+		queue.offer(1);
+		queue.offer(2);
+		assertEquals(1, server.getAttribute(name, "QueueDepth"));
+		assertEquals(1L, server.getAttribute(name, "DroppedCount"));
+
+		queue.start(null);
+		assertTrue(delivered.await(5, TimeUnit.SECONDS));
+		queue.close();
+		assertFalse(server.isRegistered(name));
+	}
+
+	/**
+	 * Delivery is counted after the listener returns, i.e. after the listener counted down test's latch.
+	 */
+	private static void assertDelivered(long expected, ListenerQueue<?> queue) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (queue.getDeliveredCount() < expected && System.nanoTime() < deadline) {
+			Thread.yield();
+		}
+		assertEquals(expected, queue.getDeliveredCount());
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.spi.util;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import javax.servlet.MultipartConfigElement;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ops4j.pax.web.service.spi.Configuration;
+
+public class MultipartConfigUtilTest {
+
+	private Configuration configuration;
+
+	@Before
+	public void setUp() {
+		configuration = createNiceMock(Configuration.class);
+		expect(configuration.getMultipartLocation()).andReturn("/var/uploads").anyTimes();
+		expect(configuration.getMultipartMaxFileSize()).andReturn(1024L).anyTimes();
+		expect(configuration.getMultipartMaxRequestSize()).andReturn(4096L).anyTimes();
+		expect(configuration.getMultipartFileSizeThreshold()).andReturn(512).anyTimes();
+		replay(configuration);
+	}
+
+	@Test
+	public void defaultsFillMissingValues() {
+		MultipartConfigElement config = MultipartConfigUtil.withDefaults(new MultipartConfigElement(""), configuration);
+
+		assertEquals("/var/uploads", config.getLocation());
+		assertEquals(1024L, config.getMaxFileSize());
+		assertEquals(4096L, config.getMaxRequestSize());
+		assertEquals(512, config.getFileSizeThreshold());
+	}
+
+	@Test
+	public void servletValuesAreKept() {
+		MultipartConfigElement servletConfig = new MultipartConfigElement("uploads", 10L, 20L, 5);
+
+		assertSame(servletConfig, MultipartConfigUtil.withDefaults(servletConfig, configuration));
+		assertNull(MultipartConfigUtil.withDefaults(null, configuration));
+	}
+
+	@Test
+	public void onlyMultipartRequestsOverLimitAreRejected() {
+		MultipartConfigElement config = new MultipartConfigElement("", -1L, 100L, 0);
+
+		assertTrue(MultipartConfigUtil.exceedsMaxRequestSize(config, "multipart/form-data; boundary=x", 101L));
+		assertTrue(MultipartConfigUtil.exceedsMaxRequestSize(config, "Multipart/Form-Data; boundary=x", 101L));
+		assertFalse(MultipartConfigUtil.exceedsMaxRequestSize(config, "multipart/form-data; boundary=x", 100L));
+		assertFalse(MultipartConfigUtil.exceedsMaxRequestSize(config, "multipart/form-data; boundary=x", -1L));
+		assertFalse(MultipartConfigUtil.exceedsMaxRequestSize(config, "application/octet-stream", 101L));
+		assertFalse(MultipartConfigUtil.exceedsMaxRequestSize(new MultipartConfigElement(""),
+				"multipart/form-data; boundary=x", Long.MAX_VALUE));
+		assertFalse(MultipartConfigUtil.exceedsMaxRequestSize(null, "multipart/form-data; boundary=x", 101L));
+	}
+
+}
@@ -19,11 +19,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Set;
 
 import javax.servlet.Servlet;
 
 import org.ops4j.pax.web.service.spi.Configuration;
 import org.ops4j.pax.web.service.spi.LifeCycle;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
 import org.ops4j.pax.web.service.spi.model.ContainerInitializerModel;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
 import org.ops4j.pax.web.service.spi.model.ErrorPageModel;
@@ -117,6 +119,11 @@ abstract class AbstractServerState implements ServerState {
 		throwIllegalState();
 	}
 
+	@Override
+	public void insertFilter(FilterModel filterModel) {
+		throwIllegalState();
+	}
+
 	@Override
 	public void removeFilter(FilterModel filterModel) {
 		throwIllegalState();
@@ -163,6 +170,18 @@ abstract class AbstractServerState implements ServerState {
 		throwIllegalState();
 	}
 
+	@Override
+	public boolean reconfigure(Configuration configuration, Set<String> changed) {
+		// nothing to reconfigure if server is not started
+		return false;
+	}
+
+	@Override
+	public RequestMetricsRegistry getRequestMetrics() {
+		// nothing recorded if server is not started
+		return null;
+	}
+
 	@Override
 	public LifeCycle getContext(ContextModel model) {
 		return throwIllegalState();
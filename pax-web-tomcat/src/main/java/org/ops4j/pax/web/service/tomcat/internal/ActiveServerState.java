@@ -20,11 +20,14 @@ import static org.ops4j.pax.web.service.tomcat.internal.ServerState.States.ACTIV
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Set;
 
 import javax.servlet.Servlet;
 
 import org.ops4j.pax.web.service.spi.Configuration;
+import org.ops4j.pax.web.service.spi.ConfigurationChange;
 import org.ops4j.pax.web.service.spi.LifeCycle;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
 import org.ops4j.pax.web.service.spi.model.ContainerInitializerModel;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
 import org.ops4j.pax.web.service.spi.model.ErrorPageModel;
@@ -103,6 +106,16 @@ class ActiveServerState extends AbstractServerState implements ServerState {
 		return stop().configure(configuration).start();
 	}
 
+	@Override
+	public boolean reconfigure(Configuration configuration, Set<String> changed) {
+		if (ConfigurationChange.of(changed) == ConfigurationChange.RESTART) {
+			return false;
+		}
+		initializedState.configure(configuration);
+		serverWrapper.reconfigure(configuration, changed);
+		return true;
+	}
+
 	@Override
 	public States getState() {
 		return ACTIVE;
@@ -143,6 +156,11 @@ class ActiveServerState extends AbstractServerState implements ServerState {
 		serverWrapper.addFilter(filterModel);
 	}
 
+	@Override
+	public void insertFilter(FilterModel filterModel) {
+		serverWrapper.insertFilter(filterModel);
+	}
+
 	@Override
 	public void removeFilter(FilterModel filterModel) {
 		serverWrapper.removeFilter(filterModel);
@@ -172,6 +190,11 @@ class ActiveServerState extends AbstractServerState implements ServerState {
 		return initializedState.getHttpPort();
 	}
 
+	@Override
+	public RequestMetricsRegistry getRequestMetrics() {
+		return serverWrapper.getRequestMetrics();
+	}
+
 	@Override
 	public Integer getHttpSecurePort() {
 		return initializedState.getHttpSecurePort();
@@ -0,0 +1,240 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.tomcat.internal;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.Globals;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Session;
+import org.apache.catalina.Manager;
+import org.apache.catalina.session.FileStore;
+import org.apache.catalina.session.StandardSession;
+import org.apache.catalina.session.StoreBase;
+import org.ops4j.pax.web.service.spi.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link org.apache.catalina.Store} which serializes sessions in calling thread, but writes them to disk in
+ * background. Serialized sessions waiting to be written are kept in memory and used by {@link #load(String)},
+ * so a session swapped out and immediately requested again is never read from stale file.
+ *
+ * Written files use the format of {@link FileStore} and everything except writing is delegated to
+ * a {@link FileStore} using the same directory. The directory has to be absolute - it's resolved when
+ * the store is configured.
+ */
+public class AsyncFileStore extends StoreBase {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AsyncFileStore.class);
+
+	/**
+	 * Same extension as used by {@link FileStore}.
+	 */
+	private static final String FILE_EXT = ".session";
+
+	private static final String STORE_NAME = "asyncFileStore";
+
+	private final FileStore delegate = new FileStore();
+
+	private final ConcurrentMap<String, byte[]> pending = new ConcurrentHashMap<>();
+
+	/**
+	 * Guards files against concurrent write and removal of the same session.
+	 */
+	private final Object fileLock = new Object();
+
+	private volatile ExecutorService writer;
+
+	/**
+	 * @return directory with session files
+	 */
+	public String getDirectory() {
+		return delegate.getDirectory();
+	}
+
+	/**
+	 * @param directory absolute directory with session files
+	 */
+	public void setDirectory(String directory) {
+		delegate.setDirectory(directory);
+	}
+
+	@Override
+	public void setManager(Manager manager) {
+		super.setManager(manager);
+		delegate.setManager(manager);
+	}
+
+	@Override
+	public String getStoreName() {
+		return STORE_NAME;
+	}
+
+	@Override
+	protected synchronized void startInternal() throws LifecycleException {
+		writer = createWriter();
+		delegate.start();
+		super.startInternal();
+	}
+
+	/**
+	 * Creates single threaded executor writing serialized sessions to disk in order of {@link #save(Session)}.
+	 *
+	 * @return new executor
+	 */
+	ExecutorService createWriter() {
+		return Executors.newSingleThreadExecutor(new NamedThreadFactory("paxweb-session-store"));
+	}
+
+	@Override
+	protected synchronized void stopInternal() throws LifecycleException {
+		super.stopInternal();
+		if (writer != null) {
+			writer.shutdown();
+			try {
+				if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+					LOG.warn("Not all sessions were written to {}", getDirectory());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			writer = null;
+		}
+		// whatever wasn't written by background thread
+		for (String id : pending.keySet()) {
+			write(id, pending.get(id));
+		}
+		delegate.stop();
+	}
+
+	@Override
+	public void save(Session session) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(bytes))) {
+			((StandardSession) session).writeObjectData(oos);
+		}
+		final String id = session.getIdInternal();
+		final byte[] data = bytes.toByteArray();
+		pending.put(id, data);
+		ExecutorService executor = writer;
+		try {
+			if (executor == null) {
+				throw new RejectedExecutionException();
+			}
+			executor.execute(() -> write(id, data));
+		} catch (RejectedExecutionException e) {
+			write(id, data);
+		}
+	}
+
+	@Override
+	public Session load(String id) throws ClassNotFoundException, IOException {
+		byte[] data = pending.get(id);
+		if (data == null) {
+			return delegate.load(id);
+		}
+		Context context = getManager().getContext();
+		ClassLoader oldThreadContextCL = context.bind(Globals.IS_SECURITY_ENABLED, null);
+		try (ObjectInputStream ois = getObjectInputStream(new ByteArrayInputStream(data))) {
+			StandardSession session = (StandardSession) manager.createEmptySession();
+			session.readObjectData(ois);
+			session.setManager(manager);
+			return session;
+		} finally {
+			context.unbind(Globals.IS_SECURITY_ENABLED, oldThreadContextCL);
+		}
+	}
+
+	@Override
+	public void remove(String id) throws IOException {
+		synchronized (fileLock) {
+			pending.remove(id);
+			delegate.remove(id);
+		}
+	}
+
+	@Override
+	public void clear() throws IOException {
+		synchronized (fileLock) {
+			pending.clear();
+			delegate.clear();
+		}
+	}
+
+	@Override
+	public String[] keys() throws IOException {
+		Set<String> keys = new LinkedHashSet<>(pending.keySet());
+		for (String key : delegate.keys()) {
+			keys.add(key);
+		}
+		return keys.toArray(new String[keys.size()]);
+	}
+
+	@Override
+	public int getSize() throws IOException {
+		return keys().length;
+	}
+
+	/**
+	 * Number of sessions waiting to be written.
+	 *
+	 * @return number of pending writes
+	 */
+	public int getPendingWrites() {
+		return pending.size();
+	}
+
+	private void write(String id, byte[] data) {
+		synchronized (fileLock) {
+			// removed or saved again in the meantime
+			if (data == null || pending.get(id) != data) {
+				return;
+			}
+			File file = new File(getDirectory(), id + FILE_EXT);
+			if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+				LOG.warn("Can't create session directory {}", file.getParentFile());
+				return;
+			}
+			try (OutputStream os = new FileOutputStream(file)) {
+				os.write(data);
+			} catch (IOException e) {
+				// keep serialized session in memory, so it can still be loaded
+				LOG.warn("Can't write session {} to {}", id, file, e);
+				return;
+			}
+			pending.remove(id, data);
+		}
+	}
+
+}
@@ -16,11 +16,14 @@
 package org.ops4j.pax.web.service.tomcat.internal;
 
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.servlet.ServletException;
 
 import org.apache.catalina.Contained;
 import org.apache.catalina.Container;
+import org.apache.catalina.Context;
 import org.apache.catalina.Lifecycle;
 import org.apache.catalina.LifecycleException;
 import org.apache.catalina.Valve;
@@ -29,12 +32,24 @@ import org.apache.catalina.connector.Response;
 import org.apache.catalina.mapper.Mapper;
 import org.apache.catalina.mapper.MappingData;
 import org.apache.catalina.valves.ValveBase;
+import org.apache.tomcat.util.buf.MessageBytes;
 
 public class ContextSelectionHostValve extends ValveBase {
 
+	/**
+	 * Maximal number of remembered request URIs - when reached, all selections are forgotten.
+	 */
+	static final int MAX_SELECTIONS = 4096;
+
 	Valve standardHostValve;
 	Mapper mapper;
 
+	/**
+	 * Decoded request URI to the context version that has a wrapper for it. Replaced (not cleared) on
+	 * invalidation, so a request that started before invalidation can't put stale selection into new map.
+	 */
+	private volatile ConcurrentMap<String, Context> selections = new ConcurrentHashMap<>();
+
 	public ContextSelectionHostValve(Valve standardHostValve, Mapper mapper) {
 		super(true);
 		this.standardHostValve = standardHostValve;
@@ -60,14 +75,61 @@ public class ContextSelectionHostValve extends ValveBase {
 		 */
 		MappingData md = request.getMappingData();
 		if (md.contexts != null && md.contexts.length > 1 && md.wrapper == null) {
-			for (int i = 0; md.wrapper == null && i < md.contexts.length; i++) {
-				md.context = md.contexts[i];
-				mapper.map(md.context, request.getDecodedRequestURIMB(), md);
-			}
+			selectContext(request.getDecodedRequestURIMB(), md);
 		}
 		standardHostValve.invoke(request, response);
 	}
 
+	/**
+	 * Selects first of {@link MappingData#contexts} which has a wrapper for given URI. The selection is
+	 * remembered, so next request for the same URI maps only against single context. Remembered selection
+	 * is used only if the context is still one of the candidates and still has a wrapper for the URI.
+	 *
+	 * @param decodedURI decoded request URI
+	 * @param md mapping data with all context versions for the URI
+	 * @throws IOException
+	 */
+	public void selectContext(MessageBytes decodedURI, MappingData md) throws IOException {
+		ConcurrentMap<String, Context> selections = this.selections;
+		String uri = decodedURI.toString();
+
+		Context selected = selections.get(uri);
+		if (selected != null && isCandidate(selected, md.contexts)) {
+			md.context = selected;
+			mapper.map(selected, decodedURI, md);
+			if (md.wrapper != null) {
+				return;
+			}
+		}
+
+		for (int i = 0; md.wrapper == null && i < md.contexts.length; i++) {
+			md.context = md.contexts[i];
+			mapper.map(md.context, decodedURI, md);
+		}
+		if (md.wrapper != null) {
+			if (selections.size() >= MAX_SELECTIONS) {
+				selections.clear();
+			}
+			selections.put(uri, md.context);
+		}
+	}
+
+	/**
+	 * Forgets all remembered selections - has to be called whenever servlets or contexts of the host change.
+	 */
+	public void invalidate() {
+		selections = new ConcurrentHashMap<>();
+	}
+
+	private static boolean isCandidate(Context context, Context[] contexts) {
+		for (Context c : contexts) {
+			if (c == context) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public void setContainer(Container container) {
 		super.setContainer(container);
@@ -87,6 +149,7 @@ public class ContextSelectionHostValve extends ValveBase {
 	@Override
 	protected void stopInternal() throws LifecycleException {
 		super.stopInternal();
+		invalidate();
 		if (standardHostValve instanceof Lifecycle) {
 			((Lifecycle) standardHostValve).stop();
 		}
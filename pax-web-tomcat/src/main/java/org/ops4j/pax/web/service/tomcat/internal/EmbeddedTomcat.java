@@ -17,6 +17,7 @@ package org.ops4j.pax.web.service.tomcat.internal;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -26,6 +27,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
 import javax.servlet.ServletContainerInitializer;
 
@@ -35,19 +38,33 @@ import org.apache.catalina.Context;
 import org.apache.catalina.Engine;
 import org.apache.catalina.Globals;
 import org.apache.catalina.Host;
+import org.apache.catalina.Lifecycle;
+import org.apache.catalina.LifecycleException;
 import org.apache.catalina.Server;
 import org.apache.catalina.Service;
 import org.apache.catalina.Valve;
 import org.apache.catalina.connector.Connector;
 import org.apache.catalina.core.ContainerBase;
+import org.apache.catalina.core.StandardContext;
 import org.apache.catalina.core.StandardHost;
+import org.apache.catalina.session.FileStore;
+import org.apache.catalina.session.PersistentManager;
 import org.apache.catalina.startup.Catalina;
 import org.apache.catalina.startup.Tomcat;
 import org.apache.catalina.valves.AccessLogValve;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.apache.coyote.http11.AbstractHttp11Protocol;
 import org.apache.tomcat.util.digester.Digester;
+import org.apache.tomcat.util.net.AbstractEndpoint;
+import org.apache.tomcat.util.net.SSLHostConfig;
+import org.ops4j.pax.web.service.WebContainerConstants;
 import org.ops4j.pax.web.service.WebContainerContext;
 import org.ops4j.pax.web.service.spi.Configuration;
+import org.ops4j.pax.web.service.spi.ConfigurationChange;
+import org.ops4j.pax.web.service.spi.admission.AdmissionControl;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
+import org.ops4j.pax.web.service.spi.util.KeyStoreWatcher;
 import org.osgi.service.http.HttpContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -156,8 +173,18 @@ public class EmbeddedTomcat extends Tomcat {
 
 	private Boolean configurationSessionCookieHttpOnly;
 
+	private SessionPersistence sessionPersistence;
+
 	private File configurationDir;
 
+	private long gracefulShutdownTimeout;
+
+	private AdmissionControl admissionControl;
+
+	private final List<KeyStoreWatcher> keyStoreWatchers = new CopyOnWriteArrayList<>();
+
+	private final List<Connector> createdConnectors = new CopyOnWriteArrayList<>();
+
 	private EmbeddedTomcat() {
 	}
 
@@ -237,20 +264,99 @@ public class EmbeddedTomcat extends Tomcat {
 
 	private void mergeConfiguration(Configuration configuration) {
 		LOG.debug("Start merging configuration");
-		Connector httpConnector = null;
-		Connector httpSecureConnector = null;
-        String[] addresses = configuration.getListeningAddresses();
-        if (addresses == null || addresses.length == 0) {
-            addresses = new String[]{null};
-        }
 
 		// Fix for PAXWEB-193
 		configurationSessionTimeout = configuration.getSessionTimeout();
+		Integer shutdownTimeout = configuration.getGracefulShutdownTimeout();
+		gracefulShutdownTimeout = shutdownTimeout == null ? 0L : Math.max(0L, shutdownTimeout);
+		admissionControl = AdmissionControl.create(configuration);
 		configurationSessionCookie = configuration.getSessionCookie();
 		configurationSessionCookieMaxAge = configuration.getSessionCookieMaxAge();
 		configurationSessionCookieHttpOnly = configuration
 				.getSessionCookieHttpOnly();
+		sessionPersistence = new SessionPersistence(configuration);
+
+		configureAccessLog(configuration);
+
+		mergeConnectors(configuration);
+		// connectors from tomcat-server.xml
+		for (Connector connector : getService().findConnectors()) {
+			measureQueueDelay(connector);
+		}
+	}
+
+	/**
+	 * Applies changed configuration to running server - session and shutdown timeouts, access log and thread
+	 * pools are changed in place, for {@link ConfigurationChange#CONNECTOR} changes the connectors created from
+	 * previous configuration are replaced. Deployed contexts are not touched.
+	 *
+	 * @param configuration new configuration
+	 * @param changed names of changed properties
+	 */
+	void reconfigure(Configuration configuration, Set<String> changed) {
+		Integer previousSessionTimeout = configurationSessionTimeout;
+		configurationSessionTimeout = configuration.getSessionTimeout();
+		Integer shutdownTimeout = configuration.getGracefulShutdownTimeout();
+		gracefulShutdownTimeout = shutdownTimeout == null ? 0L : Math.max(0L, shutdownTimeout);
+		for (Container child : getHost().findChildren()) {
+			if (child instanceof Context) {
+				// contexts with own session timeout (set in their ContextModel) keep it
+				if (configurationSessionTimeout != null && (previousSessionTimeout == null
+						|| ((Context) child).getSessionTimeout() == previousSessionTimeout)) {
+					((Context) child).setSessionTimeout(configurationSessionTimeout);
+				}
+				if (child instanceof StandardContext) {
+					((StandardContext) child).setUnloadDelay(gracefulShutdownTimeout);
+				}
+			}
+		}
+
+		if (ConfigurationChange.isRequestLogChanged(changed)) {
+			for (Valve valve : getHost().getPipeline().getValves()) {
+				if (valve instanceof AccessLogValve) {
+					getHost().getPipeline().removeValve(valve);
+				}
+			}
+			configureAccessLog(configuration);
+		}
+
+		if (ConfigurationChange.of(changed) == ConfigurationChange.CONNECTOR) {
+			keyStoreWatchers.forEach(KeyStoreWatcher::close);
+			keyStoreWatchers.clear();
+			for (Connector connector : createdConnectors) {
+				LOG.debug("Removing connector {}", connector);
+				Executor executor = connector.getProtocolHandler().getExecutor();
+				getService().removeConnector(connector);
+				if (executor instanceof QueueDelayExecutor) {
+					getService().removeExecutor((QueueDelayExecutor) executor);
+				}
+			}
+			createdConnectors.clear();
+			mergeConnectors(configuration);
+		} else {
+			for (Connector connector : getService().findConnectors()) {
+				// endpoint doesn't resize external executor
+				Executor executor = connector.getProtocolHandler().getExecutor();
+				if (configuration.getServerMaxThreads() != null) {
+					connector.setAttribute("maxThreads", configuration.getServerMaxThreads());
+					if (executor instanceof QueueDelayExecutor) {
+						((QueueDelayExecutor) executor).setMaxThreads(configuration.getServerMaxThreads());
+					}
+				}
+				if (configuration.getServerMinThreads() != null) {
+					connector.setAttribute("minSpareThreads", configuration.getServerMinThreads());
+					if (executor instanceof QueueDelayExecutor) {
+						((QueueDelayExecutor) executor).setMinSpareThreads(configuration.getServerMinThreads());
+					}
+				}
+				if (configuration.getConnectorIdleTimeout() != null) {
+					connector.setProperty("connectionTimeout", configuration.getConnectorIdleTimeout().toString());
+				}
+			}
+		}
+	}
 
+	private void configureAccessLog(Configuration configuration) {
 		// NCSA Logger --> AccessLogValve
 		if (configuration.isLogNCSAFormatEnabled()) {
 			AccessLog ncsaLogger = new AccessLogValve();
@@ -270,11 +376,25 @@ public class EmbeddedTomcat extends Tomcat {
 				getHost().getPipeline().addValve((Valve) ncsaLogger);
 			}
 		}
+	}
+
+	private void mergeConnectors(Configuration configuration) {
+		Connector httpConnector = null;
+		Connector httpSecureConnector = null;
+        String[] addresses = configuration.getListeningAddresses();
+        if (addresses == null || addresses.length == 0) {
+            addresses = new String[]{null};
+        }
 
 		Integer httpPort = configuration.getHttpPort();
 		Integer httpSecurePort = configuration.getHttpSecurePort();
 		Integer idleTimeout = configuration.getConnectorIdleTimeout();
 
+		if (configuration.getListeningUnixSocket() != null) {
+			LOG.error("Unix domain socket {} ({}) is not supported by Tomcat, only Pax Web Jetty can listen on it",
+					configuration.getListeningUnixSocket(), WebContainerConstants.PROPERTY_LISTENING_UNIX_SOCKET);
+		}
+
         for (String address : addresses) {
             if (configuration.isHttpEnabled()) {
                 LOG.debug("HttpEnabled");
@@ -397,6 +517,12 @@ public class EmbeddedTomcat extends Tomcat {
             		configuration.getSslKeyPassword());
             secureConnector.setProperty("clientAuth", "false");
             secureConnector.setProperty("sslProtocol", "TLS");
+            if (configuration.getSslSessionCacheSize() != null) {
+                secureConnector.setProperty("sessionCacheSize", configuration.getSslSessionCacheSize().toString());
+            }
+            if (configuration.getSslSessionTimeout() != null) {
+                secureConnector.setProperty("sessionTimeout", configuration.getSslSessionTimeout().toString());
+            }
 
             if (configuration.getServerMaxThreads() != null) {
             	secureConnector.setAttribute("maxThreads", configuration.getServerMaxThreads());
@@ -408,7 +534,10 @@ public class EmbeddedTomcat extends Tomcat {
             if (address != null) {
                 secureConnector.setAttribute("address", address);
             }
+            measureQueueDelay(secureConnector);
         	getService().addConnector(secureConnector);
+        	createdConnectors.add(secureConnector);
+            watchKeyStore(configuration, secureConnector);
         } else {
         	LOG.warn("SSL password and SSL keystore password must be set in order to enable SSL.");
         	LOG.warn("SSL connector will not be started");
@@ -416,6 +545,81 @@ public class EmbeddedTomcat extends Tomcat {
         return httpSecureConnector == null ? secureConnector : httpSecureConnector;
     }
 
+    /**
+     * Starts watching the keystore (if configured) and reloads SSL configuration of the connector when
+     * it changes - without restarting the connector.
+     *
+     * @param configuration
+     * @param connector
+     */
+    private void watchKeyStore(Configuration configuration, final Connector connector) {
+        Integer interval = configuration.getSslReloadInterval();
+        if (interval == null || interval <= 0) {
+            return;
+        }
+        KeyStoreWatcher watcher = new KeyStoreWatcher("HTTPS connector on port " + connector.getPort(),
+                () -> reloadSslHostConfigs(connector.getProtocolHandler()), configuration.getSslKeystore());
+        if (watcher.start(interval)) {
+            keyStoreWatchers.add(watcher);
+        }
+    }
+
+    /**
+     * Reloads SSL context of each {@link SSLHostConfig} of the protocol handler. Tomcat 8.5.32 can reload
+     * SSL host configuration only through the endpoint, which isn't accessible from the protocol handler.
+     *
+     * @param protocolHandler
+     */
+    private static void reloadSslHostConfigs(ProtocolHandler protocolHandler) {
+        if (!(protocolHandler instanceof AbstractHttp11Protocol)) {
+            return;
+        }
+        AbstractEndpoint<?> endpoint;
+        try {
+            Method getEndpoint = AbstractProtocol.class.getDeclaredMethod("getEndpoint");
+            getEndpoint.setAccessible(true);
+            endpoint = (AbstractEndpoint<?>) getEndpoint.invoke(protocolHandler);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOG.warn("Can't reload SSL configuration of {}", protocolHandler, e);
+            return;
+        }
+        for (SSLHostConfig sslHostConfig : ((AbstractHttp11Protocol<?>) protocolHandler).findSslHostConfigs()) {
+            endpoint.reloadSslHostConfig(sslHostConfig.getHostName());
+        }
+    }
+
+    /**
+     * When admission control is enabled, the connector gets {@link QueueDelayExecutor} instead of its internal
+     * thread pool (with the same settings), so {@link ServiceValve} knows how long requests waited for a worker
+     * thread. Connectors with an executor configured in tomcat-server.xml keep it.
+     *
+     * @param connector connector which is not started yet
+     */
+    private void measureQueueDelay(Connector connector) {
+        ProtocolHandler protocolHandler = connector.getProtocolHandler();
+        if (admissionControl == null || !(protocolHandler instanceof AbstractProtocol)
+                || protocolHandler.getExecutor() != null) {
+            return;
+        }
+        AbstractProtocol<?> protocol = (AbstractProtocol<?>) protocolHandler;
+        String name = "paxweb-exec-" + connector.getPort();
+        QueueDelayExecutor executor = new QueueDelayExecutor();
+        executor.setName(name);
+        executor.setNamePrefix(name + "-");
+        executor.setMaxThreads(protocol.getMaxThreads());
+        executor.setMinSpareThreads(protocol.getMinSpareThreads());
+        executor.setThreadPriority(protocol.getThreadPriority());
+        getService().addExecutor(executor);
+        protocol.setExecutor(executor);
+    }
+
+    @Override
+    public void stop() throws LifecycleException {
+        keyStoreWatchers.forEach(KeyStoreWatcher::close);
+        keyStoreWatchers.clear();
+        super.stop();
+    }
+
     private Connector createConnector(Configuration configuration, Connector httpConnector, String address, Integer httpPort, Integer idleTimeout) {
         LOG.debug("No Master connector found create a new one");
         Connector connector = new Connector("HTTP/1.1");
@@ -443,7 +647,9 @@ public class EmbeddedTomcat extends Tomcat {
 		}
 
         LOG.debug("configuration done: {}", connector);
+        measureQueueDelay(connector);
         getService().addConnector(connector);
+        createdConnectors.add(connector);
         return httpConnector == null ? connector : httpConnector;
     }
 
@@ -462,6 +668,14 @@ public class EmbeddedTomcat extends Tomcat {
 		return configurationDir;
 	}
 
+	long getGracefulShutdownTimeout() {
+		return gracefulShutdownTimeout;
+	}
+
+	AdmissionControl getAdmissionControl() {
+		return admissionControl;
+	}
+
 	public Context findContext(ContextModel contextModel) {
 		String name = generateContextName(contextModel.getContextName(),
 				contextModel.getHttpContext());
@@ -502,6 +716,10 @@ public class EmbeddedTomcat extends Tomcat {
 		ctx.setUseHttpOnly(configurationSessionCookieHttpOnly);
 		// configurationSessionTimeout
 		ctx.setSessionTimeout(configurationSessionTimeout);
+		if (gracefulShutdownTimeout > 0 && ctx instanceof StandardContext) {
+			// wrappers wait for servlets still processing requests when the context stops
+			((StandardContext) ctx).setUnloadDelay(gracefulShutdownTimeout);
+		}
 		// configurationWorkerName //TODO: missing
 
 		// new OSGi methods
@@ -554,6 +772,40 @@ public class EmbeddedTomcat extends Tomcat {
 		return ctx;
 	}
 
+	/**
+	 * When session store directory is configured (server wide or with context parameter), sessions of the context
+	 * are kept by {@link PersistentManager} in a {@link FileStore} (one directory per context), so they survive
+	 * restarts of the context and may be swapped out when idle or when there are too many of them.
+	 *
+	 * @param ctx context to configure, not yet started
+	 * @param contextParams context parameters overriding server wide session settings
+	 */
+	void configureSessionPersistence(Context ctx, Map<String, String> contextParams) {
+		SessionPersistence persistence = sessionPersistence.forContext(contextParams);
+		if (!persistence.isEnabled()) {
+			return;
+		}
+		String name = ctx.getName();
+		PersistentManager manager = persistence.createManager(name);
+		ctx.setManager(manager);
+
+		if (!persistence.isLazyLoad()) {
+			// load all stored sessions when the context starts instead of on first access
+			ctx.addLifecycleListener(event -> {
+				if (Lifecycle.AFTER_START_EVENT.equals(event.getType())) {
+					try {
+						manager.load();
+						//CHECKSTYLE:OFF
+					} catch (Exception e) {
+						LOG.warn("Can't load sessions of context {} from {}", name, manager.getStore(), e);
+					}
+					//CHECKSTYLE:ON
+				}
+			});
+		}
+		LOG.debug("Sessions of context {} are persisted in {}", name, persistence.getStoreDirectory(name));
+	}
+
 	public String generateContextName(String contextName, HttpContext httpContext) {
 		String contextId;
 		if (httpContext instanceof WebContainerContext) {
@@ -18,6 +18,8 @@ package org.ops4j.pax.web.service.tomcat.internal;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.AccessControlContext;
@@ -34,10 +36,12 @@ import javax.servlet.FilterRegistration;
 import javax.servlet.ServletContext;
 import javax.servlet.SessionCookieConfig;
 
+import org.apache.catalina.Context;
 import org.apache.catalina.Globals;
 import org.apache.catalina.Host;
 import org.apache.catalina.WebResourceRoot;
 import org.apache.catalina.core.ApplicationContext;
+import org.apache.catalina.core.ApplicationFilterConfig;
 import org.apache.catalina.core.ApplicationFilterRegistration;
 import org.apache.catalina.core.StandardContext;
 import org.apache.tomcat.util.descriptor.web.FilterDef;
@@ -385,4 +389,32 @@ public class HttpServiceContext extends StandardContext {
 		return super.getServletContext();
 	}
 
+	/**
+	 * Initializes single filter of running context - {@link #filterStart()} would initialize all the filters
+	 * again. {@link StandardContext} doesn't expose its filter configurations, so they're accessed reflectively.
+	 *
+	 * @param filterDef filter already {@link #addFilterDef(FilterDef) added} to the context
+	 * @return {@code false} if the filter can't be initialized
+	 */
+	@SuppressWarnings("unchecked")
+	boolean startFilter(FilterDef filterDef) {
+		try {
+			Constructor<ApplicationFilterConfig> constructor = ApplicationFilterConfig.class
+					.getDeclaredConstructor(Context.class, FilterDef.class);
+			constructor.setAccessible(true);
+			Field field = StandardContext.class.getDeclaredField("filterConfigs");
+			field.setAccessible(true);
+			Map<String, ApplicationFilterConfig> filterConfigs = (Map<String, ApplicationFilterConfig>) field.get(this);
+			// initializes the filter
+			ApplicationFilterConfig filterConfig = constructor.newInstance(this, filterDef);
+			synchronized (filterConfigs) {
+				filterConfigs.put(filterDef.getFilterName(), filterConfig);
+			}
+			return true;
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			LOG.error("Can't start filter {}", filterDef.getFilterName(), e);
+			return false;
+		}
+	}
+
 }
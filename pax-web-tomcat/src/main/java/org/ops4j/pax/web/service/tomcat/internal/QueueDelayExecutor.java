@@ -0,0 +1,39 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.tomcat.internal;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.catalina.core.StandardThreadExecutor;
+import org.ops4j.pax.web.service.spi.admission.QueueDelay;
+
+/**
+ * Connector thread pool which {@link QueueDelay#timestamped(Runnable) timestamps} the socket processors, so
+ * {@link ServiceValve} knows how long a request waited for a worker thread.
+ */
+class QueueDelayExecutor extends StandardThreadExecutor {
+
+	@Override
+	public void execute(Runnable command, long timeout, TimeUnit unit) {
+		super.execute(QueueDelay.timestamped(command), timeout, unit);
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		super.execute(QueueDelay.timestamped(command));
+	}
+
+}
@@ -15,10 +15,13 @@
  */
 package org.ops4j.pax.web.service.tomcat.internal;
 
+import java.util.Set;
+
 import javax.servlet.Servlet;
 
 import org.ops4j.pax.web.service.spi.Configuration;
 import org.ops4j.pax.web.service.spi.LifeCycle;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
 import org.ops4j.pax.web.service.spi.model.ContainerInitializerModel;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
 import org.ops4j.pax.web.service.spi.model.ErrorPageModel;
@@ -43,6 +46,15 @@ interface ServerState {
 
 	ServerState configure(Configuration configuration);
 
+	/**
+	 * Applies changed configuration without stopping the server.
+	 *
+	 * @param configuration new configuration
+	 * @param changed names of changed properties
+	 * @return {@code true} if the configuration was applied
+	 */
+	boolean reconfigure(Configuration configuration, Set<String> changed);
+
 	Configuration getConfiguration();
 
 	void removeContext(HttpContext httpContext);
@@ -57,6 +69,8 @@ interface ServerState {
 
 	void addFilter(FilterModel filterModel);
 
+	void insertFilter(FilterModel filterModel);
+
 	void removeFilter(FilterModel filterModel);
 
 	void addErrorPage(ErrorPageModel model);
@@ -78,6 +92,8 @@ interface ServerState {
 
 	LifeCycle getContext(ContextModel model);
 
+	RequestMetricsRegistry getRequestMetrics();
+
 	enum States {
 		INSTALLED, INITIALIZED, ACTIVE
 	}
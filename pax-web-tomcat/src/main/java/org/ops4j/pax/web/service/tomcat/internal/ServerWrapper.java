@@ -16,9 +16,13 @@
 
 package org.ops4j.pax.web.service.tomcat.internal;
 
+import java.util.Set;
+
 import javax.servlet.Servlet;
 
+import org.ops4j.pax.web.service.spi.Configuration;
 import org.ops4j.pax.web.service.spi.LifeCycle;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
 import org.ops4j.pax.web.service.spi.model.ErrorPageModel;
 import org.ops4j.pax.web.service.spi.model.EventListenerModel;
@@ -49,6 +53,8 @@ public interface ServerWrapper {
 
 	void addFilter(FilterModel filterModel);
 
+	void insertFilter(FilterModel filterModel);
+
 	void removeFilter(FilterModel filterModel);
 
 	void addEventListener(EventListenerModel eventListenerModel);
@@ -68,4 +74,14 @@ public interface ServerWrapper {
 
 	void removeWelcomeFiles(WelcomeFileModel model);
 
+	RequestMetricsRegistry getRequestMetrics();
+
+	/**
+	 * Applies changed configuration to running server without stopping it.
+	 *
+	 * @param configuration new configuration
+	 * @param changed names of changed properties
+	 */
+	void reconfigure(Configuration configuration, Set<String> changed);
+
 }
@@ -16,13 +16,25 @@
 package org.ops4j.pax.web.service.tomcat.internal;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.catalina.Wrapper;
 import org.apache.catalina.connector.Request;
 import org.apache.catalina.connector.Response;
 import org.apache.catalina.valves.ValveBase;
+import org.ops4j.pax.web.service.spi.admission.AdmissionControl;
+import org.ops4j.pax.web.service.spi.admission.ConcurrencyLimit;
+import org.ops4j.pax.web.service.spi.admission.QueueDelay;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetrics;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
+import org.ops4j.pax.web.service.spi.util.MultipartConfigUtil;
 import org.osgi.service.http.HttpContext;
 
 /**
@@ -30,16 +42,117 @@ import org.osgi.service.http.HttpContext;
  */
 public class ServiceValve extends ValveBase {
 
+	private static final long DRAIN_CHECK_INTERVAL = 50L;
+
 	private HttpContext httpContext;
 
-	public ServiceValve(HttpContext httpContext) {
+	private final String contextName;
+
+	private final RequestMetricsRegistry requestMetrics;
+
+	private final AdmissionControl admissionControl;
+
+	/**
+	 * Requests (including async ones) of the context which are not completed yet.
+	 */
+	private final LongAdder activeRequests = new LongAdder();
+
+	/**
+	 * Value of {@code Retry-After} header sent with 503 responses when the context is being removed.
+	 */
+	private volatile String retryAfter;
+
+	public ServiceValve(HttpContext httpContext, String contextName, RequestMetricsRegistry requestMetrics,
+			AdmissionControl admissionControl) {
 		super(true);
 		this.httpContext = httpContext;
+		this.contextName = contextName;
+		this.requestMetrics = requestMetrics;
+		this.admissionControl = admissionControl;
 	}
 
 	@Override
 	public void invoke(Request request, Response response) throws IOException,
 			ServletException {
+		if (request.getDispatcherType() != DispatcherType.REQUEST) {
+			// async dispatches are part of already recorded request
+			handle(request, response);
+			return;
+		}
+		Wrapper wrapper = request.getWrapper();
+		if (wrapper != null && MultipartConfigUtil.exceedsMaxRequestSize(wrapper.getMultipartConfigElement(),
+				request.getContentType(), request.getContentLengthLong())) {
+			// rejected without reading the body
+			response.setHeader("Connection", "close");
+			response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+			return;
+		}
+		// counted before checking retryAfter, so shutdown() followed by awaitShutdown() can't miss the request
+		activeRequests.increment();
+		String retry = retryAfter;
+		if (retry != null) {
+			activeRequests.decrement();
+			response.setHeader("Retry-After", retry);
+			response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			return;
+		}
+		ConcurrencyLimit limit = null;
+		if (admissionControl != null && !admissionControl.isExempt(request.getDecodedRequestURI())) {
+			limit = admissionControl.getLimit(contextName);
+			// time the socket processor waited for a thread of QueueDelayExecutor
+			if (!limit.tryAcquire(QueueDelay.take())) {
+				activeRequests.decrement();
+				// no error page, so the rejection is as cheap as possible
+				response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+				response.setHeader("Retry-After", admissionControl.getRetryAfter());
+				response.setContentLength(0);
+				return;
+			}
+		}
+		RequestMetrics metrics = null;
+		long start = 0L;
+		if (requestMetrics != null) {
+			metrics = requestMetrics.getMetrics(contextName, wrapper == null ? null : wrapper.getName());
+			start = metrics.requestStarted();
+		}
+		try {
+			handle(request, response);
+		} finally {
+			if (request.isAsync()) {
+				request.getAsyncContext().addListener(new CompletionListener(metrics, start, limit, request, response));
+			} else {
+				requestCompleted(metrics, start, limit, request, response);
+			}
+		}
+	}
+
+	/**
+	 * Rejects new requests of the context with 503 and {@code Retry-After}.
+	 *
+	 * @param timeout time (in milliseconds) after which clients should retry
+	 */
+	void shutdown(long timeout) {
+		retryAfter = Long.toString(Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(timeout + 999L)));
+	}
+
+	/**
+	 * Waits for in-flight requests after {@link #shutdown(long)}.
+	 *
+	 * @param deadline {@link System#nanoTime()} after which the method stops waiting
+	 * @return {@code true} if all requests completed before the deadline
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	boolean awaitShutdown(long deadline) throws InterruptedException {
+		while (activeRequests.sum() > 0L) {
+			if (System.nanoTime() - deadline >= 0L) {
+				return false;
+			}
+			Thread.sleep(DRAIN_CHECK_INTERVAL);
+		}
+		return true;
+	}
+
+	private void handle(Request request, Response response) throws IOException, ServletException {
 		// final HttpServiceRequestWrapper requestWrapper = new
 		// HttpServiceRequestWrapper(
 		// request);
@@ -66,4 +179,56 @@ public class ServiceValve extends ValveBase {
 		}
 	}
 
+	private void requestCompleted(RequestMetrics metrics, long start, ConcurrencyLimit limit, Request request,
+			Response response) {
+		if (metrics != null) {
+			metrics.requestCompleted(start, response.getStatus(), request.getCoyoteRequest().getBytesRead(),
+					response.getBytesWritten(false));
+		}
+		if (limit != null) {
+			limit.release();
+		}
+		activeRequests.decrement();
+	}
+
+	/**
+	 * Completes async request.
+	 */
+	private final class CompletionListener implements AsyncListener {
+
+		private final RequestMetrics metrics;
+		private final long start;
+		private final ConcurrencyLimit limit;
+		private final Request request;
+		private final Response response;
+
+		private CompletionListener(RequestMetrics metrics, long start, ConcurrencyLimit limit, Request request,
+				Response response) {
+			this.metrics = metrics;
+			this.start = start;
+			this.limit = limit;
+			this.request = request;
+			this.response = response;
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			requestCompleted(metrics, start, limit, request, response);
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			// listener has to be added again for the new async cycle
+			event.getAsyncContext().addListener(this);
+		}
+	}
+
 }
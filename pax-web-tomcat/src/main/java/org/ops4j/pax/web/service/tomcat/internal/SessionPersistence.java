@@ -0,0 +1,176 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.tomcat.internal;
+
+import java.io.File;
+import java.util.Map;
+
+import org.apache.catalina.Store;
+import org.apache.catalina.session.FileStore;
+import org.apache.catalina.session.PersistentManager;
+import org.ops4j.pax.web.service.WebContainerConstants;
+import org.ops4j.pax.web.service.spi.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Session persistence settings of a context. Server wide values come from {@link Configuration} and each of
+ * them may be overridden for single context by context parameter with the name of configuration property
+ * (e.g. {@code org.ops4j.pax.web.session.maxActive} set in {@code <context-param>} of web.xml or with
+ * {@code WebContainer.setContextParam()}).
+ */
+class SessionPersistence {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SessionPersistence.class);
+
+	private final String storeDirectory;
+
+	private final Boolean lazyLoad;
+
+	private final Integer maxActive;
+
+	private final Integer minIdleSwap;
+
+	private final Integer maxIdleSwap;
+
+	private final Integer maxIdleBackup;
+
+	private final Boolean storeAsync;
+
+	SessionPersistence(Configuration configuration) {
+		this(configuration.getSessionStoreDirectory(), configuration.getSessionLazyLoad(),
+				configuration.getSessionMaxActive(), configuration.getSessionMinIdleSwap(),
+				configuration.getSessionMaxIdleSwap(), configuration.getSessionMaxIdleBackup(),
+				configuration.getSessionStoreAsync());
+	}
+
+	private SessionPersistence(String storeDirectory, Boolean lazyLoad, Integer maxActive, Integer minIdleSwap,
+			Integer maxIdleSwap, Integer maxIdleBackup, Boolean storeAsync) {
+		this.storeDirectory = storeDirectory;
+		this.lazyLoad = lazyLoad;
+		this.maxActive = maxActive;
+		this.minIdleSwap = minIdleSwap;
+		this.maxIdleSwap = maxIdleSwap;
+		this.maxIdleBackup = maxIdleBackup;
+		this.storeAsync = storeAsync;
+	}
+
+	/**
+	 * Returns settings for a context with given context parameters.
+	 *
+	 * @param contextParams context parameters of the context (may be null)
+	 * @return settings with values overridden by context parameters
+	 */
+	SessionPersistence forContext(Map<String, String> contextParams) {
+		if (contextParams == null || contextParams.isEmpty()) {
+			return this;
+		}
+		return new SessionPersistence(
+				string(contextParams, WebContainerConstants.PROPERTY_SESSION_STORE_DIRECTORY, storeDirectory),
+				bool(contextParams, WebContainerConstants.PROPERTY_SESSION_LAZY_LOAD, lazyLoad),
+				integer(contextParams, WebContainerConstants.PROPERTY_SESSION_MAX_ACTIVE, maxActive),
+				integer(contextParams, WebContainerConstants.PROPERTY_SESSION_MIN_IDLE_SWAP, minIdleSwap),
+				integer(contextParams, WebContainerConstants.PROPERTY_SESSION_MAX_IDLE_SWAP, maxIdleSwap),
+				integer(contextParams, WebContainerConstants.PROPERTY_SESSION_MAX_IDLE_BACKUP, maxIdleBackup),
+				bool(contextParams, WebContainerConstants.PROPERTY_SESSION_STORE_ASYNC, storeAsync));
+	}
+
+	/**
+	 * @return whether sessions are persisted at all
+	 */
+	boolean isEnabled() {
+		return storeDirectory != null && !storeDirectory.trim().isEmpty();
+	}
+
+	/**
+	 * @return whether stored sessions are loaded on first access instead of when the context starts
+	 */
+	boolean isLazyLoad() {
+		return Boolean.TRUE.equals(lazyLoad);
+	}
+
+	/**
+	 * Returns absolute directory with sessions of given context.
+	 *
+	 * @param contextName unique name of the context
+	 * @return subdirectory of the store directory
+	 */
+	File getStoreDirectory(String contextName) {
+		return new File(storeDirectory, contextName.replaceAll("[^A-Za-z0-9._-]", "_")).getAbsoluteFile();
+	}
+
+	/**
+	 * Creates {@link PersistentManager} with a {@link FileStore} (or {@link AsyncFileStore}) in own directory
+	 * of the context.
+	 *
+	 * @param contextName unique name of the context
+	 * @return new, not yet started manager
+	 */
+	PersistentManager createManager(String contextName) {
+		String directory = getStoreDirectory(contextName).getPath();
+		Store store;
+		if (Boolean.TRUE.equals(storeAsync)) {
+			AsyncFileStore asyncStore = new AsyncFileStore();
+			asyncStore.setDirectory(directory);
+			store = asyncStore;
+		} else {
+			FileStore fileStore = new FileStore();
+			fileStore.setDirectory(directory);
+			store = fileStore;
+		}
+
+		PersistentManager manager = new PersistentManager();
+		manager.setStore(store);
+		manager.setSaveOnRestart(true);
+		if (maxActive != null) {
+			manager.setMaxActiveSessions(maxActive);
+		}
+		if (minIdleSwap != null) {
+			manager.setMinIdleSwap(minIdleSwap);
+		}
+		if (maxIdleSwap != null) {
+			manager.setMaxIdleSwap(maxIdleSwap);
+		}
+		if (maxIdleBackup != null) {
+			manager.setMaxIdleBackup(maxIdleBackup);
+		}
+		return manager;
+	}
+
+	private static String string(Map<String, String> params, String name, String defaultValue) {
+		String value = params.get(name);
+		return value == null ? defaultValue : value.trim();
+	}
+
+	private static Boolean bool(Map<String, String> params, String name, Boolean defaultValue) {
+		String value = params.get(name);
+		return value == null ? defaultValue : Boolean.valueOf(value.trim());
+	}
+
+	private static Integer integer(Map<String, String> params, String name, Integer defaultValue) {
+		String value = params.get(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.valueOf(value.trim());
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value of context parameter {}: {}, using {}", name, value, defaultValue);
+			return defaultValue;
+		}
+	}
+
+}
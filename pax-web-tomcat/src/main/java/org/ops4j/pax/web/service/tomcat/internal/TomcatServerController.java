@@ -25,6 +25,7 @@ import org.ops4j.pax.web.service.spi.LifeCycle;
 import org.ops4j.pax.web.service.spi.ServerController;
 import org.ops4j.pax.web.service.spi.ServerEvent;
 import org.ops4j.pax.web.service.spi.ServerListener;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
 import org.ops4j.pax.web.service.spi.model.ContainerInitializerModel;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
 import org.ops4j.pax.web.service.spi.model.ErrorPageModel;
@@ -89,6 +90,16 @@ class TomcatServerController implements ServerController {
 		this.start();
 	}
 
+	@Override
+	public boolean reconfigure(Configuration configuration, Set<String> changed) {
+		LOG.debug("reconfigure server");
+		if (!serverState.reconfigure(configuration, changed)) {
+			return false;
+		}
+		fireStateChange(ServerEvent.CONFIGURED);
+		return true;
+	}
+
 	@Override
 	public Configuration getConfiguration() {
 		return serverState.getConfiguration();
@@ -134,6 +145,11 @@ class TomcatServerController implements ServerController {
 		serverState.addFilter(filterModel);
 	}
 
+	@Override
+	public void insertFilter(FilterModel filterModel) {
+		serverState.insertFilter(filterModel);
+	}
+
 	@Override
 	public void removeFilter(FilterModel filterModel) {
 		serverState.removeFilter(filterModel);
@@ -185,6 +201,11 @@ class TomcatServerController implements ServerController {
 		serverState.addContainerInitializerModel(model);
 	}
 
+	@Override
+	public RequestMetricsRegistry getRequestMetrics() {
+		return serverState.getRequestMetrics();
+	}
+
 	private void fireStateChange(ServerEvent event) {
 		for (ServerListener listener : listeners) {
 			listener.stateChanged(event);
@@ -25,6 +25,8 @@ import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Dictionary;
 import java.util.EnumSet;
 import java.util.EventListener;
@@ -36,6 +38,7 @@ import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.DispatcherType;
 import javax.servlet.FilterRegistration;
@@ -58,6 +61,7 @@ import javax.servlet.http.HttpSessionListener;
 
 import org.apache.catalina.Container;
 import org.apache.catalina.Context;
+import org.apache.catalina.Host;
 import org.apache.catalina.Lifecycle;
 import org.apache.catalina.LifecycleEvent;
 import org.apache.catalina.LifecycleException;
@@ -71,6 +75,7 @@ import org.apache.catalina.authenticator.FormAuthenticator;
 import org.apache.catalina.authenticator.NonLoginAuthenticator;
 import org.apache.catalina.authenticator.SSLAuthenticator;
 import org.apache.catalina.authenticator.SpnegoAuthenticator;
+import org.apache.catalina.connector.Connector;
 import org.apache.catalina.core.ContainerBase;
 import org.apache.catalina.core.StandardContext;
 import org.apache.catalina.startup.ContextRuleSet;
@@ -95,7 +100,9 @@ import org.ops4j.pax.swissbox.core.BundleUtils;
 import org.ops4j.pax.web.service.AuthenticatorService;
 import org.ops4j.pax.web.service.WebContainerConstants;
 import org.ops4j.pax.web.service.WebContainerContext;
+import org.ops4j.pax.web.service.spi.Configuration;
 import org.ops4j.pax.web.service.spi.LifeCycle;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
 import org.ops4j.pax.web.service.spi.model.ErrorPageModel;
 import org.ops4j.pax.web.service.spi.model.EventListenerModel;
@@ -220,10 +227,12 @@ class TomcatServerWrapper implements ServerWrapper {
 	private final class FilterLifecycleListener implements LifecycleListener {
 		private final FilterModel filterModel;
 		private final Context context;
+		private final boolean ranked;
 
-		private FilterLifecycleListener(FilterModel filterModel, Context context) {
+		private FilterLifecycleListener(FilterModel filterModel, Context context, boolean ranked) {
 			this.filterModel = filterModel;
 			this.context = context;
+			this.ranked = ranked;
 		}
 
 		@Override
@@ -281,15 +290,45 @@ class TomcatServerWrapper implements ServerWrapper {
 				}
 				filterRegistration.setInitParameters(filterModel
 						.getInitParams());
+				if (ranked) {
+					sortFilterMaps(context);
+				}
 			}
 		}
 	}
 
+	/**
+	 * Orders filter mappings of the context by ranking of their filters. Sorting is stable, so filters with
+	 * equal ranking keep the order in which they were added. Mappings are rewritten only if the order changes.
+	 *
+	 * @param context
+	 */
+	private static void sortFilterMaps(Context context) {
+		FilterMap[] filterMaps = context.findFilterMaps();
+		FilterMap[] sorted = filterMaps.clone();
+		Arrays.sort(sorted, Comparator.comparingInt(filterMap -> getRanking(context, filterMap)));
+		if (Arrays.equals(filterMaps, sorted)) {
+			return;
+		}
+		for (FilterMap filterMap : filterMaps) {
+			context.removeFilterMap(filterMap);
+		}
+		for (FilterMap filterMap : sorted) {
+			context.addFilterMap(filterMap);
+		}
+	}
+
+	private static int getRanking(Context context, FilterMap filterMap) {
+		FilterDef filterDef = context.findFilterDef(filterMap.getFilterName());
+		return filterDef == null ? 0 : FilterModel.getRanking(filterDef.getParameterMap());
+	}
+
 	private static final Logger LOG = LoggerFactory
 			.getLogger(TomcatServerWrapper.class);
 	private static final String WEB_CONTEXT_PATH = "Web-ContextPath";
 	private final EmbeddedTomcat server;
 	private final Map<HttpContext, Context> contextMap = new ConcurrentHashMap<>();
+	private final RequestMetricsRegistry requestMetrics = new RequestMetricsRegistry();
 
 	private final Map<FilterModel, FilterLifecycleListener> filterLifecycleListenerMap = new ConcurrentHashMap<>();
 
@@ -358,8 +397,17 @@ class TomcatServerWrapper implements ServerWrapper {
 		} else {
 			//CHECKSTYLE:OFF
 			try {
+				if (server.getGracefulShutdownTimeout() > 0) {
+					// paused connectors don't accept new connections and reject new requests of open connections
+					// with 503, but let requests in progress complete
+					for (Connector connector : server.getService().findConnectors()) {
+						connector.pause();
+					}
+					drain(contextMap.values());
+				}
 				server.stop();
 				server.destroy();
+				requestMetrics.close();
 			} catch (final Throwable e) {
 				LOG.error("LifecycleException caught {}", e);
 			}
@@ -367,6 +415,17 @@ class TomcatServerWrapper implements ServerWrapper {
 		}
 	}
 
+	@Override
+	public RequestMetricsRegistry getRequestMetrics() {
+		return requestMetrics;
+	}
+
+	@Override
+	public void reconfigure(Configuration configuration, Set<String> changed) {
+		LOG.debug("reconfigure server, changed properties: {}", changed);
+		server.reconfigure(configuration, changed);
+	}
+
 	@Override
 	public void addServlet(final ServletModel model) {
 		LOG.debug("add servlet [{}]", model);
@@ -412,6 +471,7 @@ class TomcatServerWrapper implements ServerWrapper {
 				context.addLifecycleListener(listener);
 			}
 		}
+		invalidateContextSelection();
 	}
 
 	private void createServletWrapper(final ServletModel model,
@@ -465,7 +525,20 @@ class TomcatServerWrapper implements ServerWrapper {
 			Arrays.stream(urlPatterns).forEach(pattern -> context.removeServletMapping(pattern));
 			context.removeChild(servlet);
 		}
+		invalidateContextSelection();
+	}
 
+	/**
+	 * Forgets context versions remembered by {@link ContextSelectionHostValve} of all hosts, because
+	 * set of contexts or their wrappers has changed.
+	 */
+	private void invalidateContextSelection() {
+		for (Container host : server.getEngine().findChildren()) {
+			Valve basic = ((Host) host).getPipeline().getBasic();
+			if (basic instanceof ContextSelectionHostValve) {
+				((ContextSelectionHostValve) basic).invalidate();
+			}
+		}
 	}
 
 	@Override
@@ -486,6 +559,7 @@ class TomcatServerWrapper implements ServerWrapper {
 					"cannot remove the context because it does not exist: "
 							+ httpContext);
 		}
+		drain(Collections.singletonList(context));
 		try {
 			final LifecycleState state = context.getState();
 			if (LifecycleState.STOPPING != state
@@ -498,6 +572,7 @@ class TomcatServerWrapper implements ServerWrapper {
 					+ httpContext, e);
 		}
 		this.server.getHost().removeChild(context);
+		invalidateContextSelection();
 		try {
 			final LifecycleState state = context.getState();
 			if (LifecycleState.DESTROYED != state
@@ -510,6 +585,42 @@ class TomcatServerWrapper implements ServerWrapper {
 		}
 	}
 
+	/**
+	 * Rejects new requests of given contexts and waits (at most graceful shutdown timeout) for requests in
+	 * progress, so they complete before the contexts are stopped.
+	 *
+	 * @param contexts contexts to drain
+	 */
+	private void drain(Collection<Context> contexts) {
+		long timeout = server.getGracefulShutdownTimeout();
+		if (timeout <= 0) {
+			return;
+		}
+		List<ServiceValve> valves = new ArrayList<>();
+		for (Context context : contexts) {
+			if (!context.getState().isAvailable()) {
+				continue;
+			}
+			for (Valve valve : context.getPipeline().getValves()) {
+				if (valve instanceof ServiceValve) {
+					((ServiceValve) valve).shutdown(timeout);
+					valves.add((ServiceValve) valve);
+				}
+			}
+		}
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		try {
+			for (ServiceValve valve : valves) {
+				if (!valve.awaitShutdown(deadline)) {
+					LOG.warn("Requests in progress not completed within {}ms", timeout);
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	@Override
 	public void addEventListener(final EventListenerModel eventListenerModel) {
 		LOG.debug("add event listener: [{}]", eventListenerModel);
@@ -643,10 +754,27 @@ class TomcatServerWrapper implements ServerWrapper {
 
 	@Override
 	public void addFilter(final FilterModel filterModel) {
+		addFilter(filterModel, false);
+	}
+
+	@Override
+	public void insertFilter(final FilterModel filterModel) {
+		addFilter(filterModel, true);
+	}
+
+	private void addFilter(final FilterModel filterModel, final boolean ranked) {
 		LOG.debug("add filter [{}]", filterModel);
 
 		final Context context = findOrCreateContext(filterModel);
 		LifecycleState state = ((HttpServiceContext) context).getState();
+		if (ranked && LifecycleState.STARTED.equals(state) && !filterModel.getContextModel().isWebBundle()) {
+			// the listener adds the filter again when the context is restarted
+			FilterLifecycleListener listener = new FilterLifecycleListener(filterModel, context, true);
+			filterLifecycleListenerMap.put(filterModel, listener);
+			context.addLifecycleListener(listener);
+			insertRankedFilter(filterModel, (HttpServiceContext) context);
+			return;
+		}
 		boolean restartContext = false;
 		if ((LifecycleState.STARTING.equals(state) || LifecycleState.STARTED
 				.equals(state)) && !filterModel.getContextModel().isWebBundle()) {
@@ -659,7 +787,7 @@ class TomcatServerWrapper implements ServerWrapper {
 		}
 
 
-		FilterLifecycleListener listener = new FilterLifecycleListener(filterModel, context);
+		FilterLifecycleListener listener = new FilterLifecycleListener(filterModel, context, ranked);
 		filterLifecycleListenerMap.put(filterModel, listener);
 
 		context.addLifecycleListener(listener);
@@ -674,6 +802,64 @@ class TomcatServerWrapper implements ServerWrapper {
 
 	}
 
+	/**
+	 * Adds ranked filter to running context without restarting it. The filter is initialized and its mapping is
+	 * placed in front of mappings of filters with higher ranking.
+	 *
+	 * @param filterModel
+	 * @param context
+	 */
+	private void insertRankedFilter(final FilterModel filterModel, final HttpServiceContext context) {
+		FilterMap filterMap = new FilterMap();
+		filterMap.setFilterName(filterModel.getName());
+		for (DispatcherType dispatcherType : getDispatcherTypes(filterModel)) {
+			filterMap.setDispatcher(dispatcherType.name());
+		}
+		if (filterModel.getServletNames() != null && filterModel.getServletNames().length > 0) {
+			for (String servletName : filterModel.getServletNames()) {
+				filterMap.addServletName(servletName);
+			}
+		} else if (filterModel.getUrlPatterns() != null && filterModel.getUrlPatterns().length > 0) {
+			for (String urlPattern : filterModel.getUrlPatterns()) {
+				filterMap.addURLPattern(urlPattern);
+			}
+		} else {
+			throw new AddFilterException(
+					"cannot add filter to the context; at least a not empty list of servlet names or URL patterns in exclusive mode must be provided: "
+							+ filterModel);
+		}
+
+		FilterDef filterDef = new FilterDef();
+		filterDef.setFilterName(filterModel.getName());
+		if (filterModel.getFilter() != null) {
+			filterDef.setFilter(filterModel.getFilter());
+			filterDef.setFilterClass(filterModel.getFilter().getClass().getName());
+		} else {
+			filterDef.setFilterClass(filterModel.getFilterClass().getName());
+		}
+		filterDef.setAsyncSupported(Boolean.toString(filterModel.isAsyncSupported()));
+		for (Map.Entry<String, String> initParam : filterModel.getInitParams().entrySet()) {
+			filterDef.addInitParameter(initParam.getKey(), initParam.getValue());
+		}
+		context.addFilterDef(filterDef);
+		if (!context.startFilter(filterDef)) {
+			context.removeFilterDef(filterDef);
+			return;
+		}
+
+		int ranking = FilterModel.getRanking(filterDef.getParameterMap());
+		FilterMap[] filterMaps = context.findFilterMaps();
+		context.addFilterMap(filterMap);
+		// mappings of filters with higher ranking are moved behind the new one one by one, so other filters
+		// stay mapped for concurrent requests
+		for (FilterMap existing : filterMaps) {
+			if (getRanking(context, existing) > ranking) {
+				context.removeFilterMap(existing);
+				context.addFilterMap(existing);
+			}
+		}
+	}
+
 	private EnumSet<DispatcherType> getDispatcherTypes(
 			final FilterModel filterModel) {
 		final ArrayList<DispatcherType> dispatcherTypes = new ArrayList<>(
@@ -963,7 +1149,20 @@ class TomcatServerWrapper implements ServerWrapper {
 				contextModel.getVirtualHosts(), null /*contextModel.getConnectors() */,
 				server.getBasedir());
 
+		// per context session settings
+		if (contextModel.getSessionTimeout() != null) {
+			context.setSessionTimeout(contextModel.getSessionTimeout());
+		}
+		server.configureSessionPersistence(context, contextModel.getContextParams());
+
 		context.setDisplayName(httpContext.getContextId());
+		// wrappers are (re)mapped when context starts and unmapped when it stops
+		context.addLifecycleListener(event -> {
+			if (Lifecycle.AFTER_START_EVENT.equals(event.getType())
+					|| Lifecycle.AFTER_STOP_EVENT.equals(event.getType())) {
+				invalidateContextSelection();
+			}
+		});
 		// Similar to the Jetty fix for PAXWEB-725
 		// Without this the el implementation is not found
         ClassLoader classLoader = contextModel.getClassLoader();
@@ -998,7 +1197,8 @@ class TomcatServerWrapper implements ServerWrapper {
 		context.setLoginConfig(loginConfig);
 		LOG.debug("loginConfig: method={} realm={}", authMethod, realmName);
 		// Custom Service Valve for checking authentication stuff ...
-		context.getPipeline().addValve(new ServiceValve(httpContext));
+		context.getPipeline().addValve(new ServiceValve(httpContext, contextModel.getContextName(), requestMetrics,
+				server.getAdmissionControl()));
 		if (context.getAuthenticator() == null) {
 			// Authentication Valve according to configured authentication method
 			context.getPipeline().addValve(getAuthenticatorValve(authMethod));
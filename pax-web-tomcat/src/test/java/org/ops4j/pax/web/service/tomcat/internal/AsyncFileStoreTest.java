@@ -0,0 +1,208 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.tomcat.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.catalina.Session;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.session.FileStore;
+import org.apache.catalina.session.PersistentManager;
+import org.apache.catalina.session.StandardSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AsyncFileStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Background writes wait for this latch.
+	 */
+	private final CountDownLatch releaseWrites = new CountDownLatch(1);
+
+	private PersistentManager manager;
+	private File directory;
+	private AsyncFileStore store;
+
+	@Before
+	public void setUp() throws Exception {
+		StandardContext context = new StandardContext();
+		context.setName("test");
+		manager = new PersistentManager();
+		manager.setContext(context);
+		directory = folder.newFolder("sessions");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		releaseWrites.countDown();
+		if (store != null && store.getState().isAvailable()) {
+			store.stop();
+		}
+	}
+
+	@Test
+	public void pendingSessionIsLoadedFromMemory() throws Exception {
+		start(blockedWriter());
+		store.save(session("s1", "v1"));
+
+		assertEquals(1, store.getPendingWrites());
+		assertFalse(file("s1").exists());
+		assertArrayEquals(new String[] { "s1" }, store.keys());
+		assertEquals("v1", value(store.load("s1")));
+
+		releaseWrites.countDown();
+		awaitWritten();
+		assertTrue(file("s1").exists());
+		assertEquals("v1", value(store.load("s1")));
+	}
+
+	@Test
+	public void lastSaveWins() throws Exception {
+		start(blockedWriter());
+		store.save(session("s1", "v1"));
+		store.save(session("s1", "v2"));
+		assertEquals(1, store.getPendingWrites());
+		assertEquals("v2", value(store.load("s1")));
+
+		releaseWrites.countDown();
+		awaitWritten();
+		assertEquals("v2", value(store.load("s1")));
+		assertEquals("v2", value(fileStore().load("s1")));
+	}
+
+	@Test
+	public void removedSessionIsNotWrittenLater() throws Exception {
+		start(blockedWriter());
+		store.save(session("s1", "v1"));
+		store.remove("s1");
+		assertEquals(0, store.getPendingWrites());
+		assertNull(store.load("s1"));
+
+		releaseWrites.countDown();
+		store.stop();
+		assertFalse(file("s1").exists());
+		assertEquals(0, store.getSize());
+	}
+
+	@Test
+	public void pendingSessionsAreWrittenOnStop() throws Exception {
+		// executor which never runs the writes
+		start(new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>()) {
+			@Override
+			public void execute(Runnable command) {
+				// dropped - only stop() writes the sessions
+			}
+		});
+		store.save(session("s1", "v1"));
+		store.save(session("s2", "v2"));
+		assertEquals(2, store.getPendingWrites());
+
+		store.stop();
+		assertEquals(0, store.getPendingWrites());
+		assertEquals("v1", value(fileStore().load("s1")));
+		assertEquals("v2", value(fileStore().load("s2")));
+	}
+
+	@Test
+	public void savedSynchronouslyWhenNotStarted() throws Exception {
+		store = new AsyncFileStore();
+		store.setManager(manager);
+		store.setDirectory(directory.getAbsolutePath());
+		store.save(session("s1", "v1"));
+
+		assertEquals(0, store.getPendingWrites());
+		assertTrue(file("s1").exists());
+	}
+
+	private void start(ExecutorService writer) throws Exception {
+		store = new AsyncFileStore() {
+			@Override
+			ExecutorService createWriter() {
+				return writer;
+			}
+		};
+		store.setManager(manager);
+		store.setDirectory(directory.getAbsolutePath());
+		store.start();
+	}
+
+	private ExecutorService blockedWriter() {
+		ExecutorService writer = Executors.newSingleThreadExecutor();
+		writer.execute(() -> {
+			try {
+				releaseWrites.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		return writer;
+	}
+
+	private void awaitWritten() throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (store.getPendingWrites() > 0 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, store.getPendingWrites());
+	}
+
+	private StandardSession session(String id, String value) {
+		StandardSession session = (StandardSession) manager.createEmptySession();
+		session.setValid(true);
+		session.setCreationTime(System.currentTimeMillis());
+		session.setMaxInactiveInterval(60);
+		session.setId(id, false);
+		session.setAttribute("value", value);
+		return session;
+	}
+
+	private static Object value(Session session) {
+		return ((StandardSession) session).getAttribute("value");
+	}
+
+	private File file(String id) {
+		return new File(directory, id + ".session");
+	}
+
+	/**
+	 * Plain {@link FileStore} reading what was written by {@link AsyncFileStore}.
+	 */
+	private FileStore fileStore() {
+		FileStore fileStore = new FileStore();
+		fileStore.setManager(manager);
+		fileStore.setDirectory(directory.getAbsolutePath());
+		return fileStore;
+	}
+
+}
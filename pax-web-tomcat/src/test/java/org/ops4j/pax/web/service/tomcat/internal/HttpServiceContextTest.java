@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.tomcat.internal;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterConfig;
+
+import org.apache.catalina.core.StandardEngine;
+import org.apache.catalina.core.StandardHost;
+import org.apache.tomcat.SimpleInstanceManager;
+import org.apache.tomcat.util.descriptor.web.FilterDef;
+import org.junit.Test;
+
+public class HttpServiceContextTest {
+
+	@Test
+	public void singleFilterIsStartedWithoutOtherFilters() throws Exception {
+		HttpServiceContext context = new HttpServiceContext(null, null);
+		context.setContextAttributes(Collections.<String, Object>emptyMap());
+		context.setName("test");
+		context.setPath("/test");
+		StandardEngine engine = new StandardEngine();
+		engine.setName("Catalina");
+		StandardHost host = new StandardHost();
+		host.setName("localhost");
+		host.setParent(engine);
+		context.setParent(host);
+		// set when the context starts
+		context.setInstanceManager(new SimpleInstanceManager());
+
+		Filter other = createMock(Filter.class);
+		replay(other);
+		context.addFilterDef(filterDef("other", other));
+
+		Filter filter = createMock(Filter.class);
+		filter.init((FilterConfig) anyObject());
+		expectLastCall().once();
+		replay(filter);
+		FilterDef filterDef = filterDef("ranked", filter);
+		filterDef.addInitParameter("name", "value");
+		context.addFilterDef(filterDef);
+
+		assertTrue(context.startFilter(filterDef));
+		FilterConfig filterConfig = context.findFilterConfig("ranked");
+		assertNotNull(filterConfig);
+		assertEquals("value", filterConfig.getInitParameter("name"));
+		// other filters are not initialized again
+		verify(filter, other);
+	}
+
+	private static FilterDef filterDef(String name, Filter filter) {
+		FilterDef filterDef = new FilterDef();
+		filterDef.setFilterName(name);
+		filterDef.setFilter(filter);
+		filterDef.setFilterClass(filter.getClass().getName());
+		return filterDef;
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.tomcat.internal;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Test;
+import org.ops4j.pax.web.service.spi.admission.QueueDelay;
+
+public class QueueDelayExecutorTest {
+
+	private final QueueDelayExecutor executor = new QueueDelayExecutor();
+
+	@After
+	public void tearDown() throws Exception {
+		executor.stop();
+	}
+
+	@Test
+	public void waitForBusyThreadIsMeasured() throws Exception {
+		executor.setMaxThreads(1);
+		executor.setMinSpareThreads(1);
+		executor.start();
+
+		CountDownLatch busy = new CountDownLatch(1);
+		executor.execute(() -> {
+			try {
+				busy.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		AtomicLong delay = new AtomicLong(-1L);
+		CountDownLatch done = new CountDownLatch(1);
+		executor.execute(() -> {
+			delay.set(QueueDelay.take());
+			done.countDown();
+		});
+		Thread.sleep(100L);
+		busy.countDown();
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertTrue(delay.get() >= TimeUnit.MILLISECONDS.toNanos(100L));
+	}
+
+}
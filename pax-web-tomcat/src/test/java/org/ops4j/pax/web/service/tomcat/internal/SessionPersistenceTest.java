@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.tomcat.internal;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.catalina.session.FileStore;
+import org.apache.catalina.session.PersistentManager;
+import org.junit.Test;
+import org.ops4j.pax.web.service.WebContainerConstants;
+import org.ops4j.pax.web.service.spi.Configuration;
+
+public class SessionPersistenceTest {
+
+	@Test
+	public void serverWideSettingsAreUsedWithoutContextParameters() {
+		SessionPersistence persistence = new SessionPersistence(configuration("target/sessions", 10, false));
+
+		assertSame(persistence, persistence.forContext(null));
+		assertSame(persistence, persistence.forContext(new HashMap<>()));
+		assertTrue(persistence.isEnabled());
+
+		PersistentManager manager = persistence.createManager("[app]-default");
+		assertEquals(10, manager.getMaxActiveSessions());
+		assertEquals(FileStore.class, manager.getStore().getClass());
+		assertEquals(new File("target/sessions", "_app_-default").getAbsolutePath(),
+				((FileStore) manager.getStore()).getDirectory());
+	}
+
+	@Test
+	public void contextParametersOverrideServerWideSettings() {
+		SessionPersistence persistence = new SessionPersistence(configuration("target/sessions", 10, false));
+		Map<String, String> params = new HashMap<>();
+		params.put(WebContainerConstants.PROPERTY_SESSION_MAX_ACTIVE, "20");
+		params.put(WebContainerConstants.PROPERTY_SESSION_STORE_ASYNC, "true");
+		params.put(WebContainerConstants.PROPERTY_SESSION_LAZY_LOAD, "true");
+
+		SessionPersistence context = persistence.forContext(params);
+		assertTrue(context.isLazyLoad());
+		PersistentManager manager = context.createManager("app");
+		assertEquals(20, manager.getMaxActiveSessions());
+		assertEquals(AsyncFileStore.class, manager.getStore().getClass());
+		assertEquals(new File("target/sessions", "app").getAbsolutePath(),
+				((AsyncFileStore) manager.getStore()).getDirectory());
+
+		// server wide settings are not changed
+		assertFalse(persistence.isLazyLoad());
+		assertEquals(10, persistence.createManager("app").getMaxActiveSessions());
+	}
+
+	@Test
+	public void persistenceMayBeEnabledForSingleContext() {
+		SessionPersistence persistence = new SessionPersistence(configuration(null, null, null));
+		assertFalse(persistence.isEnabled());
+
+		Map<String, String> params = new HashMap<>();
+		params.put(WebContainerConstants.PROPERTY_SESSION_STORE_DIRECTORY, "target/app-sessions");
+		params.put(WebContainerConstants.PROPERTY_SESSION_MAX_ACTIVE, "not a number");
+		SessionPersistence context = persistence.forContext(params);
+		assertTrue(context.isEnabled());
+		assertEquals(new File("target/app-sessions", "app").getAbsoluteFile(), context.getStoreDirectory("app"));
+		// invalid value is ignored
+		assertEquals(-1, context.createManager("app").getMaxActiveSessions());
+	}
+
+	private static Configuration configuration(String storeDirectory, Integer maxActive, Boolean lazyLoad) {
+		Configuration configuration = createNiceMock(Configuration.class);
+		expect(configuration.getSessionStoreDirectory()).andReturn(storeDirectory).anyTimes();
+		expect(configuration.getSessionMaxActive()).andReturn(maxActive).anyTimes();
+		expect(configuration.getSessionLazyLoad()).andReturn(lazyLoad).anyTimes();
+		replay(configuration);
+		return configuration;
+	}
+
+}
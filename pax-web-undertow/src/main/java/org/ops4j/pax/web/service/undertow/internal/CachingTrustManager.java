@@ -0,0 +1,199 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.undertow.internal;
+
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CRL;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.Date;
+import java.util.concurrent.Callable;
+import javax.net.ssl.CertPathTrustManagerParameters;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedTrustManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>{@link X509ExtendedTrustManager} checking peer certificates with a PKIX trust manager created for parameters
+ * of a {@link CertificateValidator}. Successful checks of client certificate chains are remembered by the
+ * validator, so repeated handshakes with the same chain don't repeat path building and revocation checks
+ * (including OCSP requests).</p>
+ *
+ * <p>CRLs are loaded again when the CRL file changes ({@link #reloadCrls()} called by a watcher) or when next
+ * update of the loaded CRLs is due. The PKIX trust manager is then recreated and remembered results are
+ * forgotten.</p>
+ */
+class CachingTrustManager extends X509ExtendedTrustManager {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CachingTrustManager.class);
+
+	/**
+	 * Minimal time (in milliseconds) between reloads of CRLs with next update in the past.
+	 */
+	private static final long MIN_CRL_RELOAD_INTERVAL = 60_000L;
+
+	private final CertificateValidator validator;
+	private final String algorithm;
+	private final Callable<Collection<? extends CRL>> crlLoader;
+
+	private volatile X509ExtendedTrustManager delegate;
+	private long nextCrlReload;
+
+	/**
+	 * @param validator validator providing PKIX parameters and remembering results
+	 * @param algorithm algorithm of {@link TrustManagerFactory} supporting {@link CertPathTrustManagerParameters}
+	 * @param crlLoader loads CRLs again - {@code null} if CRLs are not configured
+	 * @throws GeneralSecurityException if the PKIX trust manager can't be created
+	 */
+	CachingTrustManager(CertificateValidator validator, String algorithm,
+			Callable<Collection<? extends CRL>> crlLoader) throws GeneralSecurityException {
+		this.validator = validator;
+		this.algorithm = algorithm;
+		this.crlLoader = crlLoader;
+		this.delegate = createDelegate();
+	}
+
+	private X509ExtendedTrustManager createDelegate() throws GeneralSecurityException {
+		TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(algorithm);
+		trustManagerFactory.init(new CertPathTrustManagerParameters(validator.getPKIXBuilderParameters()));
+		for (TrustManager trustManager : trustManagerFactory.getTrustManagers()) {
+			if (trustManager instanceof X509ExtendedTrustManager) {
+				return (X509ExtendedTrustManager) trustManager;
+			}
+		}
+		throw new NoSuchAlgorithmException("No X509ExtendedTrustManager available for " + algorithm);
+	}
+
+	/**
+	 * Loads CRLs again and replaces the PKIX trust manager.
+	 *
+	 * @throws Exception if CRLs can't be loaded or the trust manager can't be created
+	 */
+	synchronized void reloadCrls() throws Exception {
+		if (crlLoader == null) {
+			return;
+		}
+		validator.setCrls(crlLoader.call());
+		delegate = createDelegate();
+		LOG.info("Reloaded CRLs, next update: {}", validator.getCrlNextUpdate() == Long.MAX_VALUE
+				? "not specified" : new Date(validator.getCrlNextUpdate()));
+	}
+
+	/**
+	 * Reloads CRLs if their next update is due (at most once per {@link #MIN_CRL_RELOAD_INTERVAL}, so
+	 * a CRL which wasn't updated in time isn't loaded again for each handshake).
+	 *
+	 * @param now current time in milliseconds
+	 * @return {@code true} if CRLs were reloaded
+	 */
+	boolean reloadCrlsIfDue(long now) {
+		if (crlLoader == null || now < validator.getCrlNextUpdate()) {
+			return false;
+		}
+		synchronized (this) {
+			if (now < nextCrlReload) {
+				return false;
+			}
+			nextCrlReload = now + MIN_CRL_RELOAD_INTERVAL;
+			try {
+				reloadCrls();
+				return true;
+				//CHECKSTYLE:OFF
+			} catch (Exception e) {
+				LOG.warn("Reloading CRLs failed, will retry in {}ms", MIN_CRL_RELOAD_INTERVAL, e);
+				return false;
+			}
+			//CHECKSTYLE:ON
+		}
+	}
+
+	private X509ExtendedTrustManager delegate() {
+		reloadCrlsIfDue(System.currentTimeMillis());
+		return delegate;
+	}
+
+	/**
+	 * Checks client certificate chain, unless its successful check is remembered by the validator.
+	 */
+	private void checkClient(X509Certificate[] chain, ClientCheck check) throws CertificateException {
+		X509ExtendedTrustManager trustManager = delegate();
+		boolean cacheable = chain != null && chain.length > 0;
+		if (cacheable && validator.isValidated(chain)) {
+			return;
+		}
+		check.check(trustManager);
+		if (cacheable) {
+			synchronized (this) {
+				// not remembered, if CRLs were reloaded in the meantime
+				if (trustManager == delegate) {
+					validator.setValidated(chain);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+		checkClient(chain, trustManager -> trustManager.checkClientTrusted(chain, authType));
+	}
+
+	@Override
+	public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket)
+			throws CertificateException {
+		checkClient(chain, trustManager -> trustManager.checkClientTrusted(chain, authType, socket));
+	}
+
+	@Override
+	public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine)
+			throws CertificateException {
+		checkClient(chain, trustManager -> trustManager.checkClientTrusted(chain, authType, engine));
+	}
+
+	@Override
+	public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+		delegate().checkServerTrusted(chain, authType);
+	}
+
+	@Override
+	public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket)
+			throws CertificateException {
+		delegate().checkServerTrusted(chain, authType, socket);
+	}
+
+	@Override
+	public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine)
+			throws CertificateException {
+		delegate().checkServerTrusted(chain, authType, engine);
+	}
+
+	@Override
+	public X509Certificate[] getAcceptedIssuers() {
+		return delegate.getAcceptedIssuers();
+	}
+
+	@FunctionalInterface
+	private interface ClientCheck {
+		void check(X509ExtendedTrustManager trustManager) throws CertificateException;
+	}
+
+}
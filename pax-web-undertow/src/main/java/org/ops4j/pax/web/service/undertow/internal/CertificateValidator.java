@@ -17,11 +17,12 @@ package org.ops4j.pax.web.service.undertow.internal;
 
 
 
+import java.net.URI;
 import java.security.GeneralSecurityException;
 import java.security.InvalidParameterException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
-import java.security.Security;
+import java.security.MessageDigest;
 import java.security.cert.CRL;
 import java.security.cert.CertPathBuilder;
 import java.security.cert.CertPathBuilderResult;
@@ -31,11 +32,18 @@ import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CollectionCertStoreParameters;
 import java.security.cert.PKIXBuilderParameters;
+import java.security.cert.PKIXRevocationChecker;
+import java.security.cert.X509CRL;
 import java.security.cert.X509CertSelector;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
@@ -56,8 +64,21 @@ public class CertificateValidator
 private static final Logger LOG = LoggerFactory.getLogger(CertificateValidator.class);
 private static AtomicLong __aliasCount = new AtomicLong();
 
+/** Default time (in milliseconds) for which successful validation of a certificate chain is remembered */
+public static final long DEFAULT_CACHE_TIME_TO_LIVE = 60_000L;
+private static final int MAX_CACHED_RESULTS = 1024;
+
 private KeyStore _trustStore;
-private Collection<? extends CRL> _crls;
+private volatile Collection<? extends CRL> _crls;
+/** Earliest next update of configured CRLs */
+private volatile long _crlNextUpdate;
+
+/** Shared parameters, copied for each validation */
+private volatile PKIXBuilderParameters _pbParams;
+/** Fingerprints of validated certificate chains with time until which the result is valid */
+private final ConcurrentMap<String, Long> _validated = new ConcurrentHashMap<>();
+/** Time to live of remembered results, 0 disables caching */
+private volatile long _cacheTimeToLive = DEFAULT_CACHE_TIME_TO_LIVE;
 
 /** Maximum certification path length (n - number of intermediate certs, -1 for unlimited) */
 private int _maxCertPathLength = -1;
@@ -83,6 +104,7 @@ public CertificateValidator(KeyStore trustStore, Collection<? extends CRL> crls)
     
     _trustStore = trustStore;
     _crls = crls;
+    _crlNextUpdate = nextUpdate(crls);
 }
 
 /**
@@ -189,6 +211,14 @@ public void validate(KeyStore keyStore, Certificate cert) throws CertificateExce
     } 
 }
 
+/**
+ * validates a certificate chain. Successful results are remembered (by fingerprint of the whole chain)
+ * until the cache time to live passes, any certificate of the chain expires or next update of any
+ * configured CRL is due - whichever comes first.
+ *
+ * @param certChain the chain to validate
+ * @throws CertificateException if the chain is not valid
+ */
 public void validate(Certificate[] certChain) throws CertificateException
 {
     try
@@ -213,47 +243,233 @@ public void validate(Certificate[] certChain) throws CertificateException
             
         }
 
+        String fingerprint = _cacheTimeToLive > 0 ? fingerprint(certList) : null;
+        if (isValidated(fingerprint))
+        {
+            return;
+        }
+
         X509CertSelector certSelect = new X509CertSelector();
         certSelect.setCertificate(certList.get(0));
-        
-        // Configure certification path builder parameters
-        PKIXBuilderParameters pbParams = new PKIXBuilderParameters(_trustStore, certSelect);
+
+        // Configure certification path validation parameters - shared parameters are cloned
+        PKIXBuilderParameters pbParams = getPKIXBuilderParameters();
+        pbParams.setTargetCertConstraints(certSelect);
         pbParams.addCertStore(CertStore.getInstance("Collection", new CollectionCertStoreParameters(certList)));
 
-        // Set maximum certification path length
-        pbParams.setMaxPathLength(_maxCertPathLength);
+        // Build certification path - revocation is checked only once, by the validator
+        PKIXBuilderParameters buildParams = (PKIXBuilderParameters)pbParams.clone();
+        buildParams.setRevocationEnabled(false);
+        buildParams.setCertPathCheckers(null);
+        CertPathBuilderResult buildResult = CertPathBuilder.getInstance("PKIX").build(buildParams);
 
-        // Enable revocation checking
-        pbParams.setRevocationEnabled(true);
+        // Validate certification path
+        CertPathValidator.getInstance("PKIX").validate(buildResult.getCertPath(),pbParams);
 
-        // Set static Certificate Revocation List
-        if (_crls != null && !_crls.isEmpty())
-        {
-            pbParams.addCertStore(CertStore.getInstance("Collection", new CollectionCertStoreParameters(_crls)));
-        }
+        setValidated(fingerprint, certList);
+    }
+    catch (GeneralSecurityException gse)
+    {
+        LOG.error("Error while valid keystore", gse);
+        throw new CertificateException("Unable to validate certificate: " + gse.getMessage(), gse);
+    }
+}
+
+/**
+ * checks whether successful validation of a certificate chain is remembered
+ *
+ * @param certChain the chain (starting with the target certificate)
+ * @return true if the chain was successfully validated and the result is still valid
+ * @throws CertificateException if the chain can't be encoded
+ */
+public boolean isValidated(X509Certificate[] certChain) throws CertificateException
+{
+    if (_cacheTimeToLive <= 0)
+    {
+        return false;
+    }
+    try
+    {
+        return isValidated(fingerprint(Arrays.asList(certChain)));
+    }
+    catch (GeneralSecurityException gse)
+    {
+        throw new CertificateException("Unable to validate certificate: " + gse.getMessage(), gse);
+    }
+}
 
-        // Enable On-Line Certificate Status Protocol (OCSP) support
-        if (_enableOCSP)
+/**
+ * remembers successful validation of a certificate chain done outside of this validator (e.g. by a trust
+ * manager created for {@link #getPKIXBuilderParameters()})
+ *
+ * @param certChain the chain (starting with the target certificate)
+ * @throws CertificateException if the chain can't be encoded
+ */
+public void setValidated(X509Certificate[] certChain) throws CertificateException
+{
+    if (_cacheTimeToLive <= 0)
+    {
+        return;
+    }
+    try
+    {
+        List<X509Certificate> certList = Arrays.asList(certChain);
+        setValidated(fingerprint(certList), certList);
+    }
+    catch (GeneralSecurityException gse)
+    {
+        throw new CertificateException("Unable to validate certificate: " + gse.getMessage(), gse);
+    }
+}
+
+private boolean isValidated(String fingerprint)
+{
+    if (fingerprint == null)
+    {
+        return false;
+    }
+    Long validUntil = _validated.get(fingerprint);
+    return validUntil != null && validUntil > System.currentTimeMillis();
+}
+
+private void setValidated(String fingerprint, List<X509Certificate> certList)
+{
+    if (fingerprint == null)
+    {
+        return;
+    }
+    long validUntil = Math.min(System.currentTimeMillis() + _cacheTimeToLive, _crlNextUpdate);
+    for (X509Certificate cert : certList)
+    {
+        validUntil = Math.min(validUntil, cert.getNotAfter().getTime());
+    }
+    if (_validated.size() >= MAX_CACHED_RESULTS)
+    {
+        _validated.clear();
+    }
+    _validated.put(fingerprint, validUntil);
+}
+
+/**
+ * Returns a copy of {@link PKIXBuilderParameters} with trust anchors, CRLs and revocation checker
+ * configured for this validator. The shared parameters are created once - loading trust anchors
+ * from trust store and checking revocation configuration is not repeated for each validation.
+ * Target certificate constraints are not set.
+ *
+ * @return new copy of the parameters which can be modified by the caller
+ * @throws GeneralSecurityException if the parameters can't be created
+ */
+public PKIXBuilderParameters getPKIXBuilderParameters() throws GeneralSecurityException
+{
+    PKIXBuilderParameters pbParams = _pbParams;
+    if (pbParams == null)
+    {
+        synchronized (this)
         {
-            Security.setProperty("ocsp.enable","true");
+            pbParams = _pbParams;
+            if (pbParams == null)
+            {
+                pbParams = createPKIXBuilderParameters();
+                _pbParams = pbParams;
+            }
         }
-        // Enable Certificate Revocation List Distribution Points (CRLDP) support
-        if (_enableCRLDP)
+    }
+    return (PKIXBuilderParameters)pbParams.clone();
+}
+
+private PKIXBuilderParameters createPKIXBuilderParameters() throws GeneralSecurityException
+{
+    PKIXBuilderParameters pbParams = new PKIXBuilderParameters(_trustStore, new X509CertSelector());
+
+    // Set maximum certification path length
+    pbParams.setMaxPathLength(_maxCertPathLength);
+
+    // Enable revocation checking
+    pbParams.setRevocationEnabled(true);
+
+    // Set static Certificate Revocation List
+    if (_crls != null && !_crls.isEmpty())
+    {
+        pbParams.addCertStore(CertStore.getInstance("Collection", new CollectionCertStoreParameters(_crls)));
+    }
+
+    // Enable Certificate Revocation List Distribution Points (CRLDP) support. There's no API for that,
+    // but the property is read only once by the JDK, so it's not set again for each validation
+    if (_enableCRLDP && !Boolean.getBoolean("com.sun.security.enableCRLDP"))
+    {
+        System.setProperty("com.sun.security.enableCRLDP","true");
+    }
+
+    // Configure revocation checking of this validator instead of global "ocsp.*" security properties
+    PKIXRevocationChecker revocationChecker = (PKIXRevocationChecker)CertPathValidator.getInstance("PKIX").getRevocationChecker();
+    if (_enableOCSP)
+    {
+        // On-Line Certificate Status Protocol (OCSP) support with fallback to CRLs
+        if (_ocspResponderURL != null)
         {
-            System.setProperty("com.sun.security.enableCRLDP","true");
+            revocationChecker.setOcspResponder(URI.create(_ocspResponderURL));
         }
+    }
+    else
+    {
+        revocationChecker.setOptions(EnumSet.of(PKIXRevocationChecker.Option.PREFER_CRLS,
+                PKIXRevocationChecker.Option.NO_FALLBACK));
+    }
+    pbParams.addCertPathChecker(revocationChecker);
 
-        // Build certification path
-        CertPathBuilderResult buildResult = CertPathBuilder.getInstance("PKIX").build(pbParams);               
-        
-        // Validate certification path
-        CertPathValidator.getInstance("PKIX").validate(buildResult.getCertPath(),pbParams);
+    return pbParams;
+}
+
+/**
+ * Forgets shared parameters and cached results after configuration change.
+ */
+private void reset()
+{
+    _pbParams = null;
+    _validated.clear();
+}
+
+/**
+ * @return number of remembered successful validations
+ */
+int getCachedResultCount()
+{
+    return _validated.size();
+}
+
+private static String fingerprint(List<X509Certificate> certList) throws GeneralSecurityException
+{
+    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+    for (X509Certificate cert : certList)
+    {
+        digest.update(cert.getEncoded());
     }
-    catch (GeneralSecurityException gse)
+    byte[] bytes = digest.digest();
+    StringBuilder sb = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes)
     {
-        LOG.error("Error while valid keystore", gse);
-        throw new CertificateException("Unable to validate certificate: " + gse.getMessage(), gse);
+        sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return sb.toString();
+}
+
+/**
+ * @return earliest next update of configured CRLs, {@link Long#MAX_VALUE} if there are none
+ */
+private static long nextUpdate(Collection<? extends CRL> crls)
+{
+    long nextUpdate = Long.MAX_VALUE;
+    if (crls != null)
+    {
+        for (CRL crl : crls)
+        {
+            if (crl instanceof X509CRL && ((X509CRL)crl).getNextUpdate() != null)
+            {
+                nextUpdate = Math.min(nextUpdate, ((X509CRL)crl).getNextUpdate().getTime());
+            }
+        }
     }
+    return nextUpdate;
 }
 
 public KeyStore getTrustStore()
@@ -266,6 +482,27 @@ public Collection<? extends CRL> getCrls()
     return _crls;
 }
 
+/**
+ * Replaces Certificate Revocation Lists (e.g. reloaded after their next update). Remembered results are
+ * forgotten and new parameters are created by {@link #getPKIXBuilderParameters()}.
+ *
+ * @param crls the Certificate Revocation List to use
+ */
+public void setCrls(Collection<? extends CRL> crls)
+{
+    _crls = crls;
+    _crlNextUpdate = nextUpdate(crls);
+    reset();
+}
+
+/**
+ * @return earliest next update of configured CRLs, {@link Long#MAX_VALUE} if there are none
+ */
+public long getCrlNextUpdate()
+{
+    return _crlNextUpdate;
+}
+
 /**
  * @return Maximum number of intermediate certificates in
  * the certification path (-1 for unlimited)
@@ -284,6 +521,7 @@ public int getMaxCertPathLength()
 public void setMaxCertPathLength(int maxCertPathLength)
 {
     _maxCertPathLength = maxCertPathLength;
+    reset();
 }
 
 /* ------------------------------------------------------------ */
@@ -302,6 +540,7 @@ public boolean isEnableCRLDP()
 public void setEnableCRLDP(boolean enableCRLDP)
 {
     _enableCRLDP = enableCRLDP;
+    reset();
 }
 
 /* ------------------------------------------------------------ */
@@ -320,6 +559,7 @@ public boolean isEnableOCSP()
 public void setEnableOCSP(boolean enableOCSP)
 {
     _enableOCSP = enableOCSP;
+    reset();
 }
 
 /* ------------------------------------------------------------ */
@@ -338,6 +578,25 @@ public String getOcspResponderURL()
 public void setOcspResponderURL(String ocspResponderURL)
 {
     _ocspResponderURL = ocspResponderURL;
+    reset();
 }
+
+/* ------------------------------------------------------------ */
+/**
+ * @return time (in milliseconds) for which successful validation is remembered
+ */
+public long getCacheTimeToLive()
+{
+    return _cacheTimeToLive;
 }
 
+/* ------------------------------------------------------------ */
+/** Set the time for which successful validation of a certificate chain is remembered.
+ * @param cacheTimeToLive time in milliseconds, 0 disables caching
+ */
+public void setCacheTimeToLive(long cacheTimeToLive)
+{
+    _cacheTimeToLive = cacheTimeToLive;
+    _validated.clear();
+}
+}
@@ -24,10 +24,13 @@ import java.nio.file.Path;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import javax.servlet.DispatcherType;
+import javax.servlet.MultipartConfigElement;
 import javax.servlet.ServletContainerInitializer;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
@@ -43,6 +46,10 @@ import org.ops4j.pax.web.service.WebContainerConstants;
 import org.ops4j.pax.web.service.WebContainerContext;
 import org.ops4j.pax.web.service.spi.Configuration;
 import org.ops4j.pax.web.service.spi.LifeCycle;
+import org.ops4j.pax.web.service.spi.admission.AdmissionControl;
+import org.ops4j.pax.web.service.spi.admission.ConcurrencyLimit;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetrics;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
 import org.ops4j.pax.web.service.spi.model.ContainerInitializerModel;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
 import org.ops4j.pax.web.service.spi.model.ErrorPageModel;
@@ -52,6 +59,7 @@ import org.ops4j.pax.web.service.spi.model.ResourceModel;
 import org.ops4j.pax.web.service.spi.model.SecurityConstraintMappingModel;
 import org.ops4j.pax.web.service.spi.model.ServletModel;
 import org.ops4j.pax.web.service.spi.model.WelcomeFileModel;
+import org.ops4j.pax.web.service.spi.util.MultipartConfigUtil;
 import org.ops4j.pax.web.service.spi.util.ResourceDelegatingBundleClassLoader;
 import org.ops4j.pax.web.utils.ServletContainerInitializerScanner;
 import org.osgi.framework.*;
@@ -61,6 +69,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnio.XnioWorker;
 
+import io.undertow.conduits.BytesReceivedStreamSourceConduit;
 import io.undertow.io.IoCallback;
 import io.undertow.io.Sender;
 import io.undertow.security.idm.IdentityManager;
@@ -89,6 +98,7 @@ import io.undertow.servlet.handlers.ServletRequestContext;
 import io.undertow.servlet.util.ConstructorInstanceFactory;
 import io.undertow.servlet.util.ImmediateInstanceFactory;
 import io.undertow.util.ETag;
+import io.undertow.util.Headers;
 import io.undertow.util.MimeMappings;
 import io.undertow.util.StatusCodes;
 
@@ -114,6 +124,7 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 	private final AtomicBoolean started = new AtomicBoolean();
 	private final ClassLoader classLoader;
 	private volatile HttpHandler handler;
+	private volatile DrainingHandler drainingHandler;
 
 	private DeploymentManager manager;
 
@@ -126,6 +137,8 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 
 	private int defaultSessionTimeoutInMinutes;
 	private SessionPersistenceManager sessionPersistenceManager;
+	private Supplier<RequestMetricsRegistry> requestMetrics;
+	private Supplier<AdmissionControl> admissionControl;
 
 	public Context(IdentityManager identityManager, ContextAwarePathHandler path, ContextModel contextModel) {
 		this.identityManager = identityManager;
@@ -227,7 +240,17 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 		}
 	}
 
-	public synchronized void destroy() {
+	public void destroy() {
+		DrainingHandler draining = drainingHandler;
+		if (draining != null && handler != null) {
+			// let in-flight requests complete before the deployment is stopped. Not synchronized, because
+			// in-flight requests may still need the monitor in getHandler()
+			draining.drain("context /" + contextModel.getContextName());
+		}
+		doDestroy();
+	}
+
+	private synchronized void doDestroy() {
 		try {
 			LOG.info("destroying context {}, with context path: {}", contextModel.getHttpContext(), contextModel.getContextName());
 			destroyHandler(false);
@@ -263,6 +286,39 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 
 	@Override
 	public void handleRequest(HttpServerExchange exchange) throws Exception {
+		AdmissionControl admission = admissionControl == null ? null : admissionControl.get();
+		if (admission != null && !admission.isExempt(exchange.getRequestPath())) {
+			if (exchange.isInIoThread()) {
+				// the servlet handler would dispatch anyway - doing it here makes the time spent waiting for
+				// a worker thread part of the queueing delay
+				exchange.dispatch(this);
+				return;
+			}
+			final ConcurrencyLimit limit = admission.getLimit(contextModel.getContextName());
+			long received = exchange.getRequestStartTime();
+			if (!limit.tryAcquire(received > 0L ? System.nanoTime() - received : 0L)) {
+				// no error page, so the rejection is as cheap as possible
+				exchange.setStatusCode(StatusCodes.SERVICE_UNAVAILABLE);
+				exchange.getResponseHeaders().put(Headers.RETRY_AFTER, admission.getRetryAfter());
+				exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, 0L);
+				exchange.endExchange();
+				return;
+			}
+			// exchange completes also after async processing
+			exchange.addExchangeCompleteListener((completed, nextListener) -> {
+				limit.release();
+				nextListener.proceed();
+			});
+		}
+		DrainingHandler draining = drainingHandler;
+		if (draining != null) {
+			draining.handleRequest(exchange);
+		} else {
+			doHandleRequest(exchange);
+		}
+	}
+
+	private void doHandleRequest(HttpServerExchange exchange) throws Exception {
 		HttpHandler h = getHandler(null);
 		if (h != null) {
 			// Put back original request path
@@ -398,6 +454,10 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 		deployment.setDisplayName(httpContext.getContextId());
 		deployment.setContextPath('/' + contextModel.getContextName());
 		deployment.setClassLoader(classLoader);
+		if (configuration != null && configuration.getTemporaryDirectory() != null) {
+			// javax.servlet.context.tempdir and spool directory of uploads without multipart location
+			deployment.setTempDir(configuration.getTemporaryDirectory());
+		}
 		BundleContext bundleContext = contextModel.getBundle().getBundleContext();
 		if (bundleContext != null) {
 			deployment.addServletContextAttribute(WebContainerConstants.BUNDLE_CONTEXT_ATTRIBUTE, bundleContext);
@@ -450,6 +510,9 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
  			    info.setAsyncSupported(servlet.getAsyncSupported() != null ? servlet.getAsyncSupported() : false);
  			}
 			info.setLoadOnStartup(servlet.getLoadOnStartup() != null ? servlet.getLoadOnStartup() : -1);
+			if (servlet.getMultipartConfig() != null) {
+				info.setMultipartConfig(servlet.getMultipartConfig());
+			}
 			deployment.addServlet(info);
 		}
 		if (!defaultServletAdded && fallbackDefaultServlet != null) {
@@ -633,6 +696,65 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 			}
 		});
 
+		// Multipart requests with Content-Length over the limit of target servlet are rejected without reading the body
+		deployment.addInnerHandlerChainWrapper(new HandlerWrapper() {
+			@Override
+			public HttpHandler wrap(final HttpHandler handler) {
+				return exchange -> {
+					ServletRequestContext src = exchange.getAttachment(ServletRequestContext.ATTACHMENT_KEY);
+					if (src.getDispatcherType() == DispatcherType.REQUEST && src.getCurrentServlet() != null) {
+						MultipartConfigElement config = src.getCurrentServlet().getManagedServlet().getServletInfo()
+								.getMultipartConfig();
+						if (MultipartConfigUtil.exceedsMaxRequestSize(config,
+								exchange.getRequestHeaders().getFirst(Headers.CONTENT_TYPE),
+								exchange.getRequestContentLength())) {
+							exchange.setPersistent(false);
+							exchange.setStatusCode(StatusCodes.REQUEST_ENTITY_TOO_LARGE);
+							exchange.endExchange();
+							return;
+						}
+					}
+					handler.handleRequest(exchange);
+				};
+			}
+		});
+
+		// Request metrics - outside of security check, so rejected requests are recorded too
+		deployment.addInnerHandlerChainWrapper(new HandlerWrapper() {
+			@Override
+			public HttpHandler wrap(final HttpHandler handler) {
+				return exchange -> {
+					RequestMetricsRegistry registry = requestMetrics == null ? null : requestMetrics.get();
+					ServletRequestContext src = exchange.getAttachment(ServletRequestContext.ATTACHMENT_KEY);
+					if (registry != null && src.getDispatcherType() == DispatcherType.REQUEST) {
+						String servletName = src.getCurrentServlet() == null ? null
+								: src.getCurrentServlet().getManagedServlet().getServletInfo().getName();
+						final RequestMetrics metrics = registry.getMetrics(contextModel.getContextName(), servletName);
+						final long start = metrics.requestStarted();
+						// bytes actually read, Content-Length is -1 for chunked requests
+						final AtomicLong bytesRead = new AtomicLong();
+						boolean counted;
+						try {
+							exchange.addRequestWrapper((factory, ex) ->
+									new BytesReceivedStreamSourceConduit(factory.create(), bytesRead::addAndGet));
+							counted = true;
+						} catch (IllegalStateException e) {
+							// request channel already provided
+							counted = false;
+						}
+						final boolean bytesCounted = counted;
+						exchange.addExchangeCompleteListener((completed, nextListener) -> {
+							metrics.requestCompleted(start, completed.getStatusCode(),
+									bytesCounted ? bytesRead.get() : completed.getRequestContentLength(),
+									completed.getResponseBytesSent());
+							nextListener.proceed();
+						});
+					}
+					handler.handleRequest(exchange);
+				};
+			}
+		});
+
 		ServletSessionConfig ssc = new ServletSessionConfig();
 		if (contextModel.getSessionDomain() != null) {
 			ssc.setDomain(contextModel.getSessionDomain());
@@ -930,6 +1052,8 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 
 	public void setConfiguration(Configuration configuration) {
 		this.configuration = configuration;
+		Integer timeout = configuration == null ? null : configuration.getGracefulShutdownTimeout();
+		drainingHandler = timeout != null && timeout > 0 ? new DrainingHandler(this::doHandleRequest, timeout) : null;
 	}
 
 	public void setDefaultSessionTimeoutInMinutes(int defaultSessionTimeoutInMinutes) {
@@ -940,6 +1064,14 @@ public class Context implements LifeCycle, HttpHandler, ResourceManager {
 		this.sessionPersistenceManager = sessionPersistenceManager;
 	}
 
+	public void setRequestMetrics(Supplier<RequestMetricsRegistry> requestMetrics) {
+		this.requestMetrics = requestMetrics;
+	}
+
+	public void setAdmissionControl(Supplier<AdmissionControl> admissionControl) {
+		this.admissionControl = admissionControl;
+	}
+
 	private class DirectoryResource implements Resource {
 		private final URL url;
 
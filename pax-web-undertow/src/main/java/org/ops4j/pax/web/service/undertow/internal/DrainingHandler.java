@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.undertow.internal;
+
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.GracefulShutdownHandler;
+import io.undertow.util.Headers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Undertow's {@link GracefulShutdownHandler} which additionally sends {@code Retry-After} with the 503
+ * responses returned after {@link #drain(String)}. In-flight requests are counted until the exchange completes,
+ * so async requests are waited for too.</p>
+ *
+ * <p>Used for single {@link Context} when it's destroyed and as the root handler when the server is stopped.</p>
+ */
+class DrainingHandler implements HttpHandler {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DrainingHandler.class);
+
+	private final GracefulShutdownHandler graceful;
+	private final long timeout;
+	private final String retryAfter;
+
+	private volatile boolean draining;
+
+	/**
+	 * @param next handler of accepted requests
+	 * @param timeout time (in milliseconds) to wait for in-flight requests
+	 */
+	DrainingHandler(HttpHandler next, long timeout) {
+		this.graceful = new GracefulShutdownHandler(next);
+		this.timeout = timeout;
+		this.retryAfter = Long.toString(Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(timeout + 999L)));
+	}
+
+	@Override
+	public void handleRequest(HttpServerExchange exchange) throws Exception {
+		if (draining) {
+			exchange.getResponseHeaders().put(Headers.RETRY_AFTER, retryAfter);
+		}
+		graceful.handleRequest(exchange);
+	}
+
+	/**
+	 * Rejects new requests and waits (at most the configured timeout) for in-flight requests to complete.
+	 *
+	 * @param name name used in log messages
+	 */
+	void drain(String name) {
+		draining = true;
+		graceful.shutdown();
+		LOG.debug("Waiting for in-flight requests of {}", name);
+		try {
+			if (!graceful.awaitShutdown(timeout)) {
+				LOG.warn("Requests of {} not completed within {}ms", name, timeout);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Accepts requests again after {@link #drain(String)}.
+	 */
+	void resume() {
+		graceful.start();
+		draining = false;
+	}
+
+}
@@ -25,17 +25,16 @@ import java.security.KeyStore;
 import java.security.SecureRandom;
 import java.security.Security;
 import java.security.cert.CRL;
-import java.security.cert.CertStore;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateFactory;
-import java.security.cert.CollectionCertStoreParameters;
-import java.security.cert.PKIXBuilderParameters;
-import java.security.cert.X509CertSelector;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -46,12 +45,12 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
-import javax.net.ssl.CertPathTrustManagerParameters;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedKeyManager;
 import javax.servlet.Servlet;
 import javax.servlet.ServletException;
 import javax.xml.bind.JAXBContext;
@@ -72,11 +71,14 @@ import org.ops4j.lang.NullArgumentException;
 import org.ops4j.pax.swissbox.property.BundleContextPropertyResolver;
 import org.ops4j.pax.web.service.WebContainerConstants;
 import org.ops4j.pax.web.service.spi.Configuration;
+import org.ops4j.pax.web.service.spi.ConfigurationChange;
 import org.ops4j.pax.web.service.spi.ConfigurationSource;
 import org.ops4j.pax.web.service.spi.LifeCycle;
 import org.ops4j.pax.web.service.spi.ServerController;
 import org.ops4j.pax.web.service.spi.ServerEvent;
 import org.ops4j.pax.web.service.spi.ServerListener;
+import org.ops4j.pax.web.service.spi.admission.AdmissionControl;
+import org.ops4j.pax.web.service.spi.metrics.RequestMetricsRegistry;
 import org.ops4j.pax.web.service.spi.model.ContainerInitializerModel;
 import org.ops4j.pax.web.service.spi.model.ContextModel;
 import org.ops4j.pax.web.service.spi.model.ErrorPageModel;
@@ -86,6 +88,7 @@ import org.ops4j.pax.web.service.spi.model.ResourceModel;
 import org.ops4j.pax.web.service.spi.model.SecurityConstraintMappingModel;
 import org.ops4j.pax.web.service.spi.model.ServletModel;
 import org.ops4j.pax.web.service.spi.model.WelcomeFileModel;
+import org.ops4j.pax.web.service.spi.util.KeyStoreWatcher;
 import org.ops4j.pax.web.service.undertow.internal.configuration.ResolvingContentHandler;
 import org.ops4j.pax.web.service.undertow.internal.configuration.model.IoSubsystem;
 import org.ops4j.pax.web.service.undertow.internal.configuration.model.SecurityRealm;
@@ -136,6 +139,19 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
 
     private static final Logger LOG = LoggerFactory.getLogger(ServerControllerImpl.class);
 
+    // properties which are not used by running Undertow server (only by new registrations) - listeners,
+    // access log and root handler can't be changed without rebuilding whole Undertow instance
+    private static final Set<String> RECONFIGURABLE_PROPERTIES = new HashSet<>(Arrays.asList(
+            WebContainerConstants.PROPERTY_MAX_THREADS,
+            WebContainerConstants.PROPERTY_MIN_THREADS,
+            WebContainerConstants.PROPERTY_IDLE_TIMEOUT,
+            WebContainerConstants.PROPERTY_SESSION_TIMEOUT,
+            WebContainerConstants.PROPERTY_MULTIPART_LOCATION,
+            WebContainerConstants.PROPERTY_MULTIPART_MAX_FILE_SIZE,
+            WebContainerConstants.PROPERTY_MULTIPART_MAX_REQUEST_SIZE,
+            WebContainerConstants.PROPERTY_MULTIPART_FILE_SIZE_THRESHOLD
+    ));
+
     private final BundleContext bundleContext;
     private JAXBContext jaxb = null;
 
@@ -155,6 +171,19 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
 
     private XnioWorker xnioWorker;
 
+    // recreated with each start of the server
+    private volatile RequestMetricsRegistry requestMetrics;
+
+    // created with each configuration of the server - only when enabled
+    private volatile AdmissionControl admissionControl;
+
+    // root handler waiting for in-flight requests when the server is stopped - only with graceful shutdown timeout
+    private DrainingHandler drainingHandler;
+
+    // SSLContexts shared by listeners with the same SSL configuration
+    private final Map<List<Object>, SSLContext> sslContexts = new HashMap<>();
+    private final List<KeyStoreWatcher> keyStoreWatchers = new ArrayList<>();
+
     public ServerControllerImpl(BundleContext context) {
         this.bundleContext = context;
     }
@@ -176,6 +205,7 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
             doStop();
             state = State.Stopped;
         }
+        closeKeyStoreWatchers();
         notifyListeners(ServerEvent.STOPPED);
     }
 
@@ -208,6 +238,25 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
         }
     }
 
+    @Override
+    public synchronized boolean reconfigure(final Configuration config, final Set<String> changed) {
+        if (config == null || state != State.Started) {
+            return false;
+        }
+        for (String property : changed) {
+            if (ConfigurationChange.of(property) != ConfigurationChange.NONE
+                    && !RECONFIGURABLE_PROPERTIES.contains(property)) {
+                LOG.debug("Property {} can't be changed in running Undertow server", property);
+                return false;
+            }
+        }
+        LOG.debug("Reconfiguring server [{}] -> [{}], changed properties: {}", this, config, changed);
+        // used by contexts created from now on
+        configuration = config;
+        notifyListeners(ServerEvent.CONFIGURED);
+        return true;
+    }
+
     @Override
     public void addListener(ServerListener listener) {
         if (listener == null) {
@@ -267,6 +316,10 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
     private void doConfigure() {
         Undertow.Builder builder = Undertow.builder();
 
+        // new configuration - new SSL contexts
+        closeKeyStoreWatchers();
+        sslContexts.clear();
+
         // if no configuration method change root handler, simple path->HttpHandler will be used
         // where each HttpHandler is created in separate org.ops4j.pax.web.service.undertow.internal.Context
         HttpHandler rootHandler = path;
@@ -299,6 +352,20 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
             }
         }
 
+        admissionControl = AdmissionControl.create(configuration);
+        if (admissionControl != null) {
+            // queueing delay is measured from the time the request was read by IO thread
+            builder.setServerOption(UndertowOptions.RECORD_REQUEST_START_TIME, true);
+        }
+
+        Integer gracefulShutdownTimeout = configuration.getGracefulShutdownTimeout();
+        if (gracefulShutdownTimeout != null && gracefulShutdownTimeout > 0) {
+            drainingHandler = new DrainingHandler(rootHandler, gracefulShutdownTimeout);
+            rootHandler = drainingHandler;
+        } else {
+            drainingHandler = null;
+        }
+
         builder.setHandler(rootHandler);
         server = builder.build();
     }
@@ -308,6 +375,10 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
      * instance. The remaining task is to start the server.
      */
     void doStart() {
+        requestMetrics = new RequestMetricsRegistry();
+        if (drainingHandler != null) {
+            drainingHandler.resume();
+        }
         server.start();
     }
 
@@ -382,6 +453,10 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
                     AccessLogHandler.class.getClassLoader());
         }
 
+        if (configuration.getListeningUnixSocket() != null) {
+            LOG.error("Unix domain socket {} ({}) is not supported by Undertow, only Pax Web Jetty can listen on it",
+                    configuration.getListeningUnixSocket(), WebContainerConstants.PROPERTY_LISTENING_UNIX_SOCKET);
+        }
         for (String address : configuration.getListeningAddresses()) {
             if (configuration.isHttpEnabled()) {
                 LOG.info("Starting undertow http listener on " + address + ":" + configuration.getHttpPort());
@@ -389,7 +464,6 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
             }
             if (configuration.isHttpSecureEnabled()) {
                 LOG.info("Starting undertow https listener on " + address + ":" + configuration.getHttpSecurePort());
-                // TODO: could this be shared across interface:port bindings?
                 SSLContext context = buildSSLContext();
                 builder.addHttpsListener(configuration.getHttpSecurePort(), address, context);
             }
@@ -554,7 +628,6 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
                 }
                 for (String address : binding.getAddresses()) {
                     LOG.info("Starting undertow https listener on " + address + ":" + binding.getPort());
-                    // TODO: could this be shared across interface:port bindings?
                     SSLContext sslContext = buildSSLContext(realm);
 
                     builder.addHttpsListener(binding.getPort(), address, sslContext);
@@ -807,40 +880,57 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
                                        String sslKeystoreProvider,
                                        String sslTruststoreProvider,
                                        String sslProvider) {
+        // listeners (e.g. for different addresses) with the same configuration share single SSLContext
+        List<Object> key = Arrays.asList(keystorePath, keystoreType, keystorePassword, keystoreKeyPassword,
+                keystoreCertAlias, truststorePath, truststoreType, truststorePassword, validateCerts, crlPath,
+                secureRandomAlgorithm, validatePeerCerts, enableCRLDP, enableOCSP, ocspResponderURL,
+                sslKeystoreProvider, sslTruststoreProvider, sslProvider);
+        SSLContext context = sslContexts.get(key);
+        if (context == null) {
+            context = createSSLContext(keystorePath, keystoreType, keystorePassword, keystoreKeyPassword,
+                    keystoreCertAlias, truststorePath, truststoreType, truststorePassword, validateCerts, crlPath,
+                    secureRandomAlgorithm, validatePeerCerts, enableCRLDP, enableOCSP, ocspResponderURL,
+                    sslKeystoreProvider, sslTruststoreProvider, sslProvider);
+            sslContexts.put(key, context);
+        }
+        return context;
+    }
+
+    private SSLContext createSSLContext(String keystorePath, String keystoreType, String keystorePassword, String keystoreKeyPassword, String keystoreCertAlias,
+                                        String truststorePath, String truststoreType, String truststorePassword,
+                                        boolean validateCerts, String crlPath,
+                                        String secureRandomAlgorithm,
+                                        boolean validatePeerCerts, boolean enableCRLDP,
+                                        boolean enableOCSP, String ocspResponderURL,
+                                        String sslKeystoreProvider,
+                                        String sslTruststoreProvider,
+                                        String sslProvider) {
         try {
-            URL keyStoreURL = loadResource(keystorePath);
-            KeyStore keyStore = getKeyStore(keyStoreURL,
-                    keystoreType != null ? keystoreType : "JKS",
-                    keystorePassword, sslKeystoreProvider);
-
-            if (keystoreCertAlias != null) {
-                // just as in org.jboss.as.domain.management.security.FileKeystore#load(), we have to
-                // create temporary, single key entry keystore
-                KeyStore newKeystore = KeyStore.getInstance(keystoreType != null ? keystoreType : "JKS");
-                newKeystore.load(null);
-
-                if (keyStore.containsAlias(keystoreCertAlias)) {
-                    KeyStore.ProtectionParameter password = new KeyStore.PasswordProtection(keystoreKeyPassword == null ? null : keystoreKeyPassword.toCharArray());
-                    if (keyStore.isKeyEntry(keystoreCertAlias)) {
-                        KeyStore.Entry entry = keyStore.getEntry(keystoreCertAlias, password);
-                        newKeystore.setEntry(keystoreCertAlias, entry, password);
-                        keyStore = newKeystore;
-                    } else {
-                        throw new IllegalArgumentException("Entry \"keystoreCertAlias\" is not private key entry in keystore " + keystorePath);
+            KeyStore keyStore = loadKeyStore(keystorePath, keystoreType, keystorePassword, keystoreKeyPassword,
+                    keystoreCertAlias, sslKeystoreProvider);
+
+            // key managers - replaced when keystore file changes
+            KeyManager[] keyManagers = createKeyManagers(keyStore, keystoreKeyPassword);
+            Integer reloadInterval = configuration.getSslReloadInterval();
+            if (reloadInterval != null && reloadInterval > 0 && keyManagers.length == 1
+                    && keyManagers[0] instanceof X509ExtendedKeyManager) {
+                final ReloadableKeyManager reloadableKeyManager = new ReloadableKeyManager((X509ExtendedKeyManager) keyManagers[0]);
+                keyManagers = new KeyManager[] { reloadableKeyManager };
+                KeyStoreWatcher watcher = new KeyStoreWatcher("keystore " + keystorePath, () -> {
+                    try {
+                        KeyManager[] reloaded = createKeyManagers(loadKeyStore(keystorePath, keystoreType,
+                                keystorePassword, keystoreKeyPassword, keystoreCertAlias, sslKeystoreProvider),
+                                keystoreKeyPassword);
+                        reloadableKeyManager.setDelegate((X509ExtendedKeyManager) reloaded[0]);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e.getMessage(), e);
                     }
-                } else {
-                    throw new IllegalArgumentException("Entry \"keystoreCertAlias\" not found in keystore " + keystorePath);
+                }, keystorePath);
+                if (watcher.start(reloadInterval)) {
+                    keyStoreWatchers.add(watcher);
                 }
             }
 
-            // key managers
-            String _keyManagerFactoryAlgorithm = Security.getProperty("ssl.KeyManagerFactory.algorithm") == null
-                    ? KeyManagerFactory.getDefaultAlgorithm()
-                    : Security.getProperty("ssl.KeyManagerFactory.algorithm");
-            KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(_keyManagerFactoryAlgorithm);
-            keyManagerFactory.init(keyStore, keystoreKeyPassword == null ? null : keystoreKeyPassword.toCharArray());
-            KeyManager[] keyManagers = keyManagerFactory.getKeyManagers();
-
             // trust managers - possibly with OCSP
             TrustManager[] trustManagers = null;
             SecureRandom random = (secureRandomAlgorithm == null) ? null : SecureRandom.getInstance(secureRandomAlgorithm);
@@ -857,14 +947,15 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
                 Collection<? extends CRL> crls = crlPath == null ? null : loadCRL(crlPath);
 
                 if (validateCerts && keyStore != null) {
-                    if (keystoreCertAlias == null) {
+                    String certAlias = keystoreCertAlias;
+                    if (certAlias == null) {
                         List<String> aliases = Collections.list(keyStore.aliases());
-                        keystoreCertAlias = aliases.size() == 1 ? aliases.get(0) : null;
+                        certAlias = aliases.size() == 1 ? aliases.get(0) : null;
                     }
 
-                    Certificate cert = keystoreCertAlias == null ? null : keyStore.getCertificate(keystoreCertAlias);
+                    Certificate cert = certAlias == null ? null : keyStore.getCertificate(certAlias);
                     if (cert == null) {
-                        throw new IllegalArgumentException("No certificate found in the keystore" + (keystoreCertAlias == null ? "" : " for alias \"" + keystoreCertAlias + "\""));
+                        throw new IllegalArgumentException("No certificate found in the keystore" + (certAlias == null ? "" : " for alias \"" + certAlias + "\""));
                     }
 
                     CertificateValidator validator = new CertificateValidator(trustStore, crls);
@@ -877,34 +968,32 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
                 // Revocation checking is only supported for PKIX algorithm
                 // see org.eclipse.jetty.util.ssl.SslContextFactory.getTrustManagers()
                 if (validatePeerCerts && _trustManagerFactoryAlgorithm.equalsIgnoreCase("PKIX")) {
-                    PKIXBuilderParameters pbParams = new PKIXBuilderParameters(trustStore, new X509CertSelector());
-
-                    // Make sure revocation checking is enabled
-                    pbParams.setRevocationEnabled(true);
-
-                    if (crls != null && !crls.isEmpty()) {
-                        pbParams.addCertStore(CertStore.getInstance("Collection", new CollectionCertStoreParameters(crls)));
-                    }
-
-                    if (enableCRLDP) {
-                        // Enable Certificate Revocation List Distribution Points (CRLDP) support
-                        System.setProperty("com.sun.security.enableCRLDP", "true");
-                    }
-
-                    if (enableOCSP) {
-                        // Enable On-Line Certificate Status Protocol (OCSP) support
-                        Security.setProperty("ocsp.enable", "true");
-
-                        if (ocspResponderURL != null) {
-                            // Override location of OCSP Responder
-                            Security.setProperty("ocsp.responderURL", ocspResponderURL);
+                    // revocation checking is configured per trust manager - without changing global
+                    // "ocsp.*" security properties
+                    CertificateValidator peerValidator = new CertificateValidator(trustStore, crls);
+                    peerValidator.setEnableCRLDP(enableCRLDP);
+                    peerValidator.setEnableOCSP(enableOCSP);
+                    peerValidator.setOcspResponderURL(ocspResponderURL);
+                    // default of PKIXBuilderParameters used so far
+                    peerValidator.setMaxCertPathLength(5);
+
+                    // successful checks of client certificates are remembered by the validator, CRLs are
+                    // reloaded when their next update is due or when the file changes
+                    final CachingTrustManager trustManager = new CachingTrustManager(peerValidator,
+                            _trustManagerFactoryAlgorithm, crlPath == null ? null : () -> loadCRL(crlPath));
+                    trustManagers = new TrustManager[] { trustManager };
+                    if (crlPath != null && reloadInterval != null && reloadInterval > 0) {
+                        KeyStoreWatcher watcher = new KeyStoreWatcher("CRL " + crlPath, () -> {
+                            try {
+                                trustManager.reloadCrls();
+                            } catch (Exception e) {
+                                throw new IllegalStateException(e.getMessage(), e);
+                            }
+                        }, crlPath);
+                        if (watcher.start(reloadInterval)) {
+                            keyStoreWatchers.add(watcher);
                         }
                     }
-
-                    TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(_trustManagerFactoryAlgorithm);
-                    trustManagerFactory.init(new CertPathTrustManagerParameters(pbParams));
-
-                    trustManagers = trustManagerFactory.getTrustManagers();
                 } else {
                     TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(_trustManagerFactoryAlgorithm);
                     trustManagerFactory.init(trustStore);
@@ -922,12 +1011,67 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
 
             context.init(keyManagers, trustManagers, random);
 
+            Integer sessionCacheSize = configuration.getSslSessionCacheSize();
+            if (sessionCacheSize != null) {
+                context.getServerSessionContext().setSessionCacheSize(sessionCacheSize);
+            }
+            Integer sessionTimeout = configuration.getSslSessionTimeout();
+            if (sessionTimeout != null) {
+                context.getServerSessionContext().setSessionTimeout(sessionTimeout);
+            }
+
             return context;
         } catch (Exception e) {
             throw new IllegalArgumentException("Unable to build SSL context", e);
         }
     }
 
+    private KeyStore loadKeyStore(String keystorePath, String keystoreType, String keystorePassword, String keystoreKeyPassword,
+                                  String keystoreCertAlias, String sslKeystoreProvider) throws Exception {
+        URL keyStoreURL = loadResource(keystorePath);
+        KeyStore keyStore = getKeyStore(keyStoreURL,
+                keystoreType != null ? keystoreType : "JKS",
+                keystorePassword, sslKeystoreProvider);
+
+        if (keystoreCertAlias != null) {
+            // just as in org.jboss.as.domain.management.security.FileKeystore#load(), we have to
+            // create temporary, single key entry keystore
+            KeyStore newKeystore = KeyStore.getInstance(keystoreType != null ? keystoreType : "JKS");
+            newKeystore.load(null);
+
+            if (keyStore.containsAlias(keystoreCertAlias)) {
+                KeyStore.ProtectionParameter password = new KeyStore.PasswordProtection(keystoreKeyPassword == null ? null : keystoreKeyPassword.toCharArray());
+                if (keyStore.isKeyEntry(keystoreCertAlias)) {
+                    KeyStore.Entry entry = keyStore.getEntry(keystoreCertAlias, password);
+                    newKeystore.setEntry(keystoreCertAlias, entry, password);
+                    keyStore = newKeystore;
+                } else {
+                    throw new IllegalArgumentException("Entry \"keystoreCertAlias\" is not private key entry in keystore " + keystorePath);
+                }
+            } else {
+                throw new IllegalArgumentException("Entry \"keystoreCertAlias\" not found in keystore " + keystorePath);
+            }
+        }
+
+        return keyStore;
+    }
+
+    private KeyManager[] createKeyManagers(KeyStore keyStore, String keystoreKeyPassword) throws Exception {
+        String _keyManagerFactoryAlgorithm = Security.getProperty("ssl.KeyManagerFactory.algorithm") == null
+                ? KeyManagerFactory.getDefaultAlgorithm()
+                : Security.getProperty("ssl.KeyManagerFactory.algorithm");
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(_keyManagerFactoryAlgorithm);
+        keyManagerFactory.init(keyStore, keystoreKeyPassword == null ? null : keystoreKeyPassword.toCharArray());
+        return keyManagerFactory.getKeyManagers();
+    }
+
+    private void closeKeyStoreWatchers() {
+        for (KeyStoreWatcher watcher : keyStoreWatchers) {
+            watcher.close();
+        }
+        keyStoreWatchers.clear();
+    }
+
     /**
      * Build {@link SSLContext} from <code>org.ops4j.pax.web</code> PID configuration
      * @return
@@ -1034,10 +1178,22 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
     }
 
     void doStop() {
+        if (drainingHandler != null) {
+            drainingHandler.drain("server");
+        }
         if (xnioWorker != null) {
             xnioWorker.shutdown();
         }
         server.stop();
+        if (requestMetrics != null) {
+            requestMetrics.close();
+            requestMetrics = null;
+        }
+    }
+
+    @Override
+    public RequestMetricsRegistry getRequestMetrics() {
+        return requestMetrics;
     }
 
     @Override
@@ -1047,13 +1203,18 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
     }
 
     @Override
-    public synchronized void removeContext(HttpContext httpContext) {
-        assertNotState(State.Unconfigured);
-        final Context context = contextMap.remove(httpContext);
+    public void removeContext(HttpContext httpContext) {
+        final Context context;
+        synchronized (this) {
+            assertNotState(State.Unconfigured);
+            context = contextMap.remove(httpContext);
+        }
         if (context == null) {
             throw new IllegalStateException("Cannot remove the context because it does not exist: "
                                             + httpContext);
         }
+        // outside of the monitor - draining in-flight requests may take up to graceful shutdown timeout and
+        // the controller shouldn't be blocked for other contexts meanwhile
         context.destroy();
     }
 
@@ -1085,6 +1246,8 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
             newCtx.setConfiguration(configuration);
             newCtx.setDefaultSessionTimeoutInMinutes(defaultSessionTimeoutInMinutes);
             newCtx.setSessionPersistenceManager(sessionPersistenceManager);
+            newCtx.setRequestMetrics(this::getRequestMetrics);
+            newCtx.setAdmissionControl(() -> admissionControl);
             contextMap.put(contextModel.getHttpContext(), newCtx);
             final Servlet servlet = createResourceServlet(contextModel, "/", "default");
             final ResourceModel model = new ResourceModel(contextModel, servlet, "/", "default");
@@ -1154,6 +1317,12 @@ public class ServerControllerImpl implements ServerController, IdentityManager {
         }
     }
 
+    @Override
+    public void insertFilter(FilterModel model) {
+        // filters of the context are already kept ordered by ranking
+        addFilter(model);
+    }
+
     @Override
     public void removeFilter(FilterModel model) {
         assertNotState(State.Unconfigured);
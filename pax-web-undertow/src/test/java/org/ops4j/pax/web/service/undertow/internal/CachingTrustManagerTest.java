@@ -0,0 +1,140 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.undertow.internal;
+
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.cert.CRL;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Uses certificates from {@code src/test/resources/certificates} (see {@link CertificateValidatorTest}).
+ */
+public class CachingTrustManagerTest {
+
+	private final AtomicInteger crlLoads = new AtomicInteger();
+
+	private KeyStore trustStore;
+	private Collection<? extends CRL> crls;
+	private X509Certificate[] valid;
+	private X509Certificate[] revoked;
+
+	@Before
+	public void setUp() throws Exception {
+		CertificateFactory cf = CertificateFactory.getInstance("X.509");
+		trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+		trustStore.load(null, null);
+		trustStore.setCertificateEntry("ca", load(cf, "ca.crt"));
+		valid = new X509Certificate[] { load(cf, "valid.crt") };
+		revoked = new X509Certificate[] { load(cf, "revoked.crt") };
+		try (InputStream is = getClass().getResourceAsStream("/certificates/ca.crl")) {
+			crls = cf.generateCRLs(is);
+		}
+	}
+
+	@Test
+	public void successfulClientCheckIsRemembered() throws Exception {
+		CertificateValidator validator = new CertificateValidator(trustStore, crls);
+		CachingTrustManager trustManager = new CachingTrustManager(validator, "PKIX", null);
+		assertFalse(validator.isValidated(valid));
+
+		trustManager.checkClientTrusted(valid, "RSA");
+		assertTrue(validator.isValidated(valid));
+		assertEquals(1, validator.getCachedResultCount());
+
+		trustManager.checkClientTrusted(valid, "RSA");
+		assertEquals(1, validator.getCachedResultCount());
+	}
+
+	@Test
+	public void revokedClientIsRejected() throws Exception {
+		CertificateValidator validator = new CertificateValidator(trustStore, crls);
+		CachingTrustManager trustManager = new CachingTrustManager(validator, "PKIX", null);
+		try {
+			trustManager.checkClientTrusted(revoked, "RSA");
+			fail("Revoked certificate should not be trusted");
+		} catch (CertificateException expected) {
+		}
+		assertFalse(validator.isValidated(revoked));
+		assertEquals(0, validator.getCachedResultCount());
+	}
+
+	@Test
+	public void reloadedCrlsAreUsed() throws Exception {
+		CertificateValidator validator = new CertificateValidator(trustStore, Collections.<CRL>emptyList());
+		CachingTrustManager trustManager = new CachingTrustManager(validator, "PKIX", this::loadCrls);
+		try {
+			trustManager.checkClientTrusted(valid, "RSA");
+			fail("Check without any revocation information should fail");
+		} catch (CertificateException expected) {
+		}
+
+		trustManager.reloadCrls();
+		assertEquals(1, crlLoads.get());
+		trustManager.checkClientTrusted(valid, "RSA");
+		try {
+			trustManager.checkClientTrusted(revoked, "RSA");
+			fail("Revoked certificate should not be trusted");
+		} catch (CertificateException expected) {
+		}
+	}
+
+	@Test
+	public void crlsAreReloadedWhenNextUpdateIsDue() throws Exception {
+		CertificateValidator validator = new CertificateValidator(trustStore, crls);
+		CachingTrustManager trustManager = new CachingTrustManager(validator, "PKIX", this::loadCrls);
+		trustManager.checkClientTrusted(valid, "RSA");
+		assertEquals(1, validator.getCachedResultCount());
+
+		long nextUpdate = validator.getCrlNextUpdate();
+		assertFalse(trustManager.reloadCrlsIfDue(System.currentTimeMillis()));
+		assertEquals(0, crlLoads.get());
+
+		assertTrue(trustManager.reloadCrlsIfDue(nextUpdate));
+		assertEquals(1, crlLoads.get());
+		assertEquals(0, validator.getCachedResultCount());
+
+		// CRL without newer next update is not loaded for each handshake
+		assertFalse(trustManager.reloadCrlsIfDue(nextUpdate + 1000L));
+		assertTrue(trustManager.reloadCrlsIfDue(nextUpdate + 60_000L));
+		assertEquals(2, crlLoads.get());
+	}
+
+	private Collection<? extends CRL> loadCrls() {
+		crlLoads.incrementAndGet();
+		return crls;
+	}
+
+	private X509Certificate load(CertificateFactory cf, String name) throws Exception {
+		try (InputStream is = getClass().getResourceAsStream("/certificates/" + name)) {
+			return (X509Certificate) cf.generateCertificate(is);
+		}
+	}
+
+}
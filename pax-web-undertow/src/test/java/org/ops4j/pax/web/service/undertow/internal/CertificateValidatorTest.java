@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.undertow.internal;
+
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.security.Security;
+import java.security.cert.CRL;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Certificates in {@code src/test/resources/certificates} were generated with {@code openssl ca} - a CA,
+ * two certificates signed by it and a CRL revoking one of them.
+ */
+public class CertificateValidatorTest {
+
+	private KeyStore trustStore;
+	private Collection<? extends CRL> crls;
+	private Certificate valid;
+	private Certificate revoked;
+
+	@Before
+	public void setUp() throws Exception {
+		CertificateFactory cf = CertificateFactory.getInstance("X.509");
+		trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+		trustStore.load(null, null);
+		trustStore.setCertificateEntry("ca", load(cf, "ca.crt"));
+		valid = load(cf, "valid.crt");
+		revoked = load(cf, "revoked.crt");
+		try (InputStream is = getClass().getResourceAsStream("/certificates/ca.crl")) {
+			crls = cf.generateCRLs(is);
+		}
+	}
+
+	@Test
+	public void validChainIsValidatedOnce() throws Exception {
+		CertificateValidator validator = new CertificateValidator(trustStore, crls);
+		validator.validate(new Certificate[] { valid });
+		assertEquals(1, validator.getCachedResultCount());
+		validator.validate(new Certificate[] { valid });
+		assertEquals(1, validator.getCachedResultCount());
+
+		validator.setCacheTimeToLive(0);
+		validator.validate(new Certificate[] { valid });
+		assertEquals(0, validator.getCachedResultCount());
+	}
+
+	@Test
+	public void revokedCertificateIsRejectedUsingCrl() throws Exception {
+		CertificateValidator validator = new CertificateValidator(trustStore, crls);
+		try {
+			validator.validate(new Certificate[] { revoked });
+			fail("Revoked certificate should not be valid");
+		} catch (CertificateException expected) {
+		}
+		assertEquals(0, validator.getCachedResultCount());
+	}
+
+	@Test
+	public void revocationCheckingWithoutCrlFails() throws Exception {
+		CertificateValidator validator = new CertificateValidator(trustStore, Collections.<CRL>emptyList());
+		try {
+			validator.validate(new Certificate[] { valid });
+			fail("Validation without any revocation information should fail");
+		} catch (CertificateException expected) {
+		}
+	}
+
+	@Test
+	public void ocspDoesNotChangeSecurityProperties() throws Exception {
+		String ocspEnable = Security.getProperty("ocsp.enable");
+		CertificateValidator validator = new CertificateValidator(trustStore, crls);
+		validator.setEnableOCSP(true);
+		validator.setOcspResponderURL("http://127.0.0.1:1/ocsp");
+		try {
+			validator.validate(new Certificate[] { revoked });
+			fail("Revoked certificate should not be valid");
+		} catch (CertificateException expected) {
+		}
+		assertEquals(ocspEnable, Security.getProperty("ocsp.enable"));
+		assertNull(Security.getProperty("ocsp.responderURL"));
+	}
+
+	private Certificate load(CertificateFactory cf, String name) throws Exception {
+		try (InputStream is = getClass().getResourceAsStream("/certificates/" + name)) {
+			return cf.generateCertificate(is);
+		}
+	}
+
+}
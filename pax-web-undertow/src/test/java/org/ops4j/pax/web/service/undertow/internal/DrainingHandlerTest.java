@@ -0,0 +1,149 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.pax.web.service.undertow.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.undertow.Undertow;
+import io.undertow.server.handlers.BlockingHandler;
+import org.junit.After;
+import org.junit.Test;
+
+public class DrainingHandlerTest {
+
+	private final CountDownLatch slowStarted = new CountDownLatch(1);
+	private final CountDownLatch releaseSlow = new CountDownLatch(1);
+	private final ExecutorService clients = Executors.newCachedThreadPool();
+
+	private Undertow server;
+	private DrainingHandler draining;
+	private int port;
+
+	@After
+	public void tearDown() {
+		releaseSlow.countDown();
+		clients.shutdownNow();
+		if (server != null) {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void inFlightRequestCompletesAndNewRequestsAreRejected() throws Exception {
+		start(5000L);
+		Future<Integer> slow = clients.submit(() -> status("/slow"));
+		assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+
+		Future<?> drained = clients.submit(() -> draining.drain("test"));
+		HttpURLConnection rejected = awaitRejection();
+		assertEquals("5", rejected.getHeaderField("Retry-After"));
+		assertFalse(drained.isDone());
+
+		releaseSlow.countDown();
+		assertEquals(200, slow.get(5, TimeUnit.SECONDS).intValue());
+		drained.get(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void drainWaitsAtMostTheTimeout() throws Exception {
+		start(200L);
+		Future<Integer> slow = clients.submit(() -> status("/slow"));
+		assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+
+		long start = System.nanoTime();
+		draining.drain("test");
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue("Drain took " + elapsed + "ms", elapsed >= 200L && elapsed < 5000L);
+		assertFalse(slow.isDone());
+
+		releaseSlow.countDown();
+		assertEquals(200, slow.get(5, TimeUnit.SECONDS).intValue());
+	}
+
+	@Test
+	public void requestsAreAcceptedAgainAfterResume() throws Exception {
+		start(5000L);
+		assertEquals(200, status("/fast"));
+
+		draining.drain("test");
+		assertEquals(503, status("/fast"));
+
+		draining.resume();
+		assertEquals(200, status("/fast"));
+	}
+
+	private void start(long timeout) throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		draining = new DrainingHandler(new BlockingHandler(exchange -> {
+			if ("/slow".equals(exchange.getRequestPath())) {
+				slowStarted.countDown();
+				releaseSlow.await();
+			}
+			exchange.getResponseSender().send("done");
+		}), timeout);
+		server = Undertow.builder()
+				.addHttpListener(port, "localhost")
+				.setHandler(draining)
+				.build();
+		server.start();
+	}
+
+	/**
+	 * Sends new requests until the handler starts rejecting them (after {@code drain()} was called).
+	 */
+	private HttpURLConnection awaitRejection() throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (System.nanoTime() < deadline) {
+			HttpURLConnection connection = connect("/fast");
+			if (connection.getResponseCode() == 503) {
+				return connection;
+			}
+			connection.disconnect();
+		}
+		throw new AssertionError("New requests were not rejected");
+	}
+
+	private int status(String path) throws IOException {
+		HttpURLConnection connection = connect(path);
+		try {
+			return connection.getResponseCode();
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private HttpURLConnection connect(String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+		connection.setConnectTimeout(5000);
+		connection.setReadTimeout(10000);
+		return connection;
+	}
+
+}